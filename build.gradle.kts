@@ -1,3 +1,5 @@
+import groovy.json.JsonSlurper
+
 plugins {
     id("java")
     id("io.quarkus") version "3.2.9.Final"
@@ -12,6 +14,17 @@ repositories {
 }
 
 val quarkusVersion = "3.2.9.Final"
+val jmhVersion = "1.37"
+
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+configurations["jmhImplementation"].extendsFrom(configurations.implementation.get())
+configurations["jmhRuntimeOnly"].extendsFrom(configurations.runtimeOnly.get())
 
 dependencies {
     implementation(platform("io.quarkus.platform:quarkus-bom:${quarkusVersion}"))
@@ -22,6 +35,8 @@ dependencies {
     implementation("io.quarkus:quarkus-arc")
     testImplementation("io.quarkus:quarkus-junit5")
     testImplementation("io.rest-assured:rest-assured")
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:${jmhVersion}")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:${jmhVersion}")
 }
 
 application {
@@ -44,3 +59,102 @@ tasks.named<JavaExec>("run") {
         "-Djava.util.logging.manager=org.jboss.logmanager.LogManager"
     )
 }
+
+val jmhResults = layout.buildDirectory.file("results/jmh/results.json")
+val jmhBaseline = layout.projectDirectory.file("src/jmh/baseline.json")
+
+// ./gradlew jmh [-Pjmh.include=Logging] [-Pjmh.threshold=10] [-Pjmh.requireBaseline]
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks with the GC profiler and compares them against the baseline"
+    dependsOn("jmhClasses")
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+
+    val resultsFile = jmhResults.get().asFile
+    args = listOf(
+        project.findProperty("jmh.include")?.toString() ?: ".*",
+        "-prof", "gc",
+        "-rf", "json",
+        "-rff", resultsFile.absolutePath
+    )
+
+    outputs.file(resultsFile)
+    outputs.upToDateWhen { false }
+    doFirst { resultsFile.parentFile.mkdirs() }
+    finalizedBy("jmhCompare")
+}
+
+tasks.register("jmhCompare") {
+    group = "benchmark"
+    description = "Fails when throughput dropped or allocation grew past -Pjmh.threshold percent of the baseline, " +
+            "or with -Pjmh.requireBaseline when a benchmark has no baseline to compare against"
+
+    doLast {
+        val threshold = project.findProperty("jmh.threshold")?.toString()?.toDouble() ?: 10.0
+        // a bare -Pjmh.requireBaseline has an empty value, so only an explicit false turns it off
+        val requireBaseline = project.findProperty("jmh.requireBaseline")?.toString()?.let { it != "false" } ?: false
+        val resultsFile = jmhResults.get().asFile
+        val baselineFile = jmhBaseline.asFile
+
+        if(!resultsFile.exists()) throw GradleException("No JMH results at $resultsFile, run the jmh task first")
+        if(!baselineFile.exists()) {
+            val message = "No JMH baseline at $baselineFile, run jmhBaseline to record one"
+            if(requireBaseline) throw GradleException(message)
+
+            logger.lifecycle(message)
+            return@doLast
+        }
+
+        // benchmark name plus parameters -> (ops/s, bytes allocated per op)
+        fun load(file: File): Map<String, Pair<Double, Double?>> =
+            (JsonSlurper().parse(file) as List<*>).associate { entry ->
+                val run = entry as Map<*, *>
+                val params = (run["params"] as Map<*, *>?)?.entries?.joinToString(",", "[", "]") { "${it.key}=${it.value}" } ?: ""
+                val primary = run["primaryMetric"] as Map<*, *>
+                val allocation = (run["secondaryMetrics"] as Map<*, *>?)?.entries
+                    ?.firstOrNull { it.key.toString().endsWith("gc.alloc.rate.norm") }
+                    ?.let { ((it.value as Map<*, *>)["score"] as Number).toDouble() }
+
+                "${run["benchmark"]}$params" to Pair((primary["score"] as Number).toDouble(), allocation)
+            }
+
+        val baseline = load(baselineFile)
+        val results = load(resultsFile)
+        val regressions = mutableListOf<String>()
+        val unmatched = results.keys.filter { it !in baseline }
+
+        if(unmatched.isNotEmpty()) {
+            val message = "No baseline for ${unmatched.size} benchmarks, run jmhBaseline to record them:\n" + unmatched.joinToString("\n")
+            if(requireBaseline) throw GradleException(message)
+
+            logger.lifecycle(message)
+        }
+
+        for((name, current) in results) {
+            val previous = baseline[name] ?: continue
+            val throughputChange = (current.first - previous.first) / previous.first * 100
+            if(throughputChange < -threshold)
+                regressions += "$name: %.0f -> %.0f ops/s (%.1f%%)".format(previous.first, current.first, throughputChange)
+
+            val previousBytes = previous.second
+            val currentBytes = current.second
+            // a few bytes either way is profiler noise, only flag allocation that grew by more than that
+            if(previousBytes != null && currentBytes != null && currentBytes > previousBytes * (1 + threshold / 100) + 16)
+                regressions += "$name: %.1f -> %.1f B/op allocated".format(previousBytes, currentBytes)
+        }
+
+        if(regressions.isNotEmpty())
+            throw GradleException("Benchmarks regressed past ${threshold}% of the baseline:\n" + regressions.joinToString("\n"))
+
+        logger.lifecycle("${results.size - unmatched.size} benchmarks within ${threshold}% of the baseline")
+    }
+}
+
+tasks.register<Copy>("jmhBaseline") {
+    group = "benchmark"
+    description = "Stores the latest JMH results as the baseline later runs are compared against"
+    from(jmhResults)
+    into(jmhBaseline.asFile.parentFile)
+    rename { jmhBaseline.asFile.name }
+}
@@ -0,0 +1,52 @@
+package dev.thoq.zenith.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.thoq.zenith.model.enums.MetricType;
+import dev.thoq.zenith.storage.BenchmarkStorage;
+import dev.thoq.zenith.storage.MetricRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /api/metrics}: reading the current snapshot and serialising the response with Jackson.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MetricsEndpointBenchmark {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private DashboardRestController controller;
+
+    @Setup
+    public void setup() {
+        MetricRegistry registry = BenchmarkStorage.metricRegistry(BenchmarkStorage.seriesStore());
+        registry.set(MetricType.CPU_USAGE, 42.5);
+        registry.set(MetricType.MEMORY_USAGE, 63.25);
+        registry.set(MetricType.DISK_USAGE, 120_394.5);
+        registry.set(MetricType.NETWORK_UPLOAD, 1024);
+        registry.set(MetricType.NETWORK_DOWNLOAD, 8192);
+        registry.publish(System.currentTimeMillis() * 1_000_000L);
+
+        controller = new DashboardRestController();
+        controller.metricRegistry = registry;
+    }
+
+    @Benchmark
+    public byte[] getMetrics() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(controller.getMetrics());
+    }
+}
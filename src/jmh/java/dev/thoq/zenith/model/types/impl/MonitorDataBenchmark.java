@@ -0,0 +1,56 @@
+package dev.thoq.zenith.model.types.impl;
+
+import dev.thoq.zenith.model.types.MonitorData;
+import dev.thoq.zenith.storage.MetricSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the map-backed {@link MonitorDataImpl} against reading the same values through the snapshot view.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MonitorDataBenchmark {
+    private Map<String, Map<String, Double>> data;
+    private MonitorData snapshotView;
+
+    @Setup
+    public void setup() {
+        data = Map.of(
+                "cpu", Map.of("usage", 42.5),
+                "memory", Map.of("usage", 63.25),
+                "disk", Map.of("usage", 120_394.5),
+                "network", Map.of("upload", 1024.0, "download", 8192.0)
+        );
+        snapshotView = new SnapshotMonitorDataImpl(new MetricSnapshot());
+    }
+
+    @Benchmark
+    public MonitorData constructMonitorDataImpl() {
+        return new MonitorDataImpl(data);
+    }
+
+    @Benchmark
+    public void readSnapshotView(Blackhole blackhole) {
+        for(Map.Entry<String, Map<String, Double>> group : snapshotView.entrySet()) {
+            for(Map.Entry<String, Double> field : group.getValue().entrySet())
+                blackhole.consume(field.getValue());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package dev.thoq.zenith.processor;
+
+import dev.thoq.zenith.service.monitoring.NetworkMonitorService;
+import dev.thoq.zenith.service.monitoring.ResourceMonitorService;
+import dev.thoq.zenith.storage.BenchmarkStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One processor tick: reading the core metrics, publishing the snapshot and appending every value to its
+ * history. The monitor services return fixed values so only the aggregation itself is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MetricsAggregatorBenchmark {
+    private MetricsAggregator aggregator;
+
+    @Setup
+    public void setup() {
+        aggregator = new MetricsAggregator();
+        aggregator.metricRegistry = BenchmarkStorage.metricRegistry(BenchmarkStorage.seriesStore());
+        aggregator.networkMonitorService = new NetworkMonitorService();
+        aggregator.resourceMonitorService = new ResourceMonitorService() {
+            @Override
+            public double getCpuUsage() {
+                return 42.5;
+            }
+
+            @Override
+            public double getMemoryUsagePercentage() {
+                return 63.25;
+            }
+
+            @Override
+            public double getDiskUsageMb() {
+                return 120_394.5;
+            }
+        };
+    }
+
+    @Benchmark
+    public void aggregate() {
+        aggregator.aggregate();
+    }
+}
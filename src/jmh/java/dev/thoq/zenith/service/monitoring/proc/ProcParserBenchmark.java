@@ -0,0 +1,107 @@
+package dev.thoq.zenith.service.monitoring.proc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The /proc and /sys parsers behind the network, process and cgroup probes, run against the fixture files
+ * under {@code src/jmh/resources/fixtures} so results don't depend on the machine running them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ProcParserBenchmark {
+    private final NetDevParser netDevParser = new NetDevParser();
+    private final ProcessStatParser statParser = new ProcessStatParser();
+    private final ProcessIoParser ioParser = new ProcessIoParser();
+    private final KeyValueParser memoryStatParser = new KeyValueParser(
+            "anon", "file", "slab", "sock", "shmem", "file_dirty", "file_writeback"
+    );
+    private final long[] netDevFields = new long[NetDevParser.FIELDS];
+    private final long[] statFields = new long[ProcessStatParser.FIELDS];
+    private final long[] ioFields = new long[ProcessIoParser.FIELDS];
+    private final long[] memoryStatValues = new long[memoryStatParser.size()];
+    private byte[] netDev;
+    private byte[] stat;
+    private byte[] io;
+    private byte[] memoryStat;
+    private Path netDevCopy;
+    private ProcFile netDevFile;
+
+    @Setup
+    public void setup() throws IOException {
+        netDev = fixture("proc/net/dev");
+        stat = fixture("proc/1234/stat");
+        io = fixture("proc/1234/io");
+        memoryStat = fixture("sys/fs/cgroup/memory.stat");
+
+        netDevCopy = Files.createTempFile("zenith-net-dev", null);
+        Files.write(netDevCopy, netDev);
+        netDevFile = new ProcFile(netDevCopy, 8192);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        netDevFile.close();
+        Files.deleteIfExists(netDevCopy);
+    }
+
+    @Benchmark
+    public void netDev(Blackhole blackhole) {
+        NetDevParser parser = netDevParser.reset(netDev, netDev.length);
+        while(parser.next(netDevFields))
+            blackhole.consume(netDevFields[NetDevParser.RX_BYTES]);
+    }
+
+    @Benchmark
+    public boolean readNetDev() {
+        return netDevFile.read();
+    }
+
+    @Benchmark
+    public long processStat() {
+        statParser.parse(stat, stat.length, statFields);
+        return statFields[ProcessStatParser.UTIME];
+    }
+
+    @Benchmark
+    public long processIo() {
+        ioParser.parse(io, io.length, ioFields);
+        return ioFields[ProcessIoParser.READ_BYTES];
+    }
+
+    @Benchmark
+    public long cgroupMemoryStat() {
+        memoryStatParser.parse(memoryStat, memoryStat.length, memoryStatValues);
+        return memoryStatValues[0];
+    }
+
+    private static byte[] fixture(String name) {
+        try(InputStream in = ProcParserBenchmark.class.getResourceAsStream("/fixtures/" + name)) {
+            if(in == null) throw new IllegalStateException("Missing benchmark fixture " + name);
+            return in.readAllBytes();
+        } catch(IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package dev.thoq.zenith.storage;
+
+import java.time.Duration;
+
+/**
+ * Builds storage beans outside of CDI with the production defaults and persistence switched off.
+ */
+public final class BenchmarkStorage {
+    private BenchmarkStorage() {
+    }
+
+    public static SeriesStore seriesStore() {
+        SeriesStore store = new SeriesStore();
+        store.diskMetricStore = new DiskMetricStore();
+        store.capacity = 36000;
+        store.compressedRetention = Duration.ofDays(1);
+        store.chunkSamples = 1024;
+        store.tenSecondRetention = Duration.ofHours(6);
+        store.oneMinuteRetention = Duration.ofDays(7);
+        store.oneHourRetention = Duration.ofDays(90);
+        return store;
+    }
+
+    public static MetricRegistry metricRegistry(SeriesStore store) {
+        MetricRegistry registry = new MetricRegistry();
+        registry.seriesStore = store;
+        registry.init();
+        return registry;
+    }
+}
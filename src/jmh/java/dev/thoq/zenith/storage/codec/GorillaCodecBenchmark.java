@@ -0,0 +1,92 @@
+package dev.thoq.zenith.storage.codec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding one full compressed chunk of a 100ms probe, scored per sample. {@code flat} is a value that
+ * never changes, {@code counter} a steadily growing byte counter and {@code noisy} a percentage that moves every
+ * sample, the worst case for the XOR value encoding.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GorillaCodecBenchmark {
+    private static final int SAMPLES = 1024;
+    private static final long START = 1_700_000_000_000_000_000L;
+
+    @Param({"flat", "counter", "noisy"})
+    public String shape;
+
+    private final long[] timestamps = new long[SAMPLES];
+    private final double[] values = new double[SAMPLES];
+    private final GorillaEncoder encoder = new GorillaEncoder();
+    private final GorillaDecoder decoder = new GorillaDecoder();
+    private byte[] chunk;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        long timestamp = START;
+        double counter = 1L << 40;
+
+        for(int i = 0; i < SAMPLES; i++) {
+            // scheduling jitter of up to a millisecond either way, at the codec's microsecond precision
+            timestamp += 100_000_000L + (random.nextInt(2_001) - 1_000) * 1_000L;
+            counter += random.nextInt(1500);
+
+            timestamps[i] = timestamp;
+            values[i] = switch(shape) {
+                case "flat" -> 42.0;
+                case "counter" -> counter;
+                default -> random.nextDouble() * 100.0;
+            };
+        }
+
+        for(int i = 0; i < SAMPLES; i++)
+            encoder.append(timestamps[i], values[i]);
+
+        chunk = encoder.toByteArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int encode() {
+        encoder.reset();
+        for(int i = 0; i < SAMPLES; i++)
+            encoder.append(timestamps[i], values[i]);
+
+        return encoder.sizeBytes();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double decode() {
+        decoder.reset(chunk, SAMPLES);
+        double sum = 0.0;
+        long last = 0;
+
+        while(decoder.next()) {
+            sum += decoder.value();
+            last = decoder.timestamp();
+        }
+
+        return sum + last;
+    }
+}
@@ -0,0 +1,69 @@
+package dev.thoq.zenith.util;
+
+import dev.thoq.zenith.model.enums.LogOverflowPolicy;
+import dev.thoq.zenith.util.log.LogOutput;
+import dev.thoq.zenith.util.log.LogWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a log call on the calling thread, with output discarded so only the logging path is measured.
+ * In {@code async} mode the caller just enqueues, in {@code sync} mode it formats and encodes the line itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LoggingBenchmark {
+    private static final LoggingUtils logger = LoggingUtils.getLogger(LoggingBenchmark.class);
+
+    @Param({"async", "sync"})
+    public String mode;
+
+    @Setup
+    public void setup() {
+        LoggingUtils.setLevel(LoggingUtils.Level.INFO);
+        LoggingUtils.setWriter(new LogWriter(new DiscardingOutput(), "async".equals(mode) ? 8192 : 0, LogOverflowPolicy.DROP));
+    }
+
+    @TearDown
+    public void tearDown() {
+        LoggingUtils.shutdown();
+    }
+
+    @Benchmark
+    public void info() {
+        logger.info("Probe %s sampled in %dms", "network", 3);
+    }
+
+    @Benchmark
+    public void belowLevel() {
+        logger.trace("Probe %s sampled in %dms", "network", 3);
+    }
+
+    private static final class DiscardingOutput implements LogOutput {
+        @Override
+        public void write(ByteBuffer bytes) {
+            bytes.position(bytes.limit());
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
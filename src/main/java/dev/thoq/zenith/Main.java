@@ -1,32 +1,47 @@
 package dev.thoq.zenith;
 
-import dev.thoq.zenith.collector.MetricsCollector;
-import dev.thoq.zenith.collector.NetworkStatsCollector;
-import dev.thoq.zenith.collector.ProcessStatsCollector;
+import dev.thoq.zenith.collector.SamplingEngine;
 import dev.thoq.zenith.processor.RealTimeProcessor;
+import dev.thoq.zenith.service.alert.AlertService;
+import dev.thoq.zenith.service.monitoring.PressureMonitorService;
 import dev.thoq.zenith.util.LoggingUtils;
+import dev.thoq.zenith.util.log.LoggingConfiguration;
 import io.quarkus.runtime.Quarkus;
 import io.quarkus.runtime.QuarkusApplication;
+import jakarta.inject.Inject;
 
 public class Main implements QuarkusApplication {
     private static final LoggingUtils logger = LoggingUtils.getLogger(Main.class);
-    private static final MetricsCollector metricsCollector = new MetricsCollector();
-    private static final NetworkStatsCollector networkStatsCollector = new NetworkStatsCollector();
-    private static final ProcessStatsCollector processStatsCollector = new ProcessStatsCollector();
-    private static final RealTimeProcessor realtimeProcessor = new RealTimeProcessor();
-
-    public static void initialize() {
-        metricsCollector.runUpdateMetrics();
-        networkStatsCollector.runUpdateNetworkStats();
-        processStatsCollector.runUpdateProcessStats();
+
+    @Inject
+    LoggingConfiguration loggingConfiguration;
+
+    @Inject
+    SamplingEngine samplingEngine;
+
+    @Inject
+    RealTimeProcessor realtimeProcessor;
+
+    @Inject
+    PressureMonitorService pressureMonitorService;
+
+    @Inject
+    AlertService alertService;
+
+    public void initialize() {
+        loggingConfiguration.apply();
+        alertService.start();
         realtimeProcessor.runUpdateProcessStats();
+        samplingEngine.start();
+        pressureMonitorService.start();
     }
 
-    public static void shutdown() {
-        metricsCollector.stopUpdateMetrics();
-        networkStatsCollector.stopUpdateNetworkStats();
-        processStatsCollector.stopUpdateProcessStats();
+    public void shutdown() {
+        pressureMonitorService.stop();
         realtimeProcessor.stopUpdateProcessStats();
+        samplingEngine.stop();
+        alertService.stop();
+        LoggingUtils.shutdown();
     }
 
     public static void main(String[] args) {
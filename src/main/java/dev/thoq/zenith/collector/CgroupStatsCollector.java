@@ -0,0 +1,106 @@
+package dev.thoq.zenith.collector;
+
+import dev.thoq.zenith.service.monitoring.CgroupMonitorService;
+import dev.thoq.zenith.service.monitoring.cgroup.CgroupStats;
+import dev.thoq.zenith.storage.SeriesStore;
+import dev.thoq.zenith.util.TimeUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records cgroup v2 usage in container mode: every stat of the monitored cgroup as {@code container.*}, and a
+ * smaller set per child cgroup as {@code container.*:<child>}
+ */
+@ApplicationScoped
+public class CgroupStatsCollector implements Probe {
+    private static final String[] STAT_METRICS = {
+            "container.cpu.usage", "container.cpu.limit", "container.cpu.throttled",
+            "container.memory.current", "container.memory.limit", "container.memory.usage",
+            "container.memory.anon", "container.memory.file", "container.memory.slab", "container.memory.sock",
+            "container.memory.shmem", "container.memory.dirty", "container.memory.writeback",
+            "container.io.read_bytes", "container.io.write_bytes", "container.io.read_ops", "container.io.write_ops",
+            "container.pressure.cpu.some", "container.pressure.memory.some", "container.pressure.memory.full",
+            "container.pressure.io.some", "container.pressure.io.full"
+    };
+    private static final int[] CHILD_STATS = {
+            CgroupStats.CPU_USAGE, CgroupStats.CPU_THROTTLED, CgroupStats.MEMORY_CURRENT, CgroupStats.MEMORY_USAGE,
+            CgroupStats.IO_READ_BYTES, CgroupStats.IO_WRITE_BYTES, CgroupStats.PRESSURE_MEMORY_SOME,
+            CgroupStats.PRESSURE_IO_SOME
+    };
+
+    private final Map<String, String[]> childMetricNames = new HashMap<>();
+
+    @Inject
+    CgroupMonitorService cgroupMonitorService;
+
+    @Inject
+    SeriesStore seriesStore;
+
+    @ConfigProperty(name = "zenith.probe.cgroup.interval", defaultValue = "PT1S")
+    Duration interval;
+
+    @Override
+    public String getName() {
+        return "cgroup";
+    }
+
+    @Override
+    public long getIntervalMillis() {
+        return interval.toMillis();
+    }
+
+    @Override
+    public void sample() {
+        if(!cgroupMonitorService.isEnabled()) return;
+
+        cgroupMonitorService.update();
+
+        long timestamp = TimeUtils.epochNanos();
+        CgroupStats stats = cgroupMonitorService.getStats();
+        for(int stat = 0; stat < CgroupStats.STATS; stat++)
+            seriesStore.append(STAT_METRICS[stat], timestamp, stats.getStat(stat));
+
+        List<CgroupStats> children = cgroupMonitorService.getChildren();
+        for(CgroupStats child : children) {
+            String[] names = childMetricNames.computeIfAbsent(child.getName(), CgroupStatsCollector::childNames);
+            for(int i = 0; i < CHILD_STATS.length; i++)
+                seriesStore.append(names[i], timestamp, child.getStat(CHILD_STATS[i]));
+        }
+
+        if(childMetricNames.size() > children.size()) removeVanished(children);
+    }
+
+    /**
+     * Free the series of child cgroups that were gone at the last rescan
+     */
+    private void removeVanished(List<CgroupStats> children) {
+        Set<String> current = new HashSet<>();
+        for(CgroupStats child : children)
+            current.add(child.getName());
+
+        childMetricNames.entrySet().removeIf(entry -> {
+            if(current.contains(entry.getKey())) return false;
+
+            for(String name : entry.getValue())
+                seriesStore.remove(name);
+
+            return true;
+        });
+    }
+
+    private static String[] childNames(String child) {
+        String[] names = new String[CHILD_STATS.length];
+        for(int i = 0; i < CHILD_STATS.length; i++)
+            names[i] = STAT_METRICS[CHILD_STATS[i]] + ":" + child;
+
+        return names;
+    }
+}
@@ -0,0 +1,72 @@
+package dev.thoq.zenith.collector;
+
+import dev.thoq.zenith.service.monitoring.CpuMonitorService;
+import dev.thoq.zenith.storage.SeriesStore;
+import dev.thoq.zenith.util.TimeUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+
+/**
+ * Samples host CPU and records the aggregate breakdown, per-core usage and the agent's own usage as series.
+ * Per-core usage goes to {@code cpu.core:0}, {@code cpu.core:1} and so on, one series per core of the same metric.
+ */
+@ApplicationScoped
+public class CpuStatsCollector implements Probe {
+    private static final String[] STAT_METRICS = {
+            "cpu.user", "cpu.system", "cpu.iowait", "cpu.irq", "cpu.steal"
+    };
+    private static final int[] STATS = {
+            CpuMonitorService.USER, CpuMonitorService.SYSTEM, CpuMonitorService.IOWAIT, CpuMonitorService.IRQ,
+            CpuMonitorService.STEAL
+    };
+
+    private String[] coreMetrics = new String[0];
+
+    @Inject
+    CpuMonitorService cpuMonitorService;
+
+    @Inject
+    SeriesStore seriesStore;
+
+    @ConfigProperty(name = "zenith.probe.cpu.interval", defaultValue = "PT1S")
+    Duration interval;
+
+    @Override
+    public String getName() {
+        return "cpu";
+    }
+
+    @Override
+    public long getIntervalMillis() {
+        return interval.toMillis();
+    }
+
+    @Override
+    public void sample() {
+        cpuMonitorService.update();
+
+        long timestamp = TimeUtils.epochNanos();
+        seriesStore.append("cpu.agent", timestamp, cpuMonitorService.getAgentUsage());
+
+        int cores = cpuMonitorService.getCoreCount();
+        if(cores == 0) return;
+
+        for(int i = 0; i < STATS.length; i++)
+            seriesStore.append(STAT_METRICS[i], timestamp, cpuMonitorService.getStat(STATS[i]));
+
+        if(coreMetrics.length < cores) coreMetrics = coreMetricNames(cores);
+        for(int core = 0; core < cores; core++)
+            seriesStore.append(coreMetrics[core], timestamp, cpuMonitorService.getCoreStat(core, CpuMonitorService.USAGE));
+    }
+
+    private static String[] coreMetricNames(int cores) {
+        String[] names = new String[cores];
+        for(int core = 0; core < cores; core++)
+            names[core] = "cpu.core:" + core;
+
+        return names;
+    }
+}
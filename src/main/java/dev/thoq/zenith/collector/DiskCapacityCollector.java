@@ -0,0 +1,98 @@
+package dev.thoq.zenith.collector;
+
+import dev.thoq.zenith.service.monitoring.DiskMonitorService;
+import dev.thoq.zenith.storage.SeriesStore;
+import dev.thoq.zenith.util.TimeUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Samples filesystem capacity and records used, available and total bytes plus usage percentage per mount point,
+ * as {@code filesystem.used:/var} and so on. The series of a mount that goes away are removed.
+ */
+@ApplicationScoped
+public class DiskCapacityCollector implements Probe {
+    private final Map<String, String[]> metricNames = new HashMap<>();
+
+    @Inject
+    DiskMonitorService diskMonitorService;
+
+    @Inject
+    SeriesStore seriesStore;
+
+    @ConfigProperty(name = "zenith.probe.disk.capacity-interval", defaultValue = "PT30S")
+    Duration interval;
+
+    @Override
+    public String getName() {
+        return "disk-capacity";
+    }
+
+    @Override
+    public long getIntervalMillis() {
+        return interval.toMillis();
+    }
+
+    @Override
+    public boolean isSlow() {
+        return true;
+    }
+
+    @Override
+    public void sample() {
+        diskMonitorService.updateCapacity();
+
+        long timestamp = TimeUtils.epochNanos();
+        List<DiskMonitorService.Mount> mounts = diskMonitorService.getMounts();
+        int recorded = 0;
+
+        for(DiskMonitorService.Mount mount : mounts) {
+            if(mount.getTotalBytes() <= 0) continue;
+
+            recorded++;
+            String[] names = metricNames.computeIfAbsent(mount.getMountPoint(), DiskCapacityCollector::names);
+            seriesStore.append(names[0], timestamp, mount.getUsedBytes());
+            seriesStore.append(names[1], timestamp, mount.getAvailableBytes());
+            seriesStore.append(names[2], timestamp, mount.getUsagePercentage());
+            seriesStore.append(names[3], timestamp, mount.getTotalBytes());
+        }
+
+        if(metricNames.size() > recorded) removeVanished(mounts);
+    }
+
+    /**
+     * Free the series of mounts that were unmounted since the last sample
+     */
+    private void removeVanished(List<DiskMonitorService.Mount> mounts) {
+        Set<String> current = new HashSet<>();
+        for(DiskMonitorService.Mount mount : mounts) {
+            if(mount.getTotalBytes() > 0) current.add(mount.getMountPoint());
+        }
+
+        metricNames.entrySet().removeIf(entry -> {
+            if(current.contains(entry.getKey())) return false;
+
+            for(String name : entry.getValue())
+                seriesStore.remove(name);
+
+            return true;
+        });
+    }
+
+    private static String[] names(String mountPoint) {
+        return new String[]{
+                "filesystem.used:" + mountPoint,
+                "filesystem.available:" + mountPoint,
+                "filesystem.usage:" + mountPoint,
+                "filesystem.total:" + mountPoint
+        };
+    }
+}
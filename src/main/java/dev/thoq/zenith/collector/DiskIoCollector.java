@@ -0,0 +1,65 @@
+package dev.thoq.zenith.collector;
+
+import dev.thoq.zenith.service.monitoring.DiskMonitorService;
+import dev.thoq.zenith.storage.SeriesStore;
+import dev.thoq.zenith.util.TimeUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Samples /proc/diskstats and records throughput, IOPS, queue depth, utilisation and average latency per
+ * block device, as {@code disk.read_bytes:sda} and so on
+ */
+@ApplicationScoped
+public class DiskIoCollector implements Probe {
+    private static final String[] STAT_METRICS = {
+            "disk.read_bytes:", "disk.write_bytes:", "disk.read_ops:", "disk.write_ops:", "disk.queue_depth:",
+            "disk.utilization:", "disk.await:"
+    };
+
+    private final Map<String, String[]> metricNames = new HashMap<>();
+
+    @Inject
+    DiskMonitorService diskMonitorService;
+
+    @Inject
+    SeriesStore seriesStore;
+
+    @ConfigProperty(name = "zenith.probe.disk.interval", defaultValue = "PT1S")
+    Duration interval;
+
+    @Override
+    public String getName() {
+        return "disk-io";
+    }
+
+    @Override
+    public long getIntervalMillis() {
+        return interval.toMillis();
+    }
+
+    @Override
+    public void sample() {
+        diskMonitorService.updateIo();
+
+        long timestamp = TimeUtils.epochNanos();
+        for(DiskMonitorService.Device device : diskMonitorService.getDevices()) {
+            String[] names = metricNames.computeIfAbsent(device.getName(), DiskIoCollector::names);
+            for(int stat = 0; stat < DiskMonitorService.IO_STATS; stat++)
+                seriesStore.append(names[stat], timestamp, device.getStat(stat));
+        }
+    }
+
+    private static String[] names(String device) {
+        String[] names = new String[STAT_METRICS.length];
+        for(int stat = 0; stat < STAT_METRICS.length; stat++)
+            names[stat] = STAT_METRICS[stat] + device;
+
+        return names;
+    }
+}
@@ -0,0 +1,59 @@
+package dev.thoq.zenith.collector;
+
+import dev.thoq.zenith.service.monitoring.MemoryMonitorService;
+import dev.thoq.zenith.service.monitoring.proc.MemInfoParser;
+import dev.thoq.zenith.storage.SeriesStore;
+import dev.thoq.zenith.util.TimeUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+
+/**
+ * Samples host memory and records each /proc/meminfo field as a series in bytes, next to the JVM heap
+ * figure that {@code memory.usage} keeps reporting
+ */
+@ApplicationScoped
+public class MemoryStatsCollector implements Probe {
+    private static final String[] FIELD_METRICS = {
+            "memory.total", "memory.free", "memory.available", "memory.buffers", "memory.cached", "memory.slab",
+            "swap.total", "swap.free", "memory.dirty", "memory.writeback"
+    };
+
+    @Inject
+    MemoryMonitorService memoryMonitorService;
+
+    @Inject
+    SeriesStore seriesStore;
+
+    @ConfigProperty(name = "zenith.probe.memory.interval", defaultValue = "PT1S")
+    Duration interval;
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @Override
+    public long getIntervalMillis() {
+        return interval.toMillis();
+    }
+
+    @Override
+    public void sample() {
+        memoryMonitorService.update();
+
+        long timestamp = TimeUtils.epochNanos();
+        for(int field = 0; field < MemInfoParser.FIELDS; field++) {
+            long value = memoryMonitorService.get(field);
+            if(value >= 0) seriesStore.append(FIELD_METRICS[field], timestamp, value);
+        }
+
+        if(memoryMonitorService.getTotalBytes() > 0)
+            seriesStore.append("memory.host", timestamp, memoryMonitorService.getUsagePercentage());
+
+        long swapUsed = memoryMonitorService.getSwapUsedBytes();
+        if(swapUsed >= 0) seriesStore.append("swap.used", timestamp, swapUsed);
+    }
+}
@@ -1,80 +1,28 @@
 package dev.thoq.zenith.collector;
 
-import dev.thoq.zenith.service.monitoring.NetworkMonitorService;
 import dev.thoq.zenith.service.monitoring.ResourceMonitorService;
-import dev.thoq.zenith.util.LoggingUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 
-import java.util.Collection;
-import java.util.List;
-import java.util.Map;
+@ApplicationScoped
+public class MetricsCollector implements Probe {
+    private static final long INTERVAL_MILLIS = 100;
 
-@SuppressWarnings("BusyWait")
-public class MetricsCollector {
-    private Thread metricsThread;
-    private volatile boolean running = false;
-    private final ResourceMonitorService resourceMonitorService;
-    private final NetworkMonitorService networkMonitorService;
-    private final LoggingUtils logger;
+    @Inject
+    ResourceMonitorService resourceMonitorService;
 
-    public MetricsCollector() {
-        this.resourceMonitorService = new ResourceMonitorService();
-        this.networkMonitorService = new NetworkMonitorService();
-        this.logger = LoggingUtils.getLogger(MetricsCollector.class);
+    @Override
+    public String getName() {
+        return "resource";
     }
 
-    public void runUpdateMetrics() {
-        logger.info("Starting metrics thread...");
-        if(running) {
-            logger.warn("Metrics thread is already running, ignoring request to start it...");
-            return;
-        }
-
-        running = true;
-        metricsThread = new Thread(() -> {
-            Thread.currentThread().setName("Zenith-ResourceMonitor");
-
-            while(running) {
-                resourceMonitorService.updateAllMetrics();
-                try {
-                    Thread.sleep(100);
-                } catch(InterruptedException ex) {
-                    logger.trace("Interrupted while waiting for metrics thread to update", ex);
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-        });
-
-        metricsThread.start();
-    }
-
-    public void stopUpdateMetrics() {
-        logger.info("Stopping metrics thread...");
-        running = false;
-
-        if(metricsThread != null) {
-            metricsThread.interrupt();
-
-            try {
-                metricsThread.join(1000);
-            } catch(InterruptedException ex) {
-                logger.trace("Interrupted while waiting for metrics thread to stop", ex);
-                Thread.currentThread().interrupt();
-            }
-
-            metricsThread = null;
-        }
-
-        logger.info("Stopped metrics thread!");
+    @Override
+    public long getIntervalMillis() {
+        return INTERVAL_MILLIS;
     }
 
-    public Collection<Map<String, Double>> collect() {
-        Map<String, Double> cpu = Map.of("cpu", resourceMonitorService.getCpuUsage());
-        Map<String, Double> memory = Map.of("memory", resourceMonitorService.getMemoryUsagePercentage());
-        Map<String, Double> disk = Map.of("disk", resourceMonitorService.getDiskUsageMb());
-        Map<String, Long> upload = Map.of("up", networkMonitorService.getDataUp());
-        Map<String, Long> download = Map.of("down", networkMonitorService.getDataDown());
-
-        return List.of(cpu, memory, disk);
+    @Override
+    public void sample() {
+        resourceMonitorService.updateAllMetrics();
     }
 }
@@ -1,76 +1,81 @@
 package dev.thoq.zenith.collector;
 
 import dev.thoq.zenith.service.monitoring.NetworkMonitorService;
-import dev.thoq.zenith.util.LoggingUtils;
+import dev.thoq.zenith.storage.SeriesStore;
+import dev.thoq.zenith.util.TimeUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 
-import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-@SuppressWarnings("BusyWait")
-public class NetworkStatsCollector {
-    private final NetworkMonitorService networkMonitorService;
-    private final LoggingUtils logger;
-    private volatile boolean running = false;
-    private Thread networkStatsThread;
+@ApplicationScoped
+public class NetworkStatsCollector implements Probe {
+    private static final long INTERVAL_MILLIS = 1000;
+    private static final String[] STAT_METRICS = {
+            "network.rx_bytes:", "network.tx_bytes:", "network.rx_packets:", "network.tx_packets:",
+            "network.rx_errors:", "network.tx_errors:", "network.rx_drops:", "network.tx_drops:"
+    };
 
-    public NetworkStatsCollector() {
-        this.logger = LoggingUtils.getLogger(NetworkStatsCollector.class);
-        this.networkMonitorService = new NetworkMonitorService();
-    }
+    private final Map<String, String[]> metricNames = new HashMap<>();
 
-    public void runUpdateNetworkStats() {
-        logger.info("Starting network stats thread...");
+    @Inject
+    NetworkMonitorService networkMonitorService;
 
-        if(running) {
-            logger.warn("Network stats thread is already running, ignoring request to start it...");
-            return;
-        }
+    @Inject
+    SeriesStore seriesStore;
 
-        running = true;
-        networkStatsThread = new Thread(() -> {
-            Thread.currentThread().setName("Zenith-NetworkStatsCollector");
-
-            while(running) {
-                networkMonitorService.updateData();
-                try {
-                    Thread.sleep(1000);
-                } catch(InterruptedException ex) {
-                    logger.trace("Interrupted while waiting for network stats thread to update", ex);
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-        });
+    @Override
+    public String getName() {
+        return "network";
+    }
 
-        networkStatsThread.start();
+    @Override
+    public long getIntervalMillis() {
+        return INTERVAL_MILLIS;
     }
 
-    public void stopUpdateNetworkStats() {
-        logger.info("Stopping network stats thread...");
-        running = false;
-        networkMonitorService.stopMonitoring();
+    @Override
+    public void sample() {
+        networkMonitorService.updateData();
+
+        long timestamp = TimeUtils.epochNanos();
+        List<NetworkMonitorService.Interface> interfaces = networkMonitorService.getInterfaces();
+        for(NetworkMonitorService.Interface netInterface : interfaces) {
+            String[] names = metricNames.computeIfAbsent(netInterface.getName(), NetworkStatsCollector::names);
+            for(int stat = 0; stat < NetworkMonitorService.STATS; stat++)
+                seriesStore.append(names[stat], timestamp, netInterface.getStat(stat));
+        }
 
-        if(networkStatsThread != null) {
-            networkStatsThread.interrupt();
+        if(metricNames.size() > interfaces.size()) removeVanished(interfaces);
+    }
 
-            try {
-                networkStatsThread.join(1000);
-            } catch(InterruptedException ex) {
-                logger.trace("Interrupted while waiting for network stats thread to stop", ex);
-                Thread.currentThread().interrupt();
-            }
+    /**
+     * Free the series of interfaces that are no longer tracked
+     */
+    private void removeVanished(List<NetworkMonitorService.Interface> interfaces) {
+        Set<String> current = new HashSet<>();
+        for(NetworkMonitorService.Interface netInterface : interfaces)
+            current.add(netInterface.getName());
 
-            networkStatsThread = null;
-        }
+        metricNames.entrySet().removeIf(entry -> {
+            if(current.contains(entry.getKey())) return false;
 
-        logger.info("Stopped network stats thread!");
+            for(String name : entry.getValue())
+                seriesStore.remove(name);
+
+            return true;
+        });
     }
 
-    public Collection<Map<String, Long>> collect() {
-        Map<String, Long> upload = Map.of("up", networkMonitorService.getDataUp());
-        Map<String, Long> download = Map.of("down", networkMonitorService.getDataDown());
+    private static String[] names(String netInterface) {
+        String[] names = new String[STAT_METRICS.length];
+        for(int stat = 0; stat < STAT_METRICS.length; stat++)
+            names[stat] = STAT_METRICS[stat] + netInterface;
 
-        return List.of(upload, download);
+        return names;
     }
 }
@@ -0,0 +1,55 @@
+package dev.thoq.zenith.collector;
+
+import dev.thoq.zenith.service.monitoring.PressureMonitorService;
+import dev.thoq.zenith.storage.SeriesStore;
+import dev.thoq.zenith.util.TimeUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+
+/**
+ * Records the share of time stalled on each resource as {@code pressure.<resource>.some} and
+ * {@code pressure.<resource>.full}
+ */
+@ApplicationScoped
+public class PressureStatsCollector implements Probe {
+    private static final String[][] METRICS = {
+            {"pressure.cpu.some", "pressure.cpu.full"},
+            {"pressure.memory.some", "pressure.memory.full"},
+            {"pressure.io.some", "pressure.io.full"}
+    };
+
+    @Inject
+    PressureMonitorService pressureMonitorService;
+
+    @Inject
+    SeriesStore seriesStore;
+
+    @ConfigProperty(name = "zenith.probe.pressure.interval", defaultValue = "PT1S")
+    Duration interval;
+
+    @Override
+    public String getName() {
+        return "pressure";
+    }
+
+    @Override
+    public long getIntervalMillis() {
+        return interval.toMillis();
+    }
+
+    @Override
+    public void sample() {
+        if(!pressureMonitorService.isAvailable()) return;
+
+        pressureMonitorService.update();
+
+        long timestamp = TimeUtils.epochNanos();
+        for(int resource = 0; resource < METRICS.length; resource++) {
+            seriesStore.append(METRICS[resource][0], timestamp, pressureMonitorService.getStall(resource, false));
+            seriesStore.append(METRICS[resource][1], timestamp, pressureMonitorService.getStall(resource, true));
+        }
+    }
+}
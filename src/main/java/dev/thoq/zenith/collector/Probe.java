@@ -0,0 +1,31 @@
+package dev.thoq.zenith.collector;
+
+/**
+ * A unit of sampling work that the {@link SamplingEngine} runs on its shared scheduler, or on a separate one for
+ * slow probes.
+ */
+public interface Probe {
+    /**
+     * Name of the probe, used for logging
+     */
+    String getName();
+
+    /**
+     * How often the probe should be sampled, in milliseconds
+     */
+    long getIntervalMillis();
+
+    /**
+     * Whether a sample can take long enough to hold back the fast probes, such as walking every process or
+     * querying every filesystem. Slow probes run on their own thread; their listeners are still notified on the
+     * shared one.
+     */
+    default boolean isSlow() {
+        return false;
+    }
+
+    /**
+     * Take one sample, always called from the same sampler thread
+     */
+    void sample();
+}
@@ -1,79 +1,57 @@
 package dev.thoq.zenith.collector;
 
+import dev.thoq.zenith.model.dto.ProcessDeltaDto;
 import dev.thoq.zenith.service.monitoring.ProcessMonitorService;
-import dev.thoq.zenith.util.LoggingUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
-@SuppressWarnings("BusyWait")
-public class ProcessStatsCollector {
-    private final ProcessMonitorService processMonitorService;
-    private final LoggingUtils logger;
-    private volatile boolean running = false;
-    private Thread processStatsThread;
+@ApplicationScoped
+public class ProcessStatsCollector implements Probe {
+    private static final long INTERVAL_MILLIS = 1000;
 
-    public ProcessStatsCollector() {
-        this.logger = LoggingUtils.getLogger(ProcessStatsCollector.class);
-        this.processMonitorService = new ProcessMonitorService();
-    }
-
-    public void runUpdateProcessStats() {
-        logger.info("Starting process stats thread...");
-
-        if(running) {
-            logger.warn("Process stats thread is already running, ignoring request to start it...");
-            return;
-        }
-
-        running = true;
-        processStatsThread = new Thread(() -> {
-            Thread.currentThread().setName("Zenith-ProcessStatsCollector");
-
-            while(running) {
-                processMonitorService.updateData();
-
-                try {
-                    Thread.sleep(1000);
-                } catch(InterruptedException ex) {
-                    logger.trace("Interrupted while waiting for process stats thread to update", ex);
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-        });
+    @Inject
+    ProcessMonitorService processMonitorService;
 
-        processStatsThread.start();
+    @Override
+    public String getName() {
+        return "process";
     }
 
-    public void stopUpdateProcessStats() {
-        logger.info("Stopping process stats thread...");
-        running = false;
-
-        if(processStatsThread != null) {
-            processStatsThread.interrupt();
-
-            try {
-                processStatsThread.join(1000);
-            } catch(InterruptedException ex) {
-                logger.trace("Interrupted while waiting for process stats thread to stop", ex);
-                Thread.currentThread().interrupt();
-            }
+    @Override
+    public long getIntervalMillis() {
+        return INTERVAL_MILLIS;
+    }
 
-            processStatsThread = null;
-        }
+    @Override
+    public boolean isSlow() {
+        return true;
+    }
 
-        logger.info("Stopped process stats thread!");
+    @Override
+    public void sample() {
+        processMonitorService.updateData();
     }
 
     public Collection<Map<String, Object>> collect() {
         Map<String, Object> processData = Map.of(
                 "processes", processMonitorService.getTopProcessNames(),
                 "count", processMonitorService.getProcessCount(),
-                "monitoring", processMonitorService.isMonitoring()
+                "monitoring", processMonitorService.isMonitoring(),
+                "topCpu", processMonitorService.getTopByCpu(),
+                "topMemory", processMonitorService.getTopByMemory()
         );
 
         return List.of(processData);
     }
+
+    /**
+     * Changes to the process table since the previous sample
+     */
+    public ProcessDeltaDto collectDelta() {
+        return processMonitorService.getDelta();
+    }
 }
@@ -0,0 +1,12 @@
+package dev.thoq.zenith.collector;
+
+/**
+ * Consumer notified by the {@link SamplingEngine} after a probe has produced a new sample.
+ */
+@FunctionalInterface
+public interface SampleListener {
+    /**
+     * Called on the sampler thread, implementations must not block
+     */
+    void onSample(Probe probe);
+}
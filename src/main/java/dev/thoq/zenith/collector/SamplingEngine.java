@@ -0,0 +1,151 @@
+package dev.thoq.zenith.collector;
+
+import dev.thoq.zenith.util.LoggingUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every {@link Probe} at its interval and tells the {@link SampleListener}s after each sample. Probes share
+ * one scheduler thread so listeners are only ever called from it; slow probes sample on a second thread and
+ * hand their listener calls back to the shared one, so they cannot hold back the fast probes. A probe that takes
+ * longer than its interval is logged.
+ */
+@ApplicationScoped
+public class SamplingEngine {
+    private static final LoggingUtils logger = LoggingUtils.getLogger(SamplingEngine.class);
+    private final List<SampleListener> listeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+    private ScheduledExecutorService slowScheduler;
+    private volatile boolean running = false;
+
+    @Inject
+    Instance<Probe> probes;
+
+    public synchronized void start() {
+        logger.info("Starting sampling engine...");
+
+        if(running) {
+            logger.warn("Sampling engine is already running, ignoring request to start it...");
+            return;
+        }
+
+        running = true;
+        scheduler = newScheduler("Zenith-Sampler");
+        slowScheduler = newScheduler("Zenith-Sampler-Slow");
+
+        for(Probe probe : probes) {
+            long interval = probe.getIntervalMillis();
+
+            if(probe.isSlow()) {
+                slowScheduler.scheduleAtFixedRate(() -> runSlowProbe(probe), 0, interval, TimeUnit.MILLISECONDS);
+                logger.info("Registered slow probe %s every %dms", probe.getName(), interval);
+            } else {
+                scheduler.scheduleAtFixedRate(() -> runProbe(probe), 0, interval, TimeUnit.MILLISECONDS);
+                logger.info("Registered probe %s every %dms", probe.getName(), interval);
+            }
+        }
+    }
+
+    public synchronized void stop() {
+        logger.info("Stopping sampling engine...");
+        running = false;
+
+        // the slow probes hand work to the shared scheduler, stop them first
+        shutdown(slowScheduler);
+        shutdown(scheduler);
+        slowScheduler = null;
+        scheduler = null;
+
+        logger.info("Stopped sampling engine!");
+    }
+
+    public void addListener(SampleListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SampleListener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void runProbe(Probe probe) {
+        if(sample(probe)) notifyListeners(probe);
+    }
+
+    private void runSlowProbe(Probe probe) {
+        if(!sample(probe)) return;
+
+        ScheduledExecutorService shared = scheduler;
+        if(!running || shared == null) return;
+
+        try {
+            shared.execute(() -> notifyListeners(probe));
+        } catch(RejectedExecutionException ex) {
+            logger.trace("Sampling engine stopped before listeners of probe %s were notified", probe.getName());
+        }
+    }
+
+    /**
+     * @return whether the probe took its sample
+     */
+    private boolean sample(Probe probe) {
+        long startedAt = System.nanoTime();
+
+        try {
+            probe.sample();
+        } catch(Exception ex) {
+            logger.warn("Probe %s failed: %s", probe.getName(), ex.getMessage());
+            return false;
+        }
+
+        long tookMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        if(tookMillis > probe.getIntervalMillis())
+            logger.warn("Probe %s took %dms, longer than its %dms interval", probe.getName(), tookMillis, probe.getIntervalMillis());
+
+        return true;
+    }
+
+    private void notifyListeners(Probe probe) {
+        for(SampleListener listener : listeners) {
+            try {
+                listener.onSample(probe);
+            } catch(Exception ex) {
+                logger.warn("Sample listener failed for probe %s: %s", probe.getName(), ex.getMessage());
+            }
+        }
+    }
+
+    private static ScheduledExecutorService newScheduler(String name) {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static void shutdown(ScheduledExecutorService executor) {
+        if(executor == null) return;
+
+        executor.shutdown();
+
+        try {
+            if(!executor.awaitTermination(1, TimeUnit.SECONDS))
+                executor.shutdownNow();
+        } catch(InterruptedException ex) {
+            logger.trace("Interrupted while waiting for sampling engine to stop", ex);
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package dev.thoq.zenith.controller;
 
-import dev.thoq.zenith.collector.MetricsCollector;
-import dev.thoq.zenith.collector.NetworkStatsCollector;
 import io.quarkus.qute.Template;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
@@ -15,14 +13,6 @@ public class DashboardController {
     @Inject
     Template dashboard;
 
-    public DashboardController() {
-        MetricsCollector metricsCollector = new MetricsCollector();
-        NetworkStatsCollector networkStatsCollector = new NetworkStatsCollector();
-
-        metricsCollector.runUpdateMetrics();
-        networkStatsCollector.runUpdateNetworkStats();
-    }
-
     @GET
     @Produces(MediaType.TEXT_HTML)
     public String dashboard() {
@@ -1,41 +1,172 @@
 package dev.thoq.zenith.controller;
 
-import dev.thoq.zenith.collector.MetricsCollector;
-import dev.thoq.zenith.collector.NetworkStatsCollector;
+import dev.thoq.zenith.collector.ProcessStatsCollector;
+import dev.thoq.zenith.model.dto.AlertDto;
+import dev.thoq.zenith.model.dto.AnomalyDto;
+import dev.thoq.zenith.model.dto.ForecastDto;
+import dev.thoq.zenith.model.dto.MetricQueryDto;
+import dev.thoq.zenith.model.dto.ProcessDeltaDto;
+import dev.thoq.zenith.model.dto.ProcessorStatsDto;
+import dev.thoq.zenith.model.dto.ThresholdRuleDto;
+import dev.thoq.zenith.model.dto.TrendDto;
+import dev.thoq.zenith.model.enums.MetricType;
+import dev.thoq.zenith.processor.RealTimeProcessor;
+import dev.thoq.zenith.service.alert.AlertService;
+import dev.thoq.zenith.service.alert.ThresholdService;
+import dev.thoq.zenith.service.analytics.AnomalyDetectionService;
+import dev.thoq.zenith.service.analytics.TrendAnalysisService;
+import dev.thoq.zenith.service.query.MetricQueryService;
+import dev.thoq.zenith.service.stream.MetricStreamService;
+import dev.thoq.zenith.storage.MetricRegistry;
+import dev.thoq.zenith.storage.MetricSnapshot;
+import io.smallrye.mutiny.Multi;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.jboss.resteasy.reactive.RestStreamElementType;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Path("/api")
 public class DashboardRestController {
 
-    private final MetricsCollector metricsCollector;
-    private final NetworkStatsCollector networkStatsCollector;
+    @Inject
+    MetricRegistry metricRegistry;
 
-    public DashboardRestController() {
-        this.metricsCollector = new MetricsCollector();
-        this.networkStatsCollector = new NetworkStatsCollector();
-    }
+    @Inject
+    ProcessStatsCollector processStatsCollector;
+
+    @Inject
+    RealTimeProcessor realTimeProcessor;
+
+    @Inject
+    MetricQueryService metricQueryService;
+
+    @Inject
+    MetricStreamService metricStreamService;
+
+    @Inject
+    AlertService alertService;
+
+    @Inject
+    ThresholdService thresholdService;
+
+    @Inject
+    AnomalyDetectionService anomalyDetectionService;
+
+    @Inject
+    TrendAnalysisService trendAnalysisService;
 
     @GET
     @Path("/metrics")
     @Produces(MediaType.APPLICATION_JSON)
     public Map<String, Object> getMetrics() {
         Map<String, Object> response = new HashMap<>();
+        MetricSnapshot snapshot = metricRegistry.read(new MetricSnapshot());
 
-        var metrics = metricsCollector.collect();
-        var networkStats = networkStatsCollector.collect();
+        response.put("cpu", snapshot.get(MetricType.CPU_USAGE));
+        response.put("memory", snapshot.get(MetricType.MEMORY_USAGE));
+        response.put("disk", snapshot.get(MetricType.DISK_USAGE));
+        response.put("up", (long) snapshot.get(MetricType.NETWORK_UPLOAD));
+        response.put("down", (long) snapshot.get(MetricType.NETWORK_DOWNLOAD));
 
-        for(var metric : metrics)
-            response.putAll(metric);
+        return response;
+    }
 
-        for(var stat : networkStats)
-            response.putAll(stat);
+    @GET
+    @Path("/metrics/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.TEXT_PLAIN)
+    public Multi<String> streamMetrics() {
+        return metricStreamService.subscribe();
+    }
 
-        return response;
+    @GET
+    @Path("/metrics/query")
+    @Produces(MediaType.APPLICATION_JSON)
+    public StreamingOutput queryMetrics(@QueryParam("metric") List<String> metrics,
+                                        @QueryParam("from") Long from,
+                                        @QueryParam("to") Long to,
+                                        @QueryParam("range") String range,
+                                        @QueryParam("step") String step,
+                                        @QueryParam("fn") String function) {
+        MetricQueryDto query;
+
+        try {
+            query = metricQueryService.createQuery(metrics, from, to, range, step, function);
+        } catch(IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage());
+        }
+
+        return output -> metricQueryService.write(query, output);
+    }
+
+    @GET
+    @Path("/processes")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Object> getProcesses() {
+        return processStatsCollector.collect().iterator().next();
+    }
+
+    @GET
+    @Path("/processes/delta")
+    @Produces(MediaType.APPLICATION_JSON)
+    public ProcessDeltaDto getProcessDelta() {
+        return processStatsCollector.collectDelta();
+    }
+
+    @GET
+    @Path("/processor")
+    @Produces(MediaType.APPLICATION_JSON)
+    public ProcessorStatsDto getProcessorStats() {
+        return realTimeProcessor.getStats();
+    }
+
+    @GET
+    @Path("/alerts")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<AlertDto> getAlerts() {
+        return alertService.getRecentAlerts();
+    }
+
+    @GET
+    @Path("/thresholds")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<ThresholdRuleDto> getThresholds() {
+        return thresholdService.getRules();
+    }
+
+    @GET
+    @Path("/anomalies")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<AnomalyDto> getAnomalies() {
+        return anomalyDetectionService.getRecentAnomalies();
+    }
+
+    @GET
+    @Path("/trends")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<TrendDto> getTrends(@QueryParam("series") String series) {
+        if(series == null || series.isBlank()) return trendAnalysisService.getTrends();
+
+        TrendDto trend = trendAnalysisService.getTrend(series);
+        if(trend == null) throw new NotFoundException("No trend for series " + series);
+
+        return List.of(trend);
+    }
+
+    @GET
+    @Path("/forecasts")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<ForecastDto> getForecasts() {
+        return trendAnalysisService.getForecasts();
     }
 }
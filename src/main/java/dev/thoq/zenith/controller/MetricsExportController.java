@@ -0,0 +1,75 @@
+package dev.thoq.zenith.controller;
+
+import dev.thoq.zenith.service.export.OpenMetricsExporter;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+
+@Path("/metrics")
+public class MetricsExportController {
+
+    @Inject
+    OpenMetricsExporter openMetricsExporter;
+
+    @GET
+    public Response scrape(@HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        if(!openMetricsExporter.isEnabled()) throw new NotFoundException("OpenMetrics export is disabled");
+
+        OpenMetricsExporter.Exposition exposition = openMetricsExporter.getExposition();
+        if(exposition == null)
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).header("Retry-After", 1).build();
+
+        Response.ResponseBuilder response = Response.ok().type(OpenMetricsExporter.CONTENT_TYPE)
+                .header("Vary", HttpHeaders.ACCEPT_ENCODING);
+
+        if(acceptsGzip(acceptEncoding))
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").entity(exposition.getGzipBody()).build();
+
+        return response.entity(exposition.getBody()).build();
+    }
+
+    /**
+     * Whether the client takes gzip with a non-zero quality, either named or through {@code *}. A named
+     * coding wins over the wildcard, so {@code gzip;q=0, *} still means no gzip.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if(acceptEncoding == null) return false;
+
+        double gzip = -1;
+        double wildcard = -1;
+
+        for(String entry : acceptEncoding.split(",")) {
+            int semicolon = entry.indexOf(';');
+            String coding = (semicolon < 0 ? entry : entry.substring(0, semicolon)).trim();
+            double quality = semicolon < 0 ? 1.0 : quality(entry.substring(semicolon + 1));
+
+            if(coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) gzip = Math.max(gzip, quality);
+            else if(coding.equals("*")) wildcard = quality;
+        }
+
+        return (gzip >= 0 ? gzip : wildcard) > 0;
+    }
+
+    /**
+     * The {@code q} parameter of an Accept-Encoding entry, 1 when absent and 0 when it cannot be parsed
+     */
+    private static double quality(String parameters) {
+        for(String parameter : parameters.split(";")) {
+            String trimmed = parameter.trim();
+            if(trimmed.length() < 2 || Character.toLowerCase(trimmed.charAt(0)) != 'q' || trimmed.charAt(1) != '=')
+                continue;
+
+            try {
+                return Double.parseDouble(trimmed.substring(2).trim());
+            } catch(NumberFormatException ex) {
+                return 0;
+            }
+        }
+
+        return 1.0;
+    }
+}
@@ -0,0 +1,20 @@
+package dev.thoq.zenith.model.dto;
+
+import dev.thoq.zenith.model.enums.AlertSeverity;
+import dev.thoq.zenith.model.enums.AnomalyType;
+
+/**
+ * A sample one of the streaming detectors flagged. The score is in units of the detector's own threshold, so 1.0
+ * is just past it regardless of the detector. Timestamps are epoch milliseconds.
+ */
+public record AnomalyDto(String series, AnomalyType type, double value, double expected, double score,
+                         AlertSeverity severity, long timestamp) {
+    public AlertDto toAlert() {
+        return new AlertDto(
+                "Anomaly on " + series,
+                String.format("%s: %.4g, expected %.4g (%.1fx threshold)", type, value, expected, score),
+                severity,
+                null
+        );
+    }
+}
@@ -0,0 +1,9 @@
+package dev.thoq.zenith.model.dto;
+
+/**
+ * Time until a series reaches its configured limit, once from the windowed linear fit and once from the
+ * Holt-Winters forecast. Either is -1 when the series is not heading for the limit within the forecast horizon.
+ */
+public record ForecastDto(String series, double value, double limit, double slopePerHour, long secondsToExhaustion,
+                          long seasonalSecondsToExhaustion, String summary) {
+}
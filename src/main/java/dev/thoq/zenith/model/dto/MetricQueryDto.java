@@ -0,0 +1,11 @@
+package dev.thoq.zenith.model.dto;
+
+import dev.thoq.zenith.model.enums.AggregationFunction;
+
+import java.util.List;
+
+public record MetricQueryDto(List<String> metrics, long fromNanos, long toNanos, long stepNanos, AggregationFunction function) {
+    public long points() {
+        return (toNanos - fromNanos + stepNanos - 1) / stepNanos;
+    }
+}
@@ -0,0 +1,16 @@
+package dev.thoq.zenith.model.dto;
+
+import dev.thoq.zenith.model.enums.AlertSeverity;
+
+/**
+ * One notification for a group of alerts sharing a fingerprint. {@code count} is how many alerts the group
+ * received since its previous notification, the message and reason are those of the latest one. Timestamps are
+ * epoch milliseconds.
+ */
+public record NotificationDto(String fingerprint, AlertSeverity severity, String message, String reason, int count,
+                              long firstSeen, long lastSeen) {
+    public String buildNotification() {
+        String text = String.format("%s: %s %s", severity, message, reason);
+        return count > 1 ? text + " (x" + count + ")" : text;
+    }
+}
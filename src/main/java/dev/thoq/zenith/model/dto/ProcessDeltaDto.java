@@ -0,0 +1,11 @@
+package dev.thoq.zenith.model.dto;
+
+import java.util.List;
+
+/**
+ * What changed in the process table during one scan: spawned and exited processes, and the processes whose
+ * CPU time, memory or thread count moved. Timestamps are epoch milliseconds.
+ */
+public record ProcessDeltaDto(long timestamp, int processCount, List<ProcessEventDto> events, List<ProcessDto> changed) {
+    public static final ProcessDeltaDto EMPTY = new ProcessDeltaDto(0, 0, List.of(), List.of());
+}
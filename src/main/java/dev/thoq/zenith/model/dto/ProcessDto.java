@@ -0,0 +1,16 @@
+package dev.thoq.zenith.model.dto;
+
+/**
+ * One process as of the latest scan. CPU is a percentage of a single core, I/O rates are bytes per second
+ * and are -1 when the agent is not allowed to read the process's I/O counters.
+ */
+public record ProcessDto(
+        int pid,
+        String name,
+        double cpuPercent,
+        long rssBytes,
+        int threads,
+        double readBytesPerSecond,
+        double writeBytesPerSecond
+) {
+}
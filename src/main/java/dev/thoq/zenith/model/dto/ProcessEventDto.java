@@ -0,0 +1,10 @@
+package dev.thoq.zenith.model.dto;
+
+import dev.thoq.zenith.model.enums.ProcessEventType;
+
+/**
+ * A process that appeared or disappeared between two scans. The start time is in clock ticks since boot, as
+ * /proc reports it, and together with the pid identifies the process.
+ */
+public record ProcessEventDto(ProcessEventType type, int pid, String name, long startTime, long timestamp) {
+}
@@ -0,0 +1,17 @@
+package dev.thoq.zenith.model.dto;
+
+import dev.thoq.zenith.model.enums.BackpressurePolicy;
+
+public record ProcessorStatsDto(
+        double tickRate,
+        BackpressurePolicy backpressurePolicy,
+        long processedTicks,
+        long droppedTicks,
+        long coalescedTicks,
+        int pendingTicks,
+        double lastTickLatencyMs,
+        double averageTickLatencyMs,
+        double maxTickLatencyMs,
+        double lastSampleAgeMs
+) {
+}
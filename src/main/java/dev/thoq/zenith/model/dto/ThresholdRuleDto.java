@@ -0,0 +1,12 @@
+package dev.thoq.zenith.model.dto;
+
+import dev.thoq.zenith.model.enums.AlertSeverity;
+import dev.thoq.zenith.model.enums.ThresholdState;
+
+/**
+ * A compiled threshold rule and where its state machine stands. {@code since} is when the rule entered its
+ * current state, in epoch milliseconds, or 0 if it never left {@link ThresholdState#INACTIVE}.
+ */
+public record ThresholdRuleDto(String name, String expression, AlertSeverity severity, ThresholdState state,
+                               long since) {
+}
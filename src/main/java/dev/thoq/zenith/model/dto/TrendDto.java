@@ -0,0 +1,10 @@
+package dev.thoq.zenith.model.dto;
+
+/**
+ * Trend of a single series. The slope comes from a least-squares fit over the trend window, the forecast is the
+ * Holt-Winters estimate for the next season step and is NaN until two full seasons were seen. Timestamps are epoch
+ * milliseconds.
+ */
+public record TrendDto(String series, double value, double fitted, double slopePerHour, long windowSamples,
+                       double forecast, boolean seasonal, long timestamp) {
+}
@@ -0,0 +1,9 @@
+package dev.thoq.zenith.model.enums;
+
+public enum AggregationFunction {
+    AVG,
+    MIN,
+    MAX,
+    P95,
+    RATE,
+}
@@ -0,0 +1,7 @@
+package dev.thoq.zenith.model.enums;
+
+public enum AnomalyType {
+    ZSCORE,
+    SEASONAL_MAD,
+    CUSUM,
+}
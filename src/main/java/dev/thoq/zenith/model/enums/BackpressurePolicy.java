@@ -0,0 +1,7 @@
+package dev.thoq.zenith.model.enums;
+
+public enum BackpressurePolicy {
+    DROP,
+    COALESCE,
+    BLOCK,
+}
@@ -0,0 +1,6 @@
+package dev.thoq.zenith.model.enums;
+
+public enum MetricKind {
+    GAUGE,
+    COUNTER,
+}
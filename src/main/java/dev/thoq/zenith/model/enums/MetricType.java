@@ -1,5 +1,85 @@
 package dev.thoq.zenith.model.enums;
 
+/**
+ * Metrics that are published together once per processor tick. The ordinal is the metric ID and indexes
+ * the flat value array of a snapshot, so adding a metric only grows that array.
+ */
 public enum MetricType {
+    CPU_USAGE("cpu", "usage", "percent", MetricKind.GAUGE, "resource"),
+    MEMORY_USAGE("memory", "usage", "percent", MetricKind.GAUGE, "resource"),
+    DISK_USAGE("disk", "usage", "megabytes", MetricKind.GAUGE, "resource"),
+    NETWORK_UPLOAD("network", "upload", "bytes", MetricKind.GAUGE, "network"),
+    NETWORK_DOWNLOAD("network", "download", "bytes", MetricKind.GAUGE, "network"),
+    ;
 
+    private static final MetricType[] VALUES = values();
+
+    private final String name;
+    private final String group;
+    private final String field;
+    private final String unit;
+    private final MetricKind kind;
+    private final String probe;
+
+    MetricType(String group, String field, String unit, MetricKind kind, String probe) {
+        this.name = group + "." + field;
+        this.group = group;
+        this.field = field;
+        this.unit = unit;
+        this.kind = kind;
+        this.probe = probe;
+    }
+
+    public int getId() {
+        return ordinal();
+    }
+
+    /**
+     * Series name the metric is stored under, e.g. {@code cpu.usage}
+     */
+    public String getName() {
+        return name;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public MetricKind getKind() {
+        return kind;
+    }
+
+    /**
+     * Name of the {@code Probe} that refreshes the value
+     */
+    public String getProbe() {
+        return probe;
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+
+    public static MetricType byId(int id) {
+        return VALUES[id];
+    }
+
+    /**
+     * Look up a metric by its series name, or null if it isn't a registered metric
+     */
+    public static MetricType find(String name) {
+        for(MetricType type : VALUES) {
+            if(type.name.equals(name)) return type;
+        }
+
+        return null;
+    }
 }
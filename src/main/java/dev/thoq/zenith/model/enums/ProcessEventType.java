@@ -0,0 +1,6 @@
+package dev.thoq.zenith.model.enums;
+
+public enum ProcessEventType {
+    SPAWN,
+    EXIT,
+}
@@ -1,7 +1,8 @@
 package dev.thoq.zenith.model.types;
 
+import dev.thoq.zenith.model.dto.AnomalyDto;
+
 import java.util.List;
-import java.util.Map;
 
-public interface Anomalies extends List<Map<String, String>> {
+public interface Anomalies extends List<AnomalyDto> {
 }
@@ -2,5 +2,9 @@ package dev.thoq.zenith.model.types;
 
 import java.util.List;
 
-public interface Timestamps extends List<Float> {
+public interface Timestamps extends List<Long> {
+    /**
+     * Timestamp at the given index in nanoseconds since the epoch, without boxing
+     */
+    long getNanos(int index);
 }
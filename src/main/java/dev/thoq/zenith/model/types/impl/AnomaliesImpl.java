@@ -1,11 +1,11 @@
 package dev.thoq.zenith.model.types.impl;
 
+import dev.thoq.zenith.model.dto.AnomalyDto;
 import dev.thoq.zenith.model.types.Anomalies;
 
 import java.util.ArrayList;
-import java.util.Map;
 
-public class AnomaliesImpl extends ArrayList<Map<String, String>> implements Anomalies {
+public class AnomaliesImpl extends ArrayList<AnomalyDto> implements Anomalies {
 
     public AnomaliesImpl() {
         super();
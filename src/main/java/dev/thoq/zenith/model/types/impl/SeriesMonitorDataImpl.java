@@ -0,0 +1,110 @@
+package dev.thoq.zenith.model.types.impl;
+
+import dev.thoq.zenith.model.types.MonitorData;
+import dev.thoq.zenith.storage.RingBufferSeries;
+import dev.thoq.zenith.storage.SeriesStore;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Read-only {@link MonitorData} view over the latest value of every series in a {@link SeriesStore}.
+ * A series named {@code cpu.usage} shows up as {@code cpu -> {usage: value}}; values are read on access.
+ */
+@SuppressWarnings("NullableProblems")
+public class SeriesMonitorDataImpl extends AbstractMap<String, Map<String, Double>> implements MonitorData {
+    private final SeriesStore store;
+
+    public SeriesMonitorDataImpl(SeriesStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public Map<String, Double> get(Object key) {
+        if(!(key instanceof String group)) return null;
+        return hasGroup(group) ? new Group(group) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String group && hasGroup(group);
+    }
+
+    @Override
+    public Set<Entry<String, Map<String, Double>>> entrySet() {
+        Set<String> groups = new TreeSet<>();
+        for(RingBufferSeries series : store.getSeries())
+            groups.add(groupOf(series.getName()));
+
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Map<String, Double>>> iterator() {
+                Iterator<String> names = groups.iterator();
+
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return names.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Map<String, Double>> next() {
+                        String group = names.next();
+                        return new SimpleImmutableEntry<>(group, new Group(group));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return groups.size();
+            }
+        };
+    }
+
+    private boolean hasGroup(String group) {
+        for(RingBufferSeries series : store.getSeries()) {
+            if(groupOf(series.getName()).equals(group)) return true;
+        }
+
+        return false;
+    }
+
+    private static String groupOf(String metric) {
+        int dot = metric.indexOf('.');
+        return dot < 0 ? metric : metric.substring(0, dot);
+    }
+
+    private final class Group extends AbstractMap<String, Double> {
+        private final String prefix;
+
+        private Group(String group) {
+            this.prefix = group + ".";
+        }
+
+        @Override
+        public Double get(Object key) {
+            if(!(key instanceof String field)) return null;
+
+            RingBufferSeries series = store.find(prefix + field);
+            return series == null || series.isEmpty() ? null : series.lastValue();
+        }
+
+        @Override
+        public Set<Entry<String, Double>> entrySet() {
+            Map<String, Double> values = new TreeMap<>();
+            for(RingBufferSeries series : store.getSeries()) {
+                String name = series.getName();
+                if(name.startsWith(prefix) && !series.isEmpty())
+                    values.put(name.substring(prefix.length()), series.lastValue());
+            }
+
+            return values.entrySet();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package dev.thoq.zenith.model.types.impl;
+
+import dev.thoq.zenith.model.enums.MetricType;
+import dev.thoq.zenith.model.types.MonitorData;
+import dev.thoq.zenith.storage.MetricSnapshot;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only {@link MonitorData} view over a {@link MetricSnapshot}. The group and field structure is built
+ * once from {@link MetricType}; values are read from the snapshot on access, so refilling the snapshot
+ * updates the view.
+ */
+@SuppressWarnings("NullableProblems")
+public class SnapshotMonitorDataImpl extends AbstractMap<String, Map<String, Double>> implements MonitorData {
+    private final MetricSnapshot snapshot;
+    private final Map<String, Map<String, Double>> groups;
+
+    public SnapshotMonitorDataImpl(MetricSnapshot snapshot) {
+        this.snapshot = snapshot;
+
+        Map<String, List<MetricType>> members = new LinkedHashMap<>();
+        for(MetricType type : MetricType.values())
+            members.computeIfAbsent(type.getGroup(), group -> new ArrayList<>()).add(type);
+
+        Map<String, Map<String, Double>> groups = new LinkedHashMap<>();
+        members.forEach((group, types) -> groups.put(group, new Group(types.toArray(new MetricType[0]))));
+        this.groups = Collections.unmodifiableMap(groups);
+    }
+
+    @Override
+    public Map<String, Double> get(Object key) {
+        return groups.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return groups.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return groups.size();
+    }
+
+    @Override
+    public Set<Entry<String, Map<String, Double>>> entrySet() {
+        return groups.entrySet();
+    }
+
+    private final class Group extends AbstractMap<String, Double> {
+        private final MetricType[] types;
+        private final Set<Entry<String, Double>> entries = new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Double>> iterator() {
+                return new Iterator<>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < types.length;
+                    }
+
+                    @Override
+                    public Entry<String, Double> next() {
+                        MetricType type = types[index++];
+                        return new SimpleImmutableEntry<>(type.getField(), snapshot.get(type));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return types.length;
+            }
+        };
+
+        private Group(MetricType[] types) {
+            this.types = types;
+        }
+
+        @Override
+        public Double get(Object key) {
+            for(MetricType type : types) {
+                if(type.getField().equals(key)) return snapshot.get(type);
+            }
+
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            for(MetricType type : types) {
+                if(type.getField().equals(key)) return true;
+            }
+
+            return false;
+        }
+
+        @Override
+        public Set<Entry<String, Double>> entrySet() {
+            return entries;
+        }
+    }
+}
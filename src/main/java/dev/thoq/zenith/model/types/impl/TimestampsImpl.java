@@ -1,8 +1,38 @@
 package dev.thoq.zenith.model.types.impl;
 
 import dev.thoq.zenith.model.types.Timestamps;
+import dev.thoq.zenith.storage.RingBufferSeries;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
 
-public class TimestampsImpl extends ArrayList<Float> implements Timestamps {
+/**
+ * Read-only view of the timestamps held by a {@link RingBufferSeries}, oldest first
+ */
+public class TimestampsImpl extends AbstractList<Long> implements Timestamps {
+    private final RingBufferSeries series;
+
+    public TimestampsImpl(RingBufferSeries series) {
+        this.series = series;
+    }
+
+    @Override
+    public long getNanos(int index) {
+        checkIndex(index);
+        return series.timestampAt(index);
+    }
+
+    @Override
+    public Long get(int index) {
+        return getNanos(index);
+    }
+
+    @Override
+    public int size() {
+        return series.size();
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+    }
 }
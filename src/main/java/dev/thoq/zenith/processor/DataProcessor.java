@@ -2,35 +2,45 @@ package dev.thoq.zenith.processor;
 
 import dev.thoq.zenith.model.types.Anomalies;
 import dev.thoq.zenith.model.types.MonitorData;
-import dev.thoq.zenith.model.types.Timestamps;
-import dev.thoq.zenith.model.types.impl.TimestampsImpl;
+import dev.thoq.zenith.service.alert.ThresholdService;
 import dev.thoq.zenith.service.analytics.AnomalyDetectionService;
 import dev.thoq.zenith.service.analytics.ReportGenerationService;
 import dev.thoq.zenith.service.analytics.TrendAnalysisService;
+import dev.thoq.zenith.storage.MetricRegistry;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 
+@ApplicationScoped
 public class DataProcessor {
-    private float lastTimestamp;
-    private final Timestamps timestamps = new TimestampsImpl();
-    private final AnomalyDetectionService anomalyDetectionService;
     private final ReportGenerationService reportGenerationService;
-    private final TrendAnalysisService trendAnalysisService;
+
+    @Inject
+    MetricRegistry metricRegistry;
+
+    @Inject
+    AnomalyDetectionService anomalyDetectionService;
+
+    @Inject
+    TrendAnalysisService trendAnalysisService;
+
+    @Inject
+    ThresholdService thresholdService;
 
     public DataProcessor() {
-        this.anomalyDetectionService = new AnomalyDetectionService();
         this.reportGenerationService = new ReportGenerationService();
-        this.trendAnalysisService = new TrendAnalysisService();
     }
 
     public void process(MonitorData data) {
-        this.lastTimestamp = System.currentTimeMillis() / 1000.0f;
-        this.timestamps.add(getLastTimestamp());
-
-        Anomalies anomalies = anomalyDetectionService.detectAnomalies(timestamps, data);
+        Anomalies anomalies = anomalyDetectionService.detectAnomalies();
         reportGenerationService.generateReport(anomalies, data);
-        trendAnalysisService.analyzeTrends(data);
+        trendAnalysisService.analyzeTrends();
+        thresholdService.evaluate();
     }
 
-    public float getLastTimestamp() {
-        return lastTimestamp;
+    /**
+     * Timestamp of the latest aggregated sample, in nanoseconds since the epoch
+     */
+    public long getLastTimestamp() {
+        return metricRegistry.getTimestamp();
     }
 }
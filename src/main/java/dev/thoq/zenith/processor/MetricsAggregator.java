@@ -1,42 +1,81 @@
 package dev.thoq.zenith.processor;
 
+import dev.thoq.zenith.model.enums.MetricType;
 import dev.thoq.zenith.model.types.MonitorData;
-import dev.thoq.zenith.model.types.impl.MonitorDataImpl;
+import dev.thoq.zenith.model.types.impl.SnapshotMonitorDataImpl;
 import dev.thoq.zenith.service.monitoring.NetworkMonitorService;
 import dev.thoq.zenith.service.monitoring.ResourceMonitorService;
+import dev.thoq.zenith.storage.MetricRegistry;
+import dev.thoq.zenith.storage.MetricSnapshot;
+import dev.thoq.zenith.util.TimeUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 
-import java.util.Map;
-
+@ApplicationScoped
 public class MetricsAggregator {
-    private MonitorData data;
-    private final ResourceMonitorService resourceMonitorService;
-    private final NetworkMonitorService networkMonitorService;
+    public static final String CPU_USAGE = MetricType.CPU_USAGE.getName();
+    public static final String MEMORY_USAGE = MetricType.MEMORY_USAGE.getName();
+    public static final String DISK_USAGE = MetricType.DISK_USAGE.getName();
+    public static final String NETWORK_UPLOAD = MetricType.NETWORK_UPLOAD.getName();
+    public static final String NETWORK_DOWNLOAD = MetricType.NETWORK_DOWNLOAD.getName();
+    private final MetricSnapshot snapshot = new MetricSnapshot();
+    private final MonitorData data = new SnapshotMonitorDataImpl(snapshot);
+    private long cpuVersion = -1;
+    private long diskVersion = -1;
+    private NetworkMonitorService.Traffic traffic;
 
-    public MetricsAggregator() {
-        this.resourceMonitorService = new ResourceMonitorService();
-        this.networkMonitorService = new NetworkMonitorService();
-    }
+    @Inject
+    ResourceMonitorService resourceMonitorService;
+
+    @Inject
+    NetworkMonitorService networkMonitorService;
 
+    @Inject
+    MetricRegistry metricRegistry;
+
+    /**
+     * View of the tick published by the last {@link #aggregate()}, only valid on the processor thread
+     */
     public MonitorData getAggregatedData() {
         return data;
     }
 
+    /**
+     * Snapshot of the tick published by the last {@link #aggregate()}, only valid on the processor thread
+     */
+    public MetricSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Publish the next tick. Ticks run whenever any probe reports, far more often than the CPU, disk and network
+     * figures are refreshed, so those are only set when their source took a new reading since the last tick.
+     * The JVM memory figure is read live and set every tick.
+     */
     public void aggregate() {
-        Map<String, Double> cpu = Map.of("usage", resourceMonitorService.getCpuUsage());
-        Map<String, Double> memory = Map.of("usage", resourceMonitorService.getMemoryUsagePercentage());
-        Map<String, Double> disk = Map.of("usage", resourceMonitorService.getDiskUsageMb());
-        Map<String, Double> network = Map.of(
-                "upload", (double) networkMonitorService.getDataUp(),
-                "download", (double) networkMonitorService.getDataDown()
-        );
-
-        Map<String, Map<String, Double>> aggregatedData = Map.of(
-                "cpu", cpu,
-                "memory", memory,
-                "disk", disk,
-                "network", network
-        );
-
-        this.data = new MonitorDataImpl(aggregatedData);
+        long cpu = resourceMonitorService.getCpuVersion();
+        if(cpu != cpuVersion) {
+            cpuVersion = cpu;
+            metricRegistry.set(MetricType.CPU_USAGE, resourceMonitorService.getCpuUsage());
+        }
+
+        metricRegistry.set(MetricType.MEMORY_USAGE, resourceMonitorService.getMemoryUsagePercentage());
+
+        long disk = resourceMonitorService.getDiskVersion();
+        if(disk != diskVersion) {
+            diskVersion = disk;
+            metricRegistry.set(MetricType.DISK_USAGE, resourceMonitorService.getDiskUsageMb());
+        }
+
+        // every network reading publishes a new Traffic
+        NetworkMonitorService.Traffic latest = networkMonitorService.getTraffic();
+        if(latest != traffic) {
+            traffic = latest;
+            metricRegistry.set(MetricType.NETWORK_UPLOAD, latest.up());
+            metricRegistry.set(MetricType.NETWORK_DOWNLOAD, latest.down());
+        }
+
+        metricRegistry.publish(TimeUtils.epochNanos());
+        metricRegistry.read(snapshot);
     }
 }
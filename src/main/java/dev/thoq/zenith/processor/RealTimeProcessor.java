@@ -1,47 +1,110 @@
 package dev.thoq.zenith.processor;
 
+import dev.thoq.zenith.collector.Probe;
+import dev.thoq.zenith.collector.SampleListener;
+import dev.thoq.zenith.collector.SamplingEngine;
+import dev.thoq.zenith.model.dto.ProcessorStatsDto;
+import dev.thoq.zenith.model.enums.BackpressurePolicy;
 import dev.thoq.zenith.model.types.MonitorData;
 import dev.thoq.zenith.util.LoggingUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
-public class RealTimeProcessor {
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs the analytics pipeline once per sample event, at most {@code zenith.processor.tick-rate} times per second.
+ * Events that arrive while the pipeline is behind are handled according to the configured {@link BackpressurePolicy}.
+ * Events are raised on the shared sampler thread, so {@link BackpressurePolicy#BLOCK} is not supported here: waiting
+ * for room would hold back every probe behind the slowest tick, and the processor falls back to coalescing instead.
+ */
+@ApplicationScoped
+public class RealTimeProcessor implements SampleListener {
+    private static final double DEFAULT_TICK_RATE = 10.0;
     private final LoggingUtils logger;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final AtomicLong processedTicks = new AtomicLong();
+    private final AtomicLong droppedTicks = new AtomicLong();
+    private final AtomicLong coalescedTicks = new AtomicLong();
+    private final AtomicLong totalTickLatencyNanos = new AtomicLong();
+    private volatile long lastTickLatencyNanos;
+    private volatile long maxTickLatencyNanos;
+    private volatile long lastSampleAgeNanos;
     private volatile boolean running = false;
     private Thread realtimeProcessorThread;
-    private final MetricsAggregator metricsAggregator;
-    private final DataProcessor dataProcessor;
+    private long[] pendingTicks;
+    private int pendingHead;
+    private int pendingSize;
+
+    @Inject
+    MetricsAggregator metricsAggregator;
+
+    @Inject
+    DataProcessor dataProcessor;
+
+    @Inject
+    SamplingEngine samplingEngine;
+
+    @ConfigProperty(name = "zenith.processor.tick-rate", defaultValue = "10")
+    double tickRate;
+
+    @ConfigProperty(name = "zenith.processor.backpressure", defaultValue = "COALESCE")
+    BackpressurePolicy backpressurePolicy;
+
+    @ConfigProperty(name = "zenith.processor.queue-capacity", defaultValue = "16")
+    int queueCapacity;
 
     public RealTimeProcessor() {
         this.logger = LoggingUtils.getLogger(RealTimeProcessor.class);
-        this.metricsAggregator = new MetricsAggregator();
-        this.dataProcessor = new DataProcessor();
     }
 
     public void runUpdateProcessStats() {
         logger.info("Starting realtime processor thread...");
 
         if(running) {
-            logger.warn("Process stats thread is already running, ignoring request to start it...");
+            logger.warn("Realtime processor thread is already running, ignoring request to start it...");
             return;
         }
 
-        running = true;
-        realtimeProcessorThread = new Thread(() -> {
-            Thread.currentThread().setName("Zenith-RealtimeProcessorr");
+        if(tickRate <= 0) {
+            logger.warn("Invalid tick rate %s, falling back to %s", tickRate, DEFAULT_TICK_RATE);
+            tickRate = DEFAULT_TICK_RATE;
+        }
 
-            while(running) {
-                metricsAggregator.aggregate();
-                MonitorData data = metricsAggregator.getAggregatedData();
+        if(backpressurePolicy == BackpressurePolicy.BLOCK) {
+            logger.warn("%s backpressure would stall the sampler thread, falling back to %s",
+                    BackpressurePolicy.BLOCK, BackpressurePolicy.COALESCE);
+            backpressurePolicy = BackpressurePolicy.COALESCE;
+        }
 
-                dataProcessor.process(data);
-            }
-        });
+        pendingTicks = new long[Math.max(1, queueCapacity)];
+        pendingHead = 0;
+        pendingSize = 0;
 
+        running = true;
+        realtimeProcessorThread = new Thread(this::processTicks);
         realtimeProcessorThread.start();
+        samplingEngine.addListener(this);
+
+        logger.info("Realtime processor running at %.1f Hz with %s backpressure", tickRate, backpressurePolicy);
     }
 
     public void stopUpdateProcessStats() {
         logger.info("Stopping realtime processor thread...");
-        running = false;
+        samplingEngine.removeListener(this);
+
+        lock.lock();
+        try {
+            running = false;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
 
         if(realtimeProcessorThread != null) {
             realtimeProcessorThread.interrupt();
@@ -49,14 +112,127 @@ public class RealTimeProcessor {
             try {
                 realtimeProcessorThread.join(1000);
             } catch(InterruptedException ex) {
-                logger.trace("Interrupted while waiting for process stats thread to stop", ex);
+                logger.trace("Interrupted while waiting for realtime processor thread to stop", ex);
                 Thread.currentThread().interrupt();
             }
 
             realtimeProcessorThread = null;
         }
 
-        logger.info("Stopped process stats thread!");
+        logger.info("Stopped realtime processor thread!");
     }
-}
 
+    @Override
+    public void onSample(Probe probe) {
+        long sampledAt = System.nanoTime();
+
+        lock.lock();
+        try {
+            if(!running) return;
+
+            if(backpressurePolicy == BackpressurePolicy.COALESCE && pendingSize > 0) {
+                coalescedTicks.incrementAndGet();
+                return;
+            }
+
+            if(pendingSize == pendingTicks.length) {
+                droppedTicks.incrementAndGet();
+                return;
+            }
+
+            pendingTicks[(pendingHead + pendingSize) % pendingTicks.length] = sampledAt;
+            pendingSize++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void processTicks() {
+        Thread.currentThread().setName("Zenith-RealtimeProcessor");
+
+        long tickIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / tickRate);
+        long nextTickAt = System.nanoTime();
+
+        while(running) {
+            long sampledAt;
+
+            lock.lock();
+            try {
+                while(running && pendingSize == 0)
+                    notEmpty.await();
+
+                long remaining = nextTickAt - System.nanoTime();
+                while(running && remaining > 0)
+                    remaining = notEmpty.awaitNanos(remaining);
+
+                if(!running) break;
+
+                sampledAt = pendingTicks[pendingHead];
+                pendingHead = (pendingHead + 1) % pendingTicks.length;
+                pendingSize--;
+            } catch(InterruptedException ex) {
+                logger.trace("Interrupted while waiting for the next tick", ex);
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                lock.unlock();
+            }
+
+            long startedAt = System.nanoTime();
+            nextTickAt = startedAt + tickIntervalNanos;
+
+            try {
+                metricsAggregator.aggregate();
+                MonitorData data = metricsAggregator.getAggregatedData();
+
+                dataProcessor.process(data);
+            } catch(Exception ex) {
+                logger.error("Realtime processor tick failed", ex);
+            }
+
+            long finishedAt = System.nanoTime();
+            recordTick(finishedAt - startedAt, finishedAt - sampledAt);
+        }
+    }
+
+    private void recordTick(long latencyNanos, long sampleAgeNanos) {
+        processedTicks.incrementAndGet();
+        totalTickLatencyNanos.addAndGet(latencyNanos);
+        lastTickLatencyNanos = latencyNanos;
+        lastSampleAgeNanos = sampleAgeNanos;
+
+        if(latencyNanos > maxTickLatencyNanos)
+            maxTickLatencyNanos = latencyNanos;
+    }
+
+    public ProcessorStatsDto getStats() {
+        long processed = processedTicks.get();
+        double averageNanos = processed > 0 ? (double) totalTickLatencyNanos.get() / processed : 0.0;
+        int pending;
+
+        lock.lock();
+        try {
+            pending = pendingSize;
+        } finally {
+            lock.unlock();
+        }
+
+        return new ProcessorStatsDto(
+                tickRate,
+                backpressurePolicy,
+                processed,
+                droppedTicks.get(),
+                coalescedTicks.get(),
+                pending,
+                toMillis(lastTickLatencyNanos),
+                toMillis((long) averageNanos),
+                toMillis(maxTickLatencyNanos),
+                toMillis(lastSampleAgeNanos)
+        );
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
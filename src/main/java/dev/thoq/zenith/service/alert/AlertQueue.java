@@ -0,0 +1,81 @@
+package dev.thoq.zenith.service.alert;
+
+import dev.thoq.zenith.model.dto.AlertDto;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer. Every slot carries a sequence number that
+ * tells producers whether it is free and the consumer whether it has been published, so a producer only ever
+ * contends on a single CAS and a full queue rejects instead of blocking.
+ */
+final class AlertQueue {
+    private final AlertDto[] buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final int mask;
+    private long head;
+
+    AlertQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity));
+        if(size < capacity) size <<= 1;
+
+        this.buffer = new AlertDto[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+
+        for(int i = 0; i < size; i++)
+            sequences.set(i, i);
+    }
+
+    /**
+     * Enqueue an alert, safe to call from any thread
+     *
+     * @return false if the queue is full
+     */
+    boolean offer(AlertDto alert) {
+        long position = tail.get();
+
+        while(true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+
+            if(difference == 0) {
+                if(tail.compareAndSet(position, position + 1)) {
+                    buffer[index] = alert;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+
+                position = tail.get();
+            } else if(difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Dequeue the oldest published alert, only ever called from the consumer thread
+     *
+     * @return null if the queue is empty
+     */
+    AlertDto poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        if(sequences.get(index) != position + 1) return null;
+
+        AlertDto alert = buffer[index];
+        buffer[index] = null;
+        sequences.set(index, position + mask + 1);
+        head = position + 1;
+
+        return alert;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
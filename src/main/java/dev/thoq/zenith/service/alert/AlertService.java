@@ -1,4 +1,252 @@
 package dev.thoq.zenith.service.alert;
 
+import dev.thoq.zenith.model.dto.AlertDto;
+import dev.thoq.zenith.model.dto.NotificationDto;
+import dev.thoq.zenith.util.LoggingUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Entry point for alerts raised anywhere in the agent. {@link #raise} only enqueues into a bounded lock-free
+ * queue, a dispatcher thread does the rest:
+ * <ul>
+ *     <li>alerts are grouped by fingerprint, their severity and message</li>
+ *     <li>a new group is held for the group wait so a burst becomes one notification with a count</li>
+ *     <li>after notifying, a group stays quiet for the repeat interval and only counts what it suppressed</li>
+ *     <li>ready groups are handed to the {@link NotificationService} in batches</li>
+ * </ul>
+ * The most recent alerts are kept for the REST API.
+ */
+@ApplicationScoped
 public class AlertService {
+    private static final LoggingUtils logger = LoggingUtils.getLogger(AlertService.class);
+    private final Deque<AlertDto> recentAlerts = new ArrayDeque<>();
+    private final Map<String, AlertGroup> groups = new HashMap<>();
+    private final List<NotificationDto> batch = new ArrayList<>();
+    private final AtomicLong droppedAlerts = new AtomicLong();
+    private AlertQueue queue;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    @Inject
+    NotificationService notificationService;
+
+    @ConfigProperty(name = "zenith.alert.history", defaultValue = "100")
+    int history;
+
+    @ConfigProperty(name = "zenith.alert.queue-capacity", defaultValue = "4096")
+    int queueCapacity;
+
+    @ConfigProperty(name = "zenith.alert.dispatch-interval", defaultValue = "PT0.1S")
+    Duration dispatchInterval;
+
+    @ConfigProperty(name = "zenith.alert.group-wait", defaultValue = "PT2S")
+    Duration groupWait;
+
+    @ConfigProperty(name = "zenith.alert.repeat-interval", defaultValue = "PT5M")
+    Duration repeatInterval;
+
+    @ConfigProperty(name = "zenith.alert.max-batch", defaultValue = "100")
+    int maxBatch;
+
+    @ConfigProperty(name = "zenith.alert.max-groups", defaultValue = "10000")
+    int maxGroups;
+
+    @PostConstruct
+    void init() {
+        queue = new AlertQueue(queueCapacity);
+    }
+
+    /**
+     * Hand an alert to the dispatcher. Never blocks, when the queue is full the alert is dropped and counted.
+     */
+    public void raise(AlertDto alert) {
+        if(!queue.offer(alert)) droppedAlerts.incrementAndGet();
+    }
+
+    public synchronized void start() {
+        if(dispatcher != null) return;
+
+        running = true;
+        dispatcher = new Thread(this::dispatch, "Zenith-AlertDispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+
+        logger.info("Dispatching alerts to %s", notificationService.getActiveSinks());
+    }
+
+    /**
+     * Stop the dispatcher, notifying every group that still has alerts regardless of its timers
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if(dispatcher == null) return;
+
+        running = false;
+        LockSupport.unpark(dispatcher);
+
+        try {
+            dispatcher.join(5000);
+        } catch(InterruptedException ex) {
+            logger.trace("Interrupted while waiting for the alert dispatcher to stop", ex);
+            Thread.currentThread().interrupt();
+        }
+
+        dispatcher = null;
+    }
+
+    /**
+     * Most recent alerts, newest first
+     */
+    public List<AlertDto> getRecentAlerts() {
+        synchronized(recentAlerts) {
+            return new ArrayList<>(recentAlerts);
+        }
+    }
+
+    /**
+     * Alerts dropped because the queue was full or too many distinct fingerprints were active
+     */
+    public long getDroppedAlerts() {
+        return droppedAlerts.get();
+    }
+
+    private void dispatch() {
+        long intervalNanos = dispatchInterval.toNanos();
+
+        while(running) {
+            try {
+                int drained = drain(System.nanoTime());
+                flush(System.nanoTime(), false);
+
+                if(drained == 0) LockSupport.parkNanos(this, intervalNanos);
+            } catch(Exception ex) {
+                logger.error("Alert dispatcher failed", ex);
+            }
+        }
+
+        drain(System.nanoTime());
+        flush(System.nanoTime(), true);
+    }
+
+    private int drain(long now) {
+        int drained = 0;
+        AlertDto alert;
+
+        while((alert = queue.poll()) != null) {
+            drained++;
+            remember(alert);
+            group(alert, now);
+        }
+
+        return drained;
+    }
+
+    private void remember(AlertDto alert) {
+        synchronized(recentAlerts) {
+            recentAlerts.addFirst(alert);
+            while(recentAlerts.size() > history) recentAlerts.removeLast();
+        }
+    }
+
+    private void group(AlertDto alert, long now) {
+        String fingerprint = alert.severity() + "|" + alert.message();
+        AlertGroup group = groups.get(fingerprint);
+
+        if(group == null) {
+            if(groups.size() >= maxGroups) evictIdle(now);
+            if(groups.size() >= maxGroups) {
+                droppedAlerts.incrementAndGet();
+                return;
+            }
+
+            group = new AlertGroup(fingerprint);
+            groups.put(fingerprint, group);
+        }
+
+        long wallClock = System.currentTimeMillis();
+        if(group.count == 0) {
+            group.firstSeen = wallClock;
+            group.pendingSince = now;
+        }
+
+        group.latest = alert;
+        group.lastSeen = wallClock;
+        group.count++;
+    }
+
+    private void flush(long now, boolean force) {
+        long waitNanos = groupWait.toNanos();
+        long repeatNanos = repeatInterval.toNanos();
+        Iterator<AlertGroup> iterator = groups.values().iterator();
+
+        while(iterator.hasNext()) {
+            AlertGroup group = iterator.next();
+
+            if(group.count == 0) {
+                if(now - group.lastNotified >= repeatNanos) iterator.remove();
+                continue;
+            }
+
+            if(!force && now - group.pendingSince < waitNanos) continue;
+            if(!force && group.notified && now - group.lastNotified < repeatNanos) continue;
+
+            batch.add(new NotificationDto(group.fingerprint, group.latest.severity(), group.latest.message(),
+                    group.latest.reason(), group.count, group.firstSeen, group.lastSeen));
+            group.count = 0;
+            group.notified = true;
+            group.lastNotified = now;
+
+            if(batch.size() >= maxBatch) send();
+        }
+
+        send();
+    }
+
+    private void send() {
+        if(batch.isEmpty()) return;
+
+        try {
+            notificationService.dispatch(batch);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void evictIdle(long now) {
+        long repeatNanos = repeatInterval.toNanos();
+        groups.values().removeIf(group -> group.count == 0 && now - group.lastNotified >= repeatNanos);
+    }
+
+    /**
+     * Alerts sharing a fingerprint, only touched by the dispatcher thread
+     */
+    private static final class AlertGroup {
+        private final String fingerprint;
+        private AlertDto latest;
+        private int count;
+        private boolean notified;
+        private long pendingSince;
+        private long lastNotified;
+        private long firstSeen;
+        private long lastSeen;
+
+        private AlertGroup(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
 }
@@ -1,4 +1,118 @@
 package dev.thoq.zenith.service.alert;
 
+import dev.thoq.zenith.model.dto.NotificationDto;
+import dev.thoq.zenith.service.alert.sink.NotificationSink;
+import dev.thoq.zenith.util.LoggingUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fans notification batches out to the {@link NotificationSink}s listed in {@code zenith.notification.sinks}.
+ * A sink that fails is skipped with an exponential back-off, so a dead webhook costs at most one timeout per
+ * back-off period instead of one per batch.
+ */
+@ApplicationScoped
 public class NotificationService {
+    private static final LoggingUtils logger = LoggingUtils.getLogger(NotificationService.class);
+    private final List<SinkState> activeSinks = new ArrayList<>();
+
+    @Inject
+    Instance<NotificationSink> sinks;
+
+    @ConfigProperty(name = "zenith.notification.sinks", defaultValue = "console")
+    List<String> enabledSinks;
+
+    @ConfigProperty(name = "zenith.notification.backoff", defaultValue = "PT30S")
+    Duration backoff;
+
+    @ConfigProperty(name = "zenith.notification.max-backoff", defaultValue = "PT10M")
+    Duration maxBackoff;
+
+    @PostConstruct
+    void init() {
+        Set<String> names = new HashSet<>();
+        for(String name : enabledSinks) {
+            if(!name.isBlank()) names.add(name.trim());
+        }
+
+        for(NotificationSink sink : sinks) {
+            if(!names.remove(sink.getName())) continue;
+
+            if(!sink.isConfigured()) {
+                logger.warn("Notification sink %s is enabled but not configured, skipping it", sink.getName());
+                continue;
+            }
+
+            activeSinks.add(new SinkState(sink));
+        }
+
+        for(String unknown : names)
+            logger.warn("Unknown notification sink %s", unknown);
+    }
+
+    /**
+     * Deliver a batch to every sink that is not backing off, only ever called from the alert dispatcher
+     */
+    public void dispatch(List<NotificationDto> batch) {
+        long now = System.nanoTime();
+
+        for(SinkState state : activeSinks) {
+            if(state.failures > 0 && now - state.retryAt < 0) {
+                state.skipped += batch.size();
+                continue;
+            }
+
+            try {
+                state.sink.send(batch);
+
+                if(state.failures > 0)
+                    logger.info("Notification sink %s recovered, %d notifications were skipped", state.sink.getName(), state.skipped);
+
+                state.failures = 0;
+                state.skipped = 0;
+            } catch(Exception ex) {
+                state.failures++;
+                long delay = Math.min(backoff.toNanos() << Math.min(state.failures - 1, 20), maxBackoff.toNanos());
+                state.retryAt = now + delay;
+                state.skipped += batch.size();
+
+                logger.warn("Notification sink %s failed, retrying in %ds: %s", state.sink.getName(), delay / 1_000_000_000L, ex.getMessage());
+            }
+        }
+    }
+
+    public List<String> getActiveSinks() {
+        List<String> names = new ArrayList<>(activeSinks.size());
+        for(SinkState state : activeSinks)
+            names.add(state.sink.getName());
+
+        return names;
+    }
+
+    @PreDestroy
+    void close() {
+        for(SinkState state : activeSinks)
+            state.sink.close();
+    }
+
+    private static final class SinkState {
+        private final NotificationSink sink;
+        private int failures;
+        private long retryAt;
+        private long skipped;
+
+        private SinkState(NotificationSink sink) {
+            this.sink = sink;
+        }
+    }
 }
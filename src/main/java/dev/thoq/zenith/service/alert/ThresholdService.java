@@ -1,4 +1,173 @@
 package dev.thoq.zenith.service.alert;
 
+import dev.thoq.zenith.model.dto.AlertDto;
+import dev.thoq.zenith.model.dto.ThresholdRuleDto;
+import dev.thoq.zenith.model.enums.AlertSeverity;
+import dev.thoq.zenith.model.enums.ThresholdState;
+import dev.thoq.zenith.service.alert.rule.RuleInput;
+import dev.thoq.zenith.service.alert.rule.RuleParser;
+import dev.thoq.zenith.service.alert.rule.ThresholdRule;
+import dev.thoq.zenith.storage.SeriesStore;
+import dev.thoq.zenith.util.LoggingUtils;
+import dev.thoq.zenith.util.TimeUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Evaluates threshold rules compiled by {@link RuleParser}. Rules come from {@code zenith.threshold.rule.<name>}
+ * properties and from the optional rules file, one {@code name = expression} per line. Each evaluation only
+ * refreshes inputs whose series got new samples and only re-tests the rules reading them, plus pending rules
+ * waiting out their {@code for} duration.
+ */
+@ApplicationScoped
 public class ThresholdService {
+    private static final LoggingUtils logger = LoggingUtils.getLogger(ThresholdService.class);
+    private static final String RULE_PREFIX = "zenith.threshold.rule.";
+    private ThresholdRule[] rules = new ThresholdRule[0];
+    private RuleInput[] inputs = new RuleInput[0];
+
+    @Inject
+    SeriesStore seriesStore;
+
+    @Inject
+    AlertService alertService;
+
+    @Inject
+    Config config;
+
+    @ConfigProperty(name = "zenith.threshold.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "zenith.threshold.rules-file")
+    Optional<String> rulesFile;
+
+    @ConfigProperty(name = "zenith.threshold.severity", defaultValue = "HIGH")
+    AlertSeverity severity;
+
+    @PostConstruct
+    void init() {
+        RuleParser parser = new RuleParser(severity);
+        List<ThresholdRule> compiled = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+
+        for(String property : config.getPropertyNames()) {
+            if(property.startsWith(RULE_PREFIX))
+                compile(parser, property.substring(RULE_PREFIX.length()), config.getValue(property, String.class), compiled, names);
+        }
+
+        if(rulesFile.isPresent() && !rulesFile.get().isBlank())
+            loadRulesFile(parser, Path.of(rulesFile.get().trim()), compiled, names);
+
+        rules = compiled.toArray(new ThresholdRule[0]);
+        inputs = parser.getInputs().toArray(new RuleInput[0]);
+
+        logger.info("Compiled %d threshold rules reading %d inputs", rules.length, inputs.length);
+    }
+
+    private void loadRulesFile(RuleParser parser, Path path, List<ThresholdRule> compiled, Set<String> names) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(path);
+        } catch(IOException ex) {
+            logger.warn("Could not read threshold rules from %s: %s", path, ex.getMessage());
+            return;
+        }
+
+        for(int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if(line.isEmpty() || line.startsWith("#")) continue;
+
+            int split = line.indexOf('=');
+            // '=' also starts the == operator, so a rule line needs a name before it
+            if(split <= 0 || line.startsWith("==", split)) {
+                logger.warn("Ignoring line %d of %s: expected name = expression", i + 1, path);
+                continue;
+            }
+
+            compile(parser, line.substring(0, split).trim(), line.substring(split + 1), compiled, names);
+        }
+    }
+
+    private void compile(RuleParser parser, String name, String expression, List<ThresholdRule> compiled, Set<String> names) {
+        if(!names.add(name)) {
+            logger.warn("Ignoring duplicate threshold rule '%s'", name);
+            return;
+        }
+
+        try {
+            compiled.add(parser.parse(name, expression));
+        } catch(IllegalArgumentException ex) {
+            logger.warn("Ignoring threshold rule '%s': %s", name, ex.getMessage());
+        }
+    }
+
+    /**
+     * Refresh changed inputs and advance the state machine of every rule they affect, raising an alert when a
+     * rule starts or stops firing
+     */
+    public void evaluate() {
+        if(!enabled) return;
+
+        long now = TimeUtils.epochNanos();
+
+        for(RuleInput input : inputs) {
+            if(!input.refresh(seriesStore)) continue;
+
+            for(ThresholdRule rule : input.getRules())
+                rule.markDirty();
+        }
+
+        for(ThresholdRule rule : rules) {
+            if(!rule.needsEvaluation()) continue;
+
+            ThresholdState previous = rule.evaluate(now);
+            if(previous != null) onTransition(rule, previous);
+        }
+    }
+
+    private void onTransition(ThresholdRule rule, ThresholdState previous) {
+        switch(rule.getState()) {
+            case FIRING -> alertService.raise(new AlertDto(
+                    "Threshold " + rule.getName() + " firing",
+                    rule.getExpression() + " (" + rule.describeValues() + ")",
+                    rule.getSeverity(),
+                    null
+            ));
+            case INACTIVE -> {
+                if(previous == ThresholdState.FIRING) {
+                    alertService.raise(new AlertDto(
+                            "Threshold " + rule.getName() + " resolved",
+                            rule.getExpression() + " (" + rule.describeValues() + ")",
+                            AlertSeverity.LOW,
+                            null
+                    ));
+                }
+            }
+            case PENDING -> logger.debug("Threshold %s pending: %s", rule.getName(), rule.getExpression());
+        }
+    }
+
+    public List<ThresholdRuleDto> getRules() {
+        List<ThresholdRuleDto> result = new ArrayList<>(rules.length);
+
+        for(ThresholdRule rule : rules) {
+            long since = rule.getSinceNanos();
+            result.add(new ThresholdRuleDto(rule.getName(), rule.getExpression(), rule.getSeverity(), rule.getState(),
+                    since == 0 ? 0 : TimeUtils.toEpochMillis(since)));
+        }
+
+        return result;
+    }
 }
@@ -0,0 +1,164 @@
+package dev.thoq.zenith.service.alert.rule;
+
+/**
+ * Node of a compiled rule. Trees are built once by {@link RuleParser} and evaluating them never allocates.
+ */
+public abstract class Condition {
+    /**
+     * Evaluate against the current input values. Every node is visited, even when the result is already known,
+     * so the hysteresis state of each comparison follows its own input.
+     */
+    abstract boolean test();
+
+    /**
+     * Append the current values of the inputs this node reads, e.g. {@code cpu.usage=93.1}
+     */
+    abstract void describe(StringBuilder out);
+
+    enum Operator {
+        GREATER(">"),
+        GREATER_OR_EQUAL(">="),
+        LESS("<"),
+        LESS_OR_EQUAL("<="),
+        EQUAL("=="),
+        NOT_EQUAL("!="),
+        ;
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        static Operator of(String symbol) {
+            for(Operator operator : values()) {
+                if(operator.symbol.equals(symbol)) return operator;
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * {@code input op threshold}. Percent thresholds compare against the input divided by its total series, if
+     * there is one. Once true, the comparison stays true until the input moves past the threshold by the
+     * hysteresis margin.
+     */
+    static final class Comparison extends Condition {
+        private final RuleInput input;
+        private final RuleInput total;
+        private final Operator operator;
+        private final double threshold;
+        private double hysteresis;
+        private boolean active;
+
+        Comparison(RuleInput input, RuleInput total, Operator operator, double threshold) {
+            this.input = input;
+            this.total = total;
+            this.operator = operator;
+            this.threshold = threshold;
+        }
+
+        void setHysteresis(double hysteresis) {
+            this.hysteresis = hysteresis;
+        }
+
+        @Override
+        boolean test() {
+            double value = value();
+            double margin = active ? hysteresis : 0.0;
+
+            active = switch(operator) {
+                case GREATER -> value > threshold - margin;
+                case GREATER_OR_EQUAL -> value >= threshold - margin;
+                case LESS -> value < threshold + margin;
+                case LESS_OR_EQUAL -> value <= threshold + margin;
+                case EQUAL -> value == threshold;
+                case NOT_EQUAL -> value != threshold && !Double.isNaN(value);
+            };
+
+            return active;
+        }
+
+        private double value() {
+            double value = input.getValue();
+            if(total == null) return value;
+
+            // without a total series the input is taken to be a percentage already, a missing total never holds
+            double totalValue = total.getValue();
+            if(Double.isNaN(totalValue)) return Double.NaN;
+
+            return totalValue > 0.0 ? value / totalValue * 100.0 : Double.NaN;
+        }
+
+        @Override
+        void describe(StringBuilder out) {
+            if(!out.isEmpty()) out.append(", ");
+            out.append(input).append('=').append(input.getValue());
+        }
+    }
+
+    static final class And extends Condition {
+        private final Condition[] children;
+
+        And(Condition[] children) {
+            this.children = children;
+        }
+
+        @Override
+        boolean test() {
+            boolean result = true;
+            for(Condition child : children)
+                result &= child.test();
+
+            return result;
+        }
+
+        @Override
+        void describe(StringBuilder out) {
+            for(Condition child : children)
+                child.describe(out);
+        }
+    }
+
+    static final class Or extends Condition {
+        private final Condition[] children;
+
+        Or(Condition[] children) {
+            this.children = children;
+        }
+
+        @Override
+        boolean test() {
+            boolean result = false;
+            for(Condition child : children)
+                result |= child.test();
+
+            return result;
+        }
+
+        @Override
+        void describe(StringBuilder out) {
+            for(Condition child : children)
+                child.describe(out);
+        }
+    }
+
+    static final class Not extends Condition {
+        private final Condition child;
+
+        Not(Condition child) {
+            this.child = child;
+        }
+
+        @Override
+        boolean test() {
+            return !child.test();
+        }
+
+        @Override
+        void describe(StringBuilder out) {
+            child.describe(out);
+        }
+    }
+}
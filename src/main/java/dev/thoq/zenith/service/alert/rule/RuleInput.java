@@ -0,0 +1,87 @@
+package dev.thoq.zenith.service.alert.rule;
+
+import dev.thoq.zenith.storage.RingBufferSeries;
+import dev.thoq.zenith.storage.SeriesStore;
+
+/**
+ * A value threshold rules read: the latest sample of a series. Inputs are shared by every rule that references the same expression and refreshed once per evaluation, only
+ * when their series has new samples.
+ */
+public final class RuleInput {
+    private final String series;
+    private RingBufferSeries source;
+    private long generation = -1;
+    private long writeCount;
+    private double value = Double.NaN;
+    private ThresholdRule[] rules = new ThresholdRule[0];
+
+    RuleInput(String series) {
+        this.series = series;
+    }
+
+    /**
+     * Re-read the value if the series got new samples since the last refresh, resolving the series again
+     * whenever series were created or removed
+     *
+     * @return whether the value may have changed
+     */
+    public boolean refresh(SeriesStore seriesStore) {
+        long current = seriesStore.getGeneration();
+        if(current != generation) {
+            generation = current;
+            RingBufferSeries found = seriesStore.find(series);
+
+            if(found != source) {
+                boolean removed = found == null;
+                source = found;
+                writeCount = -1;
+
+                if(removed) {
+                    value = Double.NaN;
+                    return true;
+                }
+            }
+        }
+
+        if(source == null) return false;
+
+        long count = source.getWriteCount();
+        if(count == writeCount) return false;
+
+        writeCount = count;
+        value = source.lastValue();
+
+        return true;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public String getSeries() {
+        return series;
+    }
+
+    /**
+     * Rules that read this input, so only they need evaluating when it changes
+     */
+    public ThresholdRule[] getRules() {
+        return rules;
+    }
+
+    void addRule(ThresholdRule rule) {
+        for(ThresholdRule existing : rules) {
+            if(existing == rule) return;
+        }
+
+        ThresholdRule[] grown = new ThresholdRule[rules.length + 1];
+        System.arraycopy(rules, 0, grown, 0, rules.length);
+        grown[rules.length] = rule;
+        rules = grown;
+    }
+
+    @Override
+    public String toString() {
+        return series;
+    }
+}
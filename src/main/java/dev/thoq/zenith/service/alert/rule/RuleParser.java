@@ -0,0 +1,308 @@
+package dev.thoq.zenith.service.alert.rule;
+
+import dev.thoq.zenith.model.enums.AlertSeverity;
+import dev.thoq.zenith.util.TimeUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiles threshold rules into {@link Condition} trees. Rules read like
+ * <pre>
+ * cpu.usage > 90 for 30s hysteresis 5
+ * network.rx_bytes:eth0 > 800MB/s
+ * memory.available < 5% and swap.used > 50% for 1m severity CRITICAL
+ * </pre>
+ * Conditions combine comparisons with {@code and}, {@code or}, {@code not} and parentheses. A comparison reads the
+ * latest value of a series, which probes already store as a gauge or a per-second rate, and compares it against a
+ * number with an optional unit: {@code K M G T} and {@code KB MB GB TB} scale by powers of 1000, {@code KiB MiB GiB TiB} by
+ * powers of 1024, a trailing {@code /s} is allowed for readability, and {@code %} compares against the series
+ * divided by its {@code group.total} series for the memory, swap and filesystem groups; other series are taken to
+ * be percentages already. Until the total has a sample the comparison does not hold. The condition may be followed by {@code for <duration>},
+ * {@code hysteresis <value>} and {@code severity <level>}.
+ * <p>
+ * Inputs are shared between every rule compiled by the same parser.
+ */
+public final class RuleParser {
+    private static final String KEYWORD_AND = "and";
+    private static final String KEYWORD_OR = "or";
+    private static final String KEYWORD_NOT = "not";
+    private static final String KEYWORD_FOR = "for";
+    private static final String KEYWORD_HYSTERESIS = "hysteresis";
+    private static final String KEYWORD_SEVERITY = "severity";
+    private static final String FUNCTION_RATE = "rate";
+    // groups a probe records a group.total series for
+    private static final Set<String> TOTAL_GROUPS = Set.of("memory", "swap", "filesystem");
+    private static final String PERCENT_STAT = "usage";
+    private final Map<String, RuleInput> inputs = new LinkedHashMap<>();
+    private final AlertSeverity defaultSeverity;
+
+    // state of the rule being parsed
+    private final Map<String, RuleInput> pendingInputs = new HashMap<>();
+    private final List<Condition.Comparison> comparisons = new ArrayList<>();
+    private List<Token> tokens;
+    private int position;
+    private String text;
+
+    public RuleParser(AlertSeverity defaultSeverity) {
+        this.defaultSeverity = defaultSeverity;
+    }
+
+    /**
+     * Compile a rule
+     *
+     * @throws IllegalArgumentException if the rule does not parse
+     */
+    public ThresholdRule parse(String name, String expression) {
+        text = expression.trim();
+        tokens = tokenize(text);
+        position = 0;
+        pendingInputs.clear();
+        comparisons.clear();
+
+        Condition condition = parseOr();
+        long forNanos = 0;
+        double hysteresis = 0.0;
+        AlertSeverity severity = defaultSeverity;
+
+        while(peek().kind != Kind.END) {
+            Token keyword = expect(Kind.WORD, "for, hysteresis or severity");
+
+            switch(keyword.text.toLowerCase(Locale.ROOT)) {
+                case KEYWORD_FOR -> forNanos = TimeUtils.parseDurationNanos(expect(Kind.NUMBER, "a duration").text);
+                case KEYWORD_HYSTERESIS -> hysteresis = value(expect(Kind.NUMBER, "a hysteresis margin"));
+                case KEYWORD_SEVERITY -> severity = severity(expect(Kind.WORD, "a severity"));
+                default -> throw error(keyword, "expected for, hysteresis or severity");
+            }
+        }
+
+        for(Condition.Comparison comparison : comparisons)
+            comparison.setHysteresis(hysteresis);
+
+        ThresholdRule rule = new ThresholdRule(name, text, condition, forNanos, severity);
+        for(Map.Entry<String, RuleInput> input : pendingInputs.entrySet()) {
+            inputs.putIfAbsent(input.getKey(), input.getValue());
+            input.getValue().addRule(rule);
+        }
+
+        return rule;
+    }
+
+    /**
+     * Every input referenced by the rules compiled so far
+     */
+    public Collection<RuleInput> getInputs() {
+        return inputs.values();
+    }
+
+    private Condition parseOr() {
+        List<Condition> children = new ArrayList<>();
+        children.add(parseAnd());
+
+        while(isKeyword(peek(), KEYWORD_OR)) {
+            position++;
+            children.add(parseAnd());
+        }
+
+        return children.size() == 1 ? children.get(0) : new Condition.Or(children.toArray(new Condition[0]));
+    }
+
+    private Condition parseAnd() {
+        List<Condition> children = new ArrayList<>();
+        children.add(parseUnary());
+
+        while(isKeyword(peek(), KEYWORD_AND)) {
+            position++;
+            children.add(parseUnary());
+        }
+
+        return children.size() == 1 ? children.get(0) : new Condition.And(children.toArray(new Condition[0]));
+    }
+
+    private Condition parseUnary() {
+        Token token = peek();
+
+        if(isKeyword(token, KEYWORD_NOT)) {
+            position++;
+            return new Condition.Not(parseUnary());
+        }
+
+        if(token.kind == Kind.OPEN) {
+            position++;
+            Condition condition = parseOr();
+            expect(Kind.CLOSE, "')'");
+            return condition;
+        }
+
+        return parseComparison();
+    }
+
+    private Condition parseComparison() {
+        Token operand = expect(Kind.WORD, "a series");
+        String series = operand.text;
+
+        if(peek().kind == Kind.OPEN) {
+            if(!operand.text.equalsIgnoreCase(FUNCTION_RATE))
+                throw error(operand, "unknown function '" + operand.text + "'");
+
+            // no probe stores raw counters, so a derivative would be the rate of a rate
+            position++;
+            String inner = expect(Kind.WORD, "a series").text;
+            throw error(operand, "rate() needs a counter but series are stored as per-second rates or gauges, compare "
+                    + inner + " directly");
+        }
+
+        Token operatorToken = expect(Kind.OPERATOR, "a comparison operator");
+        Condition.Operator operator = Condition.Operator.of(operatorToken.text);
+        if(operator == null) throw error(operatorToken, "unknown operator '" + operatorToken.text + "'");
+
+        Token threshold = expect(Kind.NUMBER, "a threshold");
+        RuleInput total = null;
+        if(threshold.unit.equals("%")) {
+            String totalSeries = totalSeriesOf(series, threshold);
+            if(totalSeries != null) total = input(totalSeries);
+        }
+
+        Condition.Comparison comparison = new Condition.Comparison(input(series), total, operator, value(threshold));
+        comparisons.add(comparison);
+
+        return comparison;
+    }
+
+    private RuleInput input(String series) {
+        RuleInput input = inputs.get(series);
+        if(input == null) input = pendingInputs.computeIfAbsent(series, RuleInput::new);
+        else pendingInputs.put(series, input);
+
+        return input;
+    }
+
+    /**
+     * {@code memory.available} is a share of {@code memory.total}, {@code filesystem.used:/home} of
+     * {@code filesystem.total:/home}. Null for series that are percentages already, such as {@code cpu.usage}
+     * or {@code filesystem.usage:/}, which are compared as they are.
+     */
+    private String totalSeriesOf(String series, Token token) {
+        int dot = series.indexOf('.');
+        if(dot <= 0) throw error(token, "percent thresholds need a series named group.stat");
+
+        String group = series.substring(0, dot);
+        int colon = series.indexOf(':', dot);
+        String stat = series.substring(dot + 1, colon < 0 ? series.length() : colon);
+        if(!TOTAL_GROUPS.contains(group) || stat.equals(PERCENT_STAT)) return null;
+
+        if(group.equals("filesystem") && colon < 0)
+            throw error(token, "filesystem percentages need a mount point, e.g. filesystem.used:/");
+
+        return group + ".total" + (colon < 0 ? "" : series.substring(colon));
+    }
+
+    private double value(Token token) {
+        double scale = switch(token.unit) {
+            case "", "%", "B" -> 1.0;
+            case "K", "k", "KB", "kB" -> 1e3;
+            case "M", "MB" -> 1e6;
+            case "G", "GB" -> 1e9;
+            case "T", "TB" -> 1e12;
+            case "KiB" -> 1024.0;
+            case "MiB" -> 1024.0 * 1024;
+            case "GiB" -> 1024.0 * 1024 * 1024;
+            case "TiB" -> 1024.0 * 1024 * 1024 * 1024;
+            default -> throw error(token, "unknown unit '" + token.unit + "'");
+        };
+
+        return token.number * scale;
+    }
+
+    private AlertSeverity severity(Token token) {
+        try {
+            return AlertSeverity.valueOf(token.text.toUpperCase(Locale.ROOT));
+        } catch(IllegalArgumentException ex) {
+            throw error(token, "unknown severity '" + token.text + "'");
+        }
+    }
+
+    private Token peek() {
+        return tokens.get(position);
+    }
+
+    private Token expect(Kind kind, String what) {
+        Token token = tokens.get(position);
+        if(token.kind != kind) throw error(token, "expected " + what);
+
+        position++;
+        return token;
+    }
+
+    private static boolean isKeyword(Token token, String keyword) {
+        return token.kind == Kind.WORD && token.text.equalsIgnoreCase(keyword);
+    }
+
+    private IllegalArgumentException error(Token token, String message) {
+        String found = token.kind == Kind.END ? "end of rule" : "'" + token.text + "'";
+        return new IllegalArgumentException(message + " at position " + (token.position + 1) + ", found " + found + " in '" + text + "'");
+    }
+
+    private List<Token> tokenize(String rule) {
+        List<Token> result = new ArrayList<>();
+        int length = rule.length();
+        int i = 0;
+
+        while(i < length) {
+            char c = rule.charAt(i);
+            int start = i;
+
+            if(Character.isWhitespace(c)) {
+                i++;
+            } else if(c == '(' || c == ')' || c == ',') {
+                result.add(new Token(c == '(' ? Kind.OPEN : c == ')' ? Kind.CLOSE : Kind.COMMA, String.valueOf(c), 0, "", start));
+                i++;
+            } else if(c == '<' || c == '>' || c == '=' || c == '!') {
+                i++;
+                if(i < length && rule.charAt(i) == '=') i++;
+                result.add(new Token(Kind.OPERATOR, rule.substring(start, i), 0, "", start));
+            } else if(Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(rule.charAt(i + 1)))) {
+                while(i < length && (Character.isDigit(rule.charAt(i)) || rule.charAt(i) == '.')) i++;
+                double number = Double.parseDouble(rule.substring(start, i));
+
+                int unitStart = i;
+                while(i < length && (Character.isLetter(rule.charAt(i)) || rule.charAt(i) == '%')) i++;
+                String unit = rule.substring(unitStart, i);
+                if(rule.startsWith("/s", i)) i += 2;
+
+                result.add(new Token(Kind.NUMBER, rule.substring(start, unitStart) + unit, number, unit, start));
+            } else if(Character.isLetter(c) || c == '_') {
+                while(i < length && isWordChar(rule.charAt(i))) i++;
+                result.add(new Token(Kind.WORD, rule.substring(start, i), 0, "", start));
+            } else {
+                throw new IllegalArgumentException("unexpected '" + c + "' at position " + (start + 1) + " in '" + rule + "'");
+            }
+        }
+
+        result.add(new Token(Kind.END, "", 0, "", length));
+        return result;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == ':' || c == '/' || c == '-';
+    }
+
+    private enum Kind {
+        WORD,
+        NUMBER,
+        OPERATOR,
+        OPEN,
+        CLOSE,
+        COMMA,
+        END,
+    }
+
+    private record Token(Kind kind, String text, double number, String unit, int position) {
+    }
+}
@@ -0,0 +1,100 @@
+package dev.thoq.zenith.service.alert.rule;
+
+import dev.thoq.zenith.model.enums.AlertSeverity;
+import dev.thoq.zenith.model.enums.ThresholdState;
+
+/**
+ * A compiled rule and its {@code for} state machine: the condition has to hold for the whole duration while the
+ * rule is {@link ThresholdState#PENDING} before it starts {@link ThresholdState#FIRING}, and any evaluation where
+ * it does not hold sends the rule back to {@link ThresholdState#INACTIVE}.
+ */
+public final class ThresholdRule {
+    private final String name;
+    private final String expression;
+    private final Condition condition;
+    private final long forNanos;
+    private final AlertSeverity severity;
+    private ThresholdState state = ThresholdState.INACTIVE;
+    private long sinceNanos;
+    private boolean dirty = true;
+
+    ThresholdRule(String name, String expression, Condition condition, long forNanos, AlertSeverity severity) {
+        this.name = name;
+        this.expression = expression;
+        this.condition = condition;
+        this.forNanos = forNanos;
+        this.severity = severity;
+    }
+
+    /**
+     * Flag the rule for the next evaluation, called when one of its inputs changed
+     */
+    public void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Whether {@link #evaluate} has anything to do: an input changed, or a pending rule may have waited long enough
+     */
+    public boolean needsEvaluation() {
+        return dirty || state == ThresholdState.PENDING;
+    }
+
+    /**
+     * Advance the state machine
+     *
+     * @return the previous state if it changed, otherwise null
+     */
+    public ThresholdState evaluate(long nowNanos) {
+        boolean holds = dirty ? condition.test() : state != ThresholdState.INACTIVE;
+        dirty = false;
+
+        ThresholdState previous = state;
+        if(!holds) {
+            if(state == ThresholdState.INACTIVE) return null;
+            state = ThresholdState.INACTIVE;
+        } else if(state == ThresholdState.INACTIVE) {
+            state = forNanos <= 0 ? ThresholdState.FIRING : ThresholdState.PENDING;
+        } else if(state == ThresholdState.PENDING && nowNanos - sinceNanos >= forNanos) {
+            state = ThresholdState.FIRING;
+        } else {
+            return null;
+        }
+
+        sinceNanos = nowNanos;
+        return previous;
+    }
+
+    /**
+     * Current input values, for alert messages
+     */
+    public String describeValues() {
+        StringBuilder out = new StringBuilder();
+        condition.describe(out);
+
+        return out.toString();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public AlertSeverity getSeverity() {
+        return severity;
+    }
+
+    public ThresholdState getState() {
+        return state;
+    }
+
+    /**
+     * When the rule entered its current state, in nanoseconds since the epoch
+     */
+    public long getSinceNanos() {
+        return sinceNanos;
+    }
+}
@@ -0,0 +1,30 @@
+package dev.thoq.zenith.service.alert.sink;
+
+import dev.thoq.zenith.model.dto.NotificationDto;
+import dev.thoq.zenith.util.LoggingUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.List;
+
+/**
+ * Writes notifications to the agent log, warnings for high and critical ones
+ */
+@ApplicationScoped
+public class ConsoleSink implements NotificationSink {
+    private static final LoggingUtils logger = LoggingUtils.getLogger(ConsoleSink.class);
+
+    @Override
+    public String getName() {
+        return "console";
+    }
+
+    @Override
+    public void send(List<NotificationDto> batch) {
+        for(NotificationDto notification : batch) {
+            switch(notification.severity()) {
+                case CRITICAL, HIGH -> logger.warn(notification.buildNotification());
+                default -> logger.info(notification.buildNotification());
+            }
+        }
+    }
+}
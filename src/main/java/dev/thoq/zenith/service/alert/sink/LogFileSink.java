@@ -0,0 +1,76 @@
+package dev.thoq.zenith.service.alert.sink;
+
+import dev.thoq.zenith.model.dto.NotificationDto;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Appends one line per notification to a log file, written with a single call per batch
+ */
+@ApplicationScoped
+public class LogFileSink implements NotificationSink {
+    private FileChannel channel;
+
+    @ConfigProperty(name = "zenith.notification.file.path", defaultValue = "logs/alerts.log")
+    String path;
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public void send(List<NotificationDto> batch) throws IOException {
+        StringBuilder lines = new StringBuilder(batch.size() * 128);
+        for(NotificationDto notification : batch) {
+            lines.append(Instant.ofEpochMilli(notification.lastSeen()))
+                    .append(' ')
+                    .append(notification.buildNotification())
+                    .append('\n');
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        FileChannel file = open();
+
+        try {
+            while(buffer.hasRemaining()) file.write(buffer);
+        } catch(IOException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    private FileChannel open() throws IOException {
+        if(channel == null || !channel.isOpen()) {
+            Path file = Path.of(path);
+            if(file.getParent() != null) Files.createDirectories(file.getParent());
+
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        return channel;
+    }
+
+    @Override
+    public void close() {
+        if(channel == null) return;
+
+        try {
+            channel.close();
+        } catch(IOException ignored) {
+            // nothing left to flush, the channel is dropped either way
+        }
+
+        channel = null;
+    }
+}
@@ -0,0 +1,30 @@
+package dev.thoq.zenith.service.alert.sink;
+
+import dev.thoq.zenith.model.dto.NotificationDto;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination for alert notifications. Sinks are CDI beans picked up by the
+ * {@link dev.thoq.zenith.service.alert.NotificationService} and enabled by listing their name in
+ * {@code zenith.notification.sinks}. They are only ever called from the alert dispatcher thread.
+ */
+public interface NotificationSink {
+    String getName();
+
+    /**
+     * Whether everything the sink needs, such as a URL or a socket path, is configured
+     */
+    default boolean isConfigured() {
+        return true;
+    }
+
+    /**
+     * Deliver a batch, throwing if any of it could not be delivered so the sink is retried after a back-off
+     */
+    void send(List<NotificationDto> batch) throws IOException;
+
+    default void close() {
+    }
+}
@@ -0,0 +1,82 @@
+package dev.thoq.zenith.service.alert.sink;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.thoq.zenith.model.dto.NotificationDto;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Streams notifications as newline-delimited JSON to a Unix domain socket, keeping the connection open between
+ * batches and reconnecting after a failure
+ */
+@ApplicationScoped
+public class UnixSocketSink implements NotificationSink {
+    private SocketChannel channel;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "zenith.notification.unix.path")
+    Optional<String> path;
+
+    @Override
+    public String getName() {
+        return "unix";
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return path.isPresent() && !path.get().isBlank();
+    }
+
+    @Override
+    public void send(List<NotificationDto> batch) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(batch.size() * 256);
+        for(NotificationDto notification : batch) {
+            out.write(objectMapper.writeValueAsBytes(notification));
+            out.write('\n');
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+
+        try {
+            SocketChannel socket = connect();
+            while(buffer.hasRemaining()) socket.write(buffer);
+        } catch(IOException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    private SocketChannel connect() throws IOException {
+        if(channel == null || !channel.isOpen()) {
+            channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            channel.connect(UnixDomainSocketAddress.of(path.orElseThrow().trim()));
+        }
+
+        return channel;
+    }
+
+    @Override
+    public void close() {
+        if(channel == null) return;
+
+        try {
+            channel.close();
+        } catch(IOException ignored) {
+            // reconnecting opens a fresh channel anyway
+        }
+
+        channel = null;
+    }
+}
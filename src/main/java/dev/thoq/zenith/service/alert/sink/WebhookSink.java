@@ -0,0 +1,64 @@
+package dev.thoq.zenith.service.alert.sink;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.thoq.zenith.model.dto.NotificationDto;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * POSTs each batch as a JSON array to a webhook, typically a relay on the same host
+ */
+@ApplicationScoped
+public class WebhookSink implements NotificationSink {
+    private HttpClient client;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "zenith.notification.webhook.url")
+    Optional<String> url;
+
+    @ConfigProperty(name = "zenith.notification.webhook.timeout", defaultValue = "PT5S")
+    Duration timeout;
+
+    @Override
+    public String getName() {
+        return "webhook";
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return url.isPresent() && !url.get().isBlank();
+    }
+
+    @Override
+    public void send(List<NotificationDto> batch) throws IOException {
+        if(client == null)
+            client = HttpClient.newBuilder().connectTimeout(timeout).build();
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url.orElseThrow().trim()))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(batch)))
+                .build();
+
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if(response.statusCode() / 100 != 2)
+                throw new IOException("Webhook answered with status " + response.statusCode());
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while posting to webhook", ex);
+        }
+    }
+}
@@ -1,23 +1,168 @@
 package dev.thoq.zenith.service.analytics;
 
+import dev.thoq.zenith.model.dto.AnomalyDto;
+import dev.thoq.zenith.model.enums.AlertSeverity;
+import dev.thoq.zenith.model.enums.AnomalyType;
 import dev.thoq.zenith.model.types.Anomalies;
-import dev.thoq.zenith.model.types.MonitorData;
-import dev.thoq.zenith.model.types.Timestamps;
 import dev.thoq.zenith.model.types.impl.AnomaliesImpl;
+import dev.thoq.zenith.service.alert.AlertService;
+import dev.thoq.zenith.storage.SeriesStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
-import java.util.Map;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
-@SuppressWarnings("unused")
-public class AnomalyDetectionService {
-    public AnomalyDetectionService() {
+/**
+ * Runs every tracked series through the {@link AnomalyDetector} once per processor tick. Each call only visits
+ * the samples appended since the previous one, and nothing is allocated unless a detector fires.
+ */
+@ApplicationScoped
+public class AnomalyDetectionService implements SeriesTracker.Listener {
+    private static final AnomalyType[] TYPES = AnomalyType.values();
+    private final AnomaliesImpl anomalies = new AnomaliesImpl();
+    private final Deque<AnomalyDto> recentAnomalies = new ArrayDeque<>();
+    private AnomalyDetector detector;
+    private SeriesTracker tracker;
+
+    @Inject
+    SeriesStore seriesStore;
+
+    @Inject
+    AlertService alertService;
+
+    @ConfigProperty(name = "zenith.anomaly.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "zenith.anomaly.include", defaultValue = "*")
+    List<String> include;
+
+    @ConfigProperty(name = "zenith.anomaly.exclude", defaultValue = "memory.total,swap.total,filesystem.total:*,*.limit")
+    List<String> exclude;
+
+    @ConfigProperty(name = "zenith.anomaly.alpha", defaultValue = "0.05")
+    double alpha;
+
+    @ConfigProperty(name = "zenith.anomaly.threshold", defaultValue = "4.0")
+    double threshold;
+
+    @ConfigProperty(name = "zenith.anomaly.warmup", defaultValue = "60")
+    int warmup;
+
+    @ConfigProperty(name = "zenith.anomaly.min-deviation", defaultValue = "0.01")
+    double minDeviation;
+
+    @ConfigProperty(name = "zenith.anomaly.season", defaultValue = "P1D")
+    Duration season;
+
+    @ConfigProperty(name = "zenith.anomaly.season-buckets", defaultValue = "24")
+    int seasonBuckets;
+
+    @ConfigProperty(name = "zenith.anomaly.seasonal-threshold", defaultValue = "5.0")
+    double seasonalThreshold;
+
+    @ConfigProperty(name = "zenith.anomaly.seasonal-rate", defaultValue = "0.002")
+    double seasonalRate;
+
+    @ConfigProperty(name = "zenith.anomaly.cusum-slack", defaultValue = "0.5")
+    double cusumSlack;
+
+    @ConfigProperty(name = "zenith.anomaly.cusum-threshold", defaultValue = "8.0")
+    double cusumThreshold;
+
+    @ConfigProperty(name = "zenith.anomaly.cooldown", defaultValue = "PT5M")
+    Duration cooldown;
+
+    @ConfigProperty(name = "zenith.anomaly.replay-samples", defaultValue = "3600")
+    int replaySamples;
+
+    @ConfigProperty(name = "zenith.anomaly.alert-severity", defaultValue = "HIGH")
+    AlertSeverity alertSeverity;
+
+    @ConfigProperty(name = "zenith.anomaly.history", defaultValue = "100")
+    int history;
+
+    @PostConstruct
+    void init() {
+        detector = new AnomalyDetector(alpha, threshold, seasonalThreshold, seasonalRate, cusumSlack, cusumThreshold,
+                minDeviation, warmup, seasonBuckets, season.toNanos(), cooldown.toNanos());
+        tracker = new SeriesTracker(seriesStore, include, exclude, replaySamples, this);
     }
 
-    public Anomalies detectAnomalies(Timestamps timestamps, MonitorData data) {
-        // todo: implement anomaly detection service
-        AnomaliesImpl anomalies = new AnomaliesImpl();
+    /**
+     * Feed every sample appended since the last call through the detectors. The returned list is reused, so it
+     * only holds the anomalies found by this call and is only valid until the next one.
+     */
+    public Anomalies detectAnomalies() {
+        anomalies.clear();
+        if(!enabled) return anomalies;
 
-        anomalies.add(Map.of("1", "1"));
+        tracker.poll();
 
         return anomalies;
     }
+
+    /**
+     * Most recent anomalies, newest first
+     */
+    public List<AnomalyDto> getRecentAnomalies() {
+        synchronized(recentAnomalies) {
+            return new ArrayList<>(recentAnomalies);
+        }
+    }
+
+    @Override
+    public void onSeriesAdded(int slot) {
+        if(slot == detector.size()) detector.add();
+    }
+
+    @Override
+    public void onSeriesRemoved(int slot) {
+        detector.reset(slot);
+    }
+
+    @Override
+    public void onSample(int slot, long timestampNanos, double value, boolean replay) {
+        int fired = detector.update(slot, timestampNanos, value);
+        if(fired == 0 || replay) return;
+
+        for(AnomalyType type : TYPES) {
+            if((fired & (1 << type.ordinal())) != 0)
+                emit(tracker.getName(slot), type, timestampNanos, value);
+        }
+    }
+
+    private void emit(String name, AnomalyType type, long timestampNanos, double value) {
+        double score = detector.scores[type.ordinal()];
+        AlertSeverity severity = severityFor(score);
+        AnomalyDto anomaly = new AnomalyDto(name, type, value, detector.expected[type.ordinal()], score, severity,
+                TimeUnit.NANOSECONDS.toMillis(timestampNanos));
+
+        anomalies.add(anomaly);
+
+        synchronized(recentAnomalies) {
+            recentAnomalies.addFirst(anomaly);
+            while(recentAnomalies.size() > history) recentAnomalies.removeLast();
+        }
+
+        if(severity.compareTo(alertSeverity) >= 0)
+            alertService.raise(anomaly.toAlert());
+    }
+
+    /**
+     * Map a score, in units of the detector threshold, onto an alert severity
+     */
+    static AlertSeverity severityFor(double score) {
+        if(score >= 3.0) return AlertSeverity.CRITICAL;
+        if(score >= 2.0) return AlertSeverity.HIGH;
+        if(score >= 1.5) return AlertSeverity.NORMAL;
+
+        return AlertSeverity.LOW;
+    }
 }
@@ -0,0 +1,217 @@
+package dev.thoq.zenith.service.analytics;
+
+import dev.thoq.zenith.model.enums.AnomalyType;
+
+import java.util.Arrays;
+
+/**
+ * Streaming detectors for many series at once, kept as parallel primitive arrays indexed by series slot so
+ * updating a series never allocates. Every detector is O(1) per sample:
+ * <ul>
+ *     <li>z-score against an exponentially weighted mean and variance</li>
+ *     <li>distance from a seasonal median in units of median absolute deviation, one bucket per slice of the
+ *     season, with both statistics tracked by frugal streaming estimates</li>
+ *     <li>two-sided CUSUM over the clamped z-score, for level shifts too gradual for the z-score to flag</li>
+ * </ul>
+ * Not thread-safe, a single thread owns all updates.
+ */
+final class AnomalyDetector {
+    static final int ZSCORE = AnomalyType.ZSCORE.ordinal();
+    static final int SEASONAL_MAD = AnomalyType.SEASONAL_MAD.ordinal();
+    static final int CUSUM = AnomalyType.CUSUM.ordinal();
+    static final int DETECTORS = 3;
+
+    private static final double MAD_SCALE = 1.4826;
+    private static final double MIN_DEVIATION = 1e-9;
+
+    private final double alpha;
+    private final double zThreshold;
+    private final double madThreshold;
+    private final double madRate;
+    private final double cusumSlack;
+    private final double cusumThreshold;
+    private final double relativeDeviation;
+    private final long warmupSamples;
+    private final int seasonBuckets;
+    private final long bucketNanos;
+    private final long cooldownNanos;
+
+    // score, in units of the detector threshold, and expected value of whatever the last update fired
+    final double[] scores = new double[DETECTORS];
+    final double[] expected = new double[DETECTORS];
+
+    private int size;
+    private long[] samples;
+    private double[] mean;
+    private double[] variance;
+    private double[] cusumHigh;
+    private double[] cusumLow;
+    private double[] seasonalMedian;
+    private double[] seasonalMad;
+    private int[] seasonalSamples;
+    private long[] lastFired;
+
+    AnomalyDetector(double alpha, double zThreshold, double madThreshold, double madRate, double cusumSlack,
+                    double cusumThreshold, double relativeDeviation, long warmupSamples, int seasonBuckets,
+                    long seasonNanos, long cooldownNanos) {
+        this.alpha = alpha;
+        this.zThreshold = zThreshold;
+        this.madThreshold = madThreshold;
+        this.madRate = madRate;
+        this.cusumSlack = cusumSlack;
+        this.cusumThreshold = cusumThreshold;
+        this.relativeDeviation = relativeDeviation;
+        this.warmupSamples = Math.max(1, warmupSamples);
+        this.seasonBuckets = Math.max(1, seasonBuckets);
+        this.bucketNanos = Math.max(1, seasonNanos / this.seasonBuckets);
+        this.cooldownNanos = cooldownNanos;
+
+        allocate(16);
+    }
+
+    /**
+     * Reserve state for another series
+     *
+     * @return the slot to pass to {@link #update}
+     */
+    int add() {
+        if(size == mean.length) allocate(size * 2);
+
+        return size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Clear the state of a series so its slot can be handed to another one
+     */
+    void reset(int slot) {
+        samples[slot] = 0;
+        mean[slot] = 0.0;
+        variance[slot] = 0.0;
+        cusumHigh[slot] = 0.0;
+        cusumLow[slot] = 0.0;
+        Arrays.fill(seasonalMedian, slot * seasonBuckets, (slot + 1) * seasonBuckets, 0.0);
+        Arrays.fill(seasonalMad, slot * seasonBuckets, (slot + 1) * seasonBuckets, 0.0);
+        Arrays.fill(seasonalSamples, slot * seasonBuckets, (slot + 1) * seasonBuckets, 0);
+        Arrays.fill(lastFired, slot * DETECTORS, (slot + 1) * DETECTORS, 0L);
+    }
+
+    /**
+     * Feed the next sample of a series through every detector
+     *
+     * @return a bit per {@link AnomalyType} ordinal that fired, with its score and expected value left in
+     * {@link #scores} and {@link #expected}
+     */
+    int update(int slot, long timestampNanos, double value) {
+        if(!Double.isFinite(value)) return 0;
+
+        long seen = samples[slot]++;
+        if(seen == 0) {
+            mean[slot] = value;
+            variance[slot] = 0.0;
+            return 0;
+        }
+
+        int fired = 0;
+        boolean warm = seen >= warmupSamples;
+        double average = mean[slot];
+        double sigma = floor(Math.sqrt(variance[slot]), average);
+        double z = (value - average) / sigma;
+
+        if(warm) {
+            if(Math.abs(z) >= zThreshold)
+                fired |= fire(slot, ZSCORE, timestampNanos, Math.abs(z) / zThreshold, average);
+
+            double clamped = Math.max(-zThreshold, Math.min(zThreshold, z));
+            double high = Math.max(0.0, cusumHigh[slot] + clamped - cusumSlack);
+            double low = Math.max(0.0, cusumLow[slot] - clamped - cusumSlack);
+
+            if(high >= cusumThreshold || low >= cusumThreshold) {
+                fired |= fire(slot, CUSUM, timestampNanos, Math.max(high, low) / cusumThreshold, average);
+
+                // the level moved, restart the baseline from it instead of letting every later sample score against the old one
+                average = value;
+                high = 0.0;
+                low = 0.0;
+            }
+
+            cusumHigh[slot] = high;
+            cusumLow[slot] = low;
+        }
+
+        // once warm, clamp the update so a single spike does not drag the baseline along with it
+        double diff = warm ? Math.max(-zThreshold * sigma, Math.min(zThreshold * sigma, value - average)) : value - average;
+        double increment = alpha * diff;
+        mean[slot] = average + increment;
+        variance[slot] = (1.0 - alpha) * (variance[slot] + diff * increment);
+
+        return fired | updateSeasonal(slot, timestampNanos, value, warm, sigma);
+    }
+
+    private int updateSeasonal(int slot, long timestampNanos, double value, boolean warm, double sigma) {
+        int bucket = slot * seasonBuckets + (int) Math.floorMod(timestampNanos / bucketNanos, (long) seasonBuckets);
+        int seen = seasonalSamples[bucket];
+
+        if(seen == 0) {
+            // seed a new bucket from the overall baseline, the frugal estimates only ever move a small step per sample
+            seasonalMedian[bucket] = mean[slot];
+            seasonalMad[bucket] = sigma / MAD_SCALE;
+        }
+
+        int fired = 0;
+        double median = seasonalMedian[bucket];
+        double mad = floor(seasonalMad[bucket], median);
+        double distance = Math.abs(value - median);
+
+        if(warm && seen >= warmupSamples) {
+            double score = distance / (MAD_SCALE * mad);
+            if(score >= madThreshold)
+                fired = fire(slot, SEASONAL_MAD, timestampNanos, score / madThreshold, median);
+        }
+
+        double step = madRate * mad;
+        if(value > median) seasonalMedian[bucket] = median + step;
+        else if(value < median) seasonalMedian[bucket] = median - step;
+
+        if(distance > seasonalMad[bucket]) seasonalMad[bucket] += step;
+        else seasonalMad[bucket] = Math.max(0.0, seasonalMad[bucket] - step);
+
+        if(seen < Integer.MAX_VALUE) seasonalSamples[bucket] = seen + 1;
+
+        return fired;
+    }
+
+    private int fire(int slot, int detector, long timestampNanos, double score, double expectedValue) {
+        int index = slot * DETECTORS + detector;
+        long last = lastFired[index];
+        if(last != 0 && timestampNanos - last < cooldownNanos) return 0;
+
+        lastFired[index] = timestampNanos;
+        scores[detector] = score;
+        expected[detector] = expectedValue;
+
+        return 1 << detector;
+    }
+
+    /**
+     * Keep near-constant series from turning every rounding error into an infinite score
+     */
+    private double floor(double deviation, double reference) {
+        return Math.max(deviation, Math.max(MIN_DEVIATION, relativeDeviation * Math.abs(reference)));
+    }
+
+    private void allocate(int capacity) {
+        samples = samples == null ? new long[capacity] : Arrays.copyOf(samples, capacity);
+        mean = mean == null ? new double[capacity] : Arrays.copyOf(mean, capacity);
+        variance = variance == null ? new double[capacity] : Arrays.copyOf(variance, capacity);
+        cusumHigh = cusumHigh == null ? new double[capacity] : Arrays.copyOf(cusumHigh, capacity);
+        cusumLow = cusumLow == null ? new double[capacity] : Arrays.copyOf(cusumLow, capacity);
+        seasonalMedian = seasonalMedian == null ? new double[capacity * seasonBuckets] : Arrays.copyOf(seasonalMedian, capacity * seasonBuckets);
+        seasonalMad = seasonalMad == null ? new double[capacity * seasonBuckets] : Arrays.copyOf(seasonalMad, capacity * seasonBuckets);
+        seasonalSamples = seasonalSamples == null ? new int[capacity * seasonBuckets] : Arrays.copyOf(seasonalSamples, capacity * seasonBuckets);
+        lastFired = lastFired == null ? new long[capacity * DETECTORS] : Arrays.copyOf(lastFired, capacity * DETECTORS);
+    }
+}
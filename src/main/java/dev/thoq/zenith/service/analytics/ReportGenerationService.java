@@ -1,5 +1,7 @@
 package dev.thoq.zenith.service.analytics;
 
+import dev.thoq.zenith.model.dto.AnomalyDto;
+
 import java.util.List;
 import java.util.Map;
 
@@ -8,7 +10,7 @@ public class ReportGenerationService {
     public ReportGenerationService() {
     }
 
-    public void generateReport(List<Map<String, String>> anomalies, Map<String, Map<String, Double>> data) {
+    public void generateReport(List<AnomalyDto> anomalies, Map<String, Map<String, Double>> data) {
 
     }
 }
@@ -0,0 +1,240 @@
+package dev.thoq.zenith.service.analytics;
+
+import dev.thoq.zenith.storage.MetricHistory;
+import dev.thoq.zenith.storage.RingBufferSeries;
+import dev.thoq.zenith.storage.SampleVisitor;
+import dev.thoq.zenith.storage.SeriesStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Follows the series of a {@link SeriesStore} that match an include/exclude list, giving each a dense slot and
+ * handing every sample appended since the previous {@link #poll} to a {@link Listener}. The slot of a series that
+ * leaves the store is freed and handed to the next new series, so slots stay bounded by the number of series
+ * tracked at once. Not thread-safe, a single thread polls.
+ */
+final class SeriesTracker {
+    private final SeriesStore seriesStore;
+    private final List<Pattern> includePatterns;
+    private final List<Pattern> excludePatterns;
+    private final int replaySamples;
+    private final Listener listener;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final SampleVisitor visitor = this::accept;
+    private RingBufferSeries[] series = new RingBufferSeries[16];
+    private long[] writeCounts = new long[16];
+    private long[] lastTimestamps = new long[16];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int size;
+    private long knownGeneration = -1;
+    private int currentSlot;
+    private boolean replaying;
+
+    /**
+     * @param replaySamples how many stored samples a newly found series is replayed from before it is followed live
+     */
+    SeriesTracker(SeriesStore seriesStore, List<String> include, List<String> exclude, int replaySamples,
+                  Listener listener) {
+        this.seriesStore = seriesStore;
+        this.includePatterns = globs(include);
+        this.excludePatterns = globs(exclude);
+        this.replaySamples = replaySamples;
+        this.listener = listener;
+    }
+
+    /**
+     * Pick up new, recreated or removed series and hand over every sample appended since the last poll
+     */
+    void poll() {
+        long generation = seriesStore.getGeneration();
+        if(generation != knownGeneration) {
+            removeVanished();
+            registerSeries();
+            knownGeneration = generation;
+        }
+
+        for(int slot = 0; slot < size; slot++) {
+            RingBufferSeries current = series[slot];
+            if(current == null) continue;
+
+            long count = current.getWriteCount();
+            if(count == writeCounts[slot]) continue;
+
+            writeCounts[slot] = count;
+            currentSlot = slot;
+            current.scan(lastTimestamps[slot] + 1, Long.MAX_VALUE, visitor);
+        }
+    }
+
+    /**
+     * One past the highest slot handed out, slots below it may be free
+     */
+    int size() {
+        return size;
+    }
+
+    boolean isFree(int slot) {
+        return series[slot] == null;
+    }
+
+    String getName(int slot) {
+        return series[slot].getName();
+    }
+
+    RingBufferSeries getSeries(int slot) {
+        return series[slot];
+    }
+
+    /**
+     * Slot of the given series, or -1 if it is not tracked
+     */
+    int slotOf(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    private void accept(long timestampNanos, double value) {
+        lastTimestamps[currentSlot] = timestampNanos;
+        listener.onSample(currentSlot, timestampNanos, value, replaying);
+    }
+
+    private void registerSeries() {
+        for(MetricHistory history : seriesStore.getHistories()) {
+            String name = history.getName();
+            Integer known = slots.get(name);
+            if(known != null) {
+                // a removed series that came back, keep following it from the last sample seen
+                if(known >= 0 && series[known] != history.getRaw()) {
+                    series[known] = history.getRaw();
+                    writeCounts[known] = 0;
+                }
+                continue;
+            }
+
+            if(!isIncluded(name)) {
+                slots.put(name, -1);
+                continue;
+            }
+
+            int slot = allocate();
+            slots.put(name, slot);
+            series[slot] = history.getRaw();
+            listener.onSeriesAdded(slot);
+            replay(slot);
+        }
+    }
+
+    private int allocate() {
+        if(freeCount > 0) return freeSlots[--freeCount];
+
+        int slot = size++;
+        if(slot == series.length) {
+            series = Arrays.copyOf(series, slot * 2);
+            writeCounts = Arrays.copyOf(writeCounts, slot * 2);
+            lastTimestamps = Arrays.copyOf(lastTimestamps, slot * 2);
+        }
+
+        return slot;
+    }
+
+    /**
+     * Forget series that are no longer in the store and free their slots
+     */
+    private void removeVanished() {
+        slots.entrySet().removeIf(entry -> {
+            if(seriesStore.findHistory(entry.getKey()) != null) return false;
+
+            int slot = entry.getValue();
+            if(slot >= 0) release(slot);
+            return true;
+        });
+    }
+
+    private void release(int slot) {
+        series[slot] = null;
+        writeCounts[slot] = 0;
+        lastTimestamps[slot] = 0;
+
+        if(freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        freeSlots[freeCount++] = slot;
+
+        listener.onSeriesRemoved(slot);
+    }
+
+    private void replay(int slot) {
+        RingBufferSeries current = series[slot];
+        int retained = current.size();
+
+        writeCounts[slot] = current.getWriteCount();
+        lastTimestamps[slot] = current.lastTimestamp();
+        if(retained == 0 || replaySamples <= 0) return;
+
+        replaying = true;
+        try {
+            currentSlot = slot;
+            current.scan(current.timestampAt(Math.max(0, retained - replaySamples)), Long.MAX_VALUE, visitor);
+        } finally {
+            replaying = false;
+        }
+    }
+
+    private boolean isIncluded(String name) {
+        return matchesAny(includePatterns, name) && !matchesAny(excludePatterns, name);
+    }
+
+    /**
+     * Series names contain '/' for mount points, so '*' matches any run of characters here rather than following
+     * file glob rules
+     */
+    static Pattern glob(String pattern) {
+        String[] parts = pattern.trim().split("\\*", -1);
+        StringBuilder regex = new StringBuilder(Pattern.quote(parts[0]));
+        for(int i = 1; i < parts.length; i++)
+            regex.append(".*").append(Pattern.quote(parts[i]));
+
+        return Pattern.compile(regex.toString());
+    }
+
+    private static List<Pattern> globs(List<String> patterns) {
+        List<Pattern> compiled = new ArrayList<>();
+        if(patterns == null) return compiled;
+
+        for(String pattern : patterns) {
+            if(!pattern.isBlank()) compiled.add(glob(pattern));
+        }
+
+        return compiled;
+    }
+
+    private static boolean matchesAny(List<Pattern> patterns, String name) {
+        for(Pattern pattern : patterns) {
+            if(pattern.matcher(name).matches()) return true;
+        }
+
+        return false;
+    }
+
+    interface Listener {
+        /**
+         * A new series got the given slot, called before any of its samples. The slot may be one freed by
+         * {@link #onSeriesRemoved}.
+         */
+        void onSeriesAdded(int slot);
+
+        /**
+         * The series in the given slot left the store, its slot is free until handed to a new series
+         */
+        void onSeriesRemoved(int slot);
+
+        /**
+         * @param replay whether the sample is stored history being replayed rather than a new one
+         */
+        void onSample(int slot, long timestampNanos, double value, boolean replay);
+    }
+}
@@ -1,13 +1,268 @@
 package dev.thoq.zenith.service.analytics;
 
-import dev.thoq.zenith.model.types.MonitorData;
+import dev.thoq.zenith.model.dto.ForecastDto;
+import dev.thoq.zenith.model.dto.TrendDto;
+import dev.thoq.zenith.storage.SeriesStore;
+import dev.thoq.zenith.util.LoggingUtils;
+import dev.thoq.zenith.util.TimeUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
-@SuppressWarnings("unused")
-public class TrendAnalysisService {
-    public TrendAnalysisService() {
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Follows every tracked series with a {@link TrendEstimator} and turns the trends of series with a configured
+ * limit, such as filesystem or memory usage, into time-to-exhaustion forecasts.
+ */
+@ApplicationScoped
+public class TrendAnalysisService implements SeriesTracker.Listener {
+    private static final LoggingUtils logger = LoggingUtils.getLogger(TrendAnalysisService.class);
+    private static final double SECONDS_PER_HOUR = 3600.0;
+    private final List<ExhaustionRule> rules = new ArrayList<>();
+    private ExhaustionRule[] slotRules = new ExhaustionRule[16];
+    private TrendEstimator estimator;
+    private SeriesTracker tracker;
+
+    @Inject
+    SeriesStore seriesStore;
+
+    @ConfigProperty(name = "zenith.trend.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "zenith.trend.include", defaultValue = "*")
+    List<String> include;
+
+    @ConfigProperty(name = "zenith.trend.exclude", defaultValue = "memory.total,swap.total,filesystem.total:*,*.limit")
+    List<String> exclude;
+
+    @ConfigProperty(name = "zenith.trend.window", defaultValue = "PT1H")
+    Duration window;
+
+    @ConfigProperty(name = "zenith.trend.window-buckets", defaultValue = "60")
+    int windowBuckets;
+
+    @ConfigProperty(name = "zenith.trend.season", defaultValue = "P1D")
+    Duration season;
+
+    @ConfigProperty(name = "zenith.trend.season-steps", defaultValue = "24")
+    int seasonSteps;
+
+    @ConfigProperty(name = "zenith.trend.level-smoothing", defaultValue = "0.3")
+    double levelSmoothing;
+
+    @ConfigProperty(name = "zenith.trend.trend-smoothing", defaultValue = "0.05")
+    double trendSmoothing;
+
+    @ConfigProperty(name = "zenith.trend.seasonal-smoothing", defaultValue = "0.1")
+    double seasonalSmoothing;
+
+    @ConfigProperty(name = "zenith.trend.replay-samples", defaultValue = "3600")
+    int replaySamples;
+
+    @ConfigProperty(name = "zenith.trend.horizon", defaultValue = "P7D")
+    Duration horizon;
+
+    @ConfigProperty(name = "zenith.trend.exhaustion", defaultValue = "filesystem.usage:*>100,memory.host>100,container.memory.usage>100")
+    List<String> exhaustion;
+
+    @PostConstruct
+    void init() {
+        estimator = new TrendEstimator(window.toNanos(), windowBuckets, season.toNanos(), seasonSteps,
+                levelSmoothing, trendSmoothing, seasonalSmoothing);
+        tracker = new SeriesTracker(seriesStore, include, exclude, replaySamples, this);
+
+        for(String rule : exhaustion) {
+            if(rule.isBlank()) continue;
+
+            try {
+                rules.add(ExhaustionRule.parse(rule.trim()));
+            } catch(IllegalArgumentException ex) {
+                logger.warn("Ignoring exhaustion rule '%s': %s", rule, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Feed every sample appended since the last call into the trend estimators
+     */
+    public synchronized void analyzeTrends() {
+        if(enabled) tracker.poll();
+    }
+
+    @Override
+    public void onSeriesAdded(int slot) {
+        if(slot == estimator.size()) estimator.add();
+
+        if(slot == slotRules.length) slotRules = Arrays.copyOf(slotRules, slot * 2);
+        slotRules[slot] = findRule(tracker.getName(slot));
+    }
+
+    @Override
+    public void onSeriesRemoved(int slot) {
+        estimator.reset(slot);
+        slotRules[slot] = null;
+    }
+
+    @Override
+    public void onSample(int slot, long timestampNanos, double value, boolean replay) {
+        estimator.update(slot, timestampNanos, value);
+    }
+
+    /**
+     * Trend of every tracked series that has samples inside the trend window
+     */
+    public synchronized List<TrendDto> getTrends() {
+        long now = TimeUtils.epochNanos();
+        List<TrendDto> trends = new ArrayList<>(tracker.size());
+
+        for(int slot = 0; slot < tracker.size(); slot++) {
+            if(!tracker.isFree(slot) && isCurrent(slot, now)) trends.add(toTrend(slot));
+        }
+
+        return trends;
+    }
+
+    /**
+     * Trend of the given series, or null if it is not tracked or has no samples inside the trend window
+     */
+    public synchronized TrendDto getTrend(String series) {
+        int slot = tracker.slotOf(series);
+        if(slot < 0 || !isCurrent(slot, TimeUtils.epochNanos())) return null;
+
+        return toTrend(slot);
+    }
+
+    /**
+     * Time-to-exhaustion forecast of every series matching an exhaustion rule
+     */
+    public synchronized List<ForecastDto> getForecasts() {
+        long now = TimeUtils.epochNanos();
+        List<ForecastDto> forecasts = new ArrayList<>();
+
+        for(int slot = 0; slot < tracker.size(); slot++) {
+            ExhaustionRule rule = slotRules[slot];
+            if(rule != null && !tracker.isFree(slot) && isCurrent(slot, now))
+                forecasts.add(toForecast(slot, rule, now));
+        }
+
+        return forecasts;
     }
 
-    public void analyzeTrends(MonitorData data) {
-        // todo: implement trend analysis service
+    private boolean isCurrent(int slot, long nowNanos) {
+        long last = estimator.getLastTimestamp(slot);
+        return last != 0 && nowNanos - last < window.toNanos();
+    }
+
+    private TrendDto toTrend(int slot) {
+        long timestamp = estimator.getLastTimestamp(slot);
+
+        return new TrendDto(
+                tracker.getName(slot),
+                estimator.getLastValue(slot),
+                estimator.getFitted(slot, timestamp),
+                estimator.getSlope(slot) * SECONDS_PER_HOUR,
+                estimator.getWindowSamples(slot),
+                estimator.forecast(slot, 1),
+                estimator.isSeasonal(slot),
+                TimeUtils.toEpochMillis(timestamp)
+        );
+    }
+
+    private ForecastDto toForecast(int slot, ExhaustionRule rule, long nowNanos) {
+        String name = tracker.getName(slot);
+        double value = estimator.getLastValue(slot);
+        double slope = estimator.getSlope(slot);
+        long linear = linearSecondsToExhaustion(slot, rule, slope);
+        long seasonal = seasonalSecondsToExhaustion(slot, rule, nowNanos);
+
+        long earliest = linear < 0 ? seasonal : seasonal < 0 ? linear : Math.min(linear, seasonal);
+        String summary;
+        if(earliest < 0)
+            summary = name + " is not heading for " + formatLimit(rule.limit) + " within " + formatSeconds(horizon.toSeconds());
+        else if(earliest == 0)
+            summary = name + " has reached " + formatLimit(rule.limit);
+        else
+            summary = name + " reaches " + formatLimit(rule.limit) + " in " + formatSeconds(earliest);
+
+        return new ForecastDto(name, value, rule.limit, slope * SECONDS_PER_HOUR, linear, seasonal, summary);
+    }
+
+    private long linearSecondsToExhaustion(int slot, ExhaustionRule rule, double slope) {
+        if(rule.isReached(estimator.getLastValue(slot))) return 0;
+        if(Double.isNaN(slope) || (rule.rising ? slope <= 0.0 : slope >= 0.0)) return -1;
+
+        double fitted = estimator.getFitted(slot, estimator.getLastTimestamp(slot));
+        if(rule.isReached(fitted)) return 0;
+
+        double seconds = (rule.limit - fitted) / slope;
+        return seconds > horizon.toSeconds() ? -1 : (long) seconds;
+    }
+
+    private long seasonalSecondsToExhaustion(int slot, ExhaustionRule rule, long nowNanos) {
+        if(!estimator.isSeasonal(slot)) return -1;
+
+        long steps = horizon.toNanos() / estimator.getStepNanos();
+        for(int step = 1; step <= steps; step++) {
+            if(rule.isReached(estimator.forecast(slot, step)))
+                return Math.max(0, (estimator.forecastTime(slot, step) - nowNanos) / 1_000_000_000L);
+        }
+
+        return -1;
+    }
+
+    private ExhaustionRule findRule(String series) {
+        for(ExhaustionRule rule : rules) {
+            if(rule.pattern.matcher(series).matches()) return rule;
+        }
+
+        return null;
+    }
+
+    private static String formatLimit(double limit) {
+        return limit == Math.rint(limit) ? Long.toString((long) limit) : Double.toString(limit);
+    }
+
+    /**
+     * Human-readable duration with its two most significant units, e.g. {@code 3h 20m}
+     */
+    static String formatSeconds(long seconds) {
+        long days = seconds / 86_400;
+        long hours = seconds % 86_400 / 3600;
+        long minutes = seconds % 3600 / 60;
+
+        if(days > 0) return days + "d " + hours + "h";
+        if(hours > 0) return hours + "h " + minutes + "m";
+        if(minutes > 0) return minutes + "m";
+
+        return seconds + "s";
+    }
+
+    /**
+     * A series pattern and the limit it must not reach, written as {@code pattern>limit} for series that fill up
+     * or {@code pattern<limit} for series that drain
+     */
+    private record ExhaustionRule(Pattern pattern, double limit, boolean rising) {
+        static ExhaustionRule parse(String rule) {
+            int split = Math.max(rule.lastIndexOf('>'), rule.lastIndexOf('<'));
+            if(split <= 0 || split == rule.length() - 1)
+                throw new IllegalArgumentException("expected pattern>limit or pattern<limit");
+
+            try {
+                double limit = Double.parseDouble(rule.substring(split + 1).trim());
+                return new ExhaustionRule(SeriesTracker.glob(rule.substring(0, split)), limit, rule.charAt(split) == '>');
+            } catch(NumberFormatException ex) {
+                throw new IllegalArgumentException("invalid limit '" + rule.substring(split + 1) + "'");
+            }
+        }
+
+        boolean isReached(double value) {
+            return rising ? value >= limit : value <= limit;
+        }
     }
 }
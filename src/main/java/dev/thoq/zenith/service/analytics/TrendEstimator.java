@@ -0,0 +1,326 @@
+package dev.thoq.zenith.service.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Incremental trend state for many series at once, kept as parallel primitive arrays indexed by series slot.
+ * <p>
+ * The linear trend is a least-squares fit over a sliding window, kept as running sums of n, t, x, t² and tx. The
+ * window is split into buckets so expiring old samples only means dropping a bucket, and the totals are rebuilt
+ * from the buckets whenever one expires so rounding errors never accumulate. Seasonality is an additive
+ * Holt-Winters model fed with the mean of each season step. Both update in constant time per sample.
+ * <p>
+ * Not thread-safe, callers serialise updates and queries.
+ */
+final class TrendEstimator {
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final int SUMS = 5;
+    private static final int N = 0;
+    private static final int T = 1;
+    private static final int X = 2;
+    private static final int TT = 3;
+    private static final int TX = 4;
+
+    private final int windowBuckets;
+    private final long bucketNanos;
+    private final int seasonSteps;
+    private final long stepNanos;
+    private final double levelSmoothing;
+    private final double trendSmoothing;
+    private final double seasonalSmoothing;
+
+    private int size;
+    private long[] origins;
+    private long[] lastTimestamps;
+    private double[] lastValues;
+    private long[] currentBuckets;
+    private long[] bucketIds;
+    private double[] bucketSums;
+    private double[] totals;
+    private long[] currentSteps;
+    private double[] stepSums;
+    private long[] stepCounts;
+    private long[] completedSteps;
+    private long[] lastSteps;
+    private long[] firstSteps;
+    private double[] levels;
+    private double[] trends;
+    private double[] seasonals;
+
+    TrendEstimator(long windowNanos, int windowBuckets, long seasonNanos, int seasonSteps, double levelSmoothing,
+                   double trendSmoothing, double seasonalSmoothing) {
+        this.windowBuckets = Math.max(1, windowBuckets);
+        this.bucketNanos = Math.max(1, windowNanos / this.windowBuckets);
+        this.seasonSteps = Math.max(1, seasonSteps);
+        this.stepNanos = Math.max(1, seasonNanos / this.seasonSteps);
+        this.levelSmoothing = levelSmoothing;
+        this.trendSmoothing = trendSmoothing;
+        this.seasonalSmoothing = seasonalSmoothing;
+
+        allocate(16);
+    }
+
+    /**
+     * Reserve state for another series
+     *
+     * @return the slot to pass to {@link #update}
+     */
+    int add() {
+        if(size == origins.length) allocate(size * 2);
+
+        int slot = size++;
+        reset(slot);
+
+        return slot;
+    }
+
+    /**
+     * Clear the state of a series so its slot can be handed to another one
+     */
+    void reset(int slot) {
+        origins[slot] = 0;
+        lastTimestamps[slot] = 0;
+        lastValues[slot] = 0.0;
+        currentBuckets[slot] = Long.MIN_VALUE;
+        Arrays.fill(bucketIds, slot * windowBuckets, (slot + 1) * windowBuckets, Long.MIN_VALUE);
+        Arrays.fill(bucketSums, slot * windowBuckets * SUMS, (slot + 1) * windowBuckets * SUMS, 0.0);
+        Arrays.fill(totals, slot * SUMS, (slot + 1) * SUMS, 0.0);
+        currentSteps[slot] = Long.MIN_VALUE;
+        stepSums[slot] = 0.0;
+        stepCounts[slot] = 0;
+        completedSteps[slot] = 0;
+        lastSteps[slot] = 0;
+        firstSteps[slot] = 0;
+        levels[slot] = 0.0;
+        trends[slot] = 0.0;
+        Arrays.fill(seasonals, slot * seasonSteps, (slot + 1) * seasonSteps, 0.0);
+    }
+
+    void update(int slot, long timestampNanos, double value) {
+        if(!Double.isFinite(value)) return;
+
+        if(lastTimestamps[slot] == 0) origins[slot] = timestampNanos;
+        lastTimestamps[slot] = timestampNanos;
+        lastValues[slot] = value;
+
+        updateRegression(slot, timestampNanos, value);
+        updateSeasonal(slot, timestampNanos, value);
+    }
+
+    private void updateRegression(int slot, long timestampNanos, double value) {
+        long bucket = Math.floorDiv(timestampNanos, bucketNanos);
+        int position = slot * windowBuckets + (int) Math.floorMod(bucket, (long) windowBuckets);
+
+        if(bucket != currentBuckets[slot]) {
+            currentBuckets[slot] = bucket;
+
+            if(bucketIds[position] != bucket) {
+                bucketIds[position] = bucket;
+                Arrays.fill(bucketSums, position * SUMS, (position + 1) * SUMS, 0.0);
+            }
+
+            rebuildTotals(slot, bucket);
+        }
+
+        // seconds since the first sample of the series keep t² well inside double precision
+        double t = (timestampNanos - origins[slot]) / NANOS_PER_SECOND;
+        add(bucketSums, position * SUMS, t, value);
+        add(totals, slot * SUMS, t, value);
+    }
+
+    private void rebuildTotals(int slot, long currentBucket) {
+        int base = slot * SUMS;
+        Arrays.fill(totals, base, base + SUMS, 0.0);
+
+        for(int position = slot * windowBuckets; position < (slot + 1) * windowBuckets; position++) {
+            long id = bucketIds[position];
+            if(id == Long.MIN_VALUE || id > currentBucket || currentBucket - id >= windowBuckets) continue;
+
+            for(int sum = 0; sum < SUMS; sum++)
+                totals[base + sum] += bucketSums[position * SUMS + sum];
+        }
+    }
+
+    private static void add(double[] sums, int base, double t, double value) {
+        sums[base + N] += 1.0;
+        sums[base + T] += t;
+        sums[base + X] += value;
+        sums[base + TT] += t * t;
+        sums[base + TX] += t * value;
+    }
+
+    private void updateSeasonal(int slot, long timestampNanos, double value) {
+        long step = Math.floorDiv(timestampNanos, stepNanos);
+
+        if(step != currentSteps[slot]) {
+            if(stepCounts[slot] > 0)
+                completeStep(slot, currentSteps[slot], stepSums[slot] / stepCounts[slot]);
+
+            currentSteps[slot] = step;
+            stepSums[slot] = 0.0;
+            stepCounts[slot] = 0;
+        }
+
+        stepSums[slot] += value;
+        stepCounts[slot]++;
+    }
+
+    private void completeStep(int slot, long step, double mean) {
+        int index = slot * seasonSteps + (int) Math.floorMod(step, (long) seasonSteps);
+        long completed = completedSteps[slot]++;
+        lastSteps[slot] = step;
+
+        if(completed < 2L * seasonSteps) {
+            initialise(slot, step, mean, completed);
+            return;
+        }
+
+        double season = seasonals[index];
+        double level = levels[slot];
+        double trend = trends[slot];
+        double nextLevel = levelSmoothing * (mean - season) + (1.0 - levelSmoothing) * (level + trend);
+
+        levels[slot] = nextLevel;
+        trends[slot] = trendSmoothing * (nextLevel - level) + (1.0 - trendSmoothing) * trend;
+        seasonals[index] = seasonalSmoothing * (mean - nextLevel) + (1.0 - seasonalSmoothing) * season;
+    }
+
+    /**
+     * Collect the first two seasons, then derive the trend from the difference of their means and the seasonal
+     * indices from their detrended average. Starting from a single season would leave the trend of that season
+     * baked into the seasonal indices.
+     */
+    private void initialise(int slot, long step, double mean, long completed) {
+        int base = slot * seasonSteps;
+
+        if(completed == 0) {
+            firstSteps[slot] = step;
+            levels[slot] = 0.0;
+            trends[slot] = 0.0;
+            Arrays.fill(seasonals, base, base + seasonSteps, 0.0);
+        }
+
+        // levels and trends hold the sums of the first and second season until both are complete
+        seasonals[base + (int) Math.floorMod(step, (long) seasonSteps)] += mean;
+        if(completed < seasonSteps) levels[slot] += mean;
+        else trends[slot] += mean;
+
+        if(completed < 2L * seasonSteps - 1) return;
+
+        double first = levels[slot] / seasonSteps;
+        double second = trends[slot] / seasonSteps;
+        double trend = (second - first) / seasonSteps;
+        double center = (seasonSteps - 1) / 2.0;
+
+        for(int phase = 0; phase < seasonSteps; phase++) {
+            long position = Math.floorMod(phase - firstSteps[slot], (long) seasonSteps);
+            seasonals[base + phase] = seasonals[base + phase] / 2.0 - (first + second) / 2.0 - trend * (position - center);
+        }
+
+        levels[slot] = second + trend * center;
+        trends[slot] = trend;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getLastTimestamp(int slot) {
+        return lastTimestamps[slot];
+    }
+
+    double getLastValue(int slot) {
+        return lastValues[slot];
+    }
+
+    /**
+     * Samples currently inside the regression window
+     */
+    long getWindowSamples(int slot) {
+        return (long) totals[slot * SUMS + N];
+    }
+
+    /**
+     * Slope of the windowed least-squares fit in units per second, or NaN without enough spread in time
+     */
+    double getSlope(int slot) {
+        int base = slot * SUMS;
+        double n = totals[base + N];
+        if(n < 2) return Double.NaN;
+
+        double denominator = n * totals[base + TT] - totals[base + T] * totals[base + T];
+        if(denominator <= 0.0) return Double.NaN;
+
+        return (n * totals[base + TX] - totals[base + T] * totals[base + X]) / denominator;
+    }
+
+    /**
+     * Value of the windowed fit at the given time, or NaN without a fit
+     */
+    double getFitted(int slot, long timestampNanos) {
+        double slope = getSlope(slot);
+        if(Double.isNaN(slope)) return Double.NaN;
+
+        int base = slot * SUMS;
+        double n = totals[base + N];
+        double intercept = (totals[base + X] - slope * totals[base + T]) / n;
+
+        return intercept + slope * ((timestampNanos - origins[slot]) / NANOS_PER_SECOND);
+    }
+
+    /**
+     * Whether the Holt-Winters model is initialised, which takes two full seasons
+     */
+    boolean isSeasonal(int slot) {
+        return completedSteps[slot] >= 2L * seasonSteps;
+    }
+
+    long getStepNanos() {
+        return stepNanos;
+    }
+
+    /**
+     * Holt-Winters forecast for the given number of season steps after the last completed one, or NaN until the
+     * model is initialised
+     */
+    double forecast(int slot, int steps) {
+        if(!isSeasonal(slot)) return Double.NaN;
+
+        long step = lastSteps[slot] + steps;
+        return levels[slot] + steps * trends[slot] + seasonals[slot * seasonSteps + (int) Math.floorMod(step, (long) seasonSteps)];
+    }
+
+    /**
+     * Start of the step the given forecast applies to, in nanoseconds since the epoch
+     */
+    long forecastTime(int slot, int steps) {
+        return (lastSteps[slot] + steps) * stepNanos;
+    }
+
+    private void allocate(int capacity) {
+        origins = grow(origins, capacity);
+        lastTimestamps = grow(lastTimestamps, capacity);
+        lastValues = grow(lastValues, capacity);
+        currentBuckets = grow(currentBuckets, capacity);
+        bucketIds = grow(bucketIds, capacity * windowBuckets);
+        bucketSums = grow(bucketSums, capacity * windowBuckets * SUMS);
+        totals = grow(totals, capacity * SUMS);
+        currentSteps = grow(currentSteps, capacity);
+        stepSums = grow(stepSums, capacity);
+        stepCounts = grow(stepCounts, capacity);
+        completedSteps = grow(completedSteps, capacity);
+        lastSteps = grow(lastSteps, capacity);
+        firstSteps = grow(firstSteps, capacity);
+        levels = grow(levels, capacity);
+        trends = grow(trends, capacity);
+        seasonals = grow(seasonals, capacity * seasonSteps);
+    }
+
+    private static long[] grow(long[] array, int length) {
+        return array == null ? new long[length] : Arrays.copyOf(array, length);
+    }
+
+    private static double[] grow(double[] array, int length) {
+        return array == null ? new double[length] : Arrays.copyOf(array, length);
+    }
+}
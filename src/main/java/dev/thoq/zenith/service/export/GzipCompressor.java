@@ -0,0 +1,51 @@
+package dev.thoq.zenith.service.export;
+
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip encoder that keeps its {@link Deflater} and output buffer between calls instead of building a
+ * {@code GZIPOutputStream} per payload. Not thread safe.
+ */
+final class GzipCompressor {
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int TRAILER = 8;
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+    private final CRC32 crc = new CRC32();
+    private byte[] buffer = new byte[16 * 1024];
+
+    byte[] compress(byte[] input) {
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+
+        crc.reset();
+        crc.update(input);
+
+        System.arraycopy(HEADER, 0, buffer, 0, HEADER.length);
+        int size = HEADER.length;
+
+        while(!deflater.finished()) {
+            if(size == buffer.length - TRAILER) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            size += deflater.deflate(buffer, size, buffer.length - TRAILER - size);
+        }
+
+        writeIntLE(size, (int) crc.getValue());
+        writeIntLE(size + 4, input.length);
+
+        return Arrays.copyOf(buffer, size + TRAILER);
+    }
+
+    void close() {
+        deflater.end();
+    }
+
+    private void writeIntLE(int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >>> 8);
+        buffer[offset + 2] = (byte) (value >>> 16);
+        buffer[offset + 3] = (byte) (value >>> 24);
+    }
+}
@@ -0,0 +1,110 @@
+package dev.thoq.zenith.service.export;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer with the handful of writes the OpenMetrics text format needs. The buffer is kept
+ * between expositions, so steady-state encoding only allocates the published copy. Not thread safe.
+ */
+final class OpenMetricsEncoder {
+    private byte[] buffer;
+    private int length;
+
+    OpenMetricsEncoder(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    void reset() {
+        length = 0;
+    }
+
+    OpenMetricsEncoder ascii(String text) {
+        int size = text.length();
+        ensure(size);
+
+        for(int i = 0; i < size; i++)
+            buffer[length++] = (byte) text.charAt(i);
+
+        return this;
+    }
+
+    OpenMetricsEncoder bytes(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+        return this;
+    }
+
+    OpenMetricsEncoder ch(char c) {
+        ensure(1);
+        buffer[length++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * Append a label value in quotes, escaping backslashes, quotes and newlines
+     */
+    OpenMetricsEncoder labelValue(String value) {
+        ch('"');
+        for(byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            switch(b) {
+                case '\\' -> ch('\\').ch('\\');
+                case '"' -> ch('\\').ch('"');
+                case '\n' -> ch('\\').ch('n');
+                default -> {
+                    ensure(1);
+                    buffer[length++] = b;
+                }
+            }
+        }
+
+        return ch('"');
+    }
+
+    OpenMetricsEncoder number(double value) {
+        if(Double.isNaN(value)) return ascii("NaN");
+        if(value == Double.POSITIVE_INFINITY) return ascii("+Inf");
+        if(value == Double.NEGATIVE_INFINITY) return ascii("-Inf");
+
+        long integral = (long) value;
+        if(integral == value && Math.abs(integral) < 1_000_000_000_000_000L) return number(integral);
+
+        return ascii(Double.toString(value));
+    }
+
+    OpenMetricsEncoder number(long value) {
+        ensure(20);
+
+        if(value < 0) {
+            buffer[length++] = '-';
+            value = -value;
+        }
+
+        int start = length;
+        do {
+            buffer[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while(value > 0);
+
+        for(int left = start, right = length - 1; left < right; left++, right--) {
+            byte swap = buffer[left];
+            buffer[left] = buffer[right];
+            buffer[right] = swap;
+        }
+
+        return this;
+    }
+
+    /**
+     * Copy of everything written since the last reset
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private void ensure(int extra) {
+        if(length + extra > buffer.length)
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+    }
+}
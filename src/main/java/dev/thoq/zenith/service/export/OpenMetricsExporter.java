@@ -0,0 +1,305 @@
+package dev.thoq.zenith.service.export;
+
+import dev.thoq.zenith.collector.Probe;
+import dev.thoq.zenith.collector.SampleListener;
+import dev.thoq.zenith.collector.SamplingEngine;
+import dev.thoq.zenith.model.dto.ProcessDto;
+import dev.thoq.zenith.model.dto.ProcessorStatsDto;
+import dev.thoq.zenith.processor.RealTimeProcessor;
+import dev.thoq.zenith.service.alert.AlertService;
+import dev.thoq.zenith.service.monitoring.ProcessMonitorService;
+import dev.thoq.zenith.service.stream.MetricStreamService;
+import dev.thoq.zenith.storage.DiskMetricStore;
+import dev.thoq.zenith.storage.RingBufferSeries;
+import dev.thoq.zenith.storage.SeriesStore;
+import dev.thoq.zenith.util.LoggingUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Renders every stored series and Zenith's own counters in the OpenMetrics text format. The exposition is
+ * encoded once per {@code zenith.metrics.interval} on the sampler thread and published as an immutable byte
+ * array that every scrape writes out as is; the gzip variant is compressed at most once per exposition, on
+ * the first scrape that asks for it.
+ * <p>
+ * A series named {@code network.rx_bytes:eth0} becomes {@code zenith_network_rx_bytes{interface="eth0"}}. The part
+ * after the colon is labelled by what it names, see {@link #labelName(String)}; {@code instance} is left to the
+ * scraper, which sets it to the scrape target.
+ */
+@ApplicationScoped
+public class OpenMetricsExporter implements SampleListener {
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+    private static final LoggingUtils logger = LoggingUtils.getLogger(OpenMetricsExporter.class);
+    private static final String PREFIX = "zenith_";
+
+    private final OpenMetricsEncoder encoder = new OpenMetricsEncoder(64 * 1024);
+    private final GzipCompressor compressor = new GzipCompressor();
+    private final List<Family> families = new ArrayList<>();
+    private volatile Exposition exposition;
+    private int knownSeries;
+    private long knownGeneration = -1;
+    private long lastEncodedAt;
+
+    @Inject
+    SamplingEngine samplingEngine;
+
+    @Inject
+    SeriesStore seriesStore;
+
+    @Inject
+    RealTimeProcessor realTimeProcessor;
+
+    @Inject
+    AlertService alertService;
+
+    @Inject
+    DiskMetricStore diskMetricStore;
+
+    @Inject
+    MetricStreamService metricStreamService;
+
+    @Inject
+    ProcessMonitorService processMonitorService;
+
+    @ConfigProperty(name = "zenith.metrics.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "zenith.metrics.interval", defaultValue = "PT1S")
+    Duration interval;
+
+    @PostConstruct
+    void init() {
+        if(enabled) samplingEngine.addListener(this);
+    }
+
+    @PreDestroy
+    void destroy() {
+        samplingEngine.removeListener(this);
+
+        synchronized(compressor) {
+            compressor.close();
+        }
+    }
+
+    @Override
+    public void onSample(Probe probe) {
+        long now = System.nanoTime();
+        if(exposition != null && now - lastEncodedAt < interval.toNanos()) return;
+        lastEncodedAt = now;
+
+        try {
+            exposition = new Exposition(encode());
+        } catch(Exception ex) {
+            logger.warn("Failed to encode OpenMetrics exposition: %s", ex.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The latest exposition, or null before the first one has been encoded
+     */
+    public Exposition getExposition() {
+        return exposition;
+    }
+
+    private byte[] encode() {
+        OpenMetricsEncoder out = encoder;
+        out.reset();
+
+        for(Family family : families()) {
+            out.bytes(family.header);
+
+            for(Sample sample : family.samples) {
+                if(sample.series.isEmpty()) continue;
+                out.bytes(sample.head).number(sample.series.lastValue()).ch('\n');
+            }
+        }
+
+        encodeSelfMetrics(out);
+        encodeProcesses(out);
+
+        return out.ascii("# EOF\n").toByteArray();
+    }
+
+    private void encodeSelfMetrics(OpenMetricsEncoder out) {
+        ProcessorStatsDto stats = realTimeProcessor.getStats();
+
+        counter(out, "processor_ticks", "Processor ticks run", stats.processedTicks());
+        counter(out, "processor_dropped_ticks", "Processor ticks dropped by backpressure", stats.droppedTicks());
+        counter(out, "processor_coalesced_ticks", "Processor ticks coalesced by backpressure", stats.coalescedTicks());
+        gauge(out, "processor_tick_latency_seconds", "Duration of the last processor tick", stats.lastTickLatencyMs() / 1000);
+        counter(out, "alerts_dropped", "Alerts dropped because the alert queue was full", alertService.getDroppedAlerts());
+        counter(out, "storage_dropped_writes", "Samples the metric store failed to persist", diskMetricStore.getDroppedWrites());
+        gauge(out, "stream_subscribers", "Connected metric stream subscribers", metricStreamService.getSubscriberCount());
+        gauge(out, "series", "Series held in memory", knownSeries);
+    }
+
+    private void encodeProcesses(OpenMetricsEncoder out) {
+        gauge(out, "process_count", "Processes on the host", processMonitorService.getProcessCount());
+
+        List<ProcessDto> byCpu = processMonitorService.getTopByCpu();
+        if(!byCpu.isEmpty()) {
+            header(out, "process_cpu_percent", "gauge", "CPU of the busiest processes as a percentage of one core");
+            for(ProcessDto process : byCpu)
+                processSample(out, "process_cpu_percent", process).number(process.cpuPercent()).ch('\n');
+        }
+
+        List<ProcessDto> byMemory = processMonitorService.getTopByMemory();
+        if(!byMemory.isEmpty()) {
+            header(out, "process_resident_bytes", "gauge", "Resident memory of the largest processes");
+            for(ProcessDto process : byMemory)
+                processSample(out, "process_resident_bytes", process).number(process.rssBytes()).ch('\n');
+        }
+    }
+
+    private static OpenMetricsEncoder processSample(OpenMetricsEncoder out, String name, ProcessDto process) {
+        return out.ascii(PREFIX).ascii(name).ascii("{pid=\"").number(process.pid()).ascii("\",name=")
+                .labelValue(process.name()).ascii("} ");
+    }
+
+    private static void counter(OpenMetricsEncoder out, String name, String help, long value) {
+        header(out, name, "counter", help);
+        out.ascii(PREFIX).ascii(name).ascii("_total ").number(value).ch('\n');
+    }
+
+    private static void gauge(OpenMetricsEncoder out, String name, String help, double value) {
+        header(out, name, "gauge", help);
+        out.ascii(PREFIX).ascii(name).ch(' ').number(value).ch('\n');
+    }
+
+    private static void header(OpenMetricsEncoder out, String name, String type, String help) {
+        out.ascii("# TYPE ").ascii(PREFIX).ascii(name).ch(' ').ascii(type).ch('\n');
+        out.ascii("# HELP ").ascii(PREFIX).ascii(name).ch(' ').ascii(help).ch('\n');
+    }
+
+    /**
+     * Series grouped into metric families, rebuilt only when a series has appeared or gone away
+     */
+    private List<Family> families() {
+        long generation = seriesStore.getGeneration();
+        if(generation == knownGeneration) return families;
+
+        Collection<RingBufferSeries> all = seriesStore.getSeries();
+        Map<String, List<RingBufferSeries>> grouped = new TreeMap<>();
+        for(RingBufferSeries series : all)
+            grouped.computeIfAbsent(familyName(series.getName()), name -> new ArrayList<>()).add(series);
+
+        families.clear();
+        grouped.forEach((name, members) -> {
+            members.sort((left, right) -> left.getName().compareTo(right.getName()));
+            families.add(new Family(name, members));
+        });
+
+        knownSeries = all.size();
+        knownGeneration = generation;
+        return families;
+    }
+
+    /**
+     * Metric name for a series, everything outside {@code [a-zA-Z0-9_]} becomes an underscore
+     */
+    static String familyName(String series) {
+        int colon = series.indexOf(':');
+        String metric = colon < 0 ? series : series.substring(0, colon);
+
+        StringBuilder name = new StringBuilder(PREFIX.length() + metric.length()).append(PREFIX);
+        for(int i = 0; i < metric.length(); i++) {
+            char c = metric.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+            name.append(valid ? c : '_');
+        }
+
+        return name.toString();
+    }
+
+    /**
+     * Label for the part of a series name after the colon: {@code core}, {@code interface}, {@code device},
+     * {@code mount} or {@code cgroup} for the groups that have one, {@code id} for anything else
+     */
+    static String labelName(String series) {
+        int dot = series.indexOf('.');
+        String group = dot < 0 ? "" : series.substring(0, dot);
+
+        return switch(group) {
+            case "cpu" -> "core";
+            case "network" -> "interface";
+            case "disk" -> "device";
+            case "filesystem" -> "mount";
+            case "container" -> "cgroup";
+            default -> "id";
+        };
+    }
+
+    private static final class Family {
+        private final byte[] header;
+        private final Sample[] samples;
+
+        private Family(String name, List<RingBufferSeries> members) {
+            this.header = ("# TYPE " + name + " gauge\n").getBytes(StandardCharsets.US_ASCII);
+            this.samples = new Sample[members.size()];
+
+            for(int i = 0; i < samples.length; i++)
+                samples[i] = new Sample(name, members.get(i));
+        }
+    }
+
+    private static final class Sample {
+        private final RingBufferSeries series;
+        private final byte[] head;
+
+        private Sample(String family, RingBufferSeries series) {
+            this.series = series;
+
+            String name = series.getName();
+            int colon = name.indexOf(':');
+
+            OpenMetricsEncoder line = new OpenMetricsEncoder(family.length() + name.length() + 16);
+            line.ascii(family);
+            if(colon >= 0) line.ch('{').ascii(labelName(name)).ch('=').labelValue(name.substring(colon + 1)).ch('}');
+            this.head = line.ch(' ').toByteArray();
+        }
+    }
+
+    /**
+     * One encoded exposition, shared by every scrape until the next one is published
+     */
+    public final class Exposition {
+        private final byte[] body;
+        private volatile byte[] gzip;
+
+        private Exposition(byte[] body) {
+            this.body = body;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * The body gzip-compressed, encoded by the first caller that asks for it
+         */
+        public byte[] getGzipBody() {
+            byte[] compressed = gzip;
+            if(compressed != null) return compressed;
+
+            synchronized(compressor) {
+                if(gzip == null) gzip = compressor.compress(body);
+                return gzip;
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package dev.thoq.zenith.service.monitoring;
+
+import dev.thoq.zenith.service.monitoring.cgroup.CgroupStats;
+import dev.thoq.zenith.util.LoggingUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Container mode: resource usage of the agent's own cgroup v2, or of a configured one, and optionally of every
+ * child cgroup below it so that a single agent per node can report on all of its containers.
+ * <p>
+ * With {@code zenith.container.mode=auto} the mode turns on when the unified hierarchy is mounted and the agent
+ * runs inside a container.
+ */
+@ApplicationScoped
+public class CgroupMonitorService {
+    private static final LoggingUtils logger = LoggingUtils.getLogger(CgroupMonitorService.class);
+    private static final String OWN_CGROUP_PREFIX = "0::";
+
+    private final Map<String, CgroupStats> childStats = new HashMap<>();
+    private CgroupStats stats;
+    private Path directory;
+    private volatile List<CgroupStats> children = List.of();
+    private long lastRescanNanos;
+
+    @Inject
+    MemoryMonitorService memoryMonitorService;
+
+    @ConfigProperty(name = "zenith.container.mode", defaultValue = "auto")
+    String mode;
+
+    @ConfigProperty(name = "zenith.cgroup.root", defaultValue = "/sys/fs/cgroup")
+    String root;
+
+    @ConfigProperty(name = "zenith.cgroup.path")
+    Optional<String> path;
+
+    @ConfigProperty(name = "zenith.cgroup.children", defaultValue = "false")
+    boolean childrenEnabled;
+
+    @ConfigProperty(name = "zenith.cgroup.child-depth", defaultValue = "1")
+    int childDepth;
+
+    @ConfigProperty(name = "zenith.cgroup.max-children", defaultValue = "64")
+    int maxChildren;
+
+    @ConfigProperty(name = "zenith.cgroup.rescan-interval", defaultValue = "PT10S")
+    Duration rescanInterval;
+
+    @PostConstruct
+    void init() {
+        if("disabled".equalsIgnoreCase(mode)) return;
+
+        Path rootPath = Path.of(root);
+        if(!Files.exists(rootPath.resolve("cgroup.controllers"))) {
+            if("enabled".equalsIgnoreCase(mode)) logger.warn("Container mode requested but no cgroup v2 hierarchy at %s", root);
+            return;
+        }
+
+        if("auto".equalsIgnoreCase(mode) && !isContainerized()) return;
+
+        String relative = path.orElseGet(CgroupMonitorService::ownCgroup);
+        Path resolved = rootPath.resolve(relative.startsWith("/") ? relative.substring(1) : relative);
+        directory = Files.isDirectory(resolved) ? resolved : rootPath;
+        stats = new CgroupStats(relative, directory);
+
+        logger.info("Container mode enabled, monitoring cgroup %s", directory);
+    }
+
+    public boolean isEnabled() {
+        return stats != null;
+    }
+
+    public void update() {
+        if(stats == null) return;
+
+        double cores = Runtime.getRuntime().availableProcessors();
+        long hostMemory = memoryMonitorService.getTotalBytes();
+        stats.update(cores, hostMemory);
+
+        if(!childrenEnabled) return;
+
+        long now = System.nanoTime();
+        if(lastRescanNanos == 0 || now - lastRescanNanos >= rescanInterval.toNanos()) {
+            lastRescanNanos = now;
+            rescanChildren();
+        }
+
+        for(CgroupStats child : children)
+            child.update(cores, hostMemory);
+    }
+
+    /**
+     * Stats of the monitored cgroup, or null when container mode is off
+     */
+    public CgroupStats getStats() {
+        return stats;
+    }
+
+    public List<CgroupStats> getChildren() {
+        return children;
+    }
+
+    @PreDestroy
+    void close() {
+        if(stats != null) stats.close();
+        childStats.values().forEach(CgroupStats::close);
+    }
+
+    private void rescanChildren() {
+        List<Path> found;
+        try(Stream<Path> walk = Files.walk(directory, childDepth)) {
+            found = walk.filter(candidate -> !candidate.equals(directory))
+                    .filter(candidate -> directory.relativize(candidate).getNameCount() == childDepth)
+                    .filter(candidate -> Files.exists(candidate.resolve("cgroup.procs")))
+                    .sorted()
+                    .limit(maxChildren)
+                    .toList();
+        } catch(IOException | RuntimeException e) {
+            logger.warn("Failed to list child cgroups of %s: %s", directory, e.getMessage());
+            return;
+        }
+
+        Map<String, CgroupStats> previous = new HashMap<>(childStats);
+        List<CgroupStats> current = new ArrayList<>(found.size());
+        childStats.clear();
+
+        for(Path child : found) {
+            String name = directory.relativize(child).toString();
+            CgroupStats existing = previous.remove(name);
+            CgroupStats childStat = existing != null ? existing : new CgroupStats(name, child);
+
+            childStats.put(name, childStat);
+            current.add(childStat);
+        }
+
+        if(!previous.isEmpty()) logger.info("Child cgroups went away: %s", String.join(", ", previous.keySet()));
+
+        previous.values().forEach(CgroupStats::close);
+        children = List.copyOf(current);
+    }
+
+    private static boolean isContainerized() {
+        return Files.exists(Path.of("/.dockerenv")) ||
+                Files.exists(Path.of("/run/.containerenv")) ||
+                System.getenv("container") != null ||
+                System.getenv("KUBERNETES_SERVICE_HOST") != null;
+    }
+
+    /**
+     * The agent's own cgroup from /proc/self/cgroup; with a cgroup namespace, as in most containers, this is "/"
+     */
+    private static String ownCgroup() {
+        try {
+            for(String line : Files.readAllLines(Path.of("/proc/self/cgroup"))) {
+                if(line.startsWith(OWN_CGROUP_PREFIX)) return line.substring(OWN_CGROUP_PREFIX.length());
+            }
+        } catch(IOException ignored) {
+        }
+
+        return "/";
+    }
+}
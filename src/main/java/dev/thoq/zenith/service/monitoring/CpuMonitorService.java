@@ -0,0 +1,197 @@
+package dev.thoq.zenith.service.monitoring;
+
+import dev.thoq.zenith.service.monitoring.proc.CpuStatParser;
+import dev.thoq.zenith.service.monitoring.proc.ProcFile;
+import dev.thoq.zenith.service.monitoring.proc.ProcessStatParser;
+import dev.thoq.zenith.util.LoggingUtils;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.lang.management.ManagementFactory;
+
+import static dev.thoq.zenith.service.monitoring.proc.CpuStatParser.FIELDS;
+
+/**
+ * Host and per-core CPU utilisation computed from /proc/stat tick deltas, plus the CPU used by this agent from
+ * /proc/self/stat. Off Linux only the aggregate usage is available, taken from the platform MXBean.
+ */
+@ApplicationScoped
+public class CpuMonitorService {
+    private static final LoggingUtils logger = LoggingUtils.getLogger(CpuMonitorService.class);
+    private static final int INITIAL_ROWS = 65;
+
+    public static final int USER = 0;
+    public static final int SYSTEM = 1;
+    public static final int IOWAIT = 2;
+    public static final int IRQ = 3;
+    public static final int STEAL = 4;
+    public static final int IDLE = 5;
+    public static final int USAGE = 6;
+    public static final int STATS = 7;
+
+    private final ProcFile procStat = new ProcFile("/proc/stat", 16384);
+    private final ProcFile selfStat = new ProcFile("/proc/self/stat", 1024);
+    private final CpuStatParser cpuStatParser = new CpuStatParser();
+    private final ProcessStatParser processStatParser = new ProcessStatParser();
+    private final long[] selfFields = new long[ProcessStatParser.FIELDS];
+    private final boolean procAvailable = procStat.exists();
+    private long[] ticks = new long[INITIAL_ROWS * FIELDS];
+    private long[] previousTicks = new long[INITIAL_ROWS * FIELDS];
+    private double[] percentages = new double[INITIAL_ROWS * STATS];
+    private volatile int rows;
+    private volatile double usage;
+    private volatile double agentUsage;
+    private volatile long version;
+    private boolean primed;
+    private long totalTicks;
+    private long previousAgentTicks = -1;
+
+    /**
+     * Take a new reading, percentages cover the time since the previous one
+     */
+    public void update() {
+        if(!procAvailable) {
+            updateFromMxBean();
+            version++;
+            return;
+        }
+
+        if(!procStat.read()) {
+            logger.warn("Failed to read %s", procStat.getPath());
+            return;
+        }
+
+        int needed = cpuStatParser.parse(procStat.data(), procStat.length(), ticks);
+        if(needed * FIELDS > ticks.length) {
+            grow(needed);
+            cpuStatParser.parse(procStat.data(), procStat.length(), ticks);
+        }
+
+        for(int row = 0; row < needed; row++)
+            computeRow(row);
+
+        long[] swap = previousTicks;
+        previousTicks = ticks;
+        ticks = swap;
+
+        // the first reading only establishes the baseline for the deltas
+        if(primed) {
+            rows = needed;
+            usage = percentages[USAGE];
+        }
+
+        primed = true;
+
+        updateAgentUsage();
+        version++;
+    }
+
+    /**
+     * Aggregate busy percentage across all CPUs
+     */
+    public double getUsage() {
+        return usage;
+    }
+
+    /**
+     * Number of readings taken so far, changes whenever the figures may have
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Aggregate percentage for one of the stat indexes of this class
+     */
+    public double getStat(int stat) {
+        return rows == 0 ? 0.0 : percentages[stat];
+    }
+
+    /**
+     * Number of cores with per-core figures, zero when /proc/stat is not available
+     */
+    public int getCoreCount() {
+        return Math.max(rows - 1, 0);
+    }
+
+    public double getCoreStat(int core, int stat) {
+        return core < getCoreCount() ? percentages[(core + 1) * STATS + stat] : 0.0;
+    }
+
+    /**
+     * CPU used by this process, as a percentage of the whole host
+     */
+    public double getAgentUsage() {
+        return agentUsage;
+    }
+
+    @PreDestroy
+    void close() {
+        procStat.close();
+        selfStat.close();
+    }
+
+    private void computeRow(int row) {
+        int base = row * FIELDS;
+        long user = delta(base + CpuStatParser.USER) + delta(base + CpuStatParser.NICE);
+        long system = delta(base + CpuStatParser.SYSTEM);
+        long idle = delta(base + CpuStatParser.IDLE);
+        long iowait = delta(base + CpuStatParser.IOWAIT);
+        long irq = delta(base + CpuStatParser.IRQ) + delta(base + CpuStatParser.SOFTIRQ);
+        long steal = delta(base + CpuStatParser.STEAL);
+        long total = user + system + idle + iowait + irq + steal;
+
+        if(row == 0) totalTicks = total;
+
+        int out = row * STATS;
+        if(total <= 0) return;
+
+        double scale = 100.0 / total;
+        percentages[out + USER] = user * scale;
+        percentages[out + SYSTEM] = system * scale;
+        percentages[out + IOWAIT] = iowait * scale;
+        percentages[out + IRQ] = irq * scale;
+        percentages[out + STEAL] = steal * scale;
+        percentages[out + IDLE] = idle * scale;
+        percentages[out + USAGE] = (total - idle - iowait) * scale;
+    }
+
+    private long delta(int index) {
+        // counters can step backwards when a core goes offline and comes back
+        return Math.max(ticks[index] - previousTicks[index], 0);
+    }
+
+    private void updateAgentUsage() {
+        if(!selfStat.read() || !processStatParser.parse(selfStat.data(), selfStat.length(), selfFields)) return;
+
+        long agentTicks = selfFields[ProcessStatParser.UTIME] + selfFields[ProcessStatParser.STIME];
+
+        // both deltas are in USER_HZ, so the ratio does not depend on the clock tick rate
+        if(previousAgentTicks >= 0 && totalTicks > 0)
+            agentUsage = Math.min((agentTicks - previousAgentTicks) * 100.0 / totalTicks, 100.0);
+
+        previousAgentTicks = agentTicks;
+    }
+
+    private void grow(int needed) {
+        ticks = new long[needed * FIELDS];
+        long[] previous = new long[needed * FIELDS];
+        System.arraycopy(previousTicks, 0, previous, 0, previousTicks.length);
+        previousTicks = previous;
+
+        double[] grown = new double[needed * STATS];
+        System.arraycopy(percentages, 0, grown, 0, percentages.length);
+        percentages = grown;
+    }
+
+    private void updateFromMxBean() {
+        if(!(ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean osBean))
+            return;
+
+        double load = osBean.getCpuLoad();
+        if(load >= 0) usage = load * 100.0;
+
+        double processLoad = osBean.getProcessCpuLoad();
+        if(processLoad >= 0) agentUsage = processLoad * 100.0;
+    }
+}
@@ -0,0 +1,388 @@
+package dev.thoq.zenith.service.monitoring;
+
+import dev.thoq.zenith.service.monitoring.proc.DiskStatsParser;
+import dev.thoq.zenith.service.monitoring.proc.ProcFile;
+import dev.thoq.zenith.util.LoggingUtils;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Filesystem capacity per mount and block device I/O rates. On Linux the mount list comes from
+ * /proc/self/mountinfo and is only rebuilt when that file changes; device I/O comes from /proc/diskstats.
+ */
+@ApplicationScoped
+public class DiskMonitorService {
+    private static final LoggingUtils logger = LoggingUtils.getLogger(DiskMonitorService.class);
+    private static final Set<String> PSEUDO_FILESYSTEMS = Set.of(
+            "autofs", "binfmt_misc", "bpf", "cgroup", "cgroup2", "configfs", "debugfs", "devpts", "devtmpfs",
+            "efivarfs", "fusectl", "hugetlbfs", "mqueue", "nsfs", "proc", "pstore", "ramfs", "rpc_pipefs",
+            "securityfs", "selinuxfs", "squashfs", "sysfs", "tmpfs", "tracefs"
+    );
+    private static final String[] SKIPPED_MOUNT_PREFIXES = {"/dev", "/proc", "/sys", "/run"};
+
+    public static final int READ_BYTES = 0;
+    public static final int WRITE_BYTES = 1;
+    public static final int READ_OPS = 2;
+    public static final int WRITE_OPS = 3;
+    public static final int QUEUE_DEPTH = 4;
+    public static final int UTILIZATION = 5;
+    public static final int AWAIT_MILLIS = 6;
+    public static final int IO_STATS = 7;
+
+    private final ProcFile mountInfo = new ProcFile("/proc/self/mountinfo", 16384);
+    private final ProcFile diskStats = new ProcFile("/proc/diskstats", 8192);
+    private final DiskStatsParser diskStatsParser = new DiskStatsParser();
+    private final long[] diskFields = new long[DiskStatsParser.FIELDS];
+    private final boolean linux = mountInfo.exists();
+    private final List<Device> devices = new ArrayList<>();
+    private volatile List<Device> trackedDevices = List.of();
+    private byte[] lastMountInfo = new byte[0];
+    private int lastMountInfoLength = -1;
+    private volatile List<Mount> mounts = List.of();
+    private volatile long usedBytes;
+    private volatile long capacityVersion;
+    private long lastIoNanos;
+
+    /**
+     * Refresh used and available space of every tracked mount, re-enumerating mounts if the mount table changed
+     */
+    public void updateCapacity() {
+        if(linux) refreshLinuxMounts();
+        else mounts = enumerateFileStores();
+
+        long used = 0;
+        for(Mount mount : mounts) {
+            try {
+                long total = mount.store.getTotalSpace();
+                long available = mount.store.getUsableSpace();
+                if(total <= 0 || total == Long.MAX_VALUE) continue;
+
+                mount.totalBytes = total;
+                mount.availableBytes = available;
+                mount.usedBytes = total - mount.store.getUnallocatedSpace();
+                used += mount.usedBytes;
+            } catch(IOException | UnsupportedOperationException e) {
+                logger.debug("Failed to read capacity of %s: %s", mount.mountPoint, e.getMessage());
+            }
+        }
+
+        usedBytes = used;
+        capacityVersion++;
+    }
+
+    /**
+     * Take a new /proc/diskstats reading, rates cover the time since the previous one
+     */
+    public void updateIo() {
+        if(!linux || !diskStats.read()) return;
+
+        long now = System.nanoTime();
+        double seconds = lastIoNanos == 0 ? 0 : (now - lastIoNanos) / 1e9;
+        lastIoNanos = now;
+
+        DiskStatsParser parser = diskStatsParser.reset(diskStats.data(), diskStats.length());
+        while(parser.next(diskFields)) {
+            Device device = device(parser.data(), parser.nameStart(), parser.nameLength());
+            if(device.ignored) continue;
+
+            device.update(diskFields, seconds);
+        }
+    }
+
+    /**
+     * Space used across all tracked mounts
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Number of capacity readings taken so far, changes whenever {@link #getUsedBytes()} may have
+     */
+    public long getCapacityVersion() {
+        return capacityVersion;
+    }
+
+    public List<Mount> getMounts() {
+        return mounts;
+    }
+
+    /**
+     * Whole-disk block devices seen so far; partitions, loop and RAM devices are left out
+     */
+    public List<Device> getDevices() {
+        return trackedDevices;
+    }
+
+    @PreDestroy
+    void close() {
+        mountInfo.close();
+        diskStats.close();
+    }
+
+    private void refreshLinuxMounts() {
+        if(!mountInfo.read()) {
+            logger.warn("Failed to read %s", mountInfo.getPath());
+            return;
+        }
+
+        byte[] data = mountInfo.data();
+        int length = mountInfo.length();
+        if(length == lastMountInfoLength && Arrays.equals(data, 0, length, lastMountInfo, 0, length)) return;
+
+        if(lastMountInfo.length < length) lastMountInfo = new byte[data.length];
+        System.arraycopy(data, 0, lastMountInfo, 0, length);
+        lastMountInfoLength = length;
+
+        mounts = parseMountInfo(new String(data, 0, length, StandardCharsets.UTF_8));
+        logger.debug("Tracking %d mounts", mounts.size());
+    }
+
+    private List<Mount> parseMountInfo(String content) {
+        List<Mount> parsed = new ArrayList<>();
+        Set<String> seenDevices = new HashSet<>();
+
+        for(String line : content.split("\n")) {
+            int separator = line.indexOf(" - ");
+            if(separator < 0) continue;
+
+            String[] fields = line.substring(0, separator).split(" ");
+            String[] filesystem = line.substring(separator + 3).split(" ");
+            if(fields.length < 5 || filesystem.length < 2) continue;
+
+            String mountPoint = unescape(fields[4]);
+            String type = filesystem[0];
+            if(shouldSkipMount(type, mountPoint)) {
+                if(mountPoint.equals("/")) logger.info("Not tracking the root filesystem, %s is not backed by a disk", type);
+                continue;
+            }
+
+            // bind mounts expose the same filesystem several times, count each device once
+            if(!seenDevices.add(fields[2])) continue;
+
+            try {
+                parsed.add(new Mount(mountPoint, unescape(filesystem[1]), type, Files.getFileStore(Path.of(mountPoint))));
+            } catch(IOException | RuntimeException e) {
+                logger.debug("Skipping mount %s: %s", mountPoint, e.getMessage());
+            }
+        }
+
+        return List.copyOf(parsed);
+    }
+
+    private static boolean shouldSkipMount(String type, String mountPoint) {
+        // a container's root is an overlay, other overlays are container roots seen from the host
+        if(type.equals("overlay")) return !mountPoint.equals("/");
+        if(PSEUDO_FILESYSTEMS.contains(type) || type.startsWith("fuse.") || type.equals("fuse")) return true;
+
+        for(String prefix : SKIPPED_MOUNT_PREFIXES) {
+            if(mountPoint.equals(prefix) || mountPoint.startsWith(prefix + "/")) return true;
+        }
+
+        return mountPoint.contains("/snap/");
+    }
+
+    /**
+     * Decode the octal escapes mountinfo uses for spaces, tabs, newlines and backslashes
+     */
+    private static String unescape(String value) {
+        if(value.indexOf('\\') < 0) return value;
+
+        StringBuilder decoded = new StringBuilder(value.length());
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if(c == '\\' && i + 3 < value.length()) {
+                try {
+                    decoded.append((char) Integer.parseInt(value.substring(i + 1, i + 4), 8));
+                    i += 3;
+                    continue;
+                } catch(NumberFormatException ignored) {
+                }
+            }
+
+            decoded.append(c);
+        }
+
+        return decoded.toString();
+    }
+
+    private List<Mount> enumerateFileStores() {
+        List<Mount> stores = new ArrayList<>();
+        for(FileStore store : FileSystems.getDefault().getFileStores()) {
+            if(store.isReadOnly()) continue;
+
+            String type = store.type().toLowerCase();
+            String name = store.name().toLowerCase();
+            if(shouldSkipFileStore(type, name)) continue;
+
+            stores.add(new Mount(store.toString(), store.name(), store.type(), store));
+        }
+
+        return stores;
+    }
+
+    private static boolean shouldSkipFileStore(String storeType, String storeName) {
+        String os = System.getProperty("os.name").toLowerCase();
+
+        if(os.contains("mac") || os.contains("darwin")) {
+            return storeType.contains("devfs") ||
+                    storeType.contains("map") ||
+                    storeType.contains("autofs") ||
+                    storeType.contains("nullfs") ||
+                    storeName.startsWith("/dev") ||
+                    storeName.contains("/Volumes/com.apple") ||
+                    storeName.contains(".vol");
+        }
+
+        if(os.contains("windows")) {
+            return storeType.contains("cdfs") ||
+                    storeType.contains("udf") ||
+                    (storeName.length() == 2 && storeName.endsWith(":") &&
+                            (storeName.startsWith("a") || storeName.startsWith("b")));
+        }
+
+        return false;
+    }
+
+    private Device device(byte[] data, int offset, int length) {
+        for(Device device : devices) {
+            if(device.matches(data, offset, length)) return device;
+        }
+
+        Device device = new Device(new String(data, offset, length, StandardCharsets.US_ASCII));
+        devices.add(device);
+
+        if(!device.ignored) {
+            List<Device> tracked = new ArrayList<>(trackedDevices);
+            tracked.add(device);
+            trackedDevices = List.copyOf(tracked);
+        }
+
+        return device;
+    }
+
+    /**
+     * A mounted filesystem; capacity figures are in bytes and refreshed by {@link #updateCapacity()}
+     */
+    public static final class Mount {
+        private final String mountPoint;
+        private final String source;
+        private final String type;
+        private final FileStore store;
+        private volatile long totalBytes;
+        private volatile long usedBytes;
+        private volatile long availableBytes;
+
+        private Mount(String mountPoint, String source, String type, FileStore store) {
+            this.mountPoint = mountPoint;
+            this.source = source;
+            this.type = type;
+            this.store = store;
+        }
+
+        public String getMountPoint() {
+            return mountPoint;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public long getUsedBytes() {
+            return usedBytes;
+        }
+
+        public long getAvailableBytes() {
+            return availableBytes;
+        }
+
+        /**
+         * Usage as {@code df} reports it, relative to the space available to unprivileged users
+         */
+        public double getUsagePercentage() {
+            long used = usedBytes;
+            long capacity = used + availableBytes;
+            return capacity <= 0 ? 0.0 : used * 100.0 / capacity;
+        }
+    }
+
+    /**
+     * A block device from /proc/diskstats with the rates computed over the last interval
+     */
+    public static final class Device {
+        private final String name;
+        private final byte[] nameBytes;
+        private final boolean ignored;
+        private final long[] previous = new long[DiskStatsParser.FIELDS];
+        private final double[] stats = new double[IO_STATS];
+        private boolean primed;
+
+        private Device(String name) {
+            this.name = name;
+            this.nameBytes = name.getBytes(StandardCharsets.US_ASCII);
+            this.ignored = name.startsWith("loop") || name.startsWith("ram") ||
+                    !Files.isDirectory(Path.of("/sys/block", name.replace('/', '!')));
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Latest value of one of the I/O stat indexes of {@link DiskMonitorService}
+         */
+        public double getStat(int stat) {
+            return stats[stat];
+        }
+
+        private boolean matches(byte[] data, int offset, int length) {
+            return length == nameBytes.length && Arrays.equals(data, offset, offset + length, nameBytes, 0, length);
+        }
+
+        private void update(long[] fields, double seconds) {
+            if(primed && seconds > 0) {
+                long reads = delta(fields, DiskStatsParser.READS);
+                long writes = delta(fields, DiskStatsParser.WRITES);
+                long ioMillis = delta(fields, DiskStatsParser.IO_MILLIS);
+                double millis = seconds * 1000.0;
+
+                stats[READ_BYTES] = delta(fields, DiskStatsParser.SECTORS_READ) * (double) DiskStatsParser.SECTOR_BYTES / seconds;
+                stats[WRITE_BYTES] = delta(fields, DiskStatsParser.SECTORS_WRITTEN) * (double) DiskStatsParser.SECTOR_BYTES / seconds;
+                stats[READ_OPS] = reads / seconds;
+                stats[WRITE_OPS] = writes / seconds;
+                stats[QUEUE_DEPTH] = delta(fields, DiskStatsParser.WEIGHTED_IO_MILLIS) / millis;
+                stats[UTILIZATION] = Math.min(ioMillis * 100.0 / millis, 100.0);
+                stats[AWAIT_MILLIS] = reads + writes == 0 ? 0.0 :
+                        (delta(fields, DiskStatsParser.READ_MILLIS) + delta(fields, DiskStatsParser.WRITE_MILLIS)) /
+                                (double) (reads + writes);
+            }
+
+            System.arraycopy(fields, 0, previous, 0, DiskStatsParser.FIELDS);
+            primed = true;
+        }
+
+        private long delta(long[] fields, int field) {
+            return Math.max(fields[field] - previous[field], 0);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package dev.thoq.zenith.service.monitoring;
+
+import dev.thoq.zenith.service.monitoring.proc.MemInfoParser;
+import dev.thoq.zenith.service.monitoring.proc.ProcFile;
+import dev.thoq.zenith.util.LoggingUtils;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Host memory from /proc/meminfo. Off Linux only the total and available figures are filled in, taken from
+ * the platform MXBean.
+ */
+@ApplicationScoped
+public class MemoryMonitorService {
+    private static final LoggingUtils logger = LoggingUtils.getLogger(MemoryMonitorService.class);
+
+    private final ProcFile memInfo = new ProcFile("/proc/meminfo", 8192);
+    private final MemInfoParser parser = new MemInfoParser();
+    private final boolean procAvailable = memInfo.exists();
+    private final long[] values = new long[MemInfoParser.FIELDS];
+
+    public MemoryMonitorService() {
+        Arrays.fill(values, -1);
+    }
+
+    public void update() {
+        if(!procAvailable) {
+            updateFromMxBean();
+            return;
+        }
+
+        if(!memInfo.read()) {
+            logger.warn("Failed to read %s", memInfo.getPath());
+            return;
+        }
+
+        parser.parse(memInfo.data(), memInfo.length(), values);
+
+        // kernels before 3.14 do not report MemAvailable
+        if(values[MemInfoParser.MEM_AVAILABLE] < 0 && values[MemInfoParser.MEM_FREE] >= 0)
+            values[MemInfoParser.MEM_AVAILABLE] = values[MemInfoParser.MEM_FREE] +
+                    Math.max(values[MemInfoParser.BUFFERS], 0) + Math.max(values[MemInfoParser.CACHED], 0);
+    }
+
+    /**
+     * Latest value in bytes of one of the {@link MemInfoParser} fields, or -1 if it is not known
+     */
+    public long get(int field) {
+        return values[field];
+    }
+
+    public long getTotalBytes() {
+        return values[MemInfoParser.MEM_TOTAL];
+    }
+
+    public long getAvailableBytes() {
+        return values[MemInfoParser.MEM_AVAILABLE];
+    }
+
+    public long getSwapUsedBytes() {
+        long total = values[MemInfoParser.SWAP_TOTAL];
+        long free = values[MemInfoParser.SWAP_FREE];
+        return total < 0 || free < 0 ? -1 : total - free;
+    }
+
+    /**
+     * Share of host memory that is not available to new allocations without swapping
+     */
+    public double getUsagePercentage() {
+        long total = getTotalBytes();
+        long available = getAvailableBytes();
+        if(total <= 0 || available < 0) return 0.0;
+
+        return (total - available) * 100.0 / total;
+    }
+
+    public double getSwapUsagePercentage() {
+        long total = values[MemInfoParser.SWAP_TOTAL];
+        return total <= 0 ? 0.0 : getSwapUsedBytes() * 100.0 / total;
+    }
+
+    @PreDestroy
+    void close() {
+        memInfo.close();
+    }
+
+    private void updateFromMxBean() {
+        if(!(ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean osBean))
+            return;
+
+        values[MemInfoParser.MEM_TOTAL] = osBean.getTotalMemorySize();
+        values[MemInfoParser.MEM_FREE] = osBean.getFreeMemorySize();
+        values[MemInfoParser.MEM_AVAILABLE] = osBean.getFreeMemorySize();
+        values[MemInfoParser.SWAP_TOTAL] = osBean.getTotalSwapSpaceSize();
+        values[MemInfoParser.SWAP_FREE] = osBean.getFreeSwapSpaceSize();
+    }
+}
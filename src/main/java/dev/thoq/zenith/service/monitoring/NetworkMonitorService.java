@@ -1,47 +1,74 @@
 package dev.thoq.zenith.service.monitoring;
 
+import dev.thoq.zenith.service.monitoring.proc.NetDevParser;
+import dev.thoq.zenith.service.monitoring.proc.ProcFile;
 import dev.thoq.zenith.util.LoggingUtils;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
-import java.net.NetworkInterface;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.Enumeration;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@ApplicationScoped
 public class NetworkMonitorService {
-    private long dataUp;
-    private long dataDown;
+    public static final int RX_BYTES = 0;
+    public static final int TX_BYTES = 1;
+    public static final int RX_PACKETS = 2;
+    public static final int TX_PACKETS = 3;
+    public static final int RX_ERRORS = 4;
+    public static final int TX_ERRORS = 5;
+    public static final int RX_DROPS = 6;
+    public static final int TX_DROPS = 7;
+    public static final int STATS = 8;
+
+    private static final int[] STAT_FIELDS = {
+            NetDevParser.RX_BYTES, NetDevParser.TX_BYTES, NetDevParser.RX_PACKETS, NetDevParser.TX_PACKETS,
+            NetDevParser.RX_ERRORS, NetDevParser.TX_ERRORS, NetDevParser.RX_DROPS, NetDevParser.TX_DROPS
+    };
+
+    private static final Traffic NO_TRAFFIC = new Traffic(0, 0);
+
+    private volatile Traffic traffic = NO_TRAFFIC;
     private long previousUpBytes = 0;
     private long previousDownBytes = 0;
-    private boolean isRunning = false;
-    private final ScheduledExecutorService scheduler;
     private final LoggingUtils logger = LoggingUtils.getLogger(NetworkMonitorService.class);
     private final String osName = System.getProperty("os.name").toLowerCase();
-
-    public NetworkMonitorService() {
-        this.dataUp = 0;
-        this.dataDown = 0;
-        this.scheduler = Executors.newScheduledThreadPool(1);
-        startMonitoring();
-    }
-
-    private void startMonitoring() {
-        if(isRunning) {
-            logger.warn("Network stats thread is already running, ignoring request to start it...");
-            return;
-        }
-
-        isRunning = true;
-        scheduler.scheduleAtFixedRate(this::updateData, 0, 1, TimeUnit.SECONDS);
-    }
+    private final ProcFile netDev = new ProcFile("/proc/net/dev", 8192);
+    private final NetDevParser netDevParser = new NetDevParser();
+    private final long[] netDevFields = new long[NetDevParser.FIELDS];
+    private final Map<String, Interface> byName = new HashMap<>();
+    private final List<Interface> interfaces = new ArrayList<>();
+    private final List<Interface> lines = new ArrayList<>();
+    private volatile List<Interface> trackedInterfaces = List.of();
+    private List<PathMatcher> includeMatchers;
+    private List<PathMatcher> excludeMatchers;
+    private long lastSampleNanos;
+    private long reads;
+
+    @ConfigProperty(name = "zenith.network.include", defaultValue = "*")
+    List<String> include;
+
+    @ConfigProperty(name = "zenith.network.exclude", defaultValue = "lo,veth*")
+    List<String> exclude;
 
     public void updateData() {
         try {
+            if(osName.contains("linux")) {
+                Traffic linuxTraffic = getLinuxTraffic();
+                traffic = linuxTraffic == null ? NO_TRAFFIC : linuxTraffic;
+                return;
+            }
+
             long[] currentStats = getNetworkStats();
             assert currentStats != null;
 
@@ -49,23 +76,21 @@ public class NetworkMonitorService {
             long currentDownBytes = currentStats[1];
 
             if(previousUpBytes > 0 && previousDownBytes > 0) {
-                dataUp = currentUpBytes - previousUpBytes;
-                dataDown = currentDownBytes - previousDownBytes;
+                // totals shrink when an interface goes away, report no traffic rather than a negative rate
+                traffic = new Traffic(Math.max(currentUpBytes - previousUpBytes, 0),
+                        Math.max(currentDownBytes - previousDownBytes, 0));
             }
 
             previousUpBytes = currentUpBytes;
             previousDownBytes = currentDownBytes;
         } catch(Exception e) {
             logger.warn("Failed to update network data: " + e.getMessage());
-            dataUp = 0;
-            dataDown = 0;
+            traffic = NO_TRAFFIC;
         }
     }
 
     private long[] getNetworkStats() {
-        if(osName.contains("linux")) {
-            return getLinuxNetworkStats();
-        } else if(osName.contains("mac") || osName.contains("darwin")) {
+        if(osName.contains("mac") || osName.contains("darwin")) {
             return getMacNetworkStats();
         } else if(osName.contains("win")) {
             return getWindowsNetworkStats();
@@ -75,33 +100,111 @@ public class NetworkMonitorService {
         }
     }
 
-    private long[] getLinuxNetworkStats() {
-        long totalTxBytes = 0;
-        long totalRxBytes = 0;
+    /**
+     * Read /proc/net/dev once, update every interface that passes the include and exclude filters and return
+     * the sum of their byte deltas. Summing per interface keeps an interface that appears or goes away from
+     * showing up as a spike or a dip. Interfaces missing from the file are forgotten.
+     */
+    private Traffic getLinuxTraffic() {
+        if(!netDev.read()) {
+            logger.warn("Error reading Linux network stats from " + netDev.getPath());
+            return null;
+        }
 
-        try {
-            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+        long now = System.nanoTime();
+        double seconds = lastSampleNanos == 0 ? 0 : (now - lastSampleNanos) / 1e9;
+        lastSampleNanos = now;
+
+        long txBytes = 0;
+        long rxBytes = 0;
+        boolean changed = false;
+        lines.clear();
+        reads++;
+
+        NetDevParser parser = netDevParser.reset(netDev.data(), netDev.length());
+        while(parser.next(netDevFields)) {
+            // the file lists interfaces in the same order every time, so the previous read predicts each line
+            int line = lines.size();
+            Interface netInterface = line < interfaces.size() ? interfaces.get(line) : null;
+            if(netInterface == null || !netInterface.matches(parser.data(), parser.nameStart(), parser.nameLength())) {
+                netInterface = netInterface(parser.data(), parser.nameStart(), parser.nameLength());
+                changed = true;
+            }
+
+            netInterface.lastRead = reads;
+            lines.add(netInterface);
+            if(!netInterface.included) continue;
 
-            while(interfaces.hasMoreElements()) {
-                NetworkInterface netInterface = interfaces.nextElement();
-                if(!netInterface.isLoopback() && netInterface.isUp()) {
-                    String interfaceName = netInterface.getName();
+            netInterface.update(netDevFields, seconds);
+            txBytes += netInterface.txDelta;
+            rxBytes += netInterface.rxDelta;
+        }
 
-                    Path txPath = Paths.get("/sys/class/net/" + interfaceName + "/statistics/tx_bytes");
-                    Path rxPath = Paths.get("/sys/class/net/" + interfaceName + "/statistics/rx_bytes");
+        if(changed || lines.size() != interfaces.size()) reindex();
 
-                    if(Files.exists(txPath) && Files.exists(rxPath)) {
-                        totalTxBytes += Long.parseLong(Files.readString(txPath).trim());
-                        totalRxBytes += Long.parseLong(Files.readString(rxPath).trim());
-                    }
-                }
-            }
-        } catch(Exception e) {
-            logger.warn("Error reading Linux network stats: " + e.getMessage());
-            return null;
+        return new Traffic(txBytes, rxBytes);
+    }
+
+    /**
+     * Take over the interface order of the last read and forget interfaces that were missing from it, e.g. the
+     * veth pair of a stopped container
+     */
+    private void reindex() {
+        byName.values().removeIf(netInterface -> {
+            if(netInterface.lastRead == reads) return false;
+
+            if(netInterface.included) logger.info("Network interface %s went away", netInterface.name);
+            return true;
+        });
+
+        interfaces.clear();
+        interfaces.addAll(lines);
+
+        List<Interface> tracked = new ArrayList<>(interfaces.size());
+        for(Interface netInterface : interfaces) {
+            if(netInterface.included) tracked.add(netInterface);
         }
 
-        return new long[]{totalTxBytes, totalRxBytes};
+        trackedInterfaces = List.copyOf(tracked);
+    }
+
+    private Interface netInterface(byte[] data, int offset, int length) {
+        String name = new String(data, offset, length, StandardCharsets.US_ASCII);
+        Interface netInterface = byName.get(name);
+        if(netInterface != null) return netInterface;
+
+        netInterface = new Interface(name, isIncluded(name));
+        byName.put(name, netInterface);
+        return netInterface;
+    }
+
+    private boolean isIncluded(String name) {
+        if(includeMatchers == null) {
+            includeMatchers = globs(include);
+            excludeMatchers = globs(exclude);
+        }
+
+        Path path = Path.of(name);
+        return matchesAny(includeMatchers, path) && !matchesAny(excludeMatchers, path);
+    }
+
+    private static List<PathMatcher> globs(List<String> patterns) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        if(patterns == null) return matchers;
+
+        for(String pattern : patterns) {
+            if(!pattern.isBlank()) matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern.trim()));
+        }
+
+        return matchers;
+    }
+
+    private static boolean matchesAny(List<PathMatcher> matchers, Path path) {
+        for(PathMatcher matcher : matchers) {
+            if(matcher.matches(path)) return true;
+        }
+
+        return false;
     }
 
     private long[] getMacNetworkStats() {
@@ -191,25 +294,84 @@ public class NetworkMonitorService {
     }
 
     public long getDataUp() {
-        return dataUp;
+        return traffic.up();
     }
 
     public long getDataDown() {
-        return dataDown;
+        return traffic.down();
     }
 
-    public void stopMonitoring() {
-        if(scheduler != null && !scheduler.isShutdown()) {
-            isRunning = false;
-            scheduler.shutdown();
-            try {
-                if(!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                    scheduler.shutdownNow();
+    /**
+     * Bytes sent and received over the last interval, both from the same sample
+     */
+    public Traffic getTraffic() {
+        return traffic;
+    }
+
+    /**
+     * Interfaces that pass the include and exclude filters, only populated on Linux
+     */
+    public List<Interface> getInterfaces() {
+        return trackedInterfaces;
+    }
+
+    @PreDestroy
+    void close() {
+        netDev.close();
+    }
+
+    public record Traffic(long up, long down) {
+    }
+
+    /**
+     * A network interface from /proc/net/dev with its per-second rates over the last interval
+     */
+    public static final class Interface {
+        private final String name;
+        private final byte[] nameBytes;
+        private final boolean included;
+        private final long[] previous = new long[NetDevParser.FIELDS];
+        private final double[] stats = new double[STATS];
+        private boolean primed;
+        private long lastRead;
+        private long txDelta;
+        private long rxDelta;
+
+        private Interface(String name, boolean included) {
+            this.name = name;
+            this.nameBytes = name.getBytes(StandardCharsets.US_ASCII);
+            this.included = included;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Latest per-second rate of one of the stat indexes of {@link NetworkMonitorService}
+         */
+        public double getStat(int stat) {
+            return stats[stat];
+        }
+
+        private boolean matches(byte[] data, int offset, int length) {
+            return length == nameBytes.length && Arrays.equals(data, offset, offset + length, nameBytes, 0, length);
+        }
+
+        private void update(long[] fields, double seconds) {
+            // counters restart from zero when an interface is recreated
+            txDelta = primed ? Math.max(fields[NetDevParser.TX_BYTES] - previous[NetDevParser.TX_BYTES], 0) : 0;
+            rxDelta = primed ? Math.max(fields[NetDevParser.RX_BYTES] - previous[NetDevParser.RX_BYTES], 0) : 0;
+
+            if(primed && seconds > 0) {
+                for(int stat = 0; stat < STATS; stat++) {
+                    int field = STAT_FIELDS[stat];
+                    stats[stat] = Math.max(fields[field] - previous[field], 0) / seconds;
                 }
-            } catch(InterruptedException e) {
-                scheduler.shutdownNow();
-                Thread.currentThread().interrupt();
             }
+
+            System.arraycopy(fields, 0, previous, 0, NetDevParser.FIELDS);
+            primed = true;
         }
     }
 }
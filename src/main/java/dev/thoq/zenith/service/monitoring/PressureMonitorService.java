@@ -0,0 +1,227 @@
+package dev.thoq.zenith.service.monitoring;
+
+import dev.thoq.zenith.model.dto.AlertDto;
+import dev.thoq.zenith.model.enums.AlertSeverity;
+import dev.thoq.zenith.service.alert.AlertService;
+import dev.thoq.zenith.service.monitoring.proc.PressureParser;
+import dev.thoq.zenith.service.monitoring.proc.ProcFile;
+import dev.thoq.zenith.util.LoggingUtils;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pressure Stall Information from /proc/pressure. Sampling reports the share of wall time tasks were stalled
+ * on CPU, memory and I/O since the previous sample.
+ * <p>
+ * Triggers configured with {@code zenith.pressure.triggers} are watched on their own thread, which only reads the
+ * stall totals of the resources that have triggers, so a stall is alerted on within one watch interval instead
+ * of waiting for the sampler.
+ */
+@ApplicationScoped
+public class PressureMonitorService {
+    private static final LoggingUtils logger = LoggingUtils.getLogger(PressureMonitorService.class);
+    private static final String[] RESOURCES = {"cpu", "memory", "io"};
+
+    public static final int CPU = 0;
+    public static final int MEMORY = 1;
+    public static final int IO = 2;
+
+    private final ProcFile[] files = new ProcFile[RESOURCES.length];
+    private final PressureParser parser = new PressureParser();
+    private final double[][] fields = new double[RESOURCES.length][PressureParser.FIELDS];
+    private final double[][] previousTotals = new double[RESOURCES.length][2];
+    private final double[][] stalls = new double[RESOURCES.length][2];
+    private final boolean available;
+    private long lastUpdateNanos;
+    private ScheduledExecutorService watcher;
+    private Watch watch;
+
+    @Inject
+    AlertService alertService;
+
+    @ConfigProperty(name = "zenith.pressure.triggers")
+    Optional<List<String>> triggerDefinitions;
+
+    @ConfigProperty(name = "zenith.pressure.watch-interval", defaultValue = "PT0.1S")
+    Duration watchInterval;
+
+    public PressureMonitorService() {
+        for(int resource = 0; resource < RESOURCES.length; resource++)
+            files[resource] = new ProcFile("/proc/pressure/" + RESOURCES[resource], 256);
+
+        this.available = files[CPU].exists();
+    }
+
+    static int resourceIndex(String name) {
+        for(int resource = 0; resource < RESOURCES.length; resource++) {
+            if(RESOURCES[resource].equals(name)) return resource;
+        }
+
+        return -1;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public void update() {
+        if(!available) return;
+
+        long now = System.nanoTime();
+        double micros = lastUpdateNanos == 0 ? 0 : (now - lastUpdateNanos) / 1e3;
+        lastUpdateNanos = now;
+
+        for(int resource = 0; resource < RESOURCES.length; resource++) {
+            if(!files[resource].read()) continue;
+
+            double[] values = fields[resource];
+            parser.parse(files[resource].data(), files[resource].length(), values);
+            updateStall(resource, 0, values[PressureParser.SOME_TOTAL], micros);
+            updateStall(resource, 1, values[PressureParser.FULL_TOTAL], micros);
+        }
+    }
+
+    /**
+     * Percentage of time at least one task (some) or all non-idle tasks (full) were stalled on the resource
+     * during the last sampling interval
+     */
+    public double getStall(int resource, boolean full) {
+        return stalls[resource][full ? 1 : 0];
+    }
+
+    /**
+     * One of the raw {@link PressureParser} fields, including the kernel's own 10s, 60s and 300s averages
+     */
+    public double getField(int resource, int field) {
+        return fields[resource][field];
+    }
+
+    /**
+     * Start watching the configured triggers, a no-op when there are none or PSI is not available
+     */
+    public synchronized void start() {
+        if(watcher != null || !available) return;
+
+        long intervalNanos = watchInterval.toNanos();
+        List<PressureTrigger> triggers = new ArrayList<>();
+        for(String definition : triggerDefinitions.orElse(List.of())) {
+            if(definition.isBlank()) continue;
+
+            try {
+                triggers.add(PressureTrigger.parse(definition, intervalNanos));
+            } catch(IllegalArgumentException e) {
+                logger.warn("Ignoring pressure trigger: %s", e.getMessage());
+            }
+        }
+
+        if(triggers.isEmpty()) return;
+
+        watch = new Watch(triggers);
+        watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Zenith-PressureWatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watcher.scheduleAtFixedRate(watch::poll, 0, intervalNanos, TimeUnit.NANOSECONDS);
+        logger.info("Watching %d pressure triggers every %dms", triggers.size(), watchInterval.toMillis());
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if(watcher != null) {
+            watcher.shutdown();
+
+            // a poll still in flight would reopen the files closed below
+            try {
+                if(!watcher.awaitTermination(1, TimeUnit.SECONDS))
+                    watcher.shutdownNow();
+            } catch(InterruptedException ex) {
+                logger.trace("Interrupted while waiting for the pressure watcher to stop", ex);
+                watcher.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+
+            watcher = null;
+        }
+
+        if(watch != null) {
+            watch.close();
+            watch = null;
+        }
+
+        for(ProcFile file : files) file.close();
+    }
+
+    private void updateStall(int resource, int kind, double total, double micros) {
+        if(micros > 0 && previousTotals[resource][kind] > 0)
+            stalls[resource][kind] = Math.min(Math.max(total - previousTotals[resource][kind], 0) * 100.0 / micros, 100.0);
+
+        previousTotals[resource][kind] = total;
+    }
+
+    private void fire(PressureTrigger trigger, long stallMicros) {
+        String resource = RESOURCES[trigger.getResource()];
+        String kind = trigger.isFull() ? "full" : "some";
+        AlertSeverity severity = trigger.isFull() ? AlertSeverity.CRITICAL : AlertSeverity.HIGH;
+
+        String reason = String.format("%s stall of %dms within %dms (threshold %dms)", kind,
+                stallMicros / 1000, TimeUnit.NANOSECONDS.toMillis(trigger.getWindowNanos()),
+                trigger.getThresholdMicros() / 1000);
+        alertService.raise(new AlertDto("Pressure stall on " + resource, reason, severity, null));
+    }
+
+    /**
+     * State of the watcher thread, which reads its own copies of the pressure files
+     */
+    private final class Watch {
+        private final List<PressureTrigger> triggers;
+        private final ProcFile[] watchFiles = new ProcFile[RESOURCES.length];
+        private final PressureParser watchParser = new PressureParser();
+        private final double[] watchFields = new double[PressureParser.FIELDS];
+
+        private Watch(List<PressureTrigger> triggers) {
+            this.triggers = triggers;
+            for(PressureTrigger trigger : triggers) {
+                int resource = trigger.getResource();
+                if(watchFiles[resource] == null) watchFiles[resource] = new ProcFile(files[resource].getPath(), 256);
+            }
+        }
+
+        private void poll() {
+            try {
+                long now = System.nanoTime();
+                for(int resource = 0; resource < RESOURCES.length; resource++) {
+                    ProcFile file = watchFiles[resource];
+                    if(file == null || !file.read()) continue;
+
+                    watchParser.parse(file.data(), file.length(), watchFields);
+                    for(PressureTrigger trigger : triggers) {
+                        if(trigger.getResource() != resource) continue;
+
+                        long total = (long) watchFields[trigger.isFull() ? PressureParser.FULL_TOTAL : PressureParser.SOME_TOTAL];
+                        long stall = trigger.offer(now, total);
+                        if(stall >= 0) fire(trigger, stall);
+                    }
+                }
+            } catch(RuntimeException e) {
+                logger.warn("Pressure watcher failed: %s", e.getMessage());
+            }
+        }
+
+        private void close() {
+            for(ProcFile file : watchFiles) {
+                if(file != null) file.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package dev.thoq.zenith.service.monitoring;
+
+import dev.thoq.zenith.util.TimeUtils;
+
+/**
+ * A stall threshold over a sliding window, with the semantics of a kernel PSI trigger: it fires once the
+ * cumulative stall time within the last window reaches the threshold, and at most once per window.
+ */
+final class PressureTrigger {
+    private final int resource;
+    private final boolean full;
+    private final long thresholdMicros;
+    private final long windowNanos;
+    private final long[] sampleNanos;
+    private final long[] sampleTotals;
+    private int head;
+    private int count;
+    private boolean fired;
+    private long lastFiredNanos;
+
+    PressureTrigger(int resource, boolean full, long thresholdMicros, long windowNanos, long watchIntervalNanos) {
+        this.resource = resource;
+        this.full = full;
+        this.thresholdMicros = thresholdMicros;
+        this.windowNanos = windowNanos;
+
+        int capacity = (int) Math.min(windowNanos / watchIntervalNanos + 2, 4096);
+        this.sampleNanos = new long[capacity];
+        this.sampleTotals = new long[capacity];
+    }
+
+    /**
+     * Parse a trigger in the form {@code "memory some 150ms 1s"}
+     *
+     * @throws IllegalArgumentException if the definition is malformed
+     */
+    static PressureTrigger parse(String definition, long watchIntervalNanos) {
+        String[] parts = definition.trim().split("\\s+");
+        if(parts.length != 4) throw new IllegalArgumentException("Expected '<resource> <some|full> <stall> <window>': " + definition);
+
+        int resource = PressureMonitorService.resourceIndex(parts[0]);
+        if(resource < 0) throw new IllegalArgumentException("Unknown pressure resource: " + parts[0]);
+        if(!parts[1].equals("some") && !parts[1].equals("full"))
+            throw new IllegalArgumentException("Expected some or full: " + definition);
+
+        long threshold = TimeUtils.parseDurationNanos(parts[2]) / 1000;
+        long window = TimeUtils.parseDurationNanos(parts[3]);
+        if(threshold * 1000 > window) throw new IllegalArgumentException("Stall exceeds window: " + definition);
+
+        return new PressureTrigger(resource, parts[1].equals("full"), threshold, window, watchIntervalNanos);
+    }
+
+    /**
+     * Record a new cumulative stall total
+     *
+     * @return the stall time in microseconds within the window if the trigger fires, otherwise -1
+     */
+    long offer(long nanos, long totalMicros) {
+        int capacity = sampleNanos.length;
+        int tail = (head + count) % capacity;
+        sampleNanos[tail] = nanos;
+        sampleTotals[tail] = totalMicros;
+        if(count < capacity) count++;
+        else head = (head + 1) % capacity;
+
+        // drop samples that fell out of the window, keeping the newest one older than it as the baseline
+        while(count > 1 && nanos - sampleNanos[(head + 1) % capacity] >= windowNanos) {
+            head = (head + 1) % capacity;
+            count--;
+        }
+
+        long stall = totalMicros - sampleTotals[head];
+        if(stall < thresholdMicros || (fired && nanos - lastFiredNanos < windowNanos)) return -1;
+
+        fired = true;
+        lastFiredNanos = nanos;
+        return stall;
+    }
+
+    int getResource() {
+        return resource;
+    }
+
+    boolean isFull() {
+        return full;
+    }
+
+    long getThresholdMicros() {
+        return thresholdMicros;
+    }
+
+    long getWindowNanos() {
+        return windowNanos;
+    }
+}
@@ -1,6 +1,12 @@
 package dev.thoq.zenith.service.monitoring;
 
+import dev.thoq.zenith.model.dto.ProcessDeltaDto;
+import dev.thoq.zenith.model.dto.ProcessDto;
+import dev.thoq.zenith.service.monitoring.proc.ProcessTable;
 import dev.thoq.zenith.util.LoggingUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -11,28 +17,47 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+@ApplicationScoped
 public class ProcessMonitorService {
     private final LoggingUtils logger = LoggingUtils.getLogger(ProcessMonitorService.class);
-    private final Collection<String> topProcessNames;
     private final String os = System.getProperty("os.name").toLowerCase();
-
-    public ProcessMonitorService() {
-        this.topProcessNames = new ArrayList<>();
+    private ProcessTable processTable;
+    private volatile List<String> topProcessNames = List.of();
+    private volatile List<ProcessDto> topByCpu = List.of();
+    private volatile List<ProcessDto> topByMemory = List.of();
+    private volatile ProcessDeltaDto delta = ProcessDeltaDto.EMPTY;
+    private volatile int processCount;
+
+    @ConfigProperty(name = "zenith.process.top-count", defaultValue = "10")
+    int topCount;
+
+    @PostConstruct
+    void init() {
+        if(ProcessTable.isSupported()) processTable = new ProcessTable(topCount);
     }
 
     public void updateData() {
+        if(processTable != null) {
+            processTable.scan();
+            topByCpu = processTable.getTopByCpu();
+            topByMemory = processTable.getTopByMemory();
+            processCount = processTable.getProcessCount();
+            delta = processTable.getDelta();
+
+            List<String> names = new ArrayList<>(topByCpu.size());
+            for(ProcessDto process : topByCpu) names.add(process.name());
+            topProcessNames = names;
+            return;
+        }
+
         List<String> processes = getTopProcesses();
-        processes.forEach(name -> {
-            if(!topProcessNames.contains(name)) {
-                topProcessNames.add(name);
-            }
-        });
+        topProcessNames = List.copyOf(processes.subList(0, Math.min(processes.size(), topCount)));
+        processCount = topProcessNames.size();
     }
 
     private List<String> getTopProcesses() {
         if(os.contains("win")) return getWindowsProcesses();
         if(os.contains("mac")) return getMacProcesses();
-        if(os.contains("nix") || os.contains("nux") || os.contains("aix")) return getLinuxProcesses();
         return Collections.emptyList();
     }
 
@@ -139,44 +164,39 @@ public class ProcessMonitorService {
         return processName;
     }
 
-    private List<String> getLinuxProcesses() {
-        List<String> processes = new ArrayList<>();
-
-        try {
-            Process process = new ProcessBuilder("ps", "-eo", "comm,pcpu", "--sort=-pcpu", "--no-headers").start();
-
-            try(BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                int count = 0;
-                while((line = reader.readLine()) != null && count < 10) {
-                    String processName = extractLinuxProcessName(line);
-                    if(processName != null) {
-                        processes.add(processName);
-                        count++;
-                    }
-                }
-            }
-
-            process.waitFor(10, TimeUnit.SECONDS);
-        } catch(IOException | InterruptedException ex) {
-            logger.trace("Error getting Linux processes: ", ex);
-        }
+    /**
+     * Names of the processes using the most CPU, busiest first
+     */
+    public Collection<String> getTopProcessNames() {
+        return topProcessNames;
+    }
 
-        return processes;
+    /**
+     * Top processes by CPU with their full figures, only available on Linux
+     */
+    public List<ProcessDto> getTopByCpu() {
+        return topByCpu;
     }
 
-    private String extractLinuxProcessName(String line) {
-        String[] parts = line.trim().split("\\s+", 2);
-        if(parts.length < 1) return null;
-        return parts[0];
+    /**
+     * Top processes by resident memory, only available on Linux
+     */
+    public List<ProcessDto> getTopByMemory() {
+        return topByMemory;
     }
 
-    public Collection<String> getTopProcessNames() {
-        return new ArrayList<>(topProcessNames);
+    /**
+     * Spawn and exit events and changed processes from the latest scan, only available on Linux
+     */
+    public ProcessDeltaDto getDelta() {
+        return delta;
     }
 
+    /**
+     * Number of processes on the host, or of reported top processes where the full table cannot be scanned
+     */
     public int getProcessCount() {
-        return topProcessNames.size();
+        return processCount;
     }
 
     public boolean isMonitoring() {
@@ -1,29 +1,36 @@
 package dev.thoq.zenith.service.monitoring;
 
+import dev.thoq.zenith.service.monitoring.cgroup.CgroupStats;
 import dev.thoq.zenith.util.LoggingUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 
-import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
-import java.lang.management.OperatingSystemMXBean;
-import java.lang.reflect.Method;
-import java.nio.file.FileStore;
-import java.nio.file.FileSystems;
 
 @SuppressWarnings("unused")
+@ApplicationScoped
 public class ResourceMonitorService {
     private static final LoggingUtils logger = LoggingUtils.getLogger(ResourceMonitorService.class);
-    private double memoryUsageMb;
-    private double cpuUsage;
-    private double diskUsageMb;
+    private volatile double memoryUsageMb;
     private final boolean isWindows;
     private final boolean isMac;
     private final boolean isLinux;
 
+    @Inject
+    CpuMonitorService cpuMonitorService;
+
+    @Inject
+    MemoryMonitorService memoryMonitorService;
+
+    @Inject
+    DiskMonitorService diskMonitorService;
+
+    @Inject
+    CgroupMonitorService cgroupMonitorService;
+
     public ResourceMonitorService() {
         this.memoryUsageMb = 0;
-        this.cpuUsage = 0;
-        this.diskUsageMb = 0;
 
         String os = System.getProperty("os.name").toLowerCase();
         this.isWindows = os.contains("windows");
@@ -33,8 +40,6 @@ public class ResourceMonitorService {
 
     public void updateAllMetrics() {
         updateMemoryUsage();
-        updateCpuUsage();
-        updateDiskUsage();
     }
 
     private void updateMemoryUsage() {
@@ -48,115 +53,37 @@ public class ResourceMonitorService {
         }
     }
 
-    private void updateCpuUsage() {
-        try {
-            OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
-
-            try {
-                Method method = osBean.getClass().getMethod("getProcessCpuLoad");
-                Double cpuLoad = (Double) method.invoke(osBean);
-                if(cpuLoad != null && cpuLoad >= 0) {
-                    this.cpuUsage = cpuLoad * 100.0;
-                } else {
-                    fallbackCpuUsage(osBean);
-                }
-            } catch(Exception e) {
-                fallbackCpuUsage(osBean);
-            }
-        } catch(Exception e) {
-            logger.error("Failed to update CPU usage", e);
-        }
-    }
-
-    private void fallbackCpuUsage(OperatingSystemMXBean osBean) {
-        try {
-            double loadAverage = osBean.getSystemLoadAverage();
-            if(loadAverage >= 0) {
-                int availableProcessors = osBean.getAvailableProcessors();
-                this.cpuUsage = Math.min((loadAverage / availableProcessors) * 100.0, 100.0);
-            } else {
-                this.cpuUsage = 0.0;
-            }
-        } catch(Exception e) {
-            this.cpuUsage = 0.0;
-        }
+    public double getMemoryUsageMb() {
+        return memoryUsageMb;
     }
 
-    private void updateDiskUsage() {
-        try {
-            long totalUsed = 0;
-            for(FileStore store : FileSystems.getDefault().getFileStores()) {
-                try {
-                    if(store.isReadOnly()) continue;
-
-                    String storeType = store.type().toLowerCase();
-                    String storeName = store.name().toLowerCase();
-
-                    if(shouldSkipFileStore(storeType, storeName)) continue;
-
-                    long totalSpace = store.getTotalSpace();
-                    long usableSpace = store.getUsableSpace();
+    /**
+     * Host CPU usage, or in container mode the container's usage as a share of its CPU limit
+     */
+    public double getCpuUsage() {
+        if(isContainerMode()) return cgroupMonitorService.getStats().getStat(CgroupStats.CPU_USAGE);
 
-                    if(totalSpace > 0 && totalSpace != Long.MAX_VALUE)
-                        totalUsed += (totalSpace - usableSpace);
-                } catch(IOException | UnsupportedOperationException ignored) {
-                }
-            }
-            this.diskUsageMb = totalUsed / (1024.0 * 1024.0);
-        } catch(Exception e) {
-            logger.error("Failed to update disk usage", e);
-        }
+        return cpuMonitorService.getUsage();
     }
 
-    private boolean shouldSkipFileStore(String storeType, String storeName) {
-        if(isLinux) {
-            return storeType.contains("tmpfs") ||
-                    storeType.contains("devtmpfs") ||
-                    storeType.contains("proc") ||
-                    storeType.contains("sys") ||
-                    storeType.contains("cgroup") ||
-                    storeType.contains("devpts") ||
-                    storeType.contains("securityfs") ||
-                    storeType.contains("squashfs") ||
-                    storeType.contains("overlay") ||
-                    storeType.contains("fuse") ||
-                    storeName.startsWith("/dev") ||
-                    storeName.startsWith("/proc") ||
-                    storeName.startsWith("/sys") ||
-                    storeName.startsWith("/run") ||
-                    storeName.contains("snap");
-        }
-
-        if(isMac) {
-            return storeType.contains("devfs") ||
-                    storeType.contains("map") ||
-                    storeType.contains("autofs") ||
-                    storeType.contains("nullfs") ||
-                    storeName.startsWith("/dev") ||
-                    storeName.contains("/Volumes/com.apple") ||
-                    storeName.contains(".vol");
-        }
+    /**
+     * Changes whenever {@link #getCpuUsage()} may have
+     */
+    public long getCpuVersion() {
+        if(isContainerMode()) return cgroupMonitorService.getStats().getVersion();
 
-        if(isWindows) {
-            return storeType.contains("cdfs") ||
-                    storeType.contains("udf") ||
-                    (storeName.length() == 2 && storeName.endsWith(":") &&
-                            (storeName.startsWith("a") || storeName.startsWith("b")));
-        }
-
-        return false;
-    }
-
-    public double getMemoryUsageMb() {
-        return memoryUsageMb;
+        return cpuMonitorService.getVersion();
     }
 
-    public double getCpuUsage() {
-        return cpuUsage;
+    public double getDiskUsageMb() {
+        return diskMonitorService.getUsedBytes() / (1024.0 * 1024.0);
     }
 
-    public double getDiskUsageMb() {
-        return diskUsageMb;
+    /**
+     * Changes whenever {@link #getDiskUsageMb()} may have
+     */
+    public long getDiskVersion() {
+        return diskMonitorService.getCapacityVersion();
     }
 
     public double getMemoryUsagePercentage() {
@@ -185,29 +112,18 @@ public class ResourceMonitorService {
         return "Unknown";
     }
 
+    /**
+     * Host memory usage, or the container's share of its memory limit in container mode, as opposed to
+     * {@link #getMemoryUsagePercentage()} which covers this JVM's heap
+     */
     public double getSystemMemoryUsagePercentage() {
-        try {
-            OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
-
-            try {
-                Method totalMemoryMethod = osBean.getClass().getMethod("getTotalPhysicalMemorySize");
-                Method freeMemoryMethod = osBean.getClass().getMethod("getFreePhysicalMemorySize");
-
-                Long totalMemory = (Long) totalMemoryMethod.invoke(osBean);
-                Long freeMemory = (Long) freeMemoryMethod.invoke(osBean);
+        if(isContainerMode()) return cgroupMonitorService.getStats().getStat(CgroupStats.MEMORY_USAGE);
 
-                if(totalMemory != null && freeMemory != null && totalMemory > 0) {
-                    long usedMemory = totalMemory - freeMemory;
-                    return (usedMemory * 100.0) / totalMemory;
-                }
-            } catch(Exception ignored) {
-            }
+        return memoryMonitorService.getUsagePercentage();
+    }
 
-            return getMemoryUsagePercentage();
-        } catch(Exception e) {
-            logger.error("Failed to get system memory usage", e);
-            return 0.0;
-        }
+    public boolean isContainerMode() {
+        return cgroupMonitorService.isEnabled();
     }
 
     public long getAvailableProcessors() {
@@ -0,0 +1,247 @@
+package dev.thoq.zenith.service.monitoring.cgroup;
+
+import dev.thoq.zenith.service.monitoring.proc.IoStatParser;
+import dev.thoq.zenith.service.monitoring.proc.KeyValueParser;
+import dev.thoq.zenith.service.monitoring.proc.PressureParser;
+import dev.thoq.zenith.service.monitoring.proc.ProcCursor;
+import dev.thoq.zenith.service.monitoring.proc.ProcFile;
+
+import java.nio.file.Path;
+
+/**
+ * Resource usage of one cgroup v2 directory. Files of controllers that are not enabled for the cgroup are
+ * detected once and skipped afterwards. Rates and percentages cover the time since the previous update.
+ */
+public final class CgroupStats implements AutoCloseable {
+    public static final int CPU_USAGE = 0;
+    public static final int CPU_LIMIT = 1;
+    public static final int CPU_THROTTLED = 2;
+    public static final int MEMORY_CURRENT = 3;
+    public static final int MEMORY_LIMIT = 4;
+    public static final int MEMORY_USAGE = 5;
+    public static final int MEMORY_ANON = 6;
+    public static final int MEMORY_FILE = 7;
+    public static final int MEMORY_SLAB = 8;
+    public static final int MEMORY_SOCK = 9;
+    public static final int MEMORY_SHMEM = 10;
+    public static final int MEMORY_DIRTY = 11;
+    public static final int MEMORY_WRITEBACK = 12;
+    public static final int IO_READ_BYTES = 13;
+    public static final int IO_WRITE_BYTES = 14;
+    public static final int IO_READ_OPS = 15;
+    public static final int IO_WRITE_OPS = 16;
+    public static final int PRESSURE_CPU_SOME = 17;
+    public static final int PRESSURE_MEMORY_SOME = 18;
+    public static final int PRESSURE_MEMORY_FULL = 19;
+    public static final int PRESSURE_IO_SOME = 20;
+    public static final int PRESSURE_IO_FULL = 21;
+    public static final int STATS = 22;
+
+    private static final int USAGE_USEC = 0;
+    private static final int NR_PERIODS = 1;
+    private static final int NR_THROTTLED = 2;
+    private static final int MEMORY_STAT_OFFSET = MEMORY_ANON;
+
+    private final String name;
+    private final Source cpuStat;
+    private final Source cpuMax;
+    private final Source memoryCurrent;
+    private final Source memoryMax;
+    private final Source memoryStat;
+    private final Source ioStat;
+    private final Source cpuPressure;
+    private final Source memoryPressure;
+    private final Source ioPressure;
+    private final KeyValueParser cpuStatParser = new KeyValueParser("usage_usec", "nr_periods", "nr_throttled");
+    private final KeyValueParser memoryStatParser = new KeyValueParser(
+            "anon", "file", "slab", "sock", "shmem", "file_dirty", "file_writeback"
+    );
+    private final IoStatParser ioStatParser = new IoStatParser();
+    private final PressureParser pressureParser = new PressureParser();
+    private final ProcCursor cursor = new ProcCursor();
+    private final long[] cpuValues = new long[3];
+    private final long[] previousCpuValues = new long[3];
+    private final long[] memoryValues = new long[7];
+    private final long[] ioValues = new long[IoStatParser.FIELDS];
+    private final long[] previousIoValues = new long[IoStatParser.FIELDS];
+    private final double[] pressure = new double[PressureParser.FIELDS];
+    private final double[] stats = new double[STATS];
+    private long lastUpdateNanos;
+    private volatile long version;
+
+    public CgroupStats(String name, Path directory) {
+        this.name = name;
+        this.cpuStat = new Source(directory.resolve("cpu.stat"), 512);
+        this.cpuMax = new Source(directory.resolve("cpu.max"), 64);
+        this.memoryCurrent = new Source(directory.resolve("memory.current"), 64);
+        this.memoryMax = new Source(directory.resolve("memory.max"), 64);
+        this.memoryStat = new Source(directory.resolve("memory.stat"), 2048);
+        this.ioStat = new Source(directory.resolve("io.stat"), 1024);
+        this.cpuPressure = new Source(directory.resolve("cpu.pressure"), 256);
+        this.memoryPressure = new Source(directory.resolve("memory.pressure"), 256);
+        this.ioPressure = new Source(directory.resolve("io.pressure"), 256);
+    }
+
+    /**
+     * Take a new reading
+     *
+     * @param hostCores   cores available to the agent, used as the CPU limit when the cgroup has none
+     * @param hostMemory  host memory in bytes, used as the memory limit when the cgroup has none
+     */
+    public void update(double hostCores, long hostMemory) {
+        long now = System.nanoTime();
+        double seconds = lastUpdateNanos == 0 ? 0 : (now - lastUpdateNanos) / 1e9;
+        lastUpdateNanos = now;
+
+        updateCpu(seconds, hostCores);
+        updateMemory(hostMemory);
+        updateIo(seconds);
+        updatePressure();
+        version++;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Number of readings taken so far, changes whenever the stats may have
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Latest value of one of the stat indexes of this class; CPU figures are percentages of the CPU limit,
+     * memory figures are bytes except for the usage percentage, I/O figures are per second
+     */
+    public double getStat(int stat) {
+        return stats[stat];
+    }
+
+    @Override
+    public void close() {
+        cpuStat.close();
+        cpuMax.close();
+        memoryCurrent.close();
+        memoryMax.close();
+        memoryStat.close();
+        ioStat.close();
+        cpuPressure.close();
+        memoryPressure.close();
+        ioPressure.close();
+    }
+
+    private void updateCpu(double seconds, double hostCores) {
+        double cores = hostCores;
+        if(cpuMax.read()) {
+            // "max 100000" when unlimited, "quota period" otherwise
+            cursor.reset(cpuMax.file.data(), cpuMax.file.length());
+            long quota = cursor.nextLong();
+            long period = quota > 0 ? cursor.nextLong() : -1;
+            if(period > 0) cores = (double) quota / period;
+        }
+
+        stats[CPU_LIMIT] = cores;
+        if(!cpuStat.read()) return;
+
+        cpuStatParser.parse(cpuStat.file.data(), cpuStat.file.length(), cpuValues);
+        if(seconds > 0 && previousCpuValues[USAGE_USEC] > 0) {
+            long usage = Math.max(cpuValues[USAGE_USEC] - previousCpuValues[USAGE_USEC], 0);
+            long periods = cpuValues[NR_PERIODS] - previousCpuValues[NR_PERIODS];
+            long throttled = cpuValues[NR_THROTTLED] - previousCpuValues[NR_THROTTLED];
+
+            stats[CPU_USAGE] = Math.min(usage / (seconds * 1e6 * cores) * 100.0, 100.0);
+            stats[CPU_THROTTLED] = periods > 0 ? Math.max(throttled, 0) * 100.0 / periods : 0.0;
+        }
+
+        System.arraycopy(cpuValues, 0, previousCpuValues, 0, cpuValues.length);
+    }
+
+    private void updateMemory(long hostMemory) {
+        if(!memoryCurrent.read()) return;
+
+        long current = memoryCurrent.firstLong();
+        long limit = memoryMax.read() ? memoryMax.firstLong() : -1;
+        if(limit <= 0) limit = hostMemory;
+
+        stats[MEMORY_CURRENT] = current;
+        stats[MEMORY_LIMIT] = limit;
+        stats[MEMORY_USAGE] = limit > 0 ? current * 100.0 / limit : 0.0;
+
+        if(!memoryStat.read()) return;
+
+        memoryStatParser.parse(memoryStat.file.data(), memoryStat.file.length(), memoryValues);
+        for(int i = 0; i < memoryValues.length; i++)
+            stats[MEMORY_STAT_OFFSET + i] = Math.max(memoryValues[i], 0);
+    }
+
+    private void updateIo(double seconds) {
+        if(!ioStat.read()) return;
+
+        ioStatParser.parse(ioStat.file.data(), ioStat.file.length(), ioValues);
+        if(seconds > 0) {
+            for(int field = 0; field < IoStatParser.FIELDS; field++)
+                stats[IO_READ_BYTES + field] = Math.max(ioValues[field] - previousIoValues[field], 0) / seconds;
+        }
+
+        System.arraycopy(ioValues, 0, previousIoValues, 0, IoStatParser.FIELDS);
+    }
+
+    private void updatePressure() {
+        if(cpuPressure.read()) {
+            pressureParser.parse(cpuPressure.file.data(), cpuPressure.file.length(), pressure);
+            stats[PRESSURE_CPU_SOME] = pressure[PressureParser.SOME_AVG10];
+        }
+
+        if(memoryPressure.read()) {
+            pressureParser.parse(memoryPressure.file.data(), memoryPressure.file.length(), pressure);
+            stats[PRESSURE_MEMORY_SOME] = pressure[PressureParser.SOME_AVG10];
+            stats[PRESSURE_MEMORY_FULL] = pressure[PressureParser.FULL_AVG10];
+        }
+
+        if(ioPressure.read()) {
+            pressureParser.parse(ioPressure.file.data(), ioPressure.file.length(), pressure);
+            stats[PRESSURE_IO_SOME] = pressure[PressureParser.SOME_AVG10];
+            stats[PRESSURE_IO_FULL] = pressure[PressureParser.FULL_AVG10];
+        }
+    }
+
+    /**
+     * A cgroup interface file that is given up on once it turns out not to exist
+     */
+    private static final class Source {
+        private final ProcFile file;
+        private boolean available;
+
+        private Source(Path path, int capacity) {
+            this.file = new ProcFile(path, capacity);
+            this.available = file.exists();
+        }
+
+        private boolean read() {
+            if(!available) return false;
+            if(file.read()) return true;
+
+            available = file.exists();
+            return false;
+        }
+
+        private long firstLong() {
+            long value = 0;
+            byte[] data = file.data();
+            int length = file.length();
+
+            // single number files hold "max" when there is no limit
+            if(length == 0 || data[0] < '0' || data[0] > '9') return -1;
+            for(int i = 0; i < length && data[i] >= '0' && data[i] <= '9'; i++)
+                value = value * 10 + (data[i] - '0');
+
+            return value;
+        }
+
+        private void close() {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package dev.thoq.zenith.service.monitoring.proc;
+
+/**
+ * Parses the {@code cpu} lines of /proc/stat into a flat tick table with one row of {@link #FIELDS} counters
+ * per CPU. Row 0 is the aggregate {@code cpu} line and row {@code n + 1} is {@code cpuN}.
+ */
+public final class CpuStatParser {
+    public static final int USER = 0;
+    public static final int NICE = 1;
+    public static final int SYSTEM = 2;
+    public static final int IDLE = 3;
+    public static final int IOWAIT = 4;
+    public static final int IRQ = 5;
+    public static final int SOFTIRQ = 6;
+    public static final int STEAL = 7;
+    public static final int FIELDS = 8;
+
+    private static final byte[] CPU = {'c', 'p', 'u'};
+
+    private final ProcCursor cursor = new ProcCursor();
+
+    /**
+     * Parse the cpu lines into {@code ticks}
+     *
+     * @return the number of rows the content needs; when larger than {@code ticks} holds, the table was not
+     * filled past its end and the caller should grow it and parse again
+     */
+    public int parse(byte[] data, int length, long[] ticks) {
+        ProcCursor cursor = this.cursor.reset(data, length);
+        int capacity = ticks.length / FIELDS;
+        int rows = 0;
+
+        while(cursor.hasRemaining()) {
+            if(!cursor.startsWith(CPU)) {
+                // cpu lines come first, anything after them is of no interest here
+                if(rows > 0) break;
+
+                cursor.nextLine();
+                continue;
+            }
+
+            cursor.skip(CPU.length);
+
+            int row = 0;
+            if(cursor.peek() != ' ') {
+                long core = cursor.nextLong();
+                if(core < 0) {
+                    cursor.nextLine();
+                    continue;
+                }
+
+                row = (int) core + 1;
+            }
+
+            rows = Math.max(rows, row + 1);
+            if(row < capacity) {
+                int base = row * FIELDS;
+                for(int field = 0; field < FIELDS; field++) {
+                    long value = cursor.nextLong();
+                    ticks[base + field] = Math.max(value, 0);
+                }
+            }
+
+            cursor.nextLine();
+        }
+
+        return rows;
+    }
+}
@@ -0,0 +1,76 @@
+package dev.thoq.zenith.service.monitoring.proc;
+
+/**
+ * Iterates over the lines of /proc/diskstats. Each call to {@link #next(long[])} fills the I/O counters of one
+ * device, indexed by the constants of this class, and leaves the device name readable in place.
+ */
+public final class DiskStatsParser {
+    public static final int READS = 0;
+    public static final int READS_MERGED = 1;
+    public static final int SECTORS_READ = 2;
+    public static final int READ_MILLIS = 3;
+    public static final int WRITES = 4;
+    public static final int WRITES_MERGED = 5;
+    public static final int SECTORS_WRITTEN = 6;
+    public static final int WRITE_MILLIS = 7;
+    public static final int IN_FLIGHT = 8;
+    public static final int IO_MILLIS = 9;
+    public static final int WEIGHTED_IO_MILLIS = 10;
+    public static final int FIELDS = 11;
+
+    /**
+     * Sector size used by the kernel for these counters regardless of the device's physical sector size
+     */
+    public static final int SECTOR_BYTES = 512;
+
+    private final ProcCursor cursor = new ProcCursor();
+    private boolean started;
+    private int nameStart;
+    private int nameLength;
+
+    public DiskStatsParser reset(byte[] data, int length) {
+        cursor.reset(data, length);
+        started = false;
+        return this;
+    }
+
+    /**
+     * Parse the next device line
+     *
+     * @return false once there are no more lines
+     */
+    public boolean next(long[] fields) {
+        while(true) {
+            if(started && !cursor.nextLine()) return false;
+            if(!cursor.hasRemaining()) return false;
+            started = true;
+
+            cursor.skipTokens(2);
+            cursor.skipSpaces();
+            nameStart = cursor.position();
+            nameLength = cursor.tokenLength((byte) ' ');
+            cursor.skip(nameLength);
+
+            boolean complete = true;
+            for(int field = 0; field < FIELDS; field++) {
+                long value = cursor.nextLong();
+                if(value < 0) complete = false;
+                fields[field] = value;
+            }
+
+            if(complete) return true;
+        }
+    }
+
+    public byte[] data() {
+        return cursor.data();
+    }
+
+    public int nameStart() {
+        return nameStart;
+    }
+
+    public int nameLength() {
+        return nameLength;
+    }
+}
@@ -0,0 +1,56 @@
+package dev.thoq.zenith.service.monitoring.proc;
+
+/**
+ * Parses cgroup v2 {@code io.stat}, summing the byte and operation counters of every device line
+ */
+public final class IoStatParser {
+    public static final int READ_BYTES = 0;
+    public static final int WRITE_BYTES = 1;
+    public static final int READ_OPS = 2;
+    public static final int WRITE_OPS = 3;
+    public static final int FIELDS = 4;
+
+    private static final byte[][] KEYS = {
+            {'r', 'b', 'y', 't', 'e', 's', '='},
+            {'w', 'b', 'y', 't', 'e', 's', '='},
+            {'r', 'i', 'o', 's', '='},
+            {'w', 'i', 'o', 's', '='}
+    };
+
+    private final ProcCursor cursor = new ProcCursor();
+
+    public void parse(byte[] data, int length, long[] totals) {
+        for(int field = 0; field < FIELDS; field++) totals[field] = 0;
+
+        ProcCursor cursor = this.cursor.reset(data, length);
+        if(!cursor.hasRemaining()) return;
+
+        do {
+            // the first token is the device number
+            cursor.skipToken();
+
+            while(true) {
+                cursor.skipSpaces();
+                if(cursor.atLineEnd()) break;
+
+                int field = match(cursor);
+                if(field < 0) {
+                    cursor.skipToken();
+                    continue;
+                }
+
+                cursor.skip(KEYS[field].length);
+                long value = cursor.nextLong();
+                if(value > 0) totals[field] += value;
+            }
+        } while(cursor.nextLine());
+    }
+
+    private static int match(ProcCursor cursor) {
+        for(int field = 0; field < FIELDS; field++) {
+            if(cursor.startsWith(KEYS[field])) return field;
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,43 @@
+package dev.thoq.zenith.service.monitoring.proc;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses flat {@code key value} files such as cgroup {@code cpu.stat} and {@code memory.stat}, picking out the
+ * keys given at construction. Keys missing from the file are reported as -1.
+ */
+public final class KeyValueParser {
+    private final byte[][] keys;
+    private final ProcCursor cursor = new ProcCursor();
+
+    public KeyValueParser(String... keys) {
+        this.keys = new byte[keys.length][];
+        for(int i = 0; i < keys.length; i++)
+            this.keys[i] = keys[i].getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Fill {@code values} in the order the keys were given
+     */
+    public void parse(byte[] data, int length, long[] values) {
+        for(int i = 0; i < keys.length; i++) values[i] = -1;
+
+        ProcCursor cursor = this.cursor.reset(data, length);
+        if(!cursor.hasRemaining()) return;
+
+        do {
+            int keyLength = cursor.tokenLength((byte) ' ');
+            for(int i = 0; i < keys.length; i++) {
+                if(keys[i].length != keyLength || !cursor.startsWith(keys[i])) continue;
+
+                cursor.skip(keyLength);
+                values[i] = cursor.nextLong();
+                break;
+            }
+        } while(cursor.nextLine());
+    }
+
+    public int size() {
+        return keys.length;
+    }
+}
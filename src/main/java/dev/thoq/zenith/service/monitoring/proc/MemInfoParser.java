@@ -0,0 +1,66 @@
+package dev.thoq.zenith.service.monitoring.proc;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses the fields of /proc/meminfo that the agent records, converting kB to bytes. Fields missing from the
+ * file (older kernels have no MemAvailable, for example) are reported as -1.
+ */
+public final class MemInfoParser {
+    public static final int MEM_TOTAL = 0;
+    public static final int MEM_FREE = 1;
+    public static final int MEM_AVAILABLE = 2;
+    public static final int BUFFERS = 3;
+    public static final int CACHED = 4;
+    public static final int SLAB = 5;
+    public static final int SWAP_TOTAL = 6;
+    public static final int SWAP_FREE = 7;
+    public static final int DIRTY = 8;
+    public static final int WRITEBACK = 9;
+    public static final int FIELDS = 10;
+
+    private static final byte[][] KEYS = keys(
+            "MemTotal", "MemFree", "MemAvailable", "Buffers", "Cached", "Slab", "SwapTotal", "SwapFree", "Dirty",
+            "Writeback"
+    );
+
+    private final ProcCursor cursor = new ProcCursor();
+
+    public void parse(byte[] data, int length, long[] values) {
+        for(int field = 0; field < FIELDS; field++) values[field] = -1;
+
+        ProcCursor cursor = this.cursor.reset(data, length);
+        int found = 0;
+
+        do {
+            int field = match(cursor);
+            if(field < 0) continue;
+
+            cursor.skip(KEYS[field].length + 1);
+            long value = cursor.nextLong();
+            if(value < 0) continue;
+
+            values[field] = value * 1024;
+            if(++found == FIELDS) return;
+        } while(cursor.nextLine());
+    }
+
+    private static int match(ProcCursor cursor) {
+        int keyLength = cursor.tokenLength((byte) ':');
+
+        for(int field = 0; field < FIELDS; field++) {
+            byte[] key = KEYS[field];
+            if(key.length == keyLength && cursor.startsWith(key)) return field;
+        }
+
+        return -1;
+    }
+
+    private static byte[][] keys(String... names) {
+        byte[][] keys = new byte[names.length][];
+        for(int i = 0; i < names.length; i++)
+            keys[i] = names[i].getBytes(StandardCharsets.US_ASCII);
+
+        return keys;
+    }
+}
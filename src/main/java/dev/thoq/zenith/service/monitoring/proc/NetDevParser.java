@@ -0,0 +1,72 @@
+package dev.thoq.zenith.service.monitoring.proc;
+
+/**
+ * Iterates over the interfaces in /proc/net/dev. Each call to {@link #next(long[])} fills the receive and
+ * transmit counters of one interface, indexed by the constants of this class, and leaves the interface name
+ * readable in place.
+ */
+public final class NetDevParser {
+    public static final int RX_BYTES = 0;
+    public static final int RX_PACKETS = 1;
+    public static final int RX_ERRORS = 2;
+    public static final int RX_DROPS = 3;
+    public static final int TX_BYTES = 8;
+    public static final int TX_PACKETS = 9;
+    public static final int TX_ERRORS = 10;
+    public static final int TX_DROPS = 11;
+    public static final int FIELDS = 16;
+
+    private static final int HEADER_LINES = 2;
+
+    private final ProcCursor cursor = new ProcCursor();
+    private int line;
+    private int nameStart;
+    private int nameLength;
+
+    public NetDevParser reset(byte[] data, int length) {
+        cursor.reset(data, length);
+        line = 0;
+        return this;
+    }
+
+    /**
+     * Parse the next interface line
+     *
+     * @return false once there are no more lines
+     */
+    public boolean next(long[] fields) {
+        while(true) {
+            if(line > 0 && !cursor.nextLine()) return false;
+            if(!cursor.hasRemaining()) return false;
+            if(line++ < HEADER_LINES) continue;
+
+            cursor.skipSpaces();
+            nameStart = cursor.position();
+            nameLength = cursor.tokenLength((byte) ':');
+
+            // older kernels leave no space between the colon and the first counter
+            if(!cursor.skipPast((byte) ':')) continue;
+
+            boolean complete = true;
+            for(int field = 0; field < FIELDS; field++) {
+                long value = cursor.nextLong();
+                if(value < 0) complete = false;
+                fields[field] = value;
+            }
+
+            if(complete) return true;
+        }
+    }
+
+    public byte[] data() {
+        return cursor.data();
+    }
+
+    public int nameStart() {
+        return nameStart;
+    }
+
+    public int nameLength() {
+        return nameLength;
+    }
+}
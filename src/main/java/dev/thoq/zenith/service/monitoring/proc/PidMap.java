@@ -0,0 +1,102 @@
+package dev.thoq.zenith.service.monitoring.proc;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from a positive pid to an int slot, with linear probing and backward shift deletion so
+ * that lookups never have to skip tombstones. Nothing is allocated except when the table grows.
+ */
+public final class PidMap {
+    private static final int EMPTY = 0;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public PidMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2 - 1, 8)) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * @return the slot stored for the pid, or -1
+     */
+    public int get(int pid) {
+        for(int index = hash(pid) & mask; ; index = (index + 1) & mask) {
+            int key = keys[index];
+            if(key == pid) return values[index];
+            if(key == EMPTY) return -1;
+        }
+    }
+
+    public void put(int pid, int slot) {
+        if((size + 1) * 2 > keys.length) grow();
+
+        for(int index = hash(pid) & mask; ; index = (index + 1) & mask) {
+            int key = keys[index];
+            if(key == pid) {
+                values[index] = slot;
+                return;
+            }
+
+            if(key == EMPTY) {
+                keys[index] = pid;
+                values[index] = slot;
+                size++;
+                return;
+            }
+        }
+    }
+
+    public void remove(int pid) {
+        int index = hash(pid) & mask;
+        while(keys[index] != pid) {
+            if(keys[index] == EMPTY) return;
+            index = (index + 1) & mask;
+        }
+
+        // pull later entries of the same probe run back into the gap
+        int gap = index;
+        for(int next = (gap + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            if(((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+
+        keys[gap] = EMPTY;
+        size--;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        size = 0;
+
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldKeys[i] != EMPTY) put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private static int hash(int pid) {
+        int hash = pid * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
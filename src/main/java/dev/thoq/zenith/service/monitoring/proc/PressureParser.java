@@ -0,0 +1,45 @@
+package dev.thoq.zenith.service.monitoring.proc;
+
+/**
+ * Parses a Pressure Stall Information file, either /proc/pressure/* or a cgroup v2 {@code *.pressure} file.
+ * The averages are percentages of wall time, the totals are cumulative stall time in microseconds. The
+ * {@code full} line is absent for CPU on older kernels, in which case its fields are left at zero.
+ */
+public final class PressureParser {
+    public static final int SOME_AVG10 = 0;
+    public static final int SOME_AVG60 = 1;
+    public static final int SOME_AVG300 = 2;
+    public static final int SOME_TOTAL = 3;
+    public static final int FULL_AVG10 = 4;
+    public static final int FULL_AVG60 = 5;
+    public static final int FULL_AVG300 = 6;
+    public static final int FULL_TOTAL = 7;
+    public static final int FIELDS = 8;
+
+    private static final byte[] SOME = {'s', 'o', 'm', 'e'};
+    private static final byte[] FULL = {'f', 'u', 'l', 'l'};
+
+    private final ProcCursor cursor = new ProcCursor();
+
+    public void parse(byte[] data, int length, double[] fields) {
+        for(int field = 0; field < FIELDS; field++) fields[field] = 0;
+
+        ProcCursor cursor = this.cursor.reset(data, length);
+        if(!cursor.hasRemaining()) return;
+
+        do {
+            int base;
+            if(cursor.startsWith(SOME)) base = SOME_AVG10;
+            else if(cursor.startsWith(FULL)) base = FULL_AVG10;
+            else continue;
+
+            cursor.skipToken();
+            for(int field = 0; field < 3; field++) {
+                if(!cursor.skipPast((byte) '=')) break;
+                fields[base + field] = cursor.nextDecimal();
+            }
+
+            if(cursor.skipPast((byte) '=')) fields[base + 3] = cursor.nextLong();
+        } while(cursor.nextLine());
+    }
+}
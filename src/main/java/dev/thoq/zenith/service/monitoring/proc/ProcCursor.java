@@ -0,0 +1,223 @@
+package dev.thoq.zenith.service.monitoring.proc;
+
+/**
+ * Forward-only cursor over the bytes of a /proc file. Numbers and names are read in place so that parsing
+ * a file never allocates.
+ */
+public final class ProcCursor {
+    private byte[] data;
+    private int position;
+    private int limit;
+
+    public ProcCursor reset(byte[] data, int length) {
+        this.data = data;
+        this.position = 0;
+        this.limit = length;
+        return this;
+    }
+
+    public ProcCursor reset(byte[] data, int offset, int length) {
+        this.data = data;
+        this.position = offset;
+        this.limit = offset + length;
+        return this;
+    }
+
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+    public int position() {
+        return position;
+    }
+
+    public void position(int position) {
+        this.position = position;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public byte[] data() {
+        return data;
+    }
+
+    public byte peek() {
+        return data[position];
+    }
+
+    /**
+     * Move to the start of the next line
+     *
+     * @return false if there is no next line
+     */
+    public boolean nextLine() {
+        while(position < limit && data[position] != '\n') position++;
+        if(position < limit) position++;
+
+        return position < limit;
+    }
+
+    public boolean atLineEnd() {
+        return position >= limit || data[position] == '\n';
+    }
+
+    public void skipSpaces() {
+        while(position < limit && (data[position] == ' ' || data[position] == '\t')) position++;
+    }
+
+    public void skip(int count) {
+        position = Math.min(position + count, limit);
+    }
+
+    /**
+     * Skip the next whitespace separated token on the current line
+     */
+    public void skipToken() {
+        skipSpaces();
+        while(position < limit && !isSeparator(data[position])) position++;
+    }
+
+    public void skipTokens(int count) {
+        for(int i = 0; i < count; i++) skipToken();
+    }
+
+    /**
+     * Move just past the next occurrence of the given byte on the current line
+     *
+     * @return false if the line does not contain it
+     */
+    public boolean skipPast(byte value) {
+        while(position < limit && data[position] != '\n') {
+            if(data[position++] == value) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Move just past the last occurrence of the given byte on the current line
+     */
+    public boolean skipPastLast(byte value) {
+        int end = position;
+        while(end < limit && data[end] != '\n') end++;
+
+        for(int i = end - 1; i >= position; i--) {
+            if(data[i] == value) {
+                position = i + 1;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Parse the next decimal number on the current line
+     *
+     * @return the number, or -1 if the next token is not a number
+     */
+    public long nextLong() {
+        skipSpaces();
+
+        boolean negative = position < limit && data[position] == '-';
+        if(negative) position++;
+
+        int start = position;
+        long value = 0;
+        while(position < limit) {
+            int digit = data[position] - '0';
+            if(digit < 0 || digit > 9) break;
+
+            value = value * 10 + digit;
+            position++;
+        }
+
+        if(position == start) return -1;
+        while(position < limit && !isSeparator(data[position])) position++;
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parse the next unsigned decimal fraction such as {@code 12.34} on the current line
+     *
+     * @return the number, or -1 if the next token is not a number
+     */
+    public double nextDecimal() {
+        skipSpaces();
+
+        int start = position;
+        long whole = 0;
+        while(position < limit && data[position] >= '0' && data[position] <= '9')
+            whole = whole * 10 + (data[position++] - '0');
+
+        long fraction = 0;
+        long scale = 1;
+        if(position < limit && data[position] == '.') {
+            position++;
+            while(position < limit && data[position] >= '0' && data[position] <= '9') {
+                fraction = fraction * 10 + (data[position++] - '0');
+                scale *= 10;
+            }
+        }
+
+        if(position == start) return -1;
+        while(position < limit && !isSeparator(data[position])) position++;
+
+        return whole + (double) fraction / scale;
+    }
+
+    /**
+     * Parse a hexadecimal number at the current position
+     */
+    public long nextHex() {
+        skipSpaces();
+
+        long value = 0;
+        while(position < limit) {
+            int digit = Character.digit(data[position], 16);
+            if(digit < 0) break;
+
+            value = (value << 4) | digit;
+            position++;
+        }
+
+        return value;
+    }
+
+    /**
+     * Check whether the bytes at the current position match the given prefix, without moving
+     */
+    public boolean startsWith(byte[] prefix) {
+        if(limit - position < prefix.length) return false;
+
+        for(int i = 0; i < prefix.length; i++) {
+            if(data[position + i] != prefix[i]) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Length of the token at the current position, ending at whitespace or the given terminator
+     */
+    public int tokenLength(byte terminator) {
+        int end = position;
+        while(end < limit && data[end] != terminator && !isSeparator(data[end])) end++;
+
+        return end - position;
+    }
+
+    /**
+     * Check whether the token at the current position equals the given name
+     */
+    public boolean tokenEquals(byte[] name, byte terminator) {
+        return tokenLength(terminator) == name.length && startsWith(name);
+    }
+
+    private static boolean isSeparator(byte value) {
+        return value == ' ' || value == '\t' || value == '\n';
+    }
+}
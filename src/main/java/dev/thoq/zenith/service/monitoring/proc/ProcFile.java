@@ -0,0 +1,91 @@
+package dev.thoq.zenith.service.monitoring.proc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A pseudo file under /proc or /sys that is read in full on every sample. The file is kept open and read
+ * from offset zero into a buffer that is reused between reads and only grows when the content no longer fits.
+ */
+public final class ProcFile implements AutoCloseable {
+    private final Path path;
+    private FileChannel channel;
+    private byte[] data;
+    private ByteBuffer buffer;
+    private int length;
+
+    public ProcFile(Path path, int initialCapacity) {
+        this.path = path;
+        this.data = new byte[initialCapacity];
+        this.buffer = ByteBuffer.wrap(data);
+    }
+
+    public ProcFile(String path, int initialCapacity) {
+        this(Path.of(path), initialCapacity);
+    }
+
+    public boolean exists() {
+        return Files.isReadable(path);
+    }
+
+    /**
+     * Read the whole file into the reusable buffer
+     *
+     * @return false if the file could not be read, in which case the previous content is discarded
+     */
+    public boolean read() {
+        try {
+            if(channel == null) channel = FileChannel.open(path, StandardOpenOption.READ);
+
+            while(true) {
+                buffer.clear();
+
+                // positional reads advance the buffer but leave the channel where it is
+                int read;
+                do {
+                    read = channel.read(buffer, buffer.position());
+                } while(read > 0 && buffer.hasRemaining());
+
+                if(buffer.hasRemaining()) break;
+
+                data = new byte[data.length * 2];
+                buffer = ByteBuffer.wrap(data);
+            }
+
+            length = buffer.position();
+            return true;
+        } catch(IOException e) {
+            length = 0;
+            close();
+            return false;
+        }
+    }
+
+    public byte[] data() {
+        return data;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() {
+        if(channel == null) return;
+
+        try {
+            channel.close();
+        } catch(IOException ignored) {
+        }
+
+        channel = null;
+    }
+}
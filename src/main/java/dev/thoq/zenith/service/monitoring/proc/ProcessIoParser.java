@@ -0,0 +1,36 @@
+package dev.thoq.zenith.service.monitoring.proc;
+
+/**
+ * Parses the storage I/O counters out of /proc/[pid]/io
+ */
+public final class ProcessIoParser {
+    public static final int READ_BYTES = 0;
+    public static final int WRITE_BYTES = 1;
+    public static final int FIELDS = 2;
+
+    private static final byte[] READ_BYTES_KEY = {'r', 'e', 'a', 'd', '_', 'b', 'y', 't', 'e', 's', ':'};
+    private static final byte[] WRITE_BYTES_KEY = {'w', 'r', 'i', 't', 'e', '_', 'b', 'y', 't', 'e', 's', ':'};
+
+    private final ProcCursor cursor = new ProcCursor();
+
+    /**
+     * @return false if either counter is missing
+     */
+    public boolean parse(byte[] data, int length, long[] fields) {
+        ProcCursor cursor = this.cursor.reset(data, length);
+        fields[READ_BYTES] = -1;
+        fields[WRITE_BYTES] = -1;
+
+        do {
+            if(cursor.startsWith(READ_BYTES_KEY)) {
+                cursor.skip(READ_BYTES_KEY.length);
+                fields[READ_BYTES] = cursor.nextLong();
+            } else if(cursor.startsWith(WRITE_BYTES_KEY)) {
+                cursor.skip(WRITE_BYTES_KEY.length);
+                fields[WRITE_BYTES] = cursor.nextLong();
+            }
+        } while(cursor.nextLine());
+
+        return fields[READ_BYTES] >= 0 && fields[WRITE_BYTES] >= 0;
+    }
+}
@@ -0,0 +1,62 @@
+package dev.thoq.zenith.service.monitoring.proc;
+
+/**
+ * Parses /proc/[pid]/stat. The command name sits in parentheses and may itself contain spaces or
+ * parentheses, so fields are counted from the last closing parenthesis.
+ */
+public final class ProcessStatParser {
+    public static final int STATE = 0;
+    public static final int PPID = 1;
+    public static final int MINOR_FAULTS = 7;
+    public static final int MAJOR_FAULTS = 9;
+    public static final int UTIME = 11;
+    public static final int STIME = 12;
+    public static final int PRIORITY = 15;
+    public static final int NICE = 16;
+    public static final int THREADS = 17;
+    public static final int START_TIME = 19;
+    public static final int VSIZE = 20;
+    public static final int RSS_PAGES = 21;
+    public static final int FIELDS = 22;
+
+    private final ProcCursor cursor = new ProcCursor();
+    private int nameStart;
+    private int nameLength;
+
+    /**
+     * Parse the numeric fields after the command name into {@code fields}, indexed by the constants of this class.
+     * The state letter is stored as its character code.
+     *
+     * @return false if the content is not a stat line
+     */
+    public boolean parse(byte[] data, int length, long[] fields) {
+        ProcCursor cursor = this.cursor.reset(data, length);
+        if(!cursor.skipPast((byte) '(')) return false;
+
+        nameStart = cursor.position();
+        if(!cursor.skipPastLast((byte) ')')) return false;
+        nameLength = cursor.position() - 1 - nameStart;
+
+        cursor.skipSpaces();
+        if(!cursor.hasRemaining()) return false;
+
+        fields[STATE] = cursor.peek();
+        cursor.skipToken();
+
+        for(int field = 1; field < FIELDS; field++)
+            fields[field] = cursor.nextLong();
+
+        return true;
+    }
+
+    /**
+     * Offset of the command name within the last parsed content
+     */
+    public int nameStart() {
+        return nameStart;
+    }
+
+    public int nameLength() {
+        return nameLength;
+    }
+}
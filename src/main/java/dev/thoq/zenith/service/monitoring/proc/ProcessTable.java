@@ -0,0 +1,406 @@
+package dev.thoq.zenith.service.monitoring.proc;
+
+import dev.thoq.zenith.model.dto.ProcessDeltaDto;
+import dev.thoq.zenith.model.dto.ProcessDto;
+import dev.thoq.zenith.model.dto.ProcessEventDto;
+import dev.thoq.zenith.model.enums.ProcessEventType;
+import dev.thoq.zenith.util.TimeUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Incrementally maintained table of every process on the host, built from /proc/[pid]/stat and /proc/[pid]/io.
+ * <p>
+ * Per-process state lives in parallel primitive arrays indexed by a slot, found through a {@link PidMap}.
+ * A process is identified by its pid together with its start time, so a recycled pid shows up as one exit and
+ * one spawn. Each scan produces a {@link ProcessDeltaDto} with those events and the processes that changed;
+ * the top processes by CPU and by resident memory are selected with a bounded min-heap of slots each.
+ */
+public final class ProcessTable {
+    /**
+     * USER_HZ, the unit of the jiffy counters in /proc; the kernel fixes it at 100 on every mainstream architecture
+     */
+    private static final int CLOCK_TICKS = 100;
+    private static final int INITIAL_SLOTS = 1024;
+
+    private static final byte[] KERNEL_PAGE_SIZE = "KernelPageSize:".getBytes(StandardCharsets.US_ASCII);
+
+    private final File procDirectory = new File("/proc");
+    private final PidMap index = new PidMap(INITIAL_SLOTS);
+    private final ProcessStatParser statParser = new ProcessStatParser();
+    private final ProcessIoParser ioParser = new ProcessIoParser();
+    private final long[] statFields = new long[ProcessStatParser.FIELDS];
+    private final long[] ioFields = new long[ProcessIoParser.FIELDS];
+    private final StringBuilder pathBuilder = new StringBuilder(32);
+    private final long pageSize = readPageSize();
+    private final int[] topByCpu;
+    private final int[] topByMemory;
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+    private int[] pids = new int[INITIAL_SLOTS];
+    private long[] startTimes = new long[INITIAL_SLOTS];
+    private long[] generations = new long[INITIAL_SLOTS];
+    private long[] cpuTicks = new long[INITIAL_SLOTS];
+    private double[] cpuPercents = new double[INITIAL_SLOTS];
+    private long[] rssBytes = new long[INITIAL_SLOTS];
+    private int[] threads = new int[INITIAL_SLOTS];
+    private long[] readBytes = new long[INITIAL_SLOTS];
+    private long[] writeBytes = new long[INITIAL_SLOTS];
+    private long[] ioNanos = new long[INITIAL_SLOTS];
+    private double[] readRates = new double[INITIAL_SLOTS];
+    private double[] writeRates = new double[INITIAL_SLOTS];
+    private boolean[] ioDenied = new boolean[INITIAL_SLOTS];
+    private byte[][] nameBytes = new byte[INITIAL_SLOTS][];
+    private String[] names = new String[INITIAL_SLOTS];
+    private int[] freeSlots = new int[INITIAL_SLOTS];
+    private int freeCount;
+    private int slotCount;
+
+    private int topByCpuSize;
+    private int topByMemorySize;
+    private int processCount;
+    private long generation;
+    private long lastScanNanos;
+    private List<ProcessEventDto> events;
+    private List<ProcessDto> changed;
+    private ProcessDeltaDto delta = ProcessDeltaDto.EMPTY;
+
+    public ProcessTable(int topCount) {
+        this.topByCpu = new int[topCount];
+        this.topByMemory = new int[topCount];
+    }
+
+    public static boolean isSupported() {
+        return new File("/proc/self/stat").canRead();
+    }
+
+    /**
+     * Walk /proc once, updating known processes in place, recording spawns and exits and selecting the top ones
+     */
+    public void scan() {
+        String[] entries = procDirectory.list();
+        if(entries == null) return;
+
+        long now = System.nanoTime();
+        long timestamp = TimeUtils.toEpochMillis(TimeUtils.epochNanos());
+        double seconds = lastScanNanos == 0 ? 0 : (now - lastScanNanos) / 1e9;
+        boolean firstScan = lastScanNanos == 0;
+        lastScanNanos = now;
+        generation++;
+        topByCpuSize = 0;
+        topByMemorySize = 0;
+        processCount = 0;
+        events = new ArrayList<>();
+        changed = new ArrayList<>();
+
+        for(String entry : entries) {
+            int pid = parsePid(entry);
+            if(pid <= 0) continue;
+
+            int slot = update(pid, now, seconds, timestamp, firstScan);
+            if(slot < 0) continue;
+
+            processCount++;
+            topByCpuSize = offer(topByCpu, topByCpuSize, slot, true);
+            topByMemorySize = offer(topByMemory, topByMemorySize, slot, false);
+        }
+
+        // anything not seen in this scan has exited
+        for(int slot = 0; slot < slotCount; slot++) {
+            if(names[slot] == null || generations[slot] == generation) continue;
+
+            events.add(new ProcessEventDto(ProcessEventType.EXIT, pids[slot], names[slot], startTimes[slot], timestamp));
+            release(slot);
+        }
+
+        delta = new ProcessDeltaDto(timestamp, processCount, List.copyOf(events), List.copyOf(changed));
+        events = null;
+        changed = null;
+    }
+
+    public int getProcessCount() {
+        return processCount;
+    }
+
+    /**
+     * Changes found by the latest scan; the first scan reports every process as spawned
+     */
+    public ProcessDeltaDto getDelta() {
+        return delta;
+    }
+
+    public List<ProcessDto> getTopByCpu() {
+        return snapshot(topByCpu, topByCpuSize, true);
+    }
+
+    public List<ProcessDto> getTopByMemory() {
+        return snapshot(topByMemory, topByMemorySize, false);
+    }
+
+    private int update(int pid, long now, double seconds, long timestamp, boolean firstScan) {
+        int length = read(pid, "/stat");
+        if(length < 0 || !statParser.parse(buffer.array(), length, statFields)) return -1;
+
+        long startTime = statFields[ProcessStatParser.START_TIME];
+        int slot = index.get(pid);
+
+        if(slot >= 0 && startTimes[slot] != startTime) {
+            events.add(new ProcessEventDto(ProcessEventType.EXIT, pid, names[slot], startTimes[slot], timestamp));
+            release(slot);
+            slot = -1;
+        }
+
+        boolean spawned = slot < 0;
+        if(spawned) slot = allocate(pid, startTime);
+
+        updateName(slot, buffer.array(), statParser.nameStart(), statParser.nameLength());
+        boolean moved = updateStat(slot, seconds);
+
+        // a process that used no CPU since the last scan cannot have issued I/O either, skip re-reading it
+        if(!ioDenied[slot] && (spawned || moved)) updateIo(slot, pid, now);
+        else if(!ioDenied[slot]) {
+            readRates[slot] = 0;
+            writeRates[slot] = 0;
+        }
+
+        generations[slot] = generation;
+
+        if(spawned) events.add(new ProcessEventDto(ProcessEventType.SPAWN, pid, names[slot], startTime, timestamp));
+        else if(moved && !firstScan) changed.add(toDto(slot));
+
+        return slot;
+    }
+
+    /**
+     * @return true if the CPU time, resident memory or thread count changed
+     */
+    private boolean updateStat(int slot, double seconds) {
+        long ticks = statFields[ProcessStatParser.UTIME] + statFields[ProcessStatParser.STIME];
+        long rss = Math.max(statFields[ProcessStatParser.RSS_PAGES], 0) * pageSize;
+        int threadCount = (int) statFields[ProcessStatParser.THREADS];
+        boolean moved = ticks != cpuTicks[slot] || rss != rssBytes[slot] || threadCount != threads[slot];
+
+        if(cpuTicks[slot] >= 0 && seconds > 0)
+            cpuPercents[slot] = Math.max(ticks - cpuTicks[slot], 0) * 100.0 / (CLOCK_TICKS * seconds);
+
+        cpuTicks[slot] = ticks;
+        rssBytes[slot] = rss;
+        threads[slot] = threadCount;
+        return moved;
+    }
+
+    private void updateIo(int slot, int pid, long now) {
+        int length = read(pid, "/io");
+        if(length < 0 || !ioParser.parse(buffer.array(), length, ioFields)) {
+            ioDenied[slot] = true;
+            readRates[slot] = -1;
+            writeRates[slot] = -1;
+            return;
+        }
+
+        long read = ioFields[ProcessIoParser.READ_BYTES];
+        long write = ioFields[ProcessIoParser.WRITE_BYTES];
+
+        // skipped reads leave the baseline older than one scan, so rates use the time since it was taken
+        if(readBytes[slot] >= 0) {
+            double seconds = (now - ioNanos[slot]) / 1e9;
+            if(seconds > 0) {
+                readRates[slot] = Math.max(read - readBytes[slot], 0) / seconds;
+                writeRates[slot] = Math.max(write - writeBytes[slot], 0) / seconds;
+            }
+        }
+
+        readBytes[slot] = read;
+        writeBytes[slot] = write;
+        ioNanos[slot] = now;
+    }
+
+    private void updateName(int slot, byte[] data, int offset, int length) {
+        // a process can rename itself, but usually the name matches the previous scan
+        byte[] current = nameBytes[slot];
+        if(current != null && length == current.length && Arrays.equals(data, offset, offset + length, current, 0, length))
+            return;
+
+        nameBytes[slot] = Arrays.copyOfRange(data, offset, offset + length);
+        names[slot] = new String(nameBytes[slot], StandardCharsets.UTF_8);
+    }
+
+    private int allocate(int pid, long startTime) {
+        int slot;
+        if(freeCount > 0) slot = freeSlots[--freeCount];
+        else {
+            if(slotCount == pids.length) grow();
+            slot = slotCount++;
+        }
+
+        pids[slot] = pid;
+        startTimes[slot] = startTime;
+        cpuTicks[slot] = -1;
+        cpuPercents[slot] = 0;
+        rssBytes[slot] = 0;
+        threads[slot] = 0;
+        readBytes[slot] = -1;
+        writeBytes[slot] = -1;
+        readRates[slot] = 0;
+        writeRates[slot] = 0;
+        ioDenied[slot] = false;
+        nameBytes[slot] = null;
+        index.put(pid, slot);
+
+        return slot;
+    }
+
+    private void release(int slot) {
+        index.remove(pids[slot]);
+        names[slot] = null;
+        nameBytes[slot] = null;
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void grow() {
+        int capacity = pids.length * 2;
+        pids = Arrays.copyOf(pids, capacity);
+        startTimes = Arrays.copyOf(startTimes, capacity);
+        generations = Arrays.copyOf(generations, capacity);
+        cpuTicks = Arrays.copyOf(cpuTicks, capacity);
+        cpuPercents = Arrays.copyOf(cpuPercents, capacity);
+        rssBytes = Arrays.copyOf(rssBytes, capacity);
+        threads = Arrays.copyOf(threads, capacity);
+        readBytes = Arrays.copyOf(readBytes, capacity);
+        writeBytes = Arrays.copyOf(writeBytes, capacity);
+        ioNanos = Arrays.copyOf(ioNanos, capacity);
+        readRates = Arrays.copyOf(readRates, capacity);
+        writeRates = Arrays.copyOf(writeRates, capacity);
+        ioDenied = Arrays.copyOf(ioDenied, capacity);
+        nameBytes = Arrays.copyOf(nameBytes, capacity);
+        names = Arrays.copyOf(names, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+
+    private int read(int pid, String file) {
+        pathBuilder.setLength(0);
+        pathBuilder.append("/proc/").append(pid).append(file);
+
+        try(FileChannel channel = FileChannel.open(Path.of(pathBuilder.toString()), StandardOpenOption.READ)) {
+            while(true) {
+                buffer.clear();
+
+                int read;
+                do {
+                    read = channel.read(buffer, buffer.position());
+                } while(read > 0 && buffer.hasRemaining());
+
+                if(buffer.hasRemaining()) return buffer.position();
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        } catch(IOException e) {
+            return -1;
+        }
+    }
+
+    private ProcessDto toDto(int slot) {
+        return new ProcessDto(pids[slot], names[slot], cpuPercents[slot], rssBytes[slot], threads[slot],
+                readRates[slot], writeRates[slot]);
+    }
+
+    private int offer(int[] heap, int size, int slot, boolean byCpu) {
+        if(heap.length == 0) return 0;
+
+        if(size < heap.length) {
+            heap[size] = slot;
+            siftUp(heap, size, byCpu);
+            return size + 1;
+        }
+
+        if(key(slot, byCpu) <= key(heap[0], byCpu)) return size;
+
+        heap[0] = slot;
+        siftDown(heap, size, byCpu);
+        return size;
+    }
+
+    private void siftUp(int[] heap, int index, boolean byCpu) {
+        int slot = heap[index];
+        while(index > 0) {
+            int parent = (index - 1) >>> 1;
+            if(key(heap[parent], byCpu) <= key(slot, byCpu)) break;
+
+            heap[index] = heap[parent];
+            index = parent;
+        }
+
+        heap[index] = slot;
+    }
+
+    private void siftDown(int[] heap, int size, boolean byCpu) {
+        int slot = heap[0];
+        int index = 0;
+        while(true) {
+            int child = 2 * index + 1;
+            if(child >= size) break;
+            if(child + 1 < size && key(heap[child + 1], byCpu) < key(heap[child], byCpu)) child++;
+            if(key(slot, byCpu) <= key(heap[child], byCpu)) break;
+
+            heap[index] = heap[child];
+            index = child;
+        }
+
+        heap[index] = slot;
+    }
+
+    private double key(int slot, boolean byCpu) {
+        return byCpu ? cpuPercents[slot] : rssBytes[slot];
+    }
+
+    private List<ProcessDto> snapshot(int[] heap, int size, boolean byCpu) {
+        Integer[] sorted = new Integer[size];
+        for(int i = 0; i < size; i++) sorted[i] = heap[i];
+        Arrays.sort(sorted, (a, b) -> Double.compare(key(b, byCpu), key(a, byCpu)));
+
+        List<ProcessDto> processes = new ArrayList<>(size);
+        for(int slot : sorted)
+            processes.add(toDto(slot));
+
+        return processes;
+    }
+
+    private static int parsePid(String name) {
+        int pid = 0;
+        for(int i = 0; i < name.length(); i++) {
+            int digit = name.charAt(i) - '0';
+            if(digit < 0 || digit > 9) return -1;
+
+            pid = pid * 10 + digit;
+        }
+
+        return pid;
+    }
+
+    private static long readPageSize() {
+        byte[] data = new byte[4096];
+        try(FileChannel channel = FileChannel.open(Path.of("/proc/self/smaps"), StandardOpenOption.READ)) {
+            int length = Math.max(channel.read(ByteBuffer.wrap(data)), 0);
+            ProcCursor cursor = new ProcCursor().reset(data, length);
+
+            do {
+                if(cursor.startsWith(KERNEL_PAGE_SIZE)) {
+                    cursor.skip(KERNEL_PAGE_SIZE.length);
+                    long kilobytes = cursor.nextLong();
+                    if(kilobytes > 0) return kilobytes * 1024;
+                }
+            } while(cursor.nextLine());
+        } catch(IOException ignored) {
+        }
+
+        return 4096;
+    }
+}
@@ -0,0 +1,261 @@
+package dev.thoq.zenith.service.query;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.thoq.zenith.model.dto.MetricQueryDto;
+import dev.thoq.zenith.model.enums.AggregationFunction;
+import dev.thoq.zenith.storage.MetricHistory;
+import dev.thoq.zenith.storage.RollupTier;
+import dev.thoq.zenith.storage.RollupVisitor;
+import dev.thoq.zenith.storage.SampleVisitor;
+import dev.thoq.zenith.storage.SeriesStore;
+import dev.thoq.zenith.storage.codec.GorillaDecoder;
+import dev.thoq.zenith.util.TimeUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers range queries over retained metric history. Each series is read from the cheapest tier that
+ * still resolves the requested step, aggregated per step and streamed straight into the response.
+ */
+@ApplicationScoped
+public class MetricQueryService {
+    private static final long DEFAULT_RANGE_NANOS = TimeUnit.HOURS.toNanos(1);
+    private static final long MIN_STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int DEFAULT_POINTS = 240;
+
+    @Inject
+    SeriesStore seriesStore;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "zenith.query.max-points", defaultValue = "11000")
+    int maxPoints;
+
+    /**
+     * Build a query from request parameters. {@code from} and {@code to} are epoch milliseconds; when
+     * {@code from} is missing the range is {@code range} (default one hour) back from {@code to} (default now).
+     *
+     * @throws IllegalArgumentException if a parameter is invalid
+     */
+    public MetricQueryDto createQuery(List<String> metrics, Long from, Long to, String range, String step, String function) {
+        if(metrics == null || metrics.isEmpty())
+            throw new IllegalArgumentException("At least one metric is required");
+
+        long toNanos = to == null ? TimeUtils.epochNanos() : TimeUnit.MILLISECONDS.toNanos(to);
+        long fromNanos;
+
+        if(from != null) fromNanos = TimeUnit.MILLISECONDS.toNanos(from);
+        else if(range != null) fromNanos = toNanos - TimeUtils.parseDurationNanos(range);
+        else fromNanos = toNanos - DEFAULT_RANGE_NANOS;
+
+        if(fromNanos >= toNanos)
+            throw new IllegalArgumentException("Query range is empty");
+
+        long stepNanos = step == null
+                ? Math.max(MIN_STEP_NANOS, (toNanos - fromNanos) / DEFAULT_POINTS)
+                : TimeUtils.parseDurationNanos(step);
+
+        // align to the step so points line up with rollup buckets and stay stable between refreshes
+        fromNanos -= Math.floorMod(fromNanos, stepNanos);
+
+        AggregationFunction aggregation;
+        try {
+            aggregation = AggregationFunction.valueOf((function == null ? "avg" : function).toUpperCase(Locale.ROOT));
+        } catch(IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown aggregation function: " + function);
+        }
+
+        MetricQueryDto query = new MetricQueryDto(List.copyOf(metrics), fromNanos, toNanos, stepNanos, aggregation);
+        if(query.points() > maxPoints)
+            throw new IllegalArgumentException("Query would return " + query.points() + " points per series, the limit is " + maxPoints);
+
+        return query;
+    }
+
+    /**
+     * Stream the query result as JSON:
+     * {@code {"from", "to", "step", "function", "series": [{"metric", "tier", "points": [[millis, value], ...]}]}}
+     */
+    public void write(MetricQueryDto query, OutputStream output) throws IOException {
+        try(JsonGenerator json = objectMapper.getFactory().createGenerator(output)) {
+            json.writeStartObject();
+            json.writeNumberField("from", TimeUtils.toEpochMillis(query.fromNanos()));
+            json.writeNumberField("to", TimeUtils.toEpochMillis(query.toNanos()));
+            json.writeNumberField("step", TimeUtils.toEpochMillis(query.stepNanos()));
+            json.writeStringField("function", query.function().name().toLowerCase(Locale.ROOT));
+            json.writeArrayFieldStart("series");
+
+            StepAggregator aggregator = new StepAggregator(json, query);
+            GorillaDecoder decoder = new GorillaDecoder();
+
+            for(String metric : query.metrics()) {
+                json.writeStartObject();
+                json.writeStringField("metric", metric);
+
+                MetricHistory history = seriesStore.findHistory(metric);
+                RollupTier tier = history == null ? null : selectTier(history, query);
+                if(tier != null) json.writeStringField("tier", tier.getLabel());
+
+                json.writeArrayFieldStart("points");
+                if(tier != null) {
+                    aggregator.begin();
+                    if(tier.isRaw()) history.scanRaw(query.fromNanos(), query.toNanos(), decoder, aggregator);
+                    else history.getRollup(tier).scan(query.fromNanos(), query.toNanos(), aggregator);
+                    aggregator.finish();
+                }
+                json.writeEndArray();
+
+                json.writeEndObject();
+            }
+
+            json.writeEndArray();
+            json.writeEndObject();
+        } catch(UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static RollupTier selectTier(MetricHistory history, MetricQueryDto query) {
+        // percentiles can only be exact over raw samples, so prefer them while they are retained
+        if(query.function() == AggregationFunction.P95 && history.coversRaw(query.fromNanos()))
+            return RollupTier.RAW;
+
+        return history.selectTier(query.fromNanos(), query.stepNanos());
+    }
+
+    /**
+     * Folds samples or rollup buckets into one point per step and writes each point as soon as its step ends
+     */
+    private static final class StepAggregator implements SampleVisitor, RollupVisitor {
+        private final JsonGenerator json;
+        private final long fromNanos;
+        private final long stepNanos;
+        private final AggregationFunction function;
+        private double[] values = new double[64];
+        private int valueCount;
+        private long step;
+        private double min;
+        private double max;
+        private double sum;
+        private long count;
+        private double last;
+        private long lastNanos;
+        private double previousLast;
+        private long previousLastNanos;
+
+        private StepAggregator(JsonGenerator json, MetricQueryDto query) {
+            this.json = json;
+            this.fromNanos = query.fromNanos();
+            this.stepNanos = query.stepNanos();
+            this.function = query.function();
+        }
+
+        void begin() {
+            step = -1;
+            previousLast = Double.NaN;
+        }
+
+        void finish() {
+            if(step >= 0) emit();
+        }
+
+        @Override
+        public void accept(long timestampNanos, double value) {
+            if(Double.isNaN(value)) return;
+
+            advance(timestampNanos);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+            count++;
+            last = value;
+            lastNanos = timestampNanos;
+
+            if(function == AggregationFunction.P95) collect(value);
+        }
+
+        @Override
+        public void accept(long bucketStartNanos, double min, double max, double sum, long count, double last) {
+            if(count == 0) return;
+
+            advance(bucketStartNanos);
+            this.min = Math.min(this.min, min);
+            this.max = Math.max(this.max, max);
+            this.sum += sum;
+            this.count += count;
+            this.last = last;
+            // a bucket only knows when it started, which is where its last value is placed
+            this.lastNanos = bucketStartNanos;
+
+            // buckets carry no distribution, so their means stand in for samples
+            if(function == AggregationFunction.P95) collect(sum / count);
+        }
+
+        private void advance(long timestampNanos) {
+            long index = Math.max(0, (timestampNanos - fromNanos) / stepNanos);
+            if(index == step) return;
+
+            if(step >= 0) emit();
+
+            step = index;
+            min = Double.POSITIVE_INFINITY;
+            max = Double.NEGATIVE_INFINITY;
+            sum = 0;
+            count = 0;
+            valueCount = 0;
+        }
+
+        private void collect(double value) {
+            if(valueCount == values.length)
+                values = Arrays.copyOf(values, values.length * 2);
+
+            values[valueCount++] = value;
+        }
+
+        private void emit() {
+            double value = switch(function) {
+                case AVG -> sum / count;
+                case MIN -> min;
+                case MAX -> max;
+                case P95 -> percentile(0.95);
+                // empty steps may lie in between, so divide by the time between the two values
+                case RATE -> Double.isNaN(previousLast) || lastNanos <= previousLastNanos
+                        ? Double.NaN
+                        : (last - previousLast) * 1e9 / (lastNanos - previousLastNanos);
+            };
+            previousLast = last;
+            previousLastNanos = lastNanos;
+
+            if(Double.isNaN(value) || Double.isInfinite(value)) return;
+
+            try {
+                json.writeStartArray();
+                json.writeNumber(TimeUtils.toEpochMillis(fromNanos + step * stepNanos));
+                json.writeNumber(value);
+                json.writeEndArray();
+            } catch(IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private double percentile(double quantile) {
+            if(valueCount == 0) return Double.NaN;
+
+            Arrays.sort(values, 0, valueCount);
+            int rank = (int) Math.ceil(quantile * valueCount) - 1;
+
+            return values[Math.max(0, rank)];
+        }
+    }
+}
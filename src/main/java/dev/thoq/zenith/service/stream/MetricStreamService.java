@@ -0,0 +1,162 @@
+package dev.thoq.zenith.service.stream;
+
+import dev.thoq.zenith.collector.Probe;
+import dev.thoq.zenith.collector.SampleListener;
+import dev.thoq.zenith.collector.SamplingEngine;
+import dev.thoq.zenith.model.enums.MetricType;
+import dev.thoq.zenith.storage.MetricRegistry;
+import dev.thoq.zenith.storage.MetricSnapshot;
+import dev.thoq.zenith.util.LoggingUtils;
+import dev.thoq.zenith.util.TimeUtils;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.subscription.BackPressureStrategy;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes the latest core metrics to every connected dashboard, all taken from the same processor tick. Each
+ * frame is serialised once per interval and handed to all subscribers; a subscriber that has no outstanding
+ * demand skips the frame, and one that keeps skipping for {@code zenith.stream.max-missed-frames} frames in a row is disconnected.
+ */
+@ApplicationScoped
+public class MetricStreamService implements SampleListener {
+    private static final LoggingUtils logger = LoggingUtils.getLogger(MetricStreamService.class);
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong evictedSubscribers = new AtomicLong();
+    private final StringBuilder frameBuilder = new StringBuilder(160);
+    private final MetricSnapshot snapshot = new MetricSnapshot();
+    private volatile String lastFrame;
+    private long lastFrameAt;
+    private long sequence;
+
+    @Inject
+    SamplingEngine samplingEngine;
+
+    @Inject
+    MetricRegistry metricRegistry;
+
+    @ConfigProperty(name = "zenith.stream.interval", defaultValue = "PT1S")
+    Duration interval;
+
+    @ConfigProperty(name = "zenith.stream.max-missed-frames", defaultValue = "10")
+    int maxMissedFrames;
+
+    @ConfigProperty(name = "zenith.stream.max-subscribers", defaultValue = "1000")
+    int maxSubscribers;
+
+    @PostConstruct
+    void init() {
+        samplingEngine.addListener(this);
+    }
+
+    @PreDestroy
+    void destroy() {
+        samplingEngine.removeListener(this);
+
+        for(Subscriber subscriber : subscribers)
+            subscriber.emitter.complete();
+    }
+
+    /**
+     * Stream of JSON frames, starting with the most recent one
+     */
+    public Multi<String> subscribe() {
+        return Multi.createFrom().emitter(emitter -> {
+            if(subscribers.size() >= maxSubscribers) {
+                logger.warn("Rejecting metrics stream subscriber, limit of %d reached", maxSubscribers);
+                emitter.complete();
+                return;
+            }
+
+            Subscriber subscriber = new Subscriber(emitter);
+            subscribers.add(subscriber);
+            emitter.onTermination(() -> subscribers.remove(subscriber));
+
+            String frame = lastFrame;
+            if(frame != null) subscriber.offer(frame, maxMissedFrames);
+        }, BackPressureStrategy.DROP);
+    }
+
+    @Override
+    public void onSample(Probe probe) {
+        long now = System.nanoTime();
+        if(lastFrame != null && now - lastFrameAt < interval.toNanos()) return;
+        lastFrameAt = now;
+
+        String frame = buildFrame();
+        lastFrame = frame;
+
+        for(Subscriber subscriber : subscribers) {
+            if(!subscriber.offer(frame, maxMissedFrames)) {
+                subscribers.remove(subscriber);
+                evictedSubscribers.incrementAndGet();
+                subscriber.emitter.complete();
+                logger.debug("Evicted slow metrics stream subscriber");
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getEvictedSubscribers() {
+        return evictedSubscribers.get();
+    }
+
+    private String buildFrame() {
+        MetricSnapshot snapshot = metricRegistry.read(this.snapshot);
+        StringBuilder frame = frameBuilder;
+        frame.setLength(0);
+        frame.append("{\"seq\":").append(++sequence)
+                .append(",\"time\":").append(TimeUtils.toEpochMillis(snapshot.getTimestamp()));
+        appendValue(frame, "cpu", snapshot.get(MetricType.CPU_USAGE));
+        appendValue(frame, "memory", snapshot.get(MetricType.MEMORY_USAGE));
+        appendValue(frame, "disk", snapshot.get(MetricType.DISK_USAGE));
+        appendValue(frame, "up", snapshot.get(MetricType.NETWORK_UPLOAD));
+        appendValue(frame, "down", snapshot.get(MetricType.NETWORK_DOWNLOAD));
+
+        return frame.append('}').toString();
+    }
+
+    private void appendValue(StringBuilder frame, String key, double value) {
+        if(Double.isNaN(value) || Double.isInfinite(value)) return;
+
+        frame.append(",\"").append(key).append("\":").append(value);
+    }
+
+    private static final class Subscriber {
+        private final MultiEmitter<? super String> emitter;
+        private int missedFrames;
+
+        private Subscriber(MultiEmitter<? super String> emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * Emit the frame if the client has asked for more
+         *
+         * @return false once the client has missed too many frames in a row and should be evicted
+         */
+        boolean offer(String frame, int maxMissedFrames) {
+            if(emitter.isCancelled()) return false;
+
+            if(emitter.requested() > 0) {
+                missedFrames = 0;
+                emitter.emit(frame);
+                return true;
+            }
+
+            return ++missedFrames <= maxMissedFrames;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package dev.thoq.zenith.storage;
+
+import dev.thoq.zenith.storage.codec.GorillaDecoder;
+import dev.thoq.zenith.storage.codec.GorillaEncoder;
+
+/**
+ * Long-term raw history of one metric as a ring of Gorilla-compressed chunks. Samples are encoded into an
+ * open chunk as they arrive; once it holds {@code chunkSamples} samples it is sealed and becomes visible
+ * to readers, and chunks older than the retention are dropped as new ones arrive.
+ * <p>
+ * Single writer, any number of readers. The open chunk is private to the writer, so the newest samples are
+ * only visible through the {@link RingBufferSeries} kept next to this archive.
+ */
+public final class CompressedSeries {
+    private static final int INITIAL_CHUNKS = 8;
+
+    private final GorillaEncoder encoder = new GorillaEncoder(1024);
+    private final int chunkSamples;
+    private final long retentionNanos;
+    private final int capacity;
+    private volatile ChunkIndex index;
+    private volatile long writeCount;
+    private volatile long evicted;
+    private long sizeBytes;
+
+    public CompressedSeries(int chunkSamples, long retentionNanos, int maxChunks) {
+        if(chunkSamples <= 0)
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSamples);
+
+        int size = Integer.highestOneBit(Math.max(1, maxChunks));
+        if(size < maxChunks) size <<= 1;
+
+        this.chunkSamples = chunkSamples;
+        this.retentionNanos = retentionNanos;
+        this.capacity = size;
+        this.index = new ChunkIndex(Math.min(size, INITIAL_CHUNKS));
+    }
+
+    public void add(long timestampNanos, double value) {
+        if(!encoder.isEmpty() && timestampNanos < encoder.lastTimestamp()) return;
+
+        encoder.append(timestampNanos, value);
+        if(encoder.count() >= chunkSamples) seal();
+    }
+
+    /**
+     * Whether a sample at {@code timestampNanos} would still be retained once time reaches {@code nowNanos}
+     */
+    public boolean retains(long timestampNanos, long nowNanos) {
+        return nowNanos - timestampNanos < retentionNanos;
+    }
+
+    /**
+     * Whether the sealed chunks still hold everything from {@code fromNanos} on
+     */
+    public boolean covers(long fromNanos) {
+        long count = writeCount;
+        long oldest = evicted;
+        if(oldest == 0) return true;
+        if(count == oldest) return false;
+
+        ChunkIndex current = index;
+        return current.firstTimestamps[(int) (oldest & current.mask)] <= fromNanos;
+    }
+
+    /**
+     * Timestamp of the first sample still held in a sealed chunk, or {@link Long#MAX_VALUE} when there is none
+     */
+    public long oldestTimestamp() {
+        long count = writeCount;
+        long oldest = evicted;
+        ChunkIndex current = index;
+
+        return count == oldest ? Long.MAX_VALUE : current.firstTimestamps[(int) (oldest & current.mask)];
+    }
+
+    /**
+     * Decode every sealed sample with {@code fromNanos <= timestamp < toNanos}, oldest first.
+     *
+     * @return the number of samples visited
+     */
+    public int scan(long fromNanos, long toNanos, GorillaDecoder decoder, SampleVisitor visitor) {
+        long count = writeCount;
+        ChunkIndex current = index;
+        int visited = 0;
+
+        for(long chunk = Math.max(evicted, count - current.size()); chunk < count; chunk++) {
+            int slot = (int) (chunk & current.mask);
+            if(current.lastTimestamps[slot] < fromNanos) continue;
+            if(current.firstTimestamps[slot] >= toNanos) break;
+
+            decoder.reset(current.chunks[slot], current.counts[slot]);
+            while(decoder.next()) {
+                long timestamp = decoder.timestamp();
+                if(timestamp < fromNanos) continue;
+                if(timestamp >= toNanos) break;
+
+                visitor.accept(timestamp, decoder.value());
+                visited++;
+            }
+        }
+
+        return visited;
+    }
+
+    /**
+     * Bytes held by sealed chunks
+     */
+    public long sizeBytes() {
+        return sizeBytes;
+    }
+
+    private void seal() {
+        long count = writeCount;
+        long lastTimestamp = encoder.lastTimestamp();
+        long oldest = evicted;
+        ChunkIndex current = index;
+
+        while(oldest < count && (count - oldest >= capacity || lastTimestamp - current.lastTimestamps[(int) (oldest & current.mask)] >= retentionNanos)) {
+            sizeBytes -= current.chunks[(int) (oldest & current.mask)].length;
+            oldest++;
+        }
+        evicted = oldest;
+
+        if(count - oldest >= current.size()) current = grow(current, count);
+
+        int slot = (int) (count & current.mask);
+        byte[] chunk = encoder.toByteArray();
+        current.chunks[slot] = chunk;
+        current.firstTimestamps[slot] = encoder.firstTimestamp();
+        current.lastTimestamps[slot] = lastTimestamp;
+        current.counts[slot] = encoder.count();
+        sizeBytes += chunk.length;
+        writeCount = count + 1;
+
+        encoder.reset();
+    }
+
+    /**
+     * Double the index when every slot holds a live chunk, re-slotting the chunks by their sequence number
+     */
+    private ChunkIndex grow(ChunkIndex current, long count) {
+        ChunkIndex next = new ChunkIndex(Math.min(current.size() << 1, capacity));
+
+        for(long chunk = Math.max(0, count - current.size()); chunk < count; chunk++) {
+            int from = (int) (chunk & current.mask);
+            int to = (int) (chunk & next.mask);
+            next.chunks[to] = current.chunks[from];
+            next.firstTimestamps[to] = current.firstTimestamps[from];
+            next.lastTimestamps[to] = current.lastTimestamps[from];
+            next.counts[to] = current.counts[from];
+        }
+
+        index = next;
+        return next;
+    }
+
+    private static final class ChunkIndex {
+        final byte[][] chunks;
+        final long[] firstTimestamps;
+        final long[] lastTimestamps;
+        final int[] counts;
+        final int mask;
+
+        ChunkIndex(int size) {
+            this.chunks = new byte[size][];
+            this.firstTimestamps = new long[size];
+            this.lastTimestamps = new long[size];
+            this.counts = new int[size];
+            this.mask = size - 1;
+        }
+
+        int size() {
+            return mask + 1;
+        }
+    }
+}
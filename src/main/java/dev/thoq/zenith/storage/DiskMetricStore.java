@@ -0,0 +1,399 @@
+package dev.thoq.zenith.storage;
+
+import dev.thoq.zenith.storage.codec.GorillaDecoder;
+import dev.thoq.zenith.storage.codec.GorillaEncoder;
+import dev.thoq.zenith.util.LoggingUtils;
+import dev.thoq.zenith.util.TimeUtils;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only metric store on memory-mapped segment files, one segment per {@code zenith.storage.segment-duration}.
+ * <p>
+ * Samples are handed over through a bounded in-memory queue and written by a single background thread, so
+ * producers never touch the disk. The writer encodes each metric into Gorilla-compressed chunks and writes a
+ * chunk once it is full or every {@code zenith.storage.persistence.flush-interval}, which bounds what a crash
+ * can lose. Expired segments are removed by deleting whole files, and on startup only the newest segment is
+ * walked to find where writing left off.
+ */
+@ApplicationScoped
+public class DiskMetricStore implements SampleSink {
+    private static final LoggingUtils logger = LoggingUtils.getLogger(DiskMetricStore.class);
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String DICTIONARY_FILE = "metrics.dict";
+    private static final long DRAIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long RETENTION_CHECK_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private final Map<String, Integer> metricIds = new ConcurrentHashMap<>();
+    private final List<String> metricNames = new ArrayList<>();
+    private final List<Segment> segments = new ArrayList<>();
+    private final AtomicLong droppedWrites = new AtomicLong();
+    private final Object queueLock = new Object();
+    private long[] queueTimestamps;
+    private int[] queueMetricIds;
+    private double[] queueValues;
+    private int queueHead;
+    private int queueSize;
+    private int persistedNames;
+    private GorillaEncoder[] encoders = new GorillaEncoder[0];
+    private Segment tail;
+    private Path directory;
+    private Thread writerThread;
+    private volatile boolean running = false;
+    private boolean opened = false;
+
+    @ConfigProperty(name = "zenith.storage.persistence.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "zenith.storage.directory", defaultValue = "data")
+    String directoryName;
+
+    @ConfigProperty(name = "zenith.storage.segment-duration", defaultValue = "PT1H")
+    Duration segmentDuration;
+
+    @ConfigProperty(name = "zenith.storage.segment-size", defaultValue = "33554432")
+    int segmentSize;
+
+    @ConfigProperty(name = "zenith.storage.persistence.retention", defaultValue = "P7D")
+    Duration retention;
+
+    @ConfigProperty(name = "zenith.storage.persistence.queue-capacity", defaultValue = "65536")
+    int queueCapacity;
+
+    @ConfigProperty(name = "zenith.storage.persistence.flush-interval", defaultValue = "PT10S")
+    Duration flushInterval;
+
+    @ConfigProperty(name = "zenith.storage.chunk-samples", defaultValue = "1024")
+    int chunkSamples;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Map every segment within retention, recover the tail and start the writer thread
+     */
+    public synchronized void open() {
+        if(!enabled || opened) return;
+        opened = true;
+
+        long startedAt = System.nanoTime();
+        directory = Paths.get(directoryName).toAbsolutePath();
+
+        try {
+            Files.createDirectories(directory);
+            loadDictionary();
+            deleteExpiredSegments(TimeUtils.epochNanos());
+
+            List<Path> paths = listSegments();
+            for(int i = 0; i < paths.size(); i++) {
+                try {
+                    segments.add(Segment.open(paths.get(i), i == paths.size() - 1));
+                } catch(IOException ex) {
+                    logger.warn("Skipping unreadable segment %s: %s", paths.get(i), ex.getMessage());
+                }
+            }
+
+            if(!segments.isEmpty() && !segments.get(segments.size() - 1).isSealed())
+                tail = segments.get(segments.size() - 1);
+        } catch(IOException ex) {
+            logger.error("Failed to open metric store at %s, persistence is disabled", ex, directory);
+            enabled = false;
+            return;
+        }
+
+        queueTimestamps = new long[Math.max(1, queueCapacity)];
+        queueMetricIds = new int[queueTimestamps.length];
+        queueValues = new double[queueTimestamps.length];
+
+        running = true;
+        writerThread = new Thread(this::writeLoop, "Zenith-StoreWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        logger.info("Opened %d segments in %s in %.1fms", segments.size(), directory,
+                (System.nanoTime() - startedAt) / 1_000_000.0);
+    }
+
+    /**
+     * Feed every persisted sample into the given store, oldest first
+     */
+    public void replay(SeriesStore store) {
+        if(!enabled) return;
+
+        long startedAt = System.nanoTime();
+        long replayed = 0;
+        long now = TimeUtils.epochNanos();
+        MetricHistory[] histories = new MetricHistory[metricNames.size()];
+        GorillaDecoder decoder = new GorillaDecoder();
+
+        for(Segment segment : segments) {
+            for(int offset = segment.firstChunk(); offset >= 0; offset = segment.nextChunk(offset)) {
+                int id = segment.chunkMetricId(offset);
+                if(id < 0 || id >= histories.length) continue;
+
+                MetricHistory history = histories[id];
+                if(history == null) {
+                    history = store.history(metricNames.get(id));
+                    histories[id] = history;
+                }
+
+                decoder.reset(segment.getBuffer(), segment.chunkDataOffset(offset), segment.chunkLength(offset), segment.chunkCount(offset));
+                while(decoder.next()) {
+                    history.restore(decoder.timestamp(), decoder.value(), now);
+                    replayed++;
+                }
+            }
+        }
+
+        logger.info("Replayed %d samples from disk in %.1fms", replayed, (System.nanoTime() - startedAt) / 1_000_000.0);
+    }
+
+    @Override
+    public int register(String metric) {
+        Integer existing = metricIds.get(metric);
+        if(existing != null) return existing;
+
+        synchronized(metricNames) {
+            return metricIds.computeIfAbsent(metric, name -> {
+                metricNames.add(name);
+                return metricNames.size() - 1;
+            });
+        }
+    }
+
+    @Override
+    public void write(int metricId, long timestampNanos, double value) {
+        if(!running) return;
+
+        synchronized(queueLock) {
+            if(queueSize == queueTimestamps.length) {
+                droppedWrites.incrementAndGet();
+                return;
+            }
+
+            int slot = (queueHead + queueSize) % queueTimestamps.length;
+            queueTimestamps[slot] = timestampNanos;
+            queueMetricIds[slot] = metricId;
+            queueValues[slot] = value;
+            queueSize++;
+        }
+    }
+
+    public long getDroppedWrites() {
+        return droppedWrites.get();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if(!running) return;
+
+        logger.info("Closing metric store...");
+        running = false;
+
+        if(writerThread != null) {
+            LockSupport.unpark(writerThread);
+
+            try {
+                writerThread.join(5000);
+            } catch(InterruptedException ex) {
+                logger.trace("Interrupted while waiting for metric store writer to stop", ex);
+                Thread.currentThread().interrupt();
+            }
+
+            writerThread = null;
+        }
+
+        for(Segment segment : segments) {
+            try {
+                segment.close();
+            } catch(IOException ex) {
+                logger.warn("Failed to close segment %s: %s", segment.getPath(), ex.getMessage());
+            }
+        }
+
+        logger.info("Closed metric store!");
+    }
+
+    private void writeLoop() {
+        long nextRetentionCheck = System.nanoTime() + RETENTION_CHECK_INTERVAL_NANOS;
+        long nextFlush = System.nanoTime() + flushInterval.toNanos();
+
+        while(running) {
+            LockSupport.parkNanos(DRAIN_INTERVAL_NANOS);
+
+            try {
+                drain();
+
+                if(System.nanoTime() >= nextFlush) {
+                    nextFlush = System.nanoTime() + flushInterval.toNanos();
+                    flushChunks();
+                }
+
+                if(System.nanoTime() >= nextRetentionCheck) {
+                    nextRetentionCheck = System.nanoTime() + RETENTION_CHECK_INTERVAL_NANOS;
+                    deleteExpiredSegments(TimeUtils.epochNanos());
+                }
+            } catch(IOException ex) {
+                logger.error("Metric store writer failed", ex);
+            }
+        }
+
+        try {
+            drain();
+            flushChunks();
+        } catch(IOException ex) {
+            logger.error("Failed to flush metric store on shutdown", ex);
+        }
+    }
+
+    private void drain() throws IOException {
+        persistDictionary();
+
+        while(true) {
+            long timestamp;
+            int metricId;
+            double value;
+
+            synchronized(queueLock) {
+                if(queueSize == 0) return;
+
+                timestamp = queueTimestamps[queueHead];
+                metricId = queueMetricIds[queueHead];
+                value = queueValues[queueHead];
+                queueHead = (queueHead + 1) % queueTimestamps.length;
+                queueSize--;
+            }
+
+            if(metricId >= persistedNames) persistDictionary();
+            if(tail == null || timestamp - tail.getStartNanos() >= segmentDuration.toNanos()) {
+                flushChunks();
+                rollSegment(timestamp);
+            }
+
+            GorillaEncoder encoder = encoderFor(metricId);
+            encoder.append(timestamp, value);
+            if(encoder.count() >= chunkSamples) writeChunk(metricId, encoder);
+        }
+    }
+
+    private GorillaEncoder encoderFor(int metricId) {
+        if(metricId >= encoders.length)
+            encoders = Arrays.copyOf(encoders, Math.max(metricId + 1, encoders.length * 2));
+
+        GorillaEncoder encoder = encoders[metricId];
+        if(encoder == null) {
+            encoder = new GorillaEncoder(1024);
+            encoders[metricId] = encoder;
+        }
+
+        return encoder;
+    }
+
+    private void flushChunks() throws IOException {
+        for(int id = 0; id < encoders.length; id++) {
+            GorillaEncoder encoder = encoders[id];
+            if(encoder != null && !encoder.isEmpty()) writeChunk(id, encoder);
+        }
+
+        if(tail != null) tail.force();
+    }
+
+    private void writeChunk(int metricId, GorillaEncoder encoder) throws IOException {
+        if(tail == null || !tail.append(metricId, encoder)) {
+            if(!rollSegment(encoder.firstTimestamp()).append(metricId, encoder))
+                logger.warn("Dropping %d samples of %s, chunk does not fit in a segment", encoder.count(), metricNames.get(metricId));
+        }
+
+        encoder.reset();
+    }
+
+    private Segment rollSegment(long timestampNanos) throws IOException {
+        if(tail != null) tail.seal();
+
+        long startMillis = TimeUtils.toEpochMillis(timestampNanos);
+        Path path = directory.resolve(String.format("%020d%s", startMillis, SEGMENT_SUFFIX));
+        while(Files.exists(path))
+            path = directory.resolve(String.format("%020d%s", ++startMillis, SEGMENT_SUFFIX));
+
+        tail = Segment.create(path, timestampNanos, segmentSize);
+        synchronized(segments) {
+            segments.add(tail);
+        }
+
+        return tail;
+    }
+
+    private void deleteExpiredSegments(long nowNanos) throws IOException {
+        // a segment only expires once the one after it starts before the cutoff
+        long cutoff = nowNanos - retention.toNanos();
+
+        synchronized(segments) {
+            while(segments.size() > 1 && segments.get(1).getStartNanos() <= cutoff) {
+                Segment expired = segments.remove(0);
+                expired.close();
+                Files.deleteIfExists(expired.getPath());
+                logger.debug("Deleted expired segment %s", expired.getPath().getFileName());
+            }
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> paths = new ArrayList<>();
+
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for(Path path : stream)
+                paths.add(path);
+        }
+
+        paths.sort(null);
+        return paths;
+    }
+
+    private void loadDictionary() throws IOException {
+        Path path = directory.resolve(DICTIONARY_FILE);
+        if(!Files.exists(path)) return;
+
+        for(String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if(line.isBlank()) continue;
+
+            register(line.trim());
+        }
+
+        persistedNames = metricNames.size();
+    }
+
+    private void persistDictionary() throws IOException {
+        List<String> pending;
+
+        synchronized(metricNames) {
+            if(persistedNames == metricNames.size()) return;
+            pending = new ArrayList<>(metricNames.subList(persistedNames, metricNames.size()));
+        }
+
+        StringBuilder lines = new StringBuilder();
+        for(String name : pending)
+            lines.append(name).append('\n');
+
+        Files.writeString(directory.resolve(DICTIONARY_FILE), lines, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        persistedNames += pending.size();
+    }
+}
@@ -0,0 +1,118 @@
+package dev.thoq.zenith.storage;
+
+import dev.thoq.zenith.storage.codec.GorillaDecoder;
+
+/**
+ * Raw samples, their compressed archive and every rollup tier for a single metric. Each append updates
+ * all of them incrementally, so coarse history is never rebuilt by rescanning raw data.
+ */
+public final class MetricHistory {
+    private final String name;
+    private final RingBufferSeries raw;
+    private final CompressedSeries archive;
+    private final RollupSeries[] rollups;
+    private final SampleSink sink;
+    private final int sinkId;
+
+    public MetricHistory(String name, int rawCapacity, CompressedSeries archive, RollupSeries[] rollups, SampleSink sink) {
+        this.name = name;
+        this.raw = new RingBufferSeries(name, rawCapacity);
+        this.archive = archive;
+        this.rollups = rollups;
+        this.sink = sink;
+        this.sinkId = sink == null ? -1 : sink.register(name);
+    }
+
+    public void append(long timestampNanos, double value) {
+        raw.append(timestampNanos, value);
+        archive.add(timestampNanos, value);
+
+        for(RollupSeries rollup : rollups)
+            rollup.add(timestampNanos, value);
+
+        if(sink != null)
+            sink.write(sinkId, timestampNanos, value);
+    }
+
+    /**
+     * Append a persisted sample without handing it back to the sink. Tiers that would already have evicted
+     * the sample by {@code nowNanos} are skipped, which keeps replaying long histories cheap.
+     */
+    public void restore(long timestampNanos, double value, long nowNanos) {
+        raw.append(timestampNanos, value);
+
+        if(archive.retains(timestampNanos, nowNanos))
+            archive.add(timestampNanos, value);
+
+        for(RollupSeries rollup : rollups) {
+            if(rollup.retains(timestampNanos, nowNanos))
+                rollup.add(timestampNanos, value);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public RingBufferSeries getRaw() {
+        return raw;
+    }
+
+    public CompressedSeries getArchive() {
+        return archive;
+    }
+
+    /**
+     * Rollup for the given tier, or null for {@link RollupTier#RAW}
+     */
+    public RollupSeries getRollup(RollupTier tier) {
+        for(RollupSeries rollup : rollups) {
+            if(rollup.getTier() == tier) return rollup;
+        }
+
+        return null;
+    }
+
+    /**
+     * Visit raw samples in {@code [fromNanos, toNanos)}, reading from the compressed archive for anything
+     * the ring buffer has already evicted.
+     *
+     * @return the number of samples visited
+     */
+    public int scanRaw(long fromNanos, long toNanos, GorillaDecoder decoder, SampleVisitor visitor) {
+        int visited = 0;
+        long ringStart = fromNanos;
+
+        if(!raw.covers(fromNanos) && !raw.isEmpty()) {
+            ringStart = Math.max(fromNanos, raw.timestampAt(0));
+            visited += archive.scan(fromNanos, Math.min(toNanos, ringStart), decoder, visitor);
+        }
+
+        return visited + raw.scan(ringStart, toNanos, visitor);
+    }
+
+    /**
+     * Whether raw samples from {@code fromNanos} on are still held by the ring buffer or the archive
+     */
+    public boolean coversRaw(long fromNanos) {
+        return raw.covers(fromNanos) || archive.covers(fromNanos);
+    }
+
+    /**
+     * Pick the coarsest tier whose buckets are no wider than {@code stepNanos}. If that tier has already
+     * evicted data newer than {@code fromNanos}, keep moving to coarser tiers until one still covers it.
+     */
+    public RollupTier selectTier(long fromNanos, long stepNanos) {
+        RollupTier best = RollupTier.RAW;
+        boolean bestCovers = coversRaw(fromNanos);
+
+        for(RollupSeries rollup : rollups) {
+            if(rollup.getTier().getWidthNanos() <= stepNanos || !bestCovers) {
+                best = rollup.getTier();
+                bestCovers = rollup.covers(fromNanos);
+            }
+        }
+
+        return best;
+    }
+}
@@ -0,0 +1,132 @@
+package dev.thoq.zenith.storage;
+
+import dev.thoq.zenith.model.enums.MetricType;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Publishes the per-tick value of every {@link MetricType} from a single writer to any number of readers.
+ * The writer fills a private buffer with {@link #set} and publishes it with {@link #publish}, which copies
+ * it into the shared buffer under a sequence lock: the sequence is odd while the copy is in progress, and
+ * a reader that saw it change retries. Readers never block the writer or each other and always see every
+ * value from the same tick.
+ */
+@ApplicationScoped
+public class MetricRegistry {
+    private final MetricHistory[] histories = new MetricHistory[MetricType.count()];
+    private final MetricSnapshot pending = new MetricSnapshot();
+    private final boolean[] changed = new boolean[MetricType.count()];
+    private final double[] published = new double[MetricType.count()];
+    private long publishedAt;
+    private volatile long sequence;
+
+    @Inject
+    SeriesStore seriesStore;
+
+    @PostConstruct
+    void init() {
+        Arrays.fill(published, Double.NaN);
+
+        for(MetricType type : MetricType.values())
+            histories[type.getId()] = seriesStore.history(type.getName());
+    }
+
+    /**
+     * Set the value of a metric for the next tick, called from the writer thread only. Metrics left unset
+     * keep their previous value and get no new sample in their series.
+     */
+    public void set(MetricType type, double value) {
+        pending.set(type, value);
+        changed[type.getId()] = true;
+    }
+
+    /**
+     * Record the next tick into the series store and make it visible to readers, called from the writer
+     * thread only
+     */
+    public void publish(long timestamp) {
+        double[] values = pending.values();
+        for(int id = 0; id < histories.length; id++) {
+            if(!changed[id]) continue;
+
+            histories[id].append(timestamp, values[id]);
+            changed[id] = false;
+        }
+
+        long next = sequence + 1;
+        sequence = next;
+        VarHandle.storeStoreFence();
+
+        System.arraycopy(values, 0, published, 0, values.length);
+        publishedAt = timestamp;
+
+        sequence = next + 1;
+    }
+
+    /**
+     * Copy the latest tick into the given snapshot
+     */
+    public MetricSnapshot read(MetricSnapshot into) {
+        double[] values = into.values();
+
+        while(true) {
+            long seq = sequence;
+            if((seq & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            System.arraycopy(published, 0, values, 0, values.length);
+            long timestamp = publishedAt;
+
+            VarHandle.loadLoadFence();
+            if(sequence == seq) {
+                into.stamp(seq >> 1, timestamp);
+                return into;
+            }
+        }
+    }
+
+    /**
+     * Latest value of a single metric
+     */
+    public double get(MetricType type) {
+        int id = type.getId();
+
+        while(true) {
+            long seq = sequence;
+            double value = published[id];
+
+            VarHandle.loadLoadFence();
+            if((seq & 1) == 0 && sequence == seq) return value;
+
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * When the latest tick was taken, in nanoseconds since the epoch
+     */
+    public long getTimestamp() {
+        while(true) {
+            long seq = sequence;
+            long timestamp = publishedAt;
+
+            VarHandle.loadLoadFence();
+            if((seq & 1) == 0 && sequence == seq) return timestamp;
+
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Number of ticks published so far
+     */
+    public long getVersion() {
+        return sequence >> 1;
+    }
+}
@@ -0,0 +1,55 @@
+package dev.thoq.zenith.storage;
+
+import dev.thoq.zenith.model.enums.MetricType;
+
+import java.util.Arrays;
+
+/**
+ * Values of every {@link MetricType} for one tick, as a flat array indexed by metric ID. A metric that
+ * has not been recorded yet reads as NaN. Snapshots are owned by a single reader and refilled in place
+ * with {@link MetricRegistry#read(MetricSnapshot)}, so keeping one around costs no garbage per tick.
+ */
+public final class MetricSnapshot {
+    private final double[] values = new double[MetricType.count()];
+    private long version;
+    private long timestamp;
+
+    public MetricSnapshot() {
+        Arrays.fill(values, Double.NaN);
+    }
+
+    public double get(MetricType type) {
+        return values[type.getId()];
+    }
+
+    public double get(int id) {
+        return values[id];
+    }
+
+    /**
+     * Number of the tick the values belong to, 0 before the first publish
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * When the tick was taken, in nanoseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    void set(MetricType type, double value) {
+        values[type.getId()] = value;
+    }
+
+    double[] values() {
+        return values;
+    }
+
+    void stamp(long version, long timestamp) {
+        this.version = version;
+        this.timestamp = timestamp;
+    }
+}
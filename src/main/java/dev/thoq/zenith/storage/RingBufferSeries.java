@@ -0,0 +1,273 @@
+package dev.thoq.zenith.storage;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Bounded time series holding epoch-nanosecond timestamps and values in parallel primitive arrays.
+ * Slots are allocated on demand, doubling up to the capacity, so a slow or short-lived series never pays
+ * for the full ring. Once full, every append overwrites the oldest sample and memory use stops growing.
+ * <p>
+ * A series has a single writer. Readers on other threads see every sample up to the last published append until
+ * the ring is full; after that the writer may overwrite the oldest samples while a reader is still on them.
+ * {@link #scan}, {@link #copyRange} and {@link #rate} re-check the write count after reading each sample, the way a
+ * sequence lock does, and skip samples that may have been overwritten, so they only ever return whole samples in
+ * timestamp order. The single-sample accessors do not, and can return a newer sample than the one asked for when
+ * they race with the writer on a full ring.
+ */
+public final class RingBufferSeries {
+    private static final int INITIAL_SLOTS = 64;
+
+    private final String name;
+    private final int capacity;
+    private volatile Slots slots;
+    private volatile long writeCount;
+
+    public RingBufferSeries(String name, int capacity) {
+        if(capacity <= 0)
+            throw new IllegalArgumentException("Series capacity must be positive: " + capacity);
+
+        int size = Integer.highestOneBit(capacity);
+        if(size < capacity) size <<= 1;
+
+        this.name = name;
+        this.capacity = size;
+        this.slots = new Slots(Math.min(size, INITIAL_SLOTS));
+    }
+
+    public void append(long timestampNanos, double value) {
+        long count = writeCount;
+        Slots current = slots;
+        if(count == current.size() && current.size() < capacity) current = grow(current);
+
+        int slot = (int) (count & current.mask);
+        current.timestamps[slot] = timestampNanos;
+        current.values[slot] = value;
+        writeCount = count + 1;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return (int) Math.min(writeCount, capacity());
+    }
+
+    public boolean isEmpty() {
+        return writeCount == 0;
+    }
+
+    /**
+     * Total number of samples ever appended, including evicted ones
+     */
+    public long getWriteCount() {
+        return writeCount;
+    }
+
+    /**
+     * Whether this series still holds everything from {@code fromNanos} on, either because
+     * nothing was evicted yet or because the oldest retained sample is older than it
+     */
+    public boolean covers(long fromNanos) {
+        long count = writeCount;
+        if(count <= capacity) return true;
+
+        Slots current = slots;
+        return current.timestamps[slotOf(current, count, 0)] <= fromNanos;
+    }
+
+    /**
+     * Timestamp at the given position, where 0 is the oldest retained sample
+     */
+    public long timestampAt(int index) {
+        long count = writeCount;
+        Slots current = slots;
+        return current.timestamps[slotOf(current, count, index)];
+    }
+
+    /**
+     * Value at the given position, where 0 is the oldest retained sample
+     */
+    public double valueAt(int index) {
+        long count = writeCount;
+        Slots current = slots;
+        return current.values[slotOf(current, count, index)];
+    }
+
+    public long lastTimestamp() {
+        long count = writeCount;
+        Slots current = slots;
+        return count == 0 ? 0L : current.timestamps[(int) ((count - 1) & current.mask)];
+    }
+
+    public double lastValue() {
+        long count = writeCount;
+        Slots current = slots;
+        return count == 0 ? Double.NaN : current.values[(int) ((count - 1) & current.mask)];
+    }
+
+    /**
+     * Visit every retained sample with {@code fromNanos <= timestamp < toNanos}, oldest first.
+     *
+     * @return the number of samples visited
+     */
+    public int scan(long fromNanos, long toNanos, SampleVisitor visitor) {
+        long count = writeCount;
+        Slots current = slots;
+        int size = (int) Math.min(count, capacity);
+        boolean full = current.size() == capacity;
+        long position = Math.max(0, count - capacity) + lowerBound(current, count, size, fromNanos);
+        int visited = 0;
+
+        for(; position < count; position++) {
+            int slot = (int) (position & current.mask);
+            long timestamp = current.timestamps[slot];
+            double value = current.values[slot];
+
+            if(full) {
+                long overwritten = overwrittenBefore();
+                if(position < overwritten) {
+                    position = overwritten - 1;
+                    continue;
+                }
+
+                // the binary search may have read overwritten slots and started too early
+                if(timestamp < fromNanos) continue;
+            }
+
+            if(timestamp >= toNanos) break;
+
+            visitor.accept(timestamp, value);
+            visited++;
+        }
+
+        return visited;
+    }
+
+    /**
+     * Copy samples with {@code fromNanos <= timestamp < toNanos} into the given arrays, oldest first.
+     *
+     * @return the number of samples copied, bounded by the length of the shorter array
+     */
+    public int copyRange(long fromNanos, long toNanos, long[] timestampsOut, double[] valuesOut) {
+        long count = writeCount;
+        Slots current = slots;
+        int size = (int) Math.min(count, capacity);
+        int limit = Math.min(timestampsOut.length, valuesOut.length);
+        boolean full = current.size() == capacity;
+        long position = Math.max(0, count - capacity) + lowerBound(current, count, size, fromNanos);
+        int copied = 0;
+
+        for(; position < count && copied < limit; position++) {
+            int slot = (int) (position & current.mask);
+            long timestamp = current.timestamps[slot];
+            double value = current.values[slot];
+
+            if(full) {
+                long overwritten = overwrittenBefore();
+                if(position < overwritten) {
+                    position = overwritten - 1;
+                    continue;
+                }
+
+                if(timestamp < fromNanos) continue;
+            }
+
+            if(timestamp >= toNanos) break;
+
+            timestampsOut[copied] = timestamp;
+            valuesOut[copied] = value;
+            copied++;
+        }
+
+        return copied;
+    }
+
+    /**
+     * Per-second change from the oldest sample at most {@code windowNanos} before the latest one up to the latest
+     * one, or between the last two samples when the window is 0. NaN with fewer than two samples.
+     */
+    public double rate(long windowNanos) {
+        while(true) {
+            long count = writeCount;
+            Slots current = slots;
+            int size = (int) Math.min(count, capacity);
+            if(size < 2) return Double.NaN;
+
+            long[] timestamps = current.timestamps;
+            int last = slotOf(current, count, size - 1);
+            int index = windowNanos <= 0 ? size - 2 : Math.min(lowerBound(current, count, size, timestamps[last] - windowNanos), size - 2);
+            int first = slotOf(current, count, index);
+            long elapsed = timestamps[last] - timestamps[first];
+            double change = current.values[last] - current.values[first];
+
+            // the oldest sample read was overwritten meanwhile, read again from the new oldest
+            if(current.size() == capacity && Math.max(0, count - capacity) + index < overwrittenBefore()) continue;
+
+            return elapsed <= 0 ? Double.NaN : change * 1e9 / elapsed;
+        }
+    }
+
+    /**
+     * Double the slots while the ring has not wrapped yet, so every sample keeps its index and readers holding
+     * the previous arrays still see a consistent prefix
+     */
+    private Slots grow(Slots current) {
+        int size = current.size();
+        Slots next = new Slots(Math.min(size << 1, capacity));
+        System.arraycopy(current.timestamps, 0, next.timestamps, 0, size);
+        System.arraycopy(current.values, 0, next.values, 0, size);
+
+        slots = next;
+        return next;
+    }
+
+    private int lowerBound(Slots current, long count, int size, long timestampNanos) {
+        int low = 0;
+        int high = size;
+
+        while(low < high) {
+            int mid = (low + high) >>> 1;
+            if(current.timestamps[slotOf(current, count, mid)] < timestampNanos) low = mid + 1;
+            else high = mid;
+        }
+
+        return low;
+    }
+
+    /**
+     * Position, counted from the first append, before which samples may already be overwritten. The fence keeps
+     * the slot reads before it from being reordered after the write count read.
+     */
+    private long overwrittenBefore() {
+        VarHandle.loadLoadFence();
+
+        // the writer overwrites position writeCount - capacity before it publishes the new write count
+        return writeCount - capacity + 1;
+    }
+
+    private int slotOf(Slots current, long count, int index) {
+        long oldest = Math.max(0, count - capacity);
+        return (int) ((oldest + index) & current.mask);
+    }
+
+    private static final class Slots {
+        final long[] timestamps;
+        final double[] values;
+        final int mask;
+
+        Slots(int size) {
+            this.timestamps = new long[size];
+            this.values = new double[size];
+            this.mask = size - 1;
+        }
+
+        int size() {
+            return mask + 1;
+        }
+    }
+}
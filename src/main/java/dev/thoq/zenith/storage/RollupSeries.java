@@ -0,0 +1,183 @@
+package dev.thoq.zenith.storage;
+
+/**
+ * Bounded ring of downsampled buckets for one metric at one {@link RollupTier}.
+ * Each bucket keeps min, max, sum, count and last; samples are folded in as they arrive, so the
+ * newest bucket is always the one still being filled.
+ * <p>
+ * Like {@link RingBufferSeries}, a rollup allocates its buckets on demand up to the capacity and has a
+ * single writer and any number of readers.
+ */
+public final class RollupSeries {
+    private static final int INITIAL_BUCKETS = 16;
+
+    private final RollupTier tier;
+    private final long widthNanos;
+    private final int capacity;
+    private final int retainedBuckets;
+    private volatile Buckets buckets;
+    private volatile long writeCount;
+
+    public RollupSeries(RollupTier tier, int capacity) {
+        if(tier.isRaw())
+            throw new IllegalArgumentException("Raw samples are kept in a RingBufferSeries");
+        if(capacity <= 0)
+            throw new IllegalArgumentException("Rollup capacity must be positive: " + capacity);
+
+        int size = Integer.highestOneBit(capacity);
+        if(size < capacity) size <<= 1;
+
+        this.tier = tier;
+        this.widthNanos = tier.getWidthNanos();
+        this.capacity = size;
+        this.retainedBuckets = capacity;
+        this.buckets = new Buckets(Math.min(size, INITIAL_BUCKETS));
+    }
+
+    public void add(long timestampNanos, double value) {
+        if(Double.isNaN(value)) return;
+
+        long count = writeCount;
+        Buckets current = buckets;
+
+        if(count > 0) {
+            int slot = (int) ((count - 1) & current.mask);
+            long open = current.bucketStarts[slot];
+
+            if(timestampNanos < open) return;
+            if(timestampNanos - open < widthNanos) {
+                if(value < current.mins[slot]) current.mins[slot] = value;
+                if(value > current.maxs[slot]) current.maxs[slot] = value;
+                current.sums[slot] += value;
+                current.lasts[slot] = value;
+                current.counts[slot]++;
+
+                // re-publish so readers observe the updated open bucket
+                writeCount = count;
+                return;
+            }
+        }
+
+        if(count == current.size() && current.size() < capacity) current = grow(current);
+
+        int slot = (int) (count & current.mask);
+        current.bucketStarts[slot] = timestampNanos - Math.floorMod(timestampNanos, widthNanos);
+        current.mins[slot] = value;
+        current.maxs[slot] = value;
+        current.sums[slot] = value;
+        current.lasts[slot] = value;
+        current.counts[slot] = 1;
+        writeCount = count + 1;
+    }
+
+    public RollupTier getTier() {
+        return tier;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return (int) Math.min(writeCount, capacity());
+    }
+
+    /**
+     * Whether a sample at {@code timestampNanos} is within the configured retention once time reaches
+     * {@code nowNanos}. The ring is rounded up to a power of two and may hold older buckets for a while, those
+     * are not counted on.
+     */
+    public boolean retains(long timestampNanos, long nowNanos) {
+        return nowNanos - timestampNanos < retainedBuckets * widthNanos;
+    }
+
+    /**
+     * Whether this rollup still holds everything from {@code fromNanos} on, either because
+     * nothing was evicted yet or because the oldest retained bucket is older than it
+     */
+    public boolean covers(long fromNanos) {
+        long count = writeCount;
+        if(count <= capacity) return true;
+
+        Buckets current = buckets;
+        return current.bucketStarts[slotOf(current, count, 0)] <= fromNanos;
+    }
+
+    /**
+     * Visit every retained bucket starting in {@code [fromNanos, toNanos)}, oldest first.
+     *
+     * @return the number of buckets visited
+     */
+    public int scan(long fromNanos, long toNanos, RollupVisitor visitor) {
+        long count = writeCount;
+        Buckets current = buckets;
+        int size = (int) Math.min(count, capacity);
+        long from = fromNanos - Math.floorMod(fromNanos, widthNanos);
+        int low = 0;
+        int high = size;
+
+        while(low < high) {
+            int mid = (low + high) >>> 1;
+            if(current.bucketStarts[slotOf(current, count, mid)] < from) low = mid + 1;
+            else high = mid;
+        }
+
+        int visited = 0;
+        for(int index = low; index < size; index++) {
+            int slot = slotOf(current, count, index);
+            long start = current.bucketStarts[slot];
+            if(start >= toNanos) break;
+
+            visitor.accept(start, current.mins[slot], current.maxs[slot], current.sums[slot], current.counts[slot], current.lasts[slot]);
+            visited++;
+        }
+
+        return visited;
+    }
+
+    /**
+     * Double the buckets while the ring has not wrapped yet, so every bucket keeps its index
+     */
+    private Buckets grow(Buckets current) {
+        int size = current.size();
+        Buckets next = new Buckets(Math.min(size << 1, capacity));
+        System.arraycopy(current.bucketStarts, 0, next.bucketStarts, 0, size);
+        System.arraycopy(current.mins, 0, next.mins, 0, size);
+        System.arraycopy(current.maxs, 0, next.maxs, 0, size);
+        System.arraycopy(current.sums, 0, next.sums, 0, size);
+        System.arraycopy(current.lasts, 0, next.lasts, 0, size);
+        System.arraycopy(current.counts, 0, next.counts, 0, size);
+
+        buckets = next;
+        return next;
+    }
+
+    private int slotOf(Buckets current, long count, int index) {
+        long oldest = Math.max(0, count - capacity);
+        return (int) ((oldest + index) & current.mask);
+    }
+
+    private static final class Buckets {
+        final long[] bucketStarts;
+        final double[] mins;
+        final double[] maxs;
+        final double[] sums;
+        final double[] lasts;
+        final long[] counts;
+        final int mask;
+
+        Buckets(int size) {
+            this.bucketStarts = new long[size];
+            this.mins = new double[size];
+            this.maxs = new double[size];
+            this.sums = new double[size];
+            this.lasts = new double[size];
+            this.counts = new long[size];
+            this.mask = size - 1;
+        }
+
+        int size() {
+            return mask + 1;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package dev.thoq.zenith.storage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolutions metric history is kept at. {@link #RAW} is the ring buffer of individual samples,
+ * every other tier holds pre-aggregated buckets of a fixed width.
+ */
+public enum RollupTier {
+    RAW("raw", 0),
+    TEN_SECONDS("10s", TimeUnit.SECONDS.toNanos(10)),
+    ONE_MINUTE("1m", TimeUnit.MINUTES.toNanos(1)),
+    ONE_HOUR("1h", TimeUnit.HOURS.toNanos(1));
+
+    private final String label;
+    private final long widthNanos;
+
+    RollupTier(String label, long widthNanos) {
+        this.label = label;
+        this.widthNanos = widthNanos;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getWidthNanos() {
+        return widthNanos;
+    }
+
+    public boolean isRaw() {
+        return this == RAW;
+    }
+}
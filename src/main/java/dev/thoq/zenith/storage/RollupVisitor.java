@@ -0,0 +1,9 @@
+package dev.thoq.zenith.storage;
+
+/**
+ * Callback for rollup scans, invoked once per bucket in time order
+ */
+@FunctionalInterface
+public interface RollupVisitor {
+    void accept(long bucketStartNanos, double min, double max, double sum, long count, double last);
+}
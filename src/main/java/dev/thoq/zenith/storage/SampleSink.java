@@ -0,0 +1,16 @@
+package dev.thoq.zenith.storage;
+
+/**
+ * Receives every sample appended to a {@link MetricHistory}, e.g. to persist it
+ */
+public interface SampleSink {
+    /**
+     * Resolve the stable id samples of the given metric are written under
+     */
+    int register(String metric);
+
+    /**
+     * Hand a sample over to the sink, implementations must not block
+     */
+    void write(int metricId, long timestampNanos, double value);
+}
@@ -0,0 +1,9 @@
+package dev.thoq.zenith.storage;
+
+/**
+ * Callback for range scans, invoked once per sample in timestamp order
+ */
+@FunctionalInterface
+public interface SampleVisitor {
+    void accept(long timestampNanos, double value);
+}
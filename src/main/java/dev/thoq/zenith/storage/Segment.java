@@ -0,0 +1,208 @@
+package dev.thoq.zenith.storage;
+
+import dev.thoq.zenith.storage.codec.GorillaEncoder;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One memory-mapped, append-only segment file of Gorilla-compressed chunks.
+ * <p>
+ * Layout: a 16 byte header ({@code magic, version, start nanos}) followed by chunk records of
+ * {@code count (int), metric id (int), byte length (int), first timestamp (long), last timestamp (long)}
+ * and the encoded bytes. The count is written last and unwritten space is zero, so a zero count marks the
+ * end of the data even after a crash; sealed segments are truncated to their data.
+ */
+final class Segment {
+    static final int MAGIC = 0x5A4E5448;
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 16;
+    static final int CHUNK_HEADER_BYTES = 28;
+    private final Path path;
+    private final long startNanos;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int writeOffset;
+    private int limit;
+    private int chunks;
+    private long lastTimestamp;
+    private boolean sealed;
+
+    private Segment(Path path, long startNanos, FileChannel channel, MappedByteBuffer buffer, boolean sealed) {
+        this.path = path;
+        this.startNanos = startNanos;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.sealed = sealed;
+        this.writeOffset = HEADER_BYTES;
+        this.limit = buffer.capacity();
+        this.lastTimestamp = startNanos;
+    }
+
+    /**
+     * Create and map a new writable segment of the given size
+     */
+    static Segment create(Path path, long startNanos, int sizeBytes) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, sizeBytes);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, startNanos);
+
+        return new Segment(path, startNanos, channel, buffer, false);
+    }
+
+    /**
+     * Map an existing segment and walk its chunk headers to find the end of the data. Sealed segments are
+     * mapped read-only; the tail segment is mapped writable so appending can resume where it left off.
+     */
+    static Segment open(Path path, boolean tail) throws IOException {
+        FileChannel channel = tail
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+        long size = channel.size();
+
+        if(size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Segment " + path + " has an invalid size");
+        }
+
+        MappedByteBuffer buffer = channel.map(tail ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Segment " + path + " has an unknown format");
+        }
+
+        Segment segment = new Segment(path, buffer.getLong(8), channel, buffer, !tail);
+        for(int offset = segment.firstChunk(); offset >= 0; offset = segment.nextChunk(offset)) {
+            segment.chunks++;
+            segment.lastTimestamp = Math.max(segment.lastTimestamp, segment.chunkLastTimestamp(offset));
+            segment.writeOffset = segment.chunkDataOffset(offset) + segment.chunkLength(offset);
+        }
+
+        return segment;
+    }
+
+    /**
+     * Write the encoder's chunk under the given metric id
+     *
+     * @return false if the segment is sealed or has no room left for the chunk
+     */
+    boolean append(int metricId, GorillaEncoder encoder) {
+        int length = encoder.sizeBytes();
+        if(sealed || (long) writeOffset + CHUNK_HEADER_BYTES + length > limit) return false;
+
+        int offset = writeOffset;
+        buffer.putInt(offset + 4, metricId);
+        buffer.putInt(offset + 8, length);
+        buffer.putLong(offset + 12, encoder.firstTimestamp());
+        buffer.putLong(offset + 20, encoder.lastTimestamp());
+        encoder.writeTo(buffer, offset + CHUNK_HEADER_BYTES);
+        buffer.putInt(offset, encoder.count());
+
+        writeOffset = offset + CHUNK_HEADER_BYTES + length;
+        lastTimestamp = Math.max(lastTimestamp, encoder.lastTimestamp());
+        chunks++;
+
+        return true;
+    }
+
+    /**
+     * Offset of the first chunk, or -1 if the segment holds none
+     */
+    int firstChunk() {
+        return chunkAt(HEADER_BYTES);
+    }
+
+    /**
+     * Offset of the chunk after the one at {@code offset}, or -1 at the end of the data
+     */
+    int nextChunk(int offset) {
+        return chunkAt(chunkDataOffset(offset) + chunkLength(offset));
+    }
+
+    int chunkCount(int offset) {
+        return buffer.getInt(offset);
+    }
+
+    int chunkMetricId(int offset) {
+        return buffer.getInt(offset + 4);
+    }
+
+    int chunkLength(int offset) {
+        return buffer.getInt(offset + 8);
+    }
+
+    long chunkFirstTimestamp(int offset) {
+        return buffer.getLong(offset + 12);
+    }
+
+    long chunkLastTimestamp(int offset) {
+        return buffer.getLong(offset + 20);
+    }
+
+    int chunkDataOffset(int offset) {
+        return offset + CHUNK_HEADER_BYTES;
+    }
+
+    MappedByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Flush the written chunks and truncate the file to them, after which the segment is read-only
+     */
+    void seal() throws IOException {
+        if(sealed) return;
+
+        buffer.force();
+        channel.truncate(writeOffset);
+        limit = writeOffset;
+        sealed = true;
+    }
+
+    void force() {
+        if(!sealed) buffer.force();
+    }
+
+    void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    int getChunks() {
+        return chunks;
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    long lastTimestamp() {
+        return lastTimestamp;
+    }
+
+    private int chunkAt(int offset) {
+        if(offset + (long) CHUNK_HEADER_BYTES > limit) return -1;
+
+        int length = buffer.getInt(offset + 8);
+        if(buffer.getInt(offset) <= 0 || length < 0 || offset + (long) CHUNK_HEADER_BYTES + length > limit) return -1;
+
+        return offset;
+    }
+}
@@ -0,0 +1,158 @@
+package dev.thoq.zenith.storage;
+
+import dev.thoq.zenith.model.types.MonitorData;
+import dev.thoq.zenith.model.types.Timestamps;
+import dev.thoq.zenith.model.types.impl.SeriesMonitorDataImpl;
+import dev.thoq.zenith.model.types.impl.TimestampsImpl;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory history of every metric: one bounded {@link RingBufferSeries} of recent raw samples per metric name,
+ * a {@link CompressedSeries} archive of older raw samples, and a {@link RollupSeries} per {@link RollupTier},
+ * each with its own retention.
+ */
+@ApplicationScoped
+public class SeriesStore {
+    private final Map<String, MetricHistory> histories = new ConcurrentHashMap<>();
+    private final MonitorData latest = new SeriesMonitorDataImpl(this);
+    private final AtomicLong generation = new AtomicLong();
+
+    @Inject
+    DiskMetricStore diskMetricStore;
+
+    @ConfigProperty(name = "zenith.storage.capacity", defaultValue = "36000")
+    int capacity;
+
+    @ConfigProperty(name = "zenith.storage.retention.compressed", defaultValue = "P1D")
+    Duration compressedRetention;
+
+    @ConfigProperty(name = "zenith.storage.chunk-samples", defaultValue = "1024")
+    int chunkSamples;
+
+    @ConfigProperty(name = "zenith.storage.retention.10s", defaultValue = "PT6H")
+    Duration tenSecondRetention;
+
+    @ConfigProperty(name = "zenith.storage.retention.1m", defaultValue = "P7D")
+    Duration oneMinuteRetention;
+
+    @ConfigProperty(name = "zenith.storage.retention.1h", defaultValue = "P90D")
+    Duration oneHourRetention;
+
+    @PostConstruct
+    void init() {
+        diskMetricStore.open();
+        diskMetricStore.replay(this);
+    }
+
+    /**
+     * Get the history for the given metric, creating it on first use
+     */
+    public MetricHistory history(String metric) {
+        MetricHistory existing = histories.get(metric);
+        if(existing != null) return existing;
+
+        MetricHistory history = histories.computeIfAbsent(metric, this::createHistory);
+        generation.incrementAndGet();
+        return history;
+    }
+
+    /**
+     * Drop the history of the given metric, e.g. once the device it describes is gone. Samples that were
+     * already persisted stay on disk until they expire.
+     */
+    public void remove(String metric) {
+        if(histories.remove(metric) != null)
+            generation.incrementAndGet();
+    }
+
+    /**
+     * Changes whenever a series is created or removed, so holders of series references know when to resolve them again
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Get the history for the given metric, or null if nothing was recorded for it yet
+     */
+    public MetricHistory findHistory(String metric) {
+        return histories.get(metric);
+    }
+
+    /**
+     * Get the raw series for the given metric, creating it on first use
+     */
+    public RingBufferSeries series(String metric) {
+        return history(metric).getRaw();
+    }
+
+    /**
+     * Get the raw series for the given metric, or null if nothing was recorded for it yet
+     */
+    public RingBufferSeries find(String metric) {
+        MetricHistory history = histories.get(metric);
+        return history == null ? null : history.getRaw();
+    }
+
+    public void append(String metric, long timestampNanos, double value) {
+        history(metric).append(timestampNanos, value);
+    }
+
+    public Collection<MetricHistory> getHistories() {
+        return histories.values();
+    }
+
+    public Collection<RingBufferSeries> getSeries() {
+        List<RingBufferSeries> series = new ArrayList<>(histories.size());
+        for(MetricHistory history : histories.values())
+            series.add(history.getRaw());
+
+        return series;
+    }
+
+    /**
+     * Read-only view of the timestamps recorded for the given metric
+     */
+    public Timestamps getTimestamps(String metric) {
+        return new TimestampsImpl(series(metric));
+    }
+
+    /**
+     * Read-only view of the latest value of every metric, grouped as {@code cpu.usage -> cpu: {usage: value}}
+     */
+    public MonitorData getLatest() {
+        return latest;
+    }
+
+    private MetricHistory createHistory(String metric) {
+        RollupSeries[] rollups = {
+                new RollupSeries(RollupTier.TEN_SECONDS, bucketsFor(RollupTier.TEN_SECONDS, tenSecondRetention)),
+                new RollupSeries(RollupTier.ONE_MINUTE, bucketsFor(RollupTier.ONE_MINUTE, oneMinuteRetention)),
+                new RollupSeries(RollupTier.ONE_HOUR, bucketsFor(RollupTier.ONE_HOUR, oneHourRetention))
+        };
+
+        // sized for 10 Hz sampling, faster series simply keep a shorter compressed history
+        long chunkNanos = chunkSamples * TimeUnit.MILLISECONDS.toNanos(100);
+        int maxChunks = (int) Math.min(compressedRetention.toNanos() / chunkNanos + 1, Integer.MAX_VALUE >> 1);
+        CompressedSeries archive = new CompressedSeries(chunkSamples, compressedRetention.toNanos(), maxChunks);
+
+        return new MetricHistory(metric, capacity, archive, rollups, diskMetricStore.isEnabled() ? diskMetricStore : null);
+    }
+
+    private static int bucketsFor(RollupTier tier, Duration retention) {
+        long buckets = retention.toNanos() / tier.getWidthNanos();
+        return (int) Math.max(1, Math.min(buckets, Integer.MAX_VALUE >> 1));
+    }
+}
@@ -0,0 +1,48 @@
+package dev.thoq.zenith.storage.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Big-endian bit stream over a region of a {@link ByteBuffer}, read with absolute gets so the
+ * buffer's position is never touched and mapped segments can be decoded in place
+ */
+public final class BitReader {
+    private ByteBuffer buffer;
+    private int offset;
+    private int end;
+    private long accumulator;
+    private int available;
+
+    public void reset(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.end = offset + length;
+        this.accumulator = 0;
+        this.available = 0;
+    }
+
+    /**
+     * Read {@code count} bits (at most 64) as an unsigned value
+     */
+    public long readBits(int count) {
+        if(count == 0) return 0;
+
+        if(count > 32) {
+            long high = readBits(count - 32);
+            return (high << 32) | readBits(32);
+        }
+
+        while(available < count) {
+            int next = offset < end ? buffer.get(offset++) & 0xFF : 0;
+            accumulator = (accumulator << 8) | next;
+            available += 8;
+        }
+
+        available -= count;
+        return (accumulator >>> available) & ((1L << count) - 1);
+    }
+
+    public boolean readBit() {
+        return readBits(1) != 0;
+    }
+}
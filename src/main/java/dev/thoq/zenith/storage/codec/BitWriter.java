@@ -0,0 +1,86 @@
+package dev.thoq.zenith.storage.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Big-endian bit stream over a reusable, growable byte array
+ */
+public final class BitWriter {
+    private byte[] bytes;
+    private long accumulator;
+    private int pending;
+    private int length;
+
+    public BitWriter(int initialCapacity) {
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    /**
+     * Write the low {@code count} bits of {@code value}, most significant first
+     */
+    public void writeBits(long value, int count) {
+        if(count == 0) return;
+
+        if(count > 32) {
+            writeBits(value >>> 32, count - 32);
+            writeBits(value, 32);
+            return;
+        }
+
+        accumulator = (accumulator << count) | (value & ((1L << count) - 1));
+        pending += count;
+
+        while(pending >= 8) {
+            pending -= 8;
+            put((byte) (accumulator >>> pending));
+        }
+    }
+
+    public void writeBit(boolean bit) {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * Number of bytes the stream occupies, including a partially filled last byte
+     */
+    public int sizeBytes() {
+        return length + (pending > 0 ? 1 : 0);
+    }
+
+    public long sizeBits() {
+        return (long) length * 8 + pending;
+    }
+
+    public void reset() {
+        accumulator = 0;
+        pending = 0;
+        length = 0;
+    }
+
+    public byte[] toByteArray() {
+        byte[] copy = Arrays.copyOf(bytes, sizeBytes());
+        if(pending > 0) copy[length] = lastByte();
+
+        return copy;
+    }
+
+    /**
+     * Copy the stream into the given buffer at an absolute offset without moving its position
+     */
+    public void writeTo(ByteBuffer buffer, int offset) {
+        buffer.put(offset, bytes, 0, length);
+        if(pending > 0) buffer.put(offset + length, lastByte());
+    }
+
+    private byte lastByte() {
+        return (byte) (accumulator << (8 - pending));
+    }
+
+    private void put(byte value) {
+        if(length == bytes.length)
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+
+        bytes[length++] = value;
+    }
+}
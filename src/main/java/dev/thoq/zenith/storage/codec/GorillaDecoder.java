@@ -0,0 +1,95 @@
+package dev.thoq.zenith.storage.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming decoder for chunks written by {@link GorillaEncoder}. A decoder is reusable and
+ * yields one sample per {@link #next()} without materialising the chunk.
+ */
+public final class GorillaDecoder {
+    private final BitReader reader = new BitReader();
+    private int remaining;
+    private boolean first;
+    private long micros;
+    private long delta;
+    private long bits;
+    private int leading;
+    private int trailing;
+
+    public GorillaDecoder reset(byte[] chunk, int count) {
+        return reset(ByteBuffer.wrap(chunk), 0, chunk.length, count);
+    }
+
+    public GorillaDecoder reset(ByteBuffer buffer, int offset, int length, int count) {
+        reader.reset(buffer, offset, length);
+        remaining = count;
+        first = true;
+        micros = 0;
+        delta = 0;
+        bits = 0;
+        leading = 0;
+        trailing = 0;
+        return this;
+    }
+
+    /**
+     * Advance to the next sample
+     *
+     * @return false once the chunk is exhausted
+     */
+    public boolean next() {
+        if(remaining == 0) return false;
+        remaining--;
+
+        if(first) {
+            first = false;
+            micros = reader.readBits(64);
+            bits = reader.readBits(64);
+            return true;
+        }
+
+        delta += readDeltaOfDelta();
+        micros += delta;
+        readValue();
+
+        return true;
+    }
+
+    public long timestamp() {
+        return micros * GorillaEncoder.PRECISION_NANOS;
+    }
+
+    public double value() {
+        return Double.longBitsToDouble(bits);
+    }
+
+    private long readDeltaOfDelta() {
+        if(!reader.readBit()) return 0;
+        if(!reader.readBit()) return signExtend(reader.readBits(7), 7);
+        if(!reader.readBit()) return signExtend(reader.readBits(9), 9);
+        if(!reader.readBit()) return signExtend(reader.readBits(12), 12);
+        if(!reader.readBit()) return signExtend(reader.readBits(32), 32);
+
+        return reader.readBits(64);
+    }
+
+    private void readValue() {
+        if(!reader.readBit()) return;
+
+        if(reader.readBit()) {
+            leading = (int) reader.readBits(5);
+            int significant = (int) reader.readBits(6);
+            if(significant == 0) significant = 64;
+
+            trailing = 64 - leading - significant;
+        }
+
+        int significant = 64 - leading - trailing;
+        bits ^= reader.readBits(significant) << trailing;
+    }
+
+    private static long signExtend(long value, int width) {
+        int shift = 64 - width;
+        return (value << shift) >> shift;
+    }
+}
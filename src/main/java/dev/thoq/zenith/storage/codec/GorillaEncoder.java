@@ -0,0 +1,144 @@
+package dev.thoq.zenith.storage.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming encoder for one chunk of (timestamp, value) samples, after Facebook's Gorilla paper.
+ * <p>
+ * Timestamps are stored at microsecond precision as delta-of-deltas in variable-width buckets, values as
+ * the XOR against the previous value with leading/trailing zero elision. Slowly changing series such as
+ * CPU% or byte counters need a few bits per sample instead of sixteen bytes.
+ */
+public final class GorillaEncoder {
+    static final long PRECISION_NANOS = 1_000;
+    private final BitWriter writer;
+    private int count;
+    private long firstTimestamp;
+    private long lastTimestamp;
+    private long previousMicros;
+    private long previousDelta;
+    private long previousBits;
+    private int previousLeading;
+    private int previousTrailing;
+
+    public GorillaEncoder() {
+        this(256);
+    }
+
+    public GorillaEncoder(int initialCapacityBytes) {
+        this.writer = new BitWriter(initialCapacityBytes);
+        reset();
+    }
+
+    public void append(long timestampNanos, double value) {
+        long micros = Math.floorDiv(timestampNanos, PRECISION_NANOS);
+        long bits = Double.doubleToRawLongBits(value);
+
+        if(count == 0) {
+            writer.writeBits(micros, 64);
+            writer.writeBits(bits, 64);
+            firstTimestamp = timestampNanos;
+        } else {
+            long delta = micros - previousMicros;
+            writeDeltaOfDelta(delta - previousDelta);
+            writeValue(bits);
+            previousDelta = delta;
+        }
+
+        previousMicros = micros;
+        previousBits = bits;
+        lastTimestamp = timestampNanos;
+        count++;
+    }
+
+    private void writeDeltaOfDelta(long deltaOfDelta) {
+        if(deltaOfDelta == 0) {
+            writer.writeBits(0b0, 1);
+        } else if(deltaOfDelta >= -64 && deltaOfDelta < 64) {
+            writer.writeBits(0b10, 2);
+            writer.writeBits(deltaOfDelta, 7);
+        } else if(deltaOfDelta >= -256 && deltaOfDelta < 256) {
+            writer.writeBits(0b110, 3);
+            writer.writeBits(deltaOfDelta, 9);
+        } else if(deltaOfDelta >= -2048 && deltaOfDelta < 2048) {
+            writer.writeBits(0b1110, 4);
+            writer.writeBits(deltaOfDelta, 12);
+        } else if(deltaOfDelta >= Integer.MIN_VALUE && deltaOfDelta <= Integer.MAX_VALUE) {
+            writer.writeBits(0b11110, 5);
+            writer.writeBits(deltaOfDelta, 32);
+        } else {
+            writer.writeBits(0b11111, 5);
+            writer.writeBits(deltaOfDelta, 64);
+        }
+    }
+
+    private void writeValue(long bits) {
+        long xor = bits ^ previousBits;
+
+        if(xor == 0) {
+            writer.writeBits(0b0, 1);
+            return;
+        }
+
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+
+        if(previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+            writer.writeBits(0b10, 2);
+            writer.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            return;
+        }
+
+        int significant = 64 - leading - trailing;
+        writer.writeBits(0b11, 2);
+        writer.writeBits(leading, 5);
+        writer.writeBits(significant == 64 ? 0 : significant, 6);
+        writer.writeBits(xor >>> trailing, significant);
+
+        previousLeading = leading;
+        previousTrailing = trailing;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public long firstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public long lastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public int sizeBytes() {
+        return writer.sizeBytes();
+    }
+
+    public byte[] toByteArray() {
+        return writer.toByteArray();
+    }
+
+    public void writeTo(ByteBuffer buffer, int offset) {
+        writer.writeTo(buffer, offset);
+    }
+
+    /**
+     * Start a new chunk, keeping the allocated buffer
+     */
+    public void reset() {
+        writer.reset();
+        count = 0;
+        firstTimestamp = 0;
+        lastTimestamp = 0;
+        previousMicros = 0;
+        previousDelta = 0;
+        previousBits = 0;
+        previousLeading = -1;
+        previousTrailing = 0;
+    }
+}
@@ -1,12 +1,13 @@
 package dev.thoq.zenith.util;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
+import dev.thoq.zenith.model.enums.LogOverflowPolicy;
+import dev.thoq.zenith.util.log.ConsoleLogOutput;
+import dev.thoq.zenith.util.log.LogWriter;
+
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
-@SuppressWarnings({"unused", "StringBufferReplaceableByString", "SameParameterValue"})
+@SuppressWarnings({"unused", "SameParameterValue"})
 public record LoggingUtils(String className) {
     public static final String RESET = "\u001B[0m";
     public static final String BLACK = "\u001B[30m";
@@ -64,9 +65,9 @@ public record LoggingUtils(String className) {
         }
     }
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
     private static final ConcurrentMap<String, LoggingUtils> loggerCache = new ConcurrentHashMap<>();
+    private static volatile int minimumLevel = Level.INFO.ordinal();
+    private static volatile LogWriter writer;
 
     /**
      * Get a logger instance for the given class
@@ -86,162 +87,128 @@ public record LoggingUtils(String className) {
      * Log a trace message
      */
     public void trace(String message, Object... args) {
-        log(Level.TRACE, message, args);
+        log(Level.TRACE, null, message, args);
     }
 
     /**
      * Log a debug message
      */
     public void debug(String message, Object... args) {
-        log(Level.DEBUG, message, args);
+        log(Level.DEBUG, null, message, args);
     }
 
     /**
      * Log an info message
      */
     public void info(String message, Object... args) {
-        log(Level.INFO, message, args);
+        log(Level.INFO, null, message, args);
     }
 
     /**
      * Log a fix me message
      */
     public void fixme(String message, Object... args) {
-        log(Level.FIXME, message, args);
+        log(Level.FIXME, null, message, args);
     }
 
     /**
      * Log a warning message
      */
     public void warn(String message, Object... args) {
-        log(Level.WARN, message, args);
+        log(Level.WARN, null, message, args);
     }
 
     /**
      * Log an error message
      */
     public void error(String message, Object... args) {
-        log(Level.ERROR, message, args);
+        log(Level.ERROR, null, message, args);
     }
 
     /**
      * Log an error message with throwable
      */
     public void error(String message, Throwable throwable, Object... args) {
-        log(Level.ERROR, message, args);
-        if(throwable != null) {
-            logStackTrace(throwable);
-        }
+        log(Level.ERROR, throwable, message, args);
     }
 
     /**
      * Log a fatal message
      */
     public void fatal(String message, Object... args) {
-        log(Level.FATAL, message, args);
+        log(Level.FATAL, null, message, args);
     }
 
     /**
      * Log a fatal message with throwable
      */
     public void fatal(String message, Throwable throwable, Object... args) {
-        log(Level.FATAL, message, args);
-
-        if(throwable != null)
-            logStackTrace(throwable);
+        log(Level.FATAL, throwable, message, args);
     }
 
     /**
-     * Main logging method
+     * Whether messages at the given level are written, check this before building expensive arguments
      */
-    private void log(Level level, String message, Object... args) {
-        LocalDateTime now = LocalDateTime.now();
-        String threadName = Thread.currentThread().getName();
-
-        String formattedMessage = formatMessage(message, args);
-        StringBuilder logEntry = new StringBuilder();
-
-        logEntry.append(BRIGHT_BLACK)
-                .append(now.format(DATE_FORMATTER))
-                .append(RESET)
-                .append(" ");
-
-        logEntry.append(BRIGHT_WHITE)
-                .append(now.format(TIME_FORMATTER))
-                .append(RESET)
-                .append(" ");
-
-        logEntry.append("[")
-                .append(level.getColor())
-                .append(level.getLabel())
-                .append(RESET)
-                .append("] ");
-
-        logEntry.append("[")
-                .append(CYAN)
-                .append(String.format("%-20s", truncateOrPad(threadName, 20)))
-                .append(RESET)
-                .append("] ");
-
-        logEntry.append(BLUE)
-                .append(String.format("%-20s", truncateOrPad(className, 20)))
-                .append(RESET)
-                .append(" - ");
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() >= minimumLevel;
+    }
 
-        logEntry.append(formattedMessage);
+    /**
+     * Set the lowest level that is written, anything below it is discarded before formatting
+     */
+    public static void setLevel(Level level) {
+        minimumLevel = level.ordinal();
+    }
 
-        System.out.println(logEntry);
+    public static Level getLevel() {
+        return Level.values()[minimumLevel];
     }
 
     /**
-     * Format message with arguments
+     * Replace the backend every logger writes through, closing the previous one once it has written out
+     * everything it had queued
      */
-    private String formatMessage(String message, Object... args) {
-        if(args == null || args.length == 0) {
-            return message;
+    public static void setWriter(LogWriter logWriter) {
+        LogWriter previous;
+        synchronized(LoggingUtils.class) {
+            previous = writer;
+            writer = logWriter;
         }
 
-        try {
-            return String.format(message, args);
-        } catch(Exception e) {
-            return message + " " + Arrays.toString(args);
-        }
+        if(previous != null) previous.close();
     }
 
     /**
-     * Truncate or pad string to specified length
+     * Flush and stop the current backend, later messages are written on the calling thread
      */
-    private String truncateOrPad(String str, int length) {
-        if(str.length() > length) {
-            return str.substring(0, length - 3) + "...";
-        } else {
-            return str;
-        }
+    public static void shutdown() {
+        LogWriter current = writer;
+        if(current != null) current.stop();
     }
 
     /**
-     * Log stack trace for throwable
+     * Main logging method, events below the configured level are dropped before anything is formatted
      */
-    private void logStackTrace(Throwable throwable) {
-        StringBuilder stackTrace = new StringBuilder();
-        stackTrace.append(RED).append("Exception: ").append(throwable.getClass().getSimpleName())
-                .append(": ").append(throwable.getMessage()).append(RESET);
-        System.out.println(stackTrace);
+    private void log(Level level, Throwable throwable, String message, Object... args) {
+        if(level.ordinal() < minimumLevel) return;
+
+        writer().write(level, className, message, args, throwable);
+    }
 
-        StackTraceElement[] elements = throwable.getStackTrace();
-        for(StackTraceElement element : elements)
-            System.out.println(BRIGHT_BLACK + "    at " + element.toString() + RESET);
+    private static LogWriter writer() {
+        LogWriter current = writer;
+        if(current != null) return current;
 
-        if(throwable.getCause() != null) {
-            System.out.println(YELLOW + "Caused by:" + RESET);
-            logStackTrace(throwable.getCause());
+        synchronized(LoggingUtils.class) {
+            if(writer == null) writer = new LogWriter(new ConsoleLogOutput(), 8192, LogOverflowPolicy.DROP);
+            return writer;
         }
     }
 
     /**
      * Enable or disable colors (for environments that don't support ANSI)
      */
-    private static boolean colorsEnabled = true;
+    private static volatile boolean colorsEnabled = true;
 
     public static void setColorsEnabled(boolean enabled) {
         colorsEnabled = enabled;
@@ -0,0 +1,60 @@
+package dev.thoq.zenith.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation-free wall clock with nanosecond resolution, anchored to the epoch once at startup
+ */
+public final class TimeUtils {
+    private static final long BASE_EPOCH_NANOS = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    private static final long BASE_NANO_TIME = System.nanoTime();
+
+    private TimeUtils() {
+    }
+
+    /**
+     * Current time in nanoseconds since the epoch
+     */
+    public static long epochNanos() {
+        return BASE_EPOCH_NANOS + (System.nanoTime() - BASE_NANO_TIME);
+    }
+
+    /**
+     * Convert epoch nanoseconds to epoch milliseconds
+     */
+    public static long toEpochMillis(long epochNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(epochNanos);
+    }
+
+    /**
+     * Parse a duration such as {@code 500ms}, {@code 10s}, {@code 5m}, {@code 24h} or {@code 7d} into nanoseconds.
+     * A bare number is read as seconds.
+     *
+     * @throws IllegalArgumentException if the value is not a positive duration
+     */
+    public static long parseDurationNanos(String value) {
+        String text = value == null ? "" : value.trim().toLowerCase();
+        int split = 0;
+        while(split < text.length() && (Character.isDigit(text.charAt(split)) || text.charAt(split) == '.'))
+            split++;
+
+        if(split == 0)
+            throw new IllegalArgumentException("Invalid duration: " + value);
+
+        double amount = Double.parseDouble(text.substring(0, split));
+        TimeUnit unit = switch(text.substring(split)) {
+            case "ms" -> TimeUnit.MILLISECONDS;
+            case "", "s" -> TimeUnit.SECONDS;
+            case "m" -> TimeUnit.MINUTES;
+            case "h" -> TimeUnit.HOURS;
+            case "d" -> TimeUnit.DAYS;
+            default -> throw new IllegalArgumentException("Invalid duration unit: " + value);
+        };
+
+        long nanos = (long) (amount * unit.toNanos(1));
+        if(nanos <= 0)
+            throw new IllegalArgumentException("Duration must be positive: " + value);
+
+        return nanos;
+    }
+}
@@ -0,0 +1,23 @@
+package dev.thoq.zenith.util.log;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes each batch to standard output with a single call, so the stream's lock is taken once per batch
+ * rather than once per line.
+ */
+public final class ConsoleLogOutput implements LogOutput {
+    @Override
+    public void write(ByteBuffer bytes) {
+        PrintStream out = System.out;
+        out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        out.flush();
+        bytes.position(bytes.limit());
+    }
+
+    @Override
+    public void close() {
+        System.out.flush();
+    }
+}
@@ -0,0 +1,127 @@
+package dev.thoq.zenith.util.log;
+
+import dev.thoq.zenith.util.LoggingUtils;
+import dev.thoq.zenith.util.LoggingUtils.Level;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Renders log events into a caller-supplied {@link StringBuilder}. The date and time prefix is rebuilt only
+ * when the millisecond changes, and the wall clock is only converted to local time when the second does.
+ * Not thread safe.
+ */
+final class LogFormatter {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final int COLUMN_WIDTH = 20;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final StringBuilder prefix = new StringBuilder(64);
+    private String date;
+    private String time;
+    private long prefixSecond = Long.MIN_VALUE;
+    private long prefixMillis = Long.MIN_VALUE;
+    private boolean prefixColors;
+
+    void format(StringBuilder out, Level level, String logger, String thread, long millis,
+                String message, Object[] args, Throwable throwable, boolean colors) {
+        appendPrefix(out, millis, colors);
+
+        out.append('[');
+        color(out, level.getColor(), colors).append(level.getLabel());
+        reset(out, colors).append("] [");
+        appendColumn(color(out, LoggingUtils.CYAN, colors), thread);
+        reset(out, colors).append("] ");
+        appendColumn(color(out, LoggingUtils.BLUE, colors), logger);
+        reset(out, colors).append(" - ");
+
+        appendMessage(out, message, args);
+        out.append('\n');
+
+        if(throwable != null)
+            appendStackTrace(out, throwable, colors);
+    }
+
+    private void appendPrefix(StringBuilder out, long millis, boolean colors) {
+        if(millis != prefixMillis || colors != prefixColors) {
+            long second = Math.floorDiv(millis, 1000);
+            if(second != prefixSecond) {
+                LocalDateTime now = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), zone);
+                date = now.format(DATE_FORMATTER);
+                time = now.format(TIME_FORMATTER);
+                prefixSecond = second;
+            }
+
+            int fraction = (int) Math.floorMod(millis, 1000);
+            prefix.setLength(0);
+            color(prefix, LoggingUtils.BRIGHT_BLACK, colors).append(date);
+            reset(prefix, colors).append(' ');
+            color(prefix, LoggingUtils.BRIGHT_WHITE, colors).append(time).append('.')
+                    .append((char) ('0' + fraction / 100))
+                    .append((char) ('0' + fraction / 10 % 10))
+                    .append((char) ('0' + fraction % 10));
+            reset(prefix, colors).append(' ');
+
+            prefixMillis = millis;
+            prefixColors = colors;
+        }
+
+        out.append(prefix);
+    }
+
+    /**
+     * Append the value left aligned in a fixed width column, shortening it with an ellipsis if it doesn't fit
+     */
+    private static void appendColumn(StringBuilder out, String value) {
+        if(value.length() > COLUMN_WIDTH) {
+            out.append(value, 0, COLUMN_WIDTH - 3).append("...");
+            return;
+        }
+
+        out.append(value);
+        for(int i = value.length(); i < COLUMN_WIDTH; i++)
+            out.append(' ');
+    }
+
+    private static void appendMessage(StringBuilder out, String message, Object[] args) {
+        if(args == null || args.length == 0) {
+            out.append(message);
+            return;
+        }
+
+        try {
+            out.append(String.format(message, args));
+        } catch(Exception e) {
+            out.append(message).append(' ').append(Arrays.toString(args));
+        }
+    }
+
+    private static void appendStackTrace(StringBuilder out, Throwable throwable, boolean colors) {
+        color(out, LoggingUtils.RED, colors).append("Exception: ").append(throwable.getClass().getSimpleName())
+                .append(": ").append(throwable.getMessage());
+        reset(out, colors).append('\n');
+
+        for(StackTraceElement element : throwable.getStackTrace()) {
+            color(out, LoggingUtils.BRIGHT_BLACK, colors).append("    at ").append(element);
+            reset(out, colors).append('\n');
+        }
+
+        if(throwable.getCause() != null) {
+            color(out, LoggingUtils.YELLOW, colors).append("Caused by:");
+            reset(out, colors).append('\n');
+            appendStackTrace(out, throwable.getCause(), colors);
+        }
+    }
+
+    private static StringBuilder color(StringBuilder out, String color, boolean colors) {
+        return colors ? out.append(color) : out;
+    }
+
+    private static StringBuilder reset(StringBuilder out, boolean colors) {
+        return colors ? out.append(LoggingUtils.RESET) : out;
+    }
+}
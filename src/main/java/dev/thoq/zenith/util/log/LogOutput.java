@@ -0,0 +1,16 @@
+package dev.thoq.zenith.util.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Destination for formatted log lines, only ever written to by one thread at a time.
+ */
+public interface LogOutput {
+    /**
+     * Write every remaining byte of the buffer
+     */
+    void write(ByteBuffer bytes) throws IOException;
+
+    void close() throws IOException;
+}
@@ -0,0 +1,298 @@
+package dev.thoq.zenith.util.log;
+
+import dev.thoq.zenith.model.enums.LogOverflowPolicy;
+import dev.thoq.zenith.util.LoggingUtils;
+import dev.thoq.zenith.util.LoggingUtils.Level;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands log events from any thread to a single background thread that formats them and writes them to a
+ * {@link LogOutput} in batches. Events are copied into preallocated slots of a bounded ring, claimed with one
+ * CAS as in the alert queue, so logging never waits on I/O; what happens when the ring is full is decided by
+ * the {@link LogOverflowPolicy}. After {@link #stop()} events are written on the calling thread instead.
+ */
+public final class LogWriter {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final int MAX_BATCH_CHARS = 64 * 1024;
+
+    private final LogOutput output;
+    private final LogOverflowPolicy overflowPolicy;
+    private final Event[] events;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final int mask;
+    private final Thread worker;
+    private final Object writeLock = new Object();
+    private final LogFormatter formatter = new LogFormatter();
+    private final StringBuilder batch = new StringBuilder(8192);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private ByteBuffer bytes = ByteBuffer.allocate(16 * 1024);
+    private long head;
+    private long reportedDrops;
+    private volatile boolean running;
+
+    /**
+     * @param capacity number of events that can be waiting for the background thread, 0 to write every
+     *                 event synchronously on the calling thread
+     */
+    public LogWriter(LogOutput output, int capacity, LogOverflowPolicy overflowPolicy) {
+        this.output = output;
+        this.overflowPolicy = overflowPolicy;
+
+        int size = capacity <= 0 ? 0 : Integer.highestOneBit(Math.max(2, capacity));
+        if(size < capacity) size <<= 1;
+
+        this.events = new Event[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+
+        for(int i = 0; i < size; i++) {
+            events[i] = new Event();
+            sequences.set(i, i);
+        }
+
+        if(size == 0) {
+            this.worker = null;
+            return;
+        }
+
+        this.running = true;
+        this.worker = new Thread(this::drainLoop, "Zenith-Logger");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queue an event, safe to call from any thread
+     */
+    public void write(Level level, String logger, String message, Object[] args, Throwable throwable) {
+        String thread = Thread.currentThread().getName();
+        long millis = System.currentTimeMillis();
+
+        if(!running) {
+            writeNow(level, logger, thread, millis, message, args, throwable);
+            return;
+        }
+
+        while(!offer(level, logger, thread, millis, message, args, throwable)) {
+            // the background thread may be idling between polls, wake it up to make room
+            LockSupport.unpark(worker);
+
+            switch(overflowPolicy) {
+                case DROP -> {
+                    droppedEvents.incrementAndGet();
+                    return;
+                }
+                case SYNC -> {
+                    writeNow(level, logger, thread, millis, message, args, throwable);
+                    return;
+                }
+                case BLOCK -> {
+                    if(!running) {
+                        writeNow(level, logger, thread, millis, message, args, throwable);
+                        return;
+                    }
+
+                    LockSupport.parkNanos(FULL_PARK_NANOS);
+                }
+            }
+        }
+
+        // the writer may have been closed after the check above, don't leave the event behind
+        if(!running) drain();
+    }
+
+    /**
+     * Events discarded because the ring was full
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Write out everything still queued and stop the background thread, later events are written on the
+     * calling thread
+     */
+    public void stop() {
+        if(worker != null && running) {
+            running = false;
+            LockSupport.unpark(worker);
+
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch(InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Stop the background thread and close the output
+     */
+    public void close() {
+        stop();
+
+        synchronized(writeLock) {
+            try {
+                output.close();
+            } catch(IOException ex) {
+                System.err.println("Failed to close log output: " + ex.getMessage());
+            }
+        }
+    }
+
+    private boolean offer(Level level, String logger, String thread, long millis,
+                          String message, Object[] args, Throwable throwable) {
+        long position = tail.get();
+
+        while(true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+
+            if(difference == 0) {
+                if(tail.compareAndSet(position, position + 1)) {
+                    events[index].set(level, logger, thread, millis, message, args, throwable);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+
+                position = tail.get();
+            } else if(difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    private void drainLoop() {
+        while(running) {
+            if(!drain()) LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+
+        // producers that claimed a slot before seeing the flag still publish it, give them a moment
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        while(drain() || (head != tail.get() && System.nanoTime() < deadline))
+            Thread.onSpinWait();
+    }
+
+    /**
+     * Format and write every published event
+     *
+     * @return false if there was nothing to write
+     */
+    private boolean drain() {
+        synchronized(writeLock) {
+            boolean colors = LoggingUtils.areColorsEnabled();
+            boolean drained = false;
+            batch.setLength(0);
+
+            long dropped = droppedEvents.get();
+            if(dropped != reportedDrops) {
+                formatter.format(batch, Level.WARN, "LogWriter", worker.getName(), System.currentTimeMillis(),
+                        "Dropped %d log messages, the log buffer was full", new Object[]{dropped - reportedDrops},
+                        null, colors);
+                reportedDrops = dropped;
+            }
+
+            while(true) {
+                int index = (int) (head & mask);
+                if(sequences.get(index) != head + 1) break;
+
+                Event event = events[index];
+                formatter.format(batch, event.level, event.logger, event.thread, event.millis,
+                        event.message, event.args, event.throwable, colors);
+                event.clear();
+
+                sequences.set(index, head + mask + 1);
+                head++;
+                drained = true;
+
+                if(batch.length() >= MAX_BATCH_CHARS) {
+                    flush();
+                    batch.setLength(0);
+                }
+            }
+
+            flush();
+            return drained;
+        }
+    }
+
+    private void writeNow(Level level, String logger, String thread, long millis,
+                          String message, Object[] args, Throwable throwable) {
+        synchronized(writeLock) {
+            batch.setLength(0);
+            formatter.format(batch, level, logger, thread, millis, message, args, throwable,
+                    LoggingUtils.areColorsEnabled());
+            flush();
+        }
+    }
+
+    /**
+     * Encode the batch and hand it to the output, called with the write lock held
+     */
+    private void flush() {
+        if(batch.isEmpty()) return;
+
+        int needed = (int) (batch.length() * encoder.maxBytesPerChar()) + 1;
+        if(bytes.capacity() < needed)
+            bytes = ByteBuffer.allocate(Integer.highestOneBit(needed) << 1);
+
+        bytes.clear();
+        encoder.reset();
+        encoder.encode(CharBuffer.wrap(batch), bytes, true);
+        encoder.flush(bytes);
+        bytes.flip();
+
+        try {
+            output.write(bytes);
+        } catch(IOException ex) {
+            System.err.println("Failed to write log output: " + ex.getMessage());
+            System.err.print(batch);
+        }
+    }
+
+    private static final class Event {
+        private Level level;
+        private String logger;
+        private String thread;
+        private long millis;
+        private String message;
+        private Object[] args;
+        private Throwable throwable;
+
+        void set(Level level, String logger, String thread, long millis,
+                 String message, Object[] args, Throwable throwable) {
+            this.level = level;
+            this.logger = logger;
+            this.thread = thread;
+            this.millis = millis;
+            this.message = message;
+            this.args = args;
+            this.throwable = throwable;
+        }
+
+        void clear() {
+            this.logger = null;
+            this.thread = null;
+            this.message = null;
+            this.args = null;
+            this.throwable = null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package dev.thoq.zenith.util.log;
+
+import dev.thoq.zenith.model.enums.LogOverflowPolicy;
+import dev.thoq.zenith.util.LoggingUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Applies the {@code zenith.log.*} settings to {@link LoggingUtils}. Until {@link #apply()} runs, loggers
+ * write to the console through a default asynchronous backend.
+ */
+@ApplicationScoped
+public class LoggingConfiguration {
+    private static final LoggingUtils logger = LoggingUtils.getLogger(LoggingConfiguration.class);
+
+    @ConfigProperty(name = "zenith.log.level", defaultValue = "INFO")
+    LoggingUtils.Level level;
+
+    /**
+     * Colors default to on for the console and off for log files, which would otherwise fill up with escape codes
+     */
+    @ConfigProperty(name = "zenith.log.colors")
+    Optional<Boolean> colors;
+
+    @ConfigProperty(name = "zenith.log.async", defaultValue = "true")
+    boolean async;
+
+    @ConfigProperty(name = "zenith.log.buffer-size", defaultValue = "8192")
+    int bufferSize;
+
+    @ConfigProperty(name = "zenith.log.overflow", defaultValue = "DROP")
+    LogOverflowPolicy overflowPolicy;
+
+    @ConfigProperty(name = "zenith.log.target", defaultValue = "console")
+    String target;
+
+    @ConfigProperty(name = "zenith.log.file.path", defaultValue = "logs/zenith.log")
+    String filePath;
+
+    @ConfigProperty(name = "zenith.log.file.max-size", defaultValue = "10485760")
+    long maxFileSize;
+
+    @ConfigProperty(name = "zenith.log.file.max-files", defaultValue = "5")
+    int maxFiles;
+
+    public void apply() {
+        LoggingUtils.setLevel(level);
+
+        LogOutput output = null;
+        if("file".equalsIgnoreCase(target)) {
+            try {
+                output = new RollingFileLogOutput(Path.of(filePath), maxFileSize, maxFiles);
+            } catch(IOException ex) {
+                logger.error("Failed to open log file %s, logging to the console", ex, filePath);
+            }
+        } else if(!"console".equalsIgnoreCase(target)) {
+            logger.warn("Unknown log target %s, logging to the console", target);
+        }
+
+        if(output == null) output = new ConsoleLogOutput();
+
+        LoggingUtils.setColorsEnabled(colors.orElse(output instanceof ConsoleLogOutput));
+        LoggingUtils.setWriter(new LogWriter(output, async ? bufferSize : 0, overflowPolicy));
+        logger.debug("Logging at %s to %s, async %s with %s overflow", level, target, async, overflowPolicy);
+    }
+}
@@ -0,0 +1,68 @@
+package dev.thoq.zenith.util.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends to a log file through a {@link FileChannel} and rolls it over once it reaches {@code maxBytes}:
+ * {@code zenith.log} becomes {@code zenith.log.1}, older files shift up by one and anything past
+ * {@code maxFiles} is deleted.
+ */
+public final class RollingFileLogOutput implements LogOutput {
+    private final Path path;
+    private final long maxBytes;
+    private final int maxFiles;
+    private FileChannel channel;
+    private long size;
+
+    public RollingFileLogOutput(Path path, long maxBytes, int maxFiles) throws IOException {
+        this.path = path;
+        this.maxBytes = maxBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+
+        Path parent = path.toAbsolutePath().getParent();
+        if(parent != null) Files.createDirectories(parent);
+
+        open();
+    }
+
+    @Override
+    public void write(ByteBuffer bytes) throws IOException {
+        if(size > 0 && size + bytes.remaining() > maxBytes) rotate();
+
+        while(bytes.hasRemaining())
+            size += channel.write(bytes);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = channel.size();
+    }
+
+    private void rotate() throws IOException {
+        channel.close();
+
+        Files.deleteIfExists(rolled(maxFiles));
+        for(int index = maxFiles - 1; index >= 1; index--) {
+            Path source = rolled(index);
+            if(Files.exists(source)) Files.move(source, rolled(index + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        Files.move(path, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        open();
+    }
+
+    private Path rolled(int index) {
+        return path.resolveSibling(path.getFileName() + "." + index);
+    }
+}
@@ -0,0 +1,154 @@
+package dev.thoq.zenith.service.alert.rule;
+
+import dev.thoq.zenith.model.enums.AlertSeverity;
+import dev.thoq.zenith.model.enums.ThresholdState;
+import dev.thoq.zenith.storage.SeriesStore;
+import dev.thoq.zenith.storage.SeriesStoreFixture;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuleParserTest {
+    private static final long SECOND = 1_000_000_000L;
+    private static final double GIB = 1024.0 * 1024 * 1024;
+
+    private final RuleParser parser = new RuleParser(AlertSeverity.NORMAL);
+    private final SeriesStore store = SeriesStoreFixture.create();
+    private long now = SECOND;
+
+    @Test
+    void parsesUnitsKeywordsAndSeverity() {
+        ThresholdRule rule = parser.parse("rx", "network.rx_bytes:eth0 > 800MB/s for 30s severity CRITICAL");
+
+        assertEquals(AlertSeverity.CRITICAL, rule.getSeverity());
+        assertEquals(List.of("network.rx_bytes:eth0"), inputNames());
+    }
+
+    @Test
+    void sharesInputsBetweenRules() {
+        parser.parse("a", "cpu.usage > 90");
+        parser.parse("b", "cpu.usage > 95 or memory.available < 5%");
+
+        assertEquals(List.of("cpu.usage", "memory.available", "memory.total"), inputNames());
+    }
+
+    @Test
+    void rejectsMalformedRules() {
+        assertRejected("cpu.usage >", "a threshold");
+        assertRejected("cpu.usage = 3", "unknown operator");
+        assertRejected("avg(cpu.usage) > 3", "unknown function");
+        assertRejected("rate(network.rx_bytes:eth0) > 800MB/s", "compare network.rx_bytes:eth0 directly");
+        assertRejected("cpu.usage > 90 every 5s", "expected for, hysteresis or severity");
+        assertRejected("(cpu.usage > 90", "')'");
+        assertRejected("usage > 90%", "group.stat");
+        assertRejected("filesystem.used > 90%", "mount point");
+    }
+
+    @Test
+    void comparesLatestValue() {
+        ThresholdRule rule = parser.parse("cpu", "cpu.usage > 90");
+
+        append("cpu.usage", 50);
+        assertEquals(ThresholdState.INACTIVE, evaluate(rule));
+
+        append("cpu.usage", 95);
+        assertEquals(ThresholdState.FIRING, evaluate(rule));
+    }
+
+    @Test
+    void dividesPercentThresholdsByTheTotal() {
+        ThresholdRule rule = parser.parse("disk", "filesystem.used:/home > 90%");
+
+        append("filesystem.used:/home", 80 * GIB);
+        append("filesystem.total:/home", 100 * GIB);
+        assertEquals(ThresholdState.INACTIVE, evaluate(rule));
+
+        append("filesystem.used:/home", 95 * GIB);
+        assertEquals(ThresholdState.FIRING, evaluate(rule));
+    }
+
+    @Test
+    void percentThresholdDoesNotHoldWithoutATotal() {
+        ThresholdRule used = parser.parse("disk", "filesystem.used:/home > 90%");
+        ThresholdRule available = parser.parse("memory", "memory.available < 5% and swap.used > 50%");
+
+        append("filesystem.used:/home", 95 * GIB);
+        append("memory.available", 1);
+        append("swap.used", 1 * GIB);
+
+        assertEquals(ThresholdState.INACTIVE, evaluate(used));
+        assertEquals(ThresholdState.INACTIVE, evaluate(available));
+    }
+
+    @Test
+    void comparesPercentageSeriesAsTheyAre() {
+        ThresholdRule rule = parser.parse("cpu", "cpu.usage > 90%");
+
+        assertEquals(List.of("cpu.usage"), inputNames());
+
+        append("cpu.usage", 95);
+        assertEquals(ThresholdState.FIRING, evaluate(rule));
+    }
+
+    @Test
+    void waitsOutForDurationAndAppliesHysteresis() {
+        ThresholdRule rule = parser.parse("cpu", "cpu.usage > 90 for 2s hysteresis 5");
+
+        append("cpu.usage", 95);
+        assertEquals(ThresholdState.PENDING, evaluate(rule));
+
+        now += 3 * SECOND;
+        append("cpu.usage", 88);
+        assertEquals(ThresholdState.FIRING, evaluate(rule));
+
+        append("cpu.usage", 84);
+        assertEquals(ThresholdState.INACTIVE, evaluate(rule));
+    }
+
+    @Test
+    void stopsHoldingWhenTheSeriesIsRemoved() {
+        ThresholdRule rule = parser.parse("rx", "network.rx_bytes:veth0 > 1MB/s");
+
+        append("network.rx_bytes:veth0", 5e6);
+        assertEquals(ThresholdState.FIRING, evaluate(rule));
+
+        store.remove("network.rx_bytes:veth0");
+        assertEquals(ThresholdState.INACTIVE, evaluate(rule));
+    }
+
+    private void append(String series, double value) {
+        store.append(series, now, value);
+        now += SECOND / 10;
+    }
+
+    private ThresholdState evaluate(ThresholdRule rule) {
+        for(RuleInput input : parser.getInputs()) {
+            if(!input.refresh(store)) continue;
+
+            for(ThresholdRule dependent : input.getRules())
+                dependent.markDirty();
+        }
+
+        rule.evaluate(now);
+        return rule.getState();
+    }
+
+    private List<String> inputNames() {
+        List<String> names = new ArrayList<>();
+        for(RuleInput input : parser.getInputs())
+            names.add(input.getSeries());
+
+        names.sort(String::compareTo);
+        return names;
+    }
+
+    private void assertRejected(String expression, String message) {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> parser.parse("bad", expression));
+        assertTrue(error.getMessage().contains(message), error.getMessage());
+    }
+}
@@ -0,0 +1,24 @@
+package dev.thoq.zenith.storage;
+
+import java.time.Duration;
+
+/**
+ * In-memory {@link SeriesStore} with the default retention and persistence off, for tests outside this package
+ */
+public final class SeriesStoreFixture {
+    private SeriesStoreFixture() {
+    }
+
+    public static SeriesStore create() {
+        SeriesStore store = new SeriesStore();
+        store.diskMetricStore = new DiskMetricStore();
+        store.capacity = 36000;
+        store.compressedRetention = Duration.ofDays(1);
+        store.chunkSamples = 1024;
+        store.tenSecondRetention = Duration.ofHours(6);
+        store.oneMinuteRetention = Duration.ofDays(7);
+        store.oneHourRetention = Duration.ofDays(90);
+
+        return store;
+    }
+}
@@ -0,0 +1,237 @@
+package dev.thoq.zenith.storage.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GorillaCodecTest {
+    private static final long SECOND = 1_000_000_000L;
+    private static final long START = 1_700_000_000L * SECOND;
+
+    @Test
+    void roundTripsSpecialValuesBitExact() {
+        double[] values = {
+                Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -0.0, 0.0, -0.0,
+                Double.MIN_VALUE, -Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, Double.MIN_NORMAL,
+                Double.longBitsToDouble(0x7ff8_0000_0000_0001L), Double.longBitsToDouble(0xfff0_0000_dead_beefL),
+                1.0, Double.NaN, Double.NaN, Double.POSITIVE_INFINITY
+        };
+
+        assertRoundTrip(regularTimestamps(values.length, SECOND), values);
+    }
+
+    @Test
+    void roundTripsCounterLikeValues() {
+        Random random = new Random(1);
+        double[] values = new double[4096];
+        double counter = 1L << 40;
+
+        for(int i = 0; i < values.length; i++) {
+            counter += random.nextInt(1500);
+            values[i] = counter;
+        }
+
+        assertRoundTrip(regularTimestamps(values.length, SECOND), values);
+    }
+
+    @Test
+    void roundTripsFlatValuesInAboutTwoBitsPerSample() {
+        double[] values = new double[4096];
+        Arrays.fill(values, 42.5);
+
+        GorillaEncoder encoder = assertRoundTrip(regularTimestamps(values.length, SECOND), values);
+        // 16 bytes for the first sample and up to 8 for the first delta, then one bit for the timestamp and one for the value
+        assertTrue(encoder.sizeBytes() <= 24 + (values.length * 2 + 7) / 8, "flat series took " + encoder.sizeBytes() + " bytes");
+    }
+
+    @Test
+    void roundTripsNoisyValues() {
+        Random random = new Random(2);
+        double[] values = new double[4096];
+
+        for(int i = 0; i < values.length; i++)
+            values[i] = i % 2 == 0 ? random.nextDouble() * 100.0 : Double.longBitsToDouble(random.nextLong());
+
+        assertRoundTrip(regularTimestamps(values.length, SECOND), values);
+    }
+
+    @Test
+    void roundTripsJitteredTimestamps() {
+        Random random = new Random(3);
+        long[] timestamps = new long[4096];
+        long timestamp = START;
+
+        for(int i = 0; i < timestamps.length; i++) {
+            // a 100ms probe that runs up to 5ms early or late, at the codec's microsecond precision
+            timestamp += 100_000_000L + (random.nextInt(10_001) - 5_000) * 1_000L;
+            timestamps[i] = timestamp;
+        }
+
+        assertRoundTrip(timestamps, constantValues(timestamps.length, 1.0));
+    }
+
+    @Test
+    void roundTripsLargeGaps() {
+        long[] gaps = {
+                1_000L, SECOND, 0, 0, SECOND, 3_600 * SECOND, 1_000L, 30L * 86_400 * SECOND, SECOND,
+                20L * 365 * 86_400 * SECOND, 1_000L, 2_147_483_647_000L, 2_147_483_648_000L, 1_000L
+        };
+        long[] timestamps = new long[gaps.length + 1];
+        timestamps[0] = START;
+
+        for(int i = 0; i < gaps.length; i++)
+            timestamps[i + 1] = timestamps[i] + gaps[i];
+
+        assertRoundTrip(timestamps, constantValues(timestamps.length, 7.0));
+    }
+
+    @Test
+    void roundTripsTimestampsBeforeTheEpoch() {
+        long[] timestamps = {-5 * SECOND, -SECOND, 0, SECOND, 2 * SECOND};
+
+        assertRoundTrip(timestamps, constantValues(timestamps.length, 3.0));
+    }
+
+    @Test
+    void truncatesTimestampsToMicroseconds() {
+        GorillaEncoder encoder = new GorillaEncoder();
+        encoder.append(START + 999, 1.0);
+        encoder.append(START + SECOND + 1_999, 2.0);
+
+        GorillaDecoder decoder = new GorillaDecoder().reset(encoder.toByteArray(), encoder.count());
+        assertTrue(decoder.next());
+        assertEquals(START, decoder.timestamp());
+        assertTrue(decoder.next());
+        assertEquals(START + SECOND + 1_000, decoder.timestamp());
+        assertFalse(decoder.next());
+    }
+
+    @Test
+    void decodesEveryChunkOfAResetEncoder() {
+        Random random = new Random(4);
+        int chunkSamples = 1024;
+        int total = chunkSamples * 3 + 17;
+        GorillaEncoder encoder = new GorillaEncoder(64);
+        List<byte[]> chunks = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        long[] timestamps = regularTimestamps(total, SECOND);
+        double[] values = new double[total];
+
+        for(int i = 0; i < total; i++) {
+            values[i] = random.nextGaussian();
+            encoder.append(timestamps[i], values[i]);
+
+            if(encoder.count() == chunkSamples || i == total - 1) {
+                int first = i + 1 - encoder.count();
+                assertEquals(timestamps[first], encoder.firstTimestamp());
+                assertEquals(timestamps[i], encoder.lastTimestamp());
+
+                chunks.add(encoder.toByteArray());
+                counts.add(encoder.count());
+                encoder.reset();
+            }
+        }
+
+        assertTrue(encoder.isEmpty());
+        assertEquals(4, chunks.size());
+
+        GorillaDecoder decoder = new GorillaDecoder();
+        int index = 0;
+
+        for(int chunk = 0; chunk < chunks.size(); chunk++) {
+            decoder.reset(chunks.get(chunk), counts.get(chunk));
+            while(decoder.next()) {
+                assertSample(index, timestamps[index], values[index], decoder);
+                index++;
+            }
+        }
+
+        assertEquals(total, index);
+    }
+
+    @Test
+    void decodesAChunkAtAnOffsetInASharedBuffer() {
+        long[] timestamps = regularTimestamps(100, SECOND);
+        double[] values = new double[timestamps.length];
+        for(int i = 0; i < values.length; i++)
+            values[i] = i * 0.25;
+
+        GorillaEncoder encoder = new GorillaEncoder();
+        for(int i = 0; i < timestamps.length; i++)
+            encoder.append(timestamps[i], values[i]);
+
+        int offset = 13;
+        ByteBuffer buffer = ByteBuffer.allocate(offset + encoder.sizeBytes() + 8);
+        for(int i = 0; i < buffer.capacity(); i++)
+            buffer.put(i, (byte) 0xff);
+        encoder.writeTo(buffer, offset);
+
+        GorillaDecoder decoder = new GorillaDecoder().reset(buffer, offset, encoder.sizeBytes(), encoder.count());
+        for(int i = 0; i < timestamps.length; i++) {
+            assertTrue(decoder.next());
+            assertSample(i, timestamps[i], values[i], decoder);
+        }
+
+        assertFalse(decoder.next());
+    }
+
+    @Test
+    void decodesSingleSampleAndEmptyChunks() {
+        GorillaEncoder encoder = new GorillaEncoder();
+        GorillaDecoder decoder = new GorillaDecoder();
+
+        assertFalse(decoder.reset(encoder.toByteArray(), encoder.count()).next());
+
+        encoder.append(START, -0.0);
+        decoder.reset(encoder.toByteArray(), encoder.count());
+        assertTrue(decoder.next());
+        assertSample(0, START, -0.0, decoder);
+        assertFalse(decoder.next());
+    }
+
+    private static GorillaEncoder assertRoundTrip(long[] timestamps, double[] values) {
+        GorillaEncoder encoder = new GorillaEncoder();
+        for(int i = 0; i < timestamps.length; i++)
+            encoder.append(timestamps[i], values[i]);
+
+        assertEquals(timestamps.length, encoder.count());
+
+        GorillaDecoder decoder = new GorillaDecoder().reset(encoder.toByteArray(), encoder.count());
+        for(int i = 0; i < timestamps.length; i++) {
+            assertTrue(decoder.next(), "chunk ended after " + i + " samples");
+            assertSample(i, timestamps[i], values[i], decoder);
+        }
+
+        assertFalse(decoder.next());
+        return encoder;
+    }
+
+    private static void assertSample(int index, long timestamp, double value, GorillaDecoder decoder) {
+        assertEquals(timestamp, decoder.timestamp(), "timestamp of sample " + index);
+        assertEquals(Double.doubleToRawLongBits(value), Double.doubleToRawLongBits(decoder.value()),
+                "bits of sample " + index + ", expected " + value + " but got " + decoder.value());
+    }
+
+    private static long[] regularTimestamps(int count, long intervalNanos) {
+        long[] timestamps = new long[count];
+        for(int i = 0; i < count; i++)
+            timestamps[i] = START + i * intervalNanos;
+
+        return timestamps;
+    }
+
+    private static double[] constantValues(int count, double value) {
+        double[] values = new double[count];
+        Arrays.fill(values, value);
+
+        return values;
+    }
+}